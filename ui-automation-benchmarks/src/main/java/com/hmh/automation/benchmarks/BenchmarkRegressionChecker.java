@@ -0,0 +1,160 @@
+package com.hmh.automation.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * Runs the benchmarks and compares each score (average time per operation,
+ * lower is better) with a baseline file. A benchmark more than
+ * {@code threshold} slower than its baseline fails the run with exit code 1,
+ * and so does a benchmark without a baseline, so a missing or stale baseline
+ * file cannot pass the check. {@code --record true} adds the scores of
+ * benchmarks without a baseline to the file instead; {@code --update}
+ * rewrites every baseline with the current scores.
+ * <p>
+ * Usage (normally through {@code mvn verify} in this module):
+ *
+ * <pre>
+ * BenchmarkRegressionChecker [--baseline file] [--threshold 0.25] [--include regex] [--record true] [--update]
+ * </pre>
+ */
+public class BenchmarkRegressionChecker {
+
+	public static void main(String[] args) throws IOException, RunnerException {
+		Map<String, String> options = new LinkedHashMap<>();
+		for (int i = 0; i < args.length; i++) {
+			if ("--update".equals(args[i])) {
+				options.put("update", "true");
+			} else if (args[i].startsWith("--") && i + 1 < args.length) {
+				options.put(args[i].substring(2), args[++i]);
+			} else {
+				throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+			}
+		}
+		Path baselineFile = Paths.get(options.getOrDefault("baseline", "benchmark-baseline.properties"));
+		double threshold = Double.parseDouble(options.getOrDefault("threshold", "0.25"));
+
+		Options jmh = new OptionsBuilder().include(FrameworkBenchmarks.class.getName() + "\\."
+				+ options.getOrDefault("include", ".*")).warmupIterations(3).warmupTime(TimeValue.seconds(1))
+				.measurementIterations(5).measurementTime(TimeValue.seconds(1)).build();
+		Map<String, Double> scores = scores(new Runner(jmh).run());
+
+		Map<String, Double> baseline = load(baselineFile);
+		List<String> regressions = findRegressions(baseline, scores, threshold);
+		List<String> missing = new ArrayList<>(scores.keySet());
+		missing.removeAll(baseline.keySet());
+		for (Map.Entry<String, Double> score : scores.entrySet()) {
+			Double base = baseline.get(score.getKey());
+			System.out.printf("%-70s %12.3f us/op   baseline %s%n", score.getKey(), score.getValue(),
+					base == null ? "(new)" : String.format("%.3f", base));
+		}
+
+		boolean update = options.containsKey("update");
+		boolean record = update || Boolean.parseBoolean(options.getOrDefault("record", "false"));
+		if (record) {
+			for (Map.Entry<String, Double> score : scores.entrySet()) {
+				if (update || !baseline.containsKey(score.getKey())) {
+					baseline.put(score.getKey(), score.getValue());
+				}
+			}
+			save(baselineFile, baseline);
+		}
+
+		boolean failed = false;
+		if (!record) {
+			for (String name : missing) {
+				System.out.println("NO BASELINE " + name + " in " + baselineFile.toAbsolutePath()
+						+ " (run with --record true to record it)");
+				failed = true;
+			}
+		}
+		if (!update) {
+			for (String regression : regressions) {
+				System.out.println("REGRESSION " + regression);
+				failed = true;
+			}
+		}
+		if (failed) {
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * @return a description of every benchmark whose score is more than
+	 *         threshold slower than its baseline
+	 */
+	static List<String> findRegressions(Map<String, Double> baseline, Map<String, Double> scores,
+			double threshold) {
+		List<String> regressions = new ArrayList<>();
+		for (Map.Entry<String, Double> score : scores.entrySet()) {
+			Double base = baseline.get(score.getKey());
+			if (base != null && base > 0 && score.getValue() > base * (1 + threshold)) {
+				regressions.add(String.format("%s: %.3f us/op, %.0f%% slower than the baseline %.3f us/op",
+						score.getKey(), score.getValue(), (score.getValue() / base - 1) * 100, base));
+			}
+		}
+		return regressions;
+	}
+
+	/**
+	 * @return the score of every benchmark, keyed by method name and parameters
+	 */
+	private static Map<String, Double> scores(Collection<RunResult> results) {
+		Map<String, Double> scores = new TreeMap<>();
+		for (RunResult result : results) {
+			String name = result.getParams().getBenchmark();
+			name = name.substring(name.lastIndexOf('.') + 1);
+			for (String param : result.getParams().getParamsKeys()) {
+				name += "[" + param + "=" + result.getParams().getParam(param) + "]";
+			}
+			scores.put(name, result.getPrimaryResult().getScore());
+		}
+		return scores;
+	}
+
+	private static Map<String, Double> load(Path file) throws IOException {
+		Map<String, Double> baseline = new TreeMap<>();
+		if (!Files.isRegularFile(file)) {
+			return baseline;
+		}
+		Properties properties = new Properties();
+		try (InputStream in = Files.newInputStream(file)) {
+			properties.load(in);
+		}
+		for (String name : properties.stringPropertyNames()) {
+			baseline.put(name, Double.parseDouble(properties.getProperty(name)));
+		}
+		return baseline;
+	}
+
+	private static void save(Path file, Map<String, Double> baseline) throws IOException {
+		Properties properties = new Properties();
+		for (Map.Entry<String, Double> entry : baseline.entrySet()) {
+			properties.setProperty(entry.getKey(), String.valueOf(entry.getValue()));
+		}
+		if (file.toAbsolutePath().getParent() != null) {
+			Files.createDirectories(file.toAbsolutePath().getParent());
+		}
+		try (OutputStream out = Files.newOutputStream(file)) {
+			properties.store(out, "Benchmark baseline in microseconds per operation");
+		}
+	}
+}
@@ -0,0 +1,528 @@
+package com.hmh.automation.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openqa.selenium.Alert;
+import org.openqa.selenium.By;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WindowType;
+import org.openqa.selenium.logging.LogEntries;
+import org.openqa.selenium.logging.Logs;
+
+/**
+ * In-memory WebDriver for measuring the framework without a browser.
+ * {@link #get(String)} really fetches the page over HTTP, so navigation costs
+ * a local round-trip; element lookups return stub elements, scripts return a
+ * canned todo list of {@code rows} entries and screenshots return a fixed PNG.
+ * {@link #manage()}, {@link #navigate()} and {@link #switchTo()} return stubs
+ * that accept every call, so framework code that resets or sizes the browser
+ * runs unchanged.
+ */
+public class FakeDriver implements WebDriver, JavascriptExecutor, TakesScreenshot {
+
+	private final byte[] screenshot;
+	private final List<Map<String, Object>> snapshotRows = new ArrayList<>();
+	private final List<WebElement> rowElements = new ArrayList<>();
+	private final FakeOptions options = new FakeOptions();
+	private String currentUrl;
+	private String pageSource = "";
+
+	/**
+	 * @param rows       number of todo rows the driver pretends to render
+	 * @param screenshot PNG bytes returned by every screenshot
+	 */
+	public FakeDriver(int rows, byte[] screenshot) {
+		this.screenshot = screenshot;
+		for (int i = 0; i < rows; i++) {
+			Map<String, Object> row = new LinkedHashMap<>();
+			row.put("text", "todo " + i);
+			row.put("completed", i % 2 == 0);
+			row.put("visible", true);
+			snapshotRows.add(row);
+			rowElements.add(new FakeElement(this));
+		}
+	}
+
+	@Override
+	public void get(String url) {
+		try {
+			HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+			try (InputStream in = connection.getInputStream()) {
+				ByteArrayOutputStream body = new ByteArrayOutputStream();
+				byte[] chunk = new byte[8192];
+				int read;
+				while ((read = in.read(chunk)) != -1) {
+					body.write(chunk, 0, read);
+				}
+				pageSource = new String(body.toByteArray(), StandardCharsets.UTF_8);
+			}
+			currentUrl = url;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public String getCurrentUrl() {
+		return currentUrl;
+	}
+
+	@Override
+	public String getTitle() {
+		return "TodoMVC";
+	}
+
+	@Override
+	public List<WebElement> findElements(By by) {
+		return rowElements;
+	}
+
+	@Override
+	public WebElement findElement(By by) {
+		return new FakeElement(this);
+	}
+
+	@Override
+	public String getPageSource() {
+		return pageSource;
+	}
+
+	@Override
+	public void close() {
+	}
+
+	@Override
+	public void quit() {
+	}
+
+	@Override
+	public Set<String> getWindowHandles() {
+		return Collections.singleton("main");
+	}
+
+	@Override
+	public String getWindowHandle() {
+		return "main";
+	}
+
+	@Override
+	public TargetLocator switchTo() {
+		return new FakeTargetLocator(this);
+	}
+
+	@Override
+	public Navigation navigate() {
+		return new FakeNavigation(this);
+	}
+
+	@Override
+	public Options manage() {
+		return options;
+	}
+
+	/**
+	 * Answers the seeding script with the number of seeded titles and every
+	 * other script with the canned todo rows.
+	 */
+	@Override
+	public Object executeScript(String script, Object... args) {
+		if (args.length == 2 && args[0] instanceof List) {
+			return (long) ((List<?>) args[0]).size();
+		}
+		return snapshotRows;
+	}
+
+	@Override
+	public Object executeAsyncScript(String script, Object... args) {
+		return executeScript(script, args);
+	}
+
+	@Override
+	public <X> X getScreenshotAs(OutputType<X> target) {
+		return target.convertFromPngBytes(screenshot);
+	}
+
+	/**
+	 * Element that accepts every interaction and finds stub children.
+	 */
+	static final class FakeElement implements WebElement {
+		private final SearchContext owner;
+
+		FakeElement(SearchContext owner) {
+			this.owner = owner;
+		}
+
+		@Override
+		public void click() {
+		}
+
+		@Override
+		public void submit() {
+		}
+
+		@Override
+		public void sendKeys(CharSequence... keysToSend) {
+		}
+
+		@Override
+		public void clear() {
+		}
+
+		@Override
+		public String getTagName() {
+			return "li";
+		}
+
+		@Override
+		@SuppressWarnings("deprecation")
+		public String getAttribute(String name) {
+			return "";
+		}
+
+		@Override
+		public boolean isSelected() {
+			return false;
+		}
+
+		@Override
+		public boolean isEnabled() {
+			return true;
+		}
+
+		@Override
+		public String getText() {
+			return "todo";
+		}
+
+		@Override
+		public List<WebElement> findElements(By by) {
+			return owner.findElements(by);
+		}
+
+		@Override
+		public WebElement findElement(By by) {
+			return new FakeElement(owner);
+		}
+
+		@Override
+		public boolean isDisplayed() {
+			return true;
+		}
+
+		@Override
+		public Point getLocation() {
+			return new Point(0, 0);
+		}
+
+		@Override
+		public Dimension getSize() {
+			return new Dimension(100, 20);
+		}
+
+		@Override
+		public Rectangle getRect() {
+			return new Rectangle(getLocation(), getSize());
+		}
+
+		@Override
+		public String getCssValue(String propertyName) {
+			return "";
+		}
+
+		@Override
+		public <X> X getScreenshotAs(OutputType<X> target) {
+			return ((TakesScreenshot) owner).getScreenshotAs(target);
+		}
+	}
+
+	/**
+	 * Options with no cookies that remember the timeouts they are given.
+	 */
+	static final class FakeOptions implements Options {
+		private final FakeTimeouts timeouts = new FakeTimeouts();
+		private final FakeWindow window = new FakeWindow();
+
+		@Override
+		public void addCookie(Cookie cookie) {
+		}
+
+		@Override
+		public void deleteCookieNamed(String name) {
+		}
+
+		@Override
+		public void deleteCookie(Cookie cookie) {
+		}
+
+		@Override
+		public void deleteAllCookies() {
+		}
+
+		@Override
+		public Set<Cookie> getCookies() {
+			return Collections.emptySet();
+		}
+
+		@Override
+		public Cookie getCookieNamed(String name) {
+			return null;
+		}
+
+		@Override
+		public Timeouts timeouts() {
+			return timeouts;
+		}
+
+		@Override
+		public Window window() {
+			return window;
+		}
+
+		@Override
+		public Logs logs() {
+			return new Logs() {
+				@Override
+				public LogEntries get(String logType) {
+					return new LogEntries(Collections.emptyList());
+				}
+
+				@Override
+				public Set<String> getAvailableLogTypes() {
+					return Collections.emptySet();
+				}
+			};
+		}
+	}
+
+	/**
+	 * Timeouts that are stored and read back but never waited for.
+	 */
+	static final class FakeTimeouts implements Timeouts {
+		private Duration implicitWait = Duration.ZERO;
+		private Duration scriptTimeout = Duration.ofSeconds(30);
+		private Duration pageLoadTimeout = Duration.ofSeconds(300);
+
+		@Override
+		@SuppressWarnings("deprecation")
+		public Timeouts implicitlyWait(long time, TimeUnit unit) {
+			return implicitlyWait(Duration.ofMillis(unit.toMillis(time)));
+		}
+
+		@Override
+		public Timeouts implicitlyWait(Duration duration) {
+			implicitWait = duration;
+			return this;
+		}
+
+		@Override
+		public Duration getImplicitWaitTimeout() {
+			return implicitWait;
+		}
+
+		@Override
+		@SuppressWarnings("deprecation")
+		public Timeouts setScriptTimeout(long time, TimeUnit unit) {
+			return scriptTimeout(Duration.ofMillis(unit.toMillis(time)));
+		}
+
+		@Override
+		public Timeouts scriptTimeout(Duration duration) {
+			scriptTimeout = duration;
+			return this;
+		}
+
+		@Override
+		public Duration getScriptTimeout() {
+			return scriptTimeout;
+		}
+
+		@Override
+		@SuppressWarnings("deprecation")
+		public Timeouts pageLoadTimeout(long time, TimeUnit unit) {
+			return pageLoadTimeout(Duration.ofMillis(unit.toMillis(time)));
+		}
+
+		@Override
+		public Timeouts pageLoadTimeout(Duration duration) {
+			pageLoadTimeout = duration;
+			return this;
+		}
+
+		@Override
+		public Duration getPageLoadTimeout() {
+			return pageLoadTimeout;
+		}
+	}
+
+	/**
+	 * Window that remembers its size and position.
+	 */
+	static final class FakeWindow implements Window {
+		private Dimension size = new Dimension(1280, 720);
+		private Point position = new Point(0, 0);
+
+		@Override
+		public Dimension getSize() {
+			return size;
+		}
+
+		@Override
+		public void setSize(Dimension targetSize) {
+			size = targetSize;
+		}
+
+		@Override
+		public Point getPosition() {
+			return position;
+		}
+
+		@Override
+		public void setPosition(Point targetPosition) {
+			position = targetPosition;
+		}
+
+		@Override
+		public void maximize() {
+		}
+
+		@Override
+		public void minimize() {
+		}
+
+		@Override
+		public void fullscreen() {
+		}
+	}
+
+	/**
+	 * Navigation that fetches pages through the driver and ignores history.
+	 */
+	static final class FakeNavigation implements Navigation {
+		private final FakeDriver driver;
+
+		FakeNavigation(FakeDriver driver) {
+			this.driver = driver;
+		}
+
+		@Override
+		public void back() {
+		}
+
+		@Override
+		public void forward() {
+		}
+
+		@Override
+		public void to(String url) {
+			driver.get(url);
+		}
+
+		@Override
+		public void to(URL url) {
+			driver.get(url.toString());
+		}
+
+		@Override
+		public void refresh() {
+			if (driver.getCurrentUrl() != null) {
+				driver.get(driver.getCurrentUrl());
+			}
+		}
+	}
+
+	/**
+	 * Target locator that stays on the only window and frame of the driver.
+	 */
+	static final class FakeTargetLocator implements TargetLocator {
+		private final FakeDriver driver;
+
+		FakeTargetLocator(FakeDriver driver) {
+			this.driver = driver;
+		}
+
+		@Override
+		public WebDriver frame(int index) {
+			return driver;
+		}
+
+		@Override
+		public WebDriver frame(String nameOrId) {
+			return driver;
+		}
+
+		@Override
+		public WebDriver frame(WebElement frameElement) {
+			return driver;
+		}
+
+		@Override
+		public WebDriver parentFrame() {
+			return driver;
+		}
+
+		@Override
+		public WebDriver window(String nameOrHandle) {
+			return driver;
+		}
+
+		@Override
+		public WebDriver newWindow(WindowType typeHint) {
+			return driver;
+		}
+
+		@Override
+		public WebDriver defaultContent() {
+			return driver;
+		}
+
+		@Override
+		public WebElement activeElement() {
+			return new FakeElement(driver);
+		}
+
+		@Override
+		public Alert alert() {
+			return new Alert() {
+				@Override
+				public void dismiss() {
+				}
+
+				@Override
+				public void accept() {
+				}
+
+				@Override
+				public String getText() {
+					return "";
+				}
+
+				@Override
+				public void sendKeys(String keysToSend) {
+				}
+			};
+		}
+	}
+}
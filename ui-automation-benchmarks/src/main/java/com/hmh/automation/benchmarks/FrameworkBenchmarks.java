@@ -0,0 +1,234 @@
+package com.hmh.automation.benchmarks;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import javax.imageio.ImageIO;
+
+import org.openqa.selenium.WebElement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.aventstack.extentreports.ExtentTest;
+import com.hmh.automation.base.ExtentReportManager;
+import com.hmh.automation.journal.ResultJournal;
+import com.hmh.automation.locators.CachedLocator;
+import com.hmh.automation.locators.LocatorContext;
+import com.hmh.automation.locators.XPathToCss;
+import com.hmh.automation.pages.TodoPage;
+import com.hmh.automation.pages.TodoSnapshot;
+import com.hmh.automation.utils.FrameworkConfig;
+import com.hmh.automation.utils.ScreenshotUtil;
+
+/**
+ * Benchmarks of the framework's own overhead per operation: page object
+ * construction, locator resolution, report and journal logging, screenshot
+ * encoding and navigation to a local static TodoMVC page. Everything runs on
+ * a {@link FakeDriver}, so the scores contain no browser time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+// nodelay: without it the JDK HTTP server's small responses wait out a 40 ms delayed ACK on loopback
+@Fork(value = 1, jvmArgsAppend = { "-DextentReportPath=target/benchmarks/extent-report.html",
+		"-DextentFlushSeconds=3600", "-DresultJournal=false", "-DscreenshotDir=target/benchmarks/screenshots",
+		"-Dsun.net.httpserver.nodelay=true" })
+public class FrameworkBenchmarks {
+
+	private static final String TODO_INPUT_XPATH = "//input[@id='todo-input']";
+	// the event itself does nothing, so the score is the cost a test thread pays to hand it to the writer
+	private static final Consumer<ExtentTest> NO_OP_EVENT = test -> {
+	};
+
+	/**
+	 * A fake driver on the static TodoMVC page with a bound page object and
+	 * locators.
+	 */
+	@State(Scope.Benchmark)
+	public static class Page {
+		StaticPageServer server;
+		FakeDriver driver;
+		TodoPage todoPage;
+		LocatorContext locators;
+		CachedLocator todoInput;
+		CachedLocator todoItems;
+
+		@Setup(Level.Trial)
+		public void setUp() throws IOException {
+			server = new StaticPageServer("todomvc.html");
+			driver = new FakeDriver(20, screenshotPng());
+			driver.get(server.getUrl());
+			todoPage = new TodoPage(driver);
+			locators = new LocatorContext();
+			locators.bind(driver);
+			todoInput = locators.xpath("todoInput", TODO_INPUT_XPATH);
+			CachedLocator todoList = locators.xpath("todoList", "//ul[@class='todo-list']");
+			todoItems = locators.xpath("todoItemList", ".//li", todoList);
+		}
+
+		@TearDown(Level.Iteration)
+		public void clearLookupTimes() {
+			// every lookup is recorded; keep the samples from piling up over millions of calls
+			LocatorContext.lookupTimes().clear();
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() {
+			server.close();
+		}
+	}
+
+	/**
+	 * An open report node and a result journal that starts empty every
+	 * iteration.
+	 */
+	@State(Scope.Benchmark)
+	public static class Report {
+		ExtentReportManager.TestNode node;
+		Path journalFile;
+		ResultJournal journal;
+
+		@Setup(Level.Trial)
+		public void setUp() throws IOException {
+			node = ExtentReportManager.startTest(FrameworkBenchmarks.class, "reportLogging");
+			ExtentReportManager.finishTest();
+			journalFile = Files.createTempDirectory("journal-benchmark").resolve("journal.jsonl");
+		}
+
+		@Setup(Level.Iteration)
+		public void openJournal() {
+			journal = new ResultJournal(journalFile, "benchmark", 64 * 1024);
+		}
+
+		@TearDown(Level.Iteration)
+		public void drain() throws IOException {
+			// let the report writer catch up so queued events do not pile up across iterations
+			ExtentReportManager.flushReport();
+			journal.close();
+			Files.delete(journalFile);
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() {
+			node.end();
+		}
+	}
+
+	/**
+	 * Screenshot output format; jpg forces a decode and recompression.
+	 */
+	@State(Scope.Benchmark)
+	public static class Screenshots {
+		@Param({ "png", "jpg" })
+		String format;
+
+		@TearDown(Level.Iteration)
+		public void deleteScreenshots() throws IOException {
+			Path dir = FrameworkConfig.get().getScreenshotDir();
+			if (!Files.isDirectory(dir)) {
+				return;
+			}
+			try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+				for (Path file : files) {
+					Files.delete(file);
+				}
+			}
+		}
+	}
+
+	@Benchmark
+	public TodoPage constructPageObject(Page page) {
+		return new TodoPage(page.driver);
+	}
+
+	@Benchmark
+	public WebElement resolveCachedLocator(Page page) {
+		return page.todoInput.find();
+	}
+
+	@Benchmark
+	public List<WebElement> resolveScopedLocatorAfterDomChange(Page page) {
+		page.locators.domChanged();
+		return page.todoItems.findAll();
+	}
+
+	@Benchmark
+	public String compileXPathToCss() {
+		return XPathToCss.compile(TODO_INPUT_XPATH);
+	}
+
+	@Benchmark
+	public void pageMethodAddTodoItem(Page page) {
+		page.todoPage.addTodoItem("Buy groceries");
+	}
+
+	@Benchmark
+	public TodoSnapshot pageMethodSnapshot(Page page) {
+		return page.todoPage.snapshot();
+	}
+
+	@Benchmark
+	public void navigateToStaticPage(Page page) {
+		page.driver.get(page.server.getUrl());
+	}
+
+	@Benchmark
+	public void logReportEvent(Report report) {
+		report.node.log(NO_OP_EVENT);
+	}
+
+	@Benchmark
+	public void appendJournalEvent(Report report) {
+		report.journal.append(ResultJournal.TEST_RESULT, Collections.singletonMap("test", "Benchmark#test"));
+	}
+
+	@Benchmark
+	public String captureScreenshot(Page page, Screenshots screenshots) {
+		return ScreenshotUtil.captureScreenshotAsync(page.driver, "benchmark", screenshots.format, null).join();
+	}
+
+	/**
+	 * @return a 1280x720 PNG with a few shapes, roughly the size of a real
+	 *         TodoMVC screenshot
+	 */
+	private static byte[] screenshotPng() throws IOException {
+		BufferedImage image = new BufferedImage(1280, 720, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D graphics = image.createGraphics();
+		try {
+			graphics.setColor(new Color(0xf5f5f5));
+			graphics.fillRect(0, 0, 1280, 720);
+			graphics.setColor(new Color(0xb83f45));
+			graphics.drawString("todos", 600, 60);
+			graphics.setColor(Color.WHITE);
+			graphics.fillRect(390, 100, 500, 400);
+			graphics.setColor(Color.DARK_GRAY);
+			for (int row = 0; row < 8; row++) {
+				graphics.drawString("todo " + row, 440, 140 + row * 45);
+				graphics.drawLine(390, 155 + row * 45, 890, 155 + row * 45);
+			}
+		} finally {
+			graphics.dispose();
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(image, "png", out);
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,64 @@
+package com.hmh.automation.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Serves one static page from the classpath on an ephemeral loopback port,
+ * so benchmarks navigate without any network variance.
+ */
+public class StaticPageServer implements AutoCloseable {
+
+	private final HttpServer server;
+	private final String path;
+
+	/**
+	 * @param resource classpath resource served at {@code /resource}
+	 */
+	public StaticPageServer(String resource) throws IOException {
+		byte[] page = read(resource);
+		this.path = "/" + resource;
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.createContext(path, exchange -> {
+			exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+			exchange.sendResponseHeaders(200, page.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(page);
+			}
+		});
+		server.start();
+	}
+
+	/**
+	 * @return the URL of the page
+	 */
+	public String getUrl() {
+		return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+	}
+
+	private static byte[] read(String resource) throws IOException {
+		try (InputStream in = StaticPageServer.class.getClassLoader().getResourceAsStream(resource)) {
+			if (in == null) {
+				throw new IOException("Missing resource " + resource);
+			}
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] chunk = new byte[8192];
+			int read;
+			while ((read = in.read(chunk)) != -1) {
+				out.write(chunk, 0, read);
+			}
+			return out.toByteArray();
+		}
+	}
+}
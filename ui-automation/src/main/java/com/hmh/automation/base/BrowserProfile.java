@@ -0,0 +1,190 @@
+package com.hmh.automation.base;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.chromium.ChromiumDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.firefox.FirefoxOptions;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.support.events.WebDriverListener;
+
+import com.hmh.automation.utils.FrameworkConfig;
+
+/**
+ * The performance profile (performanceProfile=true): browsers start without
+ * extensions, GPU compositing or background throttling, at a fixed
+ * performanceViewport, with an on-disk HTTP cache under browserCacheDir that
+ * outlives the session, and without loading the fonts, images and analytics
+ * matching blockedUrls.
+ * <p>
+ * Chrome blocks the URLs over the DevTools protocol
+ * ({@code Network.setBlockedURLs}). Firefox has no equivalent that does not
+ * route every request through WebDriver BiDi, so it gets the nearest
+ * preferences instead: no images and no downloadable fonts. Two browsers
+ * never use the same cache directory at once: each session takes the first
+ * free slot directory and hands it back when it quits, so the next session
+ * starts with a warm cache.
+ */
+public class BrowserProfile {
+
+	private static final Logger logger = LogManager.getLogger(BrowserProfile.class);
+	private static BrowserProfile instance;
+
+	private final List<String> blockedUrls;
+	private final Path cacheDir;
+	private final Dimension viewport;
+	private final Set<String> cacheSlotsInUse = new TreeSet<>();
+
+	/**
+	 * @param blockedUrls URL patterns to block, '*' matching any characters
+	 * @param cacheDir    parent directory of the cache slot directories
+	 * @param viewport    window size
+	 */
+	public BrowserProfile(List<String> blockedUrls, Path cacheDir, Dimension viewport) {
+		this.blockedUrls = blockedUrls;
+		this.cacheDir = cacheDir.toAbsolutePath();
+		this.viewport = viewport;
+	}
+
+	/**
+	 * @return the profile configured in config.properties, or null if
+	 *         performanceProfile=false
+	 */
+	public static synchronized BrowserProfile getInstance() {
+		FrameworkConfig config = FrameworkConfig.get();
+		if (!config.isPerformanceProfile()) {
+			return null;
+		}
+		if (instance == null) {
+			instance = new BrowserProfile(config.getBlockedUrls(), config.getBrowserCacheDir(),
+					MatrixCell.parseViewport(config.getPerformanceViewport()));
+		}
+		return instance;
+	}
+
+	public Dimension getViewport() {
+		return viewport;
+	}
+
+	/**
+	 * Takes the first cache directory no running browser uses.
+	 *
+	 * @param browser browser name, so each browser has its own caches
+	 * @return the directory, created if needed
+	 */
+	public synchronized Path leaseCacheDir(String browser) {
+		for (int slot = 0;; slot++) {
+			String name = browser + "-" + slot;
+			if (cacheSlotsInUse.add(name)) {
+				Path dir = cacheDir.resolve(name);
+				try {
+					Files.createDirectories(dir);
+				} catch (IOException e) {
+					cacheSlotsInUse.remove(name);
+					throw new IllegalStateException("Could not create browser cache directory " + dir, e);
+				}
+				return dir;
+			}
+		}
+	}
+
+	/**
+	 * Hands a cache directory back for the next session.
+	 */
+	public synchronized void releaseCacheDir(Path dir) {
+		cacheSlotsInUse.remove(dir.getFileName().toString());
+	}
+
+	/**
+	 * @return a listener that hands the cache directory back when the
+	 *         session quits
+	 */
+	public WebDriverListener releaseOnQuit(Path dir) {
+		return new WebDriverListener() {
+			@Override
+			public void afterQuit(WebDriver driver) {
+				releaseCacheDir(dir);
+			}
+		};
+	}
+
+	/**
+	 * Adds the profile's switches to Chrome options.
+	 *
+	 * @param cacheDir disk cache directory, or null for the default cache
+	 */
+	public void configure(ChromeOptions options, Path cacheDir) {
+		options.addArguments("--disable-extensions", "--disable-gpu", "--disable-background-timer-throttling",
+				"--disable-backgrounding-occluded-windows", "--disable-renderer-backgrounding",
+				"--window-size=" + viewport.getWidth() + "," + viewport.getHeight());
+		if (cacheDir != null) {
+			options.addArguments("--disk-cache-dir=" + cacheDir);
+		}
+	}
+
+	/**
+	 * Adds the profile's preferences to Firefox options.
+	 *
+	 * @param cacheDir disk cache directory, or null for the default cache
+	 */
+	public void configure(FirefoxOptions options, Path cacheDir) {
+		// WebDriver profiles come without add-ons; keep the built-in ones from updating
+		options.addPreference("extensions.update.enabled", false);
+		options.addPreference("extensions.systemAddon.update.enabled", false);
+		options.addPreference("layers.acceleration.disabled", true);
+		options.addPreference("dom.timeout.enable_budget_timer_throttling", false);
+		options.addPreference("dom.min_background_timeout_value", 4);
+		if (!blockedUrls.isEmpty()) {
+			options.addPreference("permissions.default.image", 2);
+			options.addPreference("gfx.downloadable_fonts.enabled", false);
+		}
+		options.addArguments("--width=" + viewport.getWidth(), "--height=" + viewport.getHeight());
+		if (cacheDir != null) {
+			options.addPreference("browser.cache.disk.enable", true);
+			options.addPreference("browser.cache.disk.parent_directory", cacheDir.toString());
+		}
+	}
+
+	/**
+	 * Blocks the blockedUrls in a local Chrome session. The block lasts as
+	 * long as the session's DevTools connection, which Selenium keeps open.
+	 */
+	public void blockUrls(WebDriver driver) {
+		if (blockedUrls.isEmpty() || !(driver instanceof ChromiumDriver)) {
+			return;
+		}
+		DevTools devTools = ((ChromiumDriver) driver).maybeGetDevTools().orElse(null);
+		if (devTools == null) {
+			logger.warn("No DevTools connection to the session; not blocking {}", blockedUrls);
+			return;
+		}
+		Map<String, Object> params = new LinkedHashMap<>();
+		params.put("urls", blockedUrls);
+		try {
+			devTools.createSessionIfThereIsNotOne();
+			devTools.send(command("Network.enable", Collections.<String, Object>emptyMap()));
+			devTools.send(command("Network.setBlockedURLs", params));
+		} catch (RuntimeException e) {
+			// the session works without the block, only slower
+			logger.warn("Could not block {} over DevTools: {}", blockedUrls, e.getMessage());
+		}
+	}
+
+	private static Command<Map<String, Object>> command(String method, Map<String, Object> params) {
+		return new Command<Map<String, Object>>(method, params, Json.MAP_TYPE);
+	}
+}
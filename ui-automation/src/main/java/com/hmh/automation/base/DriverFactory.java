@@ -0,0 +1,172 @@
+package com.hmh.automation.base;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.firefox.FirefoxDriver;
+import org.openqa.selenium.firefox.FirefoxOptions;
+import org.openqa.selenium.support.events.EventFiringDecorator;
+import org.openqa.selenium.support.events.WebDriverListener;
+
+import com.hmh.automation.metrics.CommandMetrics;
+import com.hmh.automation.metrics.CommandTimingListener;
+import com.hmh.automation.utils.FrameworkConfig;
+
+/**
+ * Creates new browser sessions for the supported browsers. Sessions created
+ * here are normally owned by a {@link DriverPool} rather than by a test class.
+ * With performanceProfile=true they start with the {@link BrowserProfile}.
+ */
+public class DriverFactory {
+
+	private static final Logger logger = LogManager.getLogger(DriverFactory.class);
+
+	private DriverFactory() {
+	}
+
+	/**
+	 * Launches a new browser session.
+	 *
+	 * @param browser     chrome, firefox or remote; remote starts a remoteBrowser
+	 *                    session on the Selenium Grid at gridUrl, see
+	 *                    {@link GridScheduler}
+	 * @param runHeadless true to start the browser without a UI
+	 * @return the new WebDriver session, decorated to time every command
+	 *         unless commandMetrics=false
+	 */
+	public static WebDriver createDriver(String browser, boolean runHeadless) {
+		return createDriver(browser, runHeadless, null);
+	}
+
+	/**
+	 * Launches a new browser session with a fixed window size.
+	 *
+	 * @param browser     chrome, firefox or remote
+	 * @param runHeadless true to start the browser without a UI
+	 * @param viewport    window size, or null to maximize the window (or use
+	 *                    the performanceViewport with performanceProfile=true)
+	 * @return the new WebDriver session, decorated to time every command
+	 *         unless commandMetrics=false
+	 */
+	public static WebDriver createDriver(String browser, boolean runHeadless, Dimension viewport) {
+		logger.info("Initializing WebDriver...{}", runHeadless);
+		FrameworkConfig config = FrameworkConfig.get();
+		BrowserProfile profile = BrowserProfile.getInstance();
+		Path cacheDir = null;
+		WebDriver driver;
+		try {
+			switch (browser.toLowerCase()) {
+			case "chrome":
+				cacheDir = profile == null ? null : profile.leaseCacheDir("chrome");
+				driver = new ChromeDriver(chromeOptions(runHeadless, cacheDir));
+				break;
+
+			case "firefox":
+				cacheDir = profile == null ? null : profile.leaseCacheDir("firefox");
+				driver = new FirefoxDriver(firefoxOptions(runHeadless, cacheDir));
+				break;
+
+			case "remote":
+				driver = GridScheduler.getInstance()
+						.createSession(remoteCapabilities(config.getRemoteBrowser(), runHeadless));
+				break;
+
+			default:
+				throw new IllegalArgumentException("Unsupported browser: " + browser);
+			}
+		} catch (RuntimeException e) {
+			if (cacheDir != null) {
+				profile.releaseCacheDir(cacheDir);
+			}
+			throw e;
+		}
+
+		if (viewport == null && profile != null) {
+			viewport = profile.getViewport();
+		}
+		try {
+			if (profile != null) {
+				// a no-op except on local Chrome, which blocks over DevTools
+				profile.blockUrls(driver);
+			}
+			// explicit waits go through WaitEngine; an implicit wait would stall every negative check
+			driver.manage().timeouts().implicitlyWait(config.getImplicitWait())
+					.pageLoadTimeout(config.getPageLoadTimeout()).scriptTimeout(config.getScriptTimeout());
+			if (viewport == null) {
+				driver.manage().window().maximize();
+			} else {
+				driver.manage().window().setSize(viewport);
+			}
+		} catch (RuntimeException e) {
+			quit(driver);
+			if (cacheDir != null) {
+				profile.releaseCacheDir(cacheDir);
+			}
+			throw e;
+		}
+		List<WebDriverListener> listeners = new ArrayList<>();
+		if (config.isCommandMetrics()) {
+			listeners.add(new CommandTimingListener(CommandMetrics.getInstance()));
+		}
+		if (cacheDir != null) {
+			listeners.add(profile.releaseOnQuit(cacheDir));
+		}
+		if (!listeners.isEmpty()) {
+			driver = new EventFiringDecorator<WebDriver>(listeners.toArray(new WebDriverListener[0])).decorate(driver);
+		}
+		logger.info("WebDriver successfully initialized...");
+		return driver;
+	}
+
+	private static void quit(WebDriver driver) {
+		try {
+			driver.quit();
+		} catch (RuntimeException e) {
+			logger.warn("Failed to quit browser session after a failed setup: {}", e.getMessage());
+		}
+	}
+
+	private static ChromeOptions chromeOptions(boolean runHeadless, Path cacheDir) {
+		ChromeOptions chromeOptions = new ChromeOptions();
+		if (runHeadless) {
+			chromeOptions.addArguments("--headless");
+		}
+		BrowserProfile profile = BrowserProfile.getInstance();
+		if (profile != null) {
+			profile.configure(chromeOptions, cacheDir);
+		}
+		return chromeOptions;
+	}
+
+	private static FirefoxOptions firefoxOptions(boolean runHeadless, Path cacheDir) {
+		FirefoxOptions firefoxOptions = new FirefoxOptions();
+		if (runHeadless) {
+			firefoxOptions.addArguments("--headless");
+		}
+		BrowserProfile profile = BrowserProfile.getInstance();
+		if (profile != null) {
+			profile.configure(firefoxOptions, cacheDir);
+		}
+		return firefoxOptions;
+	}
+
+	private static Capabilities remoteCapabilities(String remoteBrowser, boolean runHeadless) {
+		switch (remoteBrowser.toLowerCase()) {
+		case "chrome":
+			// a cache directory on this machine means nothing to a Grid node
+			return chromeOptions(runHeadless, null);
+		case "firefox":
+			return firefoxOptions(runHeadless, null);
+		default:
+			throw new IllegalArgumentException("Unsupported remoteBrowser: " + remoteBrowser);
+		}
+	}
+}
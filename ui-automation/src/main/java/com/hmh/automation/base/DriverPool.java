@@ -0,0 +1,223 @@
+package com.hmh.automation.base;
+
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * A bounded pool of browser sessions. Each test thread leases one session for
+ * the duration of a test method and hands it back afterwards, so tests running
+ * in parallel never share a WebDriver. At most {@code maxSize} sessions are
+ * alive at any time; threads asking for more wait until one is returned.
+ */
+public class DriverPool {
+
+	private static final Logger logger = LogManager.getLogger(DriverPool.class);
+
+	private final int maxSize;
+	private final long leaseTimeoutSeconds;
+	private final Supplier<WebDriver> factory;
+	private final Consumer<WebDriver> resetAction;
+	private final Semaphore permits;
+	private final BlockingQueue<WebDriver> idle = new LinkedBlockingQueue<>();
+	private final Set<WebDriver> sessions = ConcurrentHashMap.newKeySet();
+	private final ThreadLocal<WebDriver> leased = new ThreadLocal<>();
+	private final AtomicLong coldStarts = new AtomicLong();
+	private final AtomicLong coldStartNanos = new AtomicLong();
+	private final AtomicLong warmLeases = new AtomicLong();
+	private volatile boolean draining;
+
+	/**
+	 * @param maxSize             maximum number of live browser sessions
+	 * @param leaseTimeoutSeconds how long a thread waits for a free session
+	 * @param factory             creates a new browser session
+	 * @param resetAction         brings a session back to a clean application
+	 *                            state before it is handed out
+	 */
+	public DriverPool(int maxSize, long leaseTimeoutSeconds, Supplier<WebDriver> factory,
+			Consumer<WebDriver> resetAction) {
+		if (maxSize < 1) {
+			throw new IllegalArgumentException("Driver pool size must be at least 1 but was " + maxSize);
+		}
+		this.maxSize = maxSize;
+		this.leaseTimeoutSeconds = leaseTimeoutSeconds;
+		this.factory = factory;
+		this.resetAction = resetAction;
+		this.permits = new Semaphore(maxSize, true);
+	}
+
+	/**
+	 * Leases a session to the calling thread. A thread that already holds a
+	 * lease gets the same session back.
+	 *
+	 * @return a session with a freshly reset application state
+	 */
+	public WebDriver lease() {
+		WebDriver current = leased.get();
+		if (current != null) {
+			return current;
+		}
+		try {
+			if (!permits.tryAcquire(leaseTimeoutSeconds, TimeUnit.SECONDS)) {
+				throw new IllegalStateException("No browser session became free within " + leaseTimeoutSeconds
+						+ "s (pool size " + maxSize + ")");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for a browser session", e);
+		}
+		try {
+			WebDriver driver = prepare(idle.poll());
+			leased.set(driver);
+			logger.info("Leased browser session to {} ({} live, {} idle)", Thread.currentThread().getName(),
+					sessions.size(), idle.size());
+			return driver;
+		} catch (RuntimeException e) {
+			permits.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return the session leased to the calling thread, or null if it holds none
+	 */
+	public WebDriver current() {
+		return leased.get();
+	}
+
+	/**
+	 * Returns the calling thread's session to the pool so another test can use
+	 * it.
+	 */
+	public void release() {
+		WebDriver driver = leased.get();
+		if (driver == null) {
+			return;
+		}
+		leased.remove();
+		if (draining) {
+			quit(driver);
+		} else {
+			idle.offer(driver);
+		}
+		permits.release();
+	}
+
+	/**
+	 * Quits the calling thread's session instead of returning it, e.g. when the
+	 * browser is known to be broken. The next lease creates a new session.
+	 */
+	public void discard() {
+		WebDriver driver = leased.get();
+		if (driver == null) {
+			return;
+		}
+		leased.remove();
+		quit(driver);
+		permits.release();
+	}
+
+	/**
+	 * Quits the idle sessions now and every leased session once it is
+	 * released, e.g. when the run is aborted and no test needs them any more.
+	 */
+	public void drain() {
+		draining = true;
+		logger.info("Draining the pool: quitting {} idle WebDriver session(s)", idle.size());
+		for (WebDriver driver = idle.poll(); driver != null; driver = idle.poll()) {
+			quit(driver);
+		}
+	}
+
+	/**
+	 * Quits every session owned by the pool.
+	 */
+	public void shutdown() {
+		logger.info("Ending {} pooled WebDriver session(s)...", sessions.size());
+		idle.clear();
+		for (WebDriver driver : sessions) {
+			quit(driver);
+		}
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * @return number of leases that had to launch a new browser
+	 */
+	public long getColdStarts() {
+		return coldStarts.get();
+	}
+
+	/**
+	 * @return number of leases served by an already running browser
+	 */
+	public long getWarmLeases() {
+		return warmLeases.get();
+	}
+
+	/**
+	 * @return average time taken to launch a new browser, in milliseconds
+	 */
+	public long getAverageStartupMillis() {
+		long starts = coldStarts.get();
+		return starts == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(coldStartNanos.get() / starts);
+	}
+
+	/**
+	 * Estimates the browser startup time avoided by reusing sessions: every warm
+	 * lease would otherwise have paid the average cold launch time.
+	 *
+	 * @return saved startup time in milliseconds
+	 */
+	public long getSavedStartupMillis() {
+		return warmLeases.get() * getAverageStartupMillis();
+	}
+
+	private WebDriver prepare(WebDriver driver) {
+		if (driver != null) {
+			try {
+				resetAction.accept(driver);
+				warmLeases.incrementAndGet();
+				return driver;
+			} catch (RuntimeException e) {
+				logger.warn("Pooled session could not be reset, replacing it: {}", e.getMessage());
+				quit(driver);
+			}
+		}
+		long start = System.nanoTime();
+		WebDriver created = factory.get();
+		coldStartNanos.addAndGet(System.nanoTime() - start);
+		coldStarts.incrementAndGet();
+		sessions.add(created);
+		try {
+			resetAction.accept(created);
+		} catch (RuntimeException e) {
+			// the caller gets no driver to quit, so the pool must not keep the browser alive
+			quit(created);
+			throw e;
+		}
+		return created;
+	}
+
+	private void quit(WebDriver driver) {
+		sessions.remove(driver);
+		try {
+			driver.quit();
+		} catch (RuntimeException e) {
+			logger.warn("Failed to quit browser session: {}", e.getMessage());
+		}
+	}
+}
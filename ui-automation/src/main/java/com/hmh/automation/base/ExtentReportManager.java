@@ -1,34 +1,336 @@
 package com.hmh.automation.base;
 
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
 import com.aventstack.extentreports.ExtentReports;
 import com.aventstack.extentreports.ExtentTest;
 import com.aventstack.extentreports.reporter.ExtentSparkReporter;
+import com.aventstack.extentreports.reporter.JsonFormatter;
+import com.hmh.automation.journal.ResultJournal;
+import com.hmh.automation.utils.FrameworkConfig;
 
+/**
+ * Writes the Extent report for parallel test runs. Test threads never touch
+ * Extent objects: {@link #startTest} registers a {@link TestNode} for the
+ * calling thread, and everything logged to it is put on a lock-free queue
+ * that a single writer thread applies to the report. The writer flushes the
+ * report every extentFlushSeconds, so a partial report survives a crash, and
+ * after extentRolloverTests tests it rolls over to a new report file
+ * (extent-report-2.html, ...) and drops the finished part from memory. The
+ * report is flushed one last time by {@link #flushReport()} or, failing that,
+ * on JVM shutdown. Test starts and ends and system info are also recorded in
+ * the {@link ResultJournal}.
+ */
 public class ExtentReportManager {
-	private static ExtentReports extent;
-	private static ExtentTest test;
 
-	// Initialize Extent Report
-	public static ExtentReports getInstance() {
-		if (extent == null) {
-			String reportPath = "target/extent-reports/extent-report.html";
-			ExtentSparkReporter spark = new ExtentSparkReporter(reportPath);
-			extent = new ExtentReports();
-			extent.attachReporter(spark);
+	private static final Logger logger = LogManager.getLogger(ExtentReportManager.class);
+	private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+	private static final Queue<Runnable> events = new ConcurrentLinkedQueue<>();
+	private static final ThreadLocal<TestNode> currentTest = new ThreadLocal<>();
+	private static final Map<String, String> classNodeNames = new ConcurrentHashMap<>();
+	private static Thread writer;
+
+	// owned by the writer thread
+	private static final List<ReportPart> parts = new ArrayList<>();
+	private static final Map<String, String> systemInfo = new LinkedHashMap<>();
+	private static int partCount;
+
+	private ExtentReportManager() {
+	}
+
+	/**
+	 * Starts the report writer if it is not running yet.
+	 */
+	public static synchronized void start() {
+		if (writer != null) {
+			return;
 		}
-		return extent;
+		FrameworkConfig config = FrameworkConfig.get();
+		String reportPath = config.getExtentReportPath().toString();
+		// a JSON archive lets separate runs (e.g. shards) be merged into one report later
+		String jsonPath = config.getExtentJsonPath().map(Path::toString).orElse(null);
+		long flushMillis = config.getExtentFlushInterval().toMillis();
+		int rolloverTests = config.getExtentRolloverTests();
+
+		writer = new Thread(() -> writeEvents(reportPath, jsonPath, flushMillis, rolloverTests), "extent-writer");
+		writer.setDaemon(true);
+		writer.start();
+		Runtime.getRuntime().addShutdownHook(new Thread(ExtentReportManager::flushReport, "extent-flush"));
 	}
 
-	// Create a test entry in Extent Report
-	public static ExtentTest createTest(String testName) {
-		test = getInstance().createTest(testName);
-		return test;
+	/**
+	 * Sets the title of the report node that groups the tests of a class; by
+	 * default it is the class's simple name.
+	 */
+	public static void setClassNodeName(Class<?> testClass, String name) {
+		classNodeNames.put(testClass.getName(), name);
+	}
+
+	/**
+	 * Creates the report node of a test below the node of its class and
+	 * registers it for the calling thread.
+	 *
+	 * @return the new node
+	 */
+	public static TestNode startTest(Class<?> testClass, String testName) {
+		start();
+		TestNode node = new TestNode(testClass.getName() + "#" + testName);
+		String className = classNodeNames.getOrDefault(testClass.getName(), testClass.getSimpleName());
+		events.add(() -> writerStartTest(node, className, testName));
+		Map<String, Object> fields = new LinkedHashMap<>();
+		fields.put("test", node.getId());
+		fields.put("thread", Thread.currentThread().getName());
+		ResultJournal.getInstance().append(ResultJournal.TEST_STARTED, fields);
+		currentTest.set(node);
+		return node;
+	}
+
+	/**
+	 * @return the node registered for the calling thread, or null
+	 */
+	public static TestNode currentTest() {
+		return currentTest.get();
+	}
+
+	/**
+	 * Logs to the node of the test running on the calling thread.
+	 */
+	public static void log(Consumer<ExtentTest> event) {
+		TestNode node = currentTest.get();
+		if (node == null) {
+			throw new IllegalStateException("No test node registered for thread " + Thread.currentThread().getName());
+		}
+		node.log(event);
 	}
 
-	// Flush the report (Save changes)
+	/**
+	 * Unregisters the calling thread's node. The node stays open for logging
+	 * until {@link TestNode#end()} is called.
+	 *
+	 * @return the node that was registered, or null
+	 */
+	public static TestNode finishTest() {
+		TestNode node = currentTest.get();
+		currentTest.remove();
+		return node;
+	}
+
+	/**
+	 * Adds a system info entry to every part of the report.
+	 */
+	public static void setSystemInfo(String key, String value) {
+		start();
+		Map<String, Object> fields = new LinkedHashMap<>();
+		fields.put("key", key);
+		fields.put("value", value);
+		ResultJournal.getInstance().append(ResultJournal.SYSTEM_INFO, fields);
+		events.add(() -> {
+			systemInfo.put(key, value);
+			for (ReportPart part : parts) {
+				part.extent.setSystemInfo(key, value);
+				part.dirty = true;
+			}
+		});
+	}
+
+	/**
+	 * Waits until the writer has applied every queued event, then writes the
+	 * report files.
+	 */
 	public static void flushReport() {
-		if (extent != null) {
-			extent.flush();
+		ResultJournal.getInstance().flush();
+		Thread current;
+		synchronized (ExtentReportManager.class) {
+			current = writer;
+		}
+		if (current == null || !current.isAlive()) {
+			return;
+		}
+		CompletableFuture<Void> flushed = new CompletableFuture<>();
+		events.add(() -> {
+			for (ReportPart part : parts) {
+				part.flush();
+			}
+			flushed.complete(null);
+		});
+		try {
+			flushed.get(FrameworkConfig.get().getExtentFlushTimeout().toMillis(), TimeUnit.MILLISECONDS);
+		} catch (Exception e) {
+			logger.warn("Extent report was not flushed: {}", e.toString());
+		}
+	}
+
+	private static void writeEvents(String reportPath, String jsonPath, long flushMillis, int rolloverTests) {
+		parts.add(newPart(reportPath, jsonPath, rolloverTests));
+		long nextFlush = System.currentTimeMillis() + flushMillis;
+		while (true) {
+			Runnable event = events.poll();
+			if (event != null) {
+				try {
+					event.run();
+				} catch (RuntimeException e) {
+					logger.error("Could not write report event", e);
+				}
+				continue;
+			}
+			if (System.currentTimeMillis() >= nextFlush) {
+				for (ReportPart part : parts) {
+					part.flush();
+				}
+				nextFlush = System.currentTimeMillis() + flushMillis;
+			}
+			LockSupport.parkNanos(IDLE_PARK_NANOS);
+		}
+	}
+
+	private static void writerStartTest(TestNode node, String className, String testName) {
+		ReportPart part = parts.get(parts.size() - 1);
+		if (part.started >= part.capacity) {
+			part.retired = true;
+			retireFinishedParts();
+			part = newPart(part.reportPath, part.jsonPath, part.capacity);
+			parts.add(part);
+		}
+		part.started++;
+		part.dirty = true;
+		node.part = part;
+		node.test = part.classNode(className).createNode(testName);
+	}
+
+	private static void writerEndTest(TestNode node) {
+		node.part.finished++;
+		node.part.dirty = true;
+		retireFinishedParts();
+	}
+
+	/**
+	 * Writes and forgets the rolled-over parts whose tests have all ended.
+	 */
+	private static void retireFinishedParts() {
+		for (Iterator<ReportPart> it = parts.iterator(); it.hasNext();) {
+			ReportPart part = it.next();
+			if (part.retired && part.finished == part.started) {
+				part.flush();
+				it.remove();
+				logger.info("Extent report part {} complete with {} tests", part.index, part.finished);
+			}
+		}
+	}
+
+	private static ReportPart newPart(String reportPath, String jsonPath, int capacity) {
+		partCount++;
+		ReportPart part = new ReportPart(partCount, reportPath, jsonPath, capacity);
+		ExtentSparkReporter spark = new ExtentSparkReporter(partPath(reportPath, partCount));
+		part.extent.attachReporter(spark);
+		if (jsonPath != null && !jsonPath.trim().isEmpty()) {
+			part.extent.attachReporter(new JsonFormatter(partPath(jsonPath, partCount)));
+		}
+		for (Map.Entry<String, String> entry : systemInfo.entrySet()) {
+			part.extent.setSystemInfo(entry.getKey(), entry.getValue());
+		}
+		return part;
+	}
+
+	/**
+	 * @return the path itself for the first part, else the path with "-n"
+	 *         before the extension
+	 */
+	static String partPath(String path, int part) {
+		if (part == 1) {
+			return path;
+		}
+		int dot = path.lastIndexOf('.');
+		int slash = Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\'));
+		return dot > slash ? path.substring(0, dot) + "-" + part + path.substring(dot) : path + "-" + part;
+	}
+
+	/**
+	 * Handle of one test's report node. It can be logged to from any thread,
+	 * e.g. from a background screenshot writer.
+	 */
+	public static final class TestNode {
+		private final String id;
+		// set and read by the writer thread only
+		private ReportPart part;
+		private ExtentTest test;
+
+		private TestNode(String id) {
+			this.id = id;
+		}
+
+		/**
+		 * @return the test's id, {@code className#testName}
+		 */
+		public String getId() {
+			return id;
+		}
+
+		/**
+		 * Queues an event for this test's node.
+		 */
+		public void log(Consumer<ExtentTest> event) {
+			events.add(() -> event.accept(test));
+		}
+
+		/**
+		 * Marks the test as complete; nothing may be logged to the node after it.
+		 */
+		public void end() {
+			ResultJournal journal = ResultJournal.getInstance();
+			journal.append(ResultJournal.TEST_ENDED, Collections.singletonMap("test", id));
+			journal.flush();
+			events.add(() -> writerEndTest(this));
+		}
+	}
+
+	/**
+	 * One report file and the tests written to it.
+	 */
+	private static final class ReportPart {
+		private final int index;
+		private final String reportPath;
+		private final String jsonPath;
+		private final int capacity;
+		private final ExtentReports extent = new ExtentReports();
+		private final Map<String, ExtentTest> classNodes = new LinkedHashMap<>();
+		private int started;
+		private int finished;
+		private boolean retired;
+		private boolean dirty = true;
+
+		ReportPart(int index, String reportPath, String jsonPath, int capacity) {
+			this.index = index;
+			this.reportPath = reportPath;
+			this.jsonPath = jsonPath;
+			this.capacity = capacity;
+		}
+
+		ExtentTest classNode(String className) {
+			return classNodes.computeIfAbsent(className, extent::createTest);
+		}
+
+		void flush() {
+			if (dirty) {
+				extent.flush();
+				dirty = false;
+			}
 		}
 	}
 }
@@ -0,0 +1,346 @@
+package com.hmh.automation.base;
+
+import java.net.URL;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.SessionNotCreatedException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.remote.http.ClientConfig;
+import org.openqa.selenium.remote.http.Contents;
+import org.openqa.selenium.remote.http.HttpClient;
+import org.openqa.selenium.remote.http.HttpMethod;
+import org.openqa.selenium.remote.http.HttpRequest;
+import org.openqa.selenium.remote.http.HttpResponse;
+
+import com.hmh.automation.utils.FrameworkConfig;
+import com.hmh.automation.utils.LatencyRecorder;
+
+/**
+ * Creates {@link RemoteWebDriver} sessions on a Selenium Grid without
+ * over-committing it. Before a session is requested, the Grid's
+ * {@code /status} endpoint is polled until an UP node has a free slot for the
+ * browser; tests that find the Grid full wait in a FIFO queue (up to
+ * gridQueueTimeout seconds) instead of failing. A background sampler records
+ * the busy slots of every node every gridSampleMillis, so the suite can
+ * report per-node utilization and how long tests queued for a slot.
+ */
+public class GridScheduler {
+
+	private static final Logger logger = LogManager.getLogger(GridScheduler.class);
+	private static final String QUEUE_WAIT = "gridQueueWait";
+	private static GridScheduler instance;
+
+	private final URL gridUrl;
+	private final HttpClient statusClient;
+	private final long pollMillis;
+	private final long queueTimeoutMillis;
+	private final long sampleMillis;
+	private final Json json = new Json();
+	private final ReentrantLock queue = new ReentrantLock(true);
+	private final AtomicInteger pendingSessions = new AtomicInteger();
+	private final AtomicInteger waitingTests = new AtomicInteger();
+	private final LatencyRecorder queueWaits = new LatencyRecorder();
+	private final Map<String, NodeUsage> usage = new LinkedHashMap<>();
+	private ScheduledExecutorService sampler;
+	private int peakWaitingTests;
+
+	public GridScheduler(URL gridUrl, long pollMillis, long queueTimeoutSeconds, long sampleMillis) {
+		this.gridUrl = gridUrl;
+		this.pollMillis = pollMillis;
+		this.queueTimeoutMillis = TimeUnit.SECONDS.toMillis(queueTimeoutSeconds);
+		this.sampleMillis = sampleMillis;
+		this.statusClient = HttpClient.Factory.createDefault()
+				.createClient(ClientConfig.defaultConfig().baseUrl(gridUrl).readTimeout(Duration.ofSeconds(10)));
+	}
+
+	/**
+	 * @return the scheduler for the Grid configured by gridUrl, shared by all
+	 *         threads
+	 */
+	public static synchronized GridScheduler getInstance() {
+		if (instance == null) {
+			FrameworkConfig config = FrameworkConfig.get();
+			instance = new GridScheduler(config.getGridUrl(), config.getGridPoll().toMillis(),
+					config.getGridQueueTimeout().getSeconds(), config.getGridSample().toMillis());
+		}
+		return instance;
+	}
+
+	/**
+	 * @return the shared scheduler if remote sessions were created, else null
+	 */
+	public static synchronized GridScheduler getInstanceIfStarted() {
+		return instance;
+	}
+
+	/**
+	 * Waits for a free slot for the browser, then starts a session on it.
+	 *
+	 * @param capabilities capabilities of the session, including browserName
+	 * @return the new remote session
+	 * @throws SessionNotCreatedException if no slot frees up within
+	 *                                    gridQueueTimeout
+	 */
+	public WebDriver createSession(Capabilities capabilities) {
+		startSampler();
+		awaitSlot(capabilities.getBrowserName());
+		try {
+			return new RemoteWebDriver(gridUrl, capabilities);
+		} finally {
+			pendingSessions.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Blocks until the Grid reports more free slots for the browser than there
+	 * are sessions this JVM is still starting, and reserves one of them. Tests
+	 * are served in arrival order.
+	 */
+	private void awaitSlot(String browserName) {
+		long start = System.nanoTime();
+		long deadline = start + TimeUnit.MILLISECONDS.toNanos(queueTimeoutMillis);
+		synchronized (this) {
+			peakWaitingTests = Math.max(peakWaitingTests, waitingTests.incrementAndGet());
+		}
+		try {
+			queue.lockInterruptibly();
+			try {
+				WebDriverException lastError = null;
+				boolean logged = false;
+				while (true) {
+					try {
+						List<NodeStatus> nodes = fetchStatus();
+						if (freeSlots(nodes, browserName) > pendingSessions.get()) {
+							pendingSessions.incrementAndGet();
+							return;
+						}
+						if (!logged) {
+							logger.info("Grid has no free {} slot, {} test(s) queued", browserName, waitingTests.get());
+							logged = true;
+						}
+					} catch (WebDriverException e) {
+						lastError = e;
+					}
+					if (System.nanoTime() >= deadline) {
+						throw new SessionNotCreatedException("No free " + browserName + " slot on the Grid at "
+								+ gridUrl + " within " + queueTimeoutMillis + " ms", lastError);
+					}
+					Thread.sleep(pollMillis);
+				}
+			} finally {
+				queue.unlock();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SessionNotCreatedException("Interrupted while waiting for a Grid slot", e);
+		} finally {
+			waitingTests.decrementAndGet();
+			queueWaits.record(QUEUE_WAIT, System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * @return the slots of every node as reported by the Grid's /status endpoint
+	 */
+	private List<NodeStatus> fetchStatus() {
+		HttpResponse response = statusClient.execute(new HttpRequest(HttpMethod.GET, "/status"));
+		if (response.getStatus() != 200) {
+			throw new WebDriverException("Grid status returned HTTP " + response.getStatus());
+		}
+		Map<String, Object> status = json.toType(Contents.string(response), Json.MAP_TYPE);
+		return parseStatus(status);
+	}
+
+	/**
+	 * Reads the nodes and slots out of a parsed Grid 4 /status response.
+	 */
+	@SuppressWarnings("unchecked")
+	static List<NodeStatus> parseStatus(Map<String, Object> status) {
+		Object value = status.get("value");
+		Object nodes = value instanceof Map ? ((Map<String, Object>) value).get("nodes") : null;
+		if (!(nodes instanceof Collection)) {
+			return Collections.emptyList();
+		}
+		List<NodeStatus> result = new ArrayList<>();
+		for (Object node : (Collection<Object>) nodes) {
+			Map<String, Object> nodeMap = (Map<String, Object>) node;
+			NodeStatus nodeStatus = new NodeStatus(String.valueOf(nodeMap.get("uri")),
+					"UP".equalsIgnoreCase(String.valueOf(nodeMap.get("availability"))));
+			Object slots = nodeMap.get("slots");
+			if (slots instanceof Collection) {
+				for (Object slot : (Collection<Object>) slots) {
+					Map<String, Object> slotMap = (Map<String, Object>) slot;
+					Object stereotype = slotMap.get("stereotype");
+					String browser = stereotype instanceof Map
+							? String.valueOf(((Map<String, Object>) stereotype).get("browserName"))
+							: "";
+					nodeStatus.addSlot(browser, slotMap.get("session") != null);
+				}
+			}
+			result.add(nodeStatus);
+		}
+		return result;
+	}
+
+	/**
+	 * @param status a parsed Grid 4 /status response
+	 * @return the number of idle slots for the browser on nodes that are UP
+	 */
+	public static int freeSlots(Map<String, Object> status, String browserName) {
+		return freeSlots(parseStatus(status), browserName);
+	}
+
+	private static int freeSlots(List<NodeStatus> nodes, String browserName) {
+		int free = 0;
+		for (NodeStatus node : nodes) {
+			if (node.isUp()) {
+				free += node.getFreeSlots(browserName);
+			}
+		}
+		return free;
+	}
+
+	private synchronized void startSampler() {
+		if (sampler != null) {
+			return;
+		}
+		sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "grid-usage-sampler");
+			thread.setDaemon(true);
+			return thread;
+		});
+		sampler.scheduleAtFixedRate(this::sampleUsage, 0, sampleMillis, TimeUnit.MILLISECONDS);
+	}
+
+	private void sampleUsage() {
+		try {
+			List<NodeStatus> nodes = fetchStatus();
+			synchronized (usage) {
+				for (NodeStatus node : nodes) {
+					usage.computeIfAbsent(node.getUri(), k -> new NodeUsage()).record(node);
+				}
+			}
+		} catch (RuntimeException e) {
+			logger.debug("Could not sample Grid usage: {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * Stops sampling and summarizes the queue wait times and the average and
+	 * peak slot usage of every node seen.
+	 */
+	public String summary() {
+		synchronized (this) {
+			if (sampler != null) {
+				sampler.shutdownNow();
+				sampler = null;
+			}
+		}
+		StringBuilder summary = new StringBuilder();
+		int waits = queueWaits.count(QUEUE_WAIT);
+		summary.append(String.format("%d session request(s), queue wait p50 %.0f ms, p95 %.0f ms, max %.0f ms, "
+				+ "peak %d queued", waits, queueWaits.percentileMillis(QUEUE_WAIT, 50),
+				queueWaits.percentileMillis(QUEUE_WAIT, 95), queueWaits.percentileMillis(QUEUE_WAIT, 100),
+				peakWaitingTests));
+		synchronized (usage) {
+			for (Map.Entry<String, NodeUsage> entry : usage.entrySet()) {
+				summary.append("; node ").append(entry.getKey()).append(": ").append(entry.getValue());
+			}
+		}
+		return summary.toString();
+	}
+
+	/**
+	 * Slots of one Grid node at the time of a status call.
+	 */
+	static final class NodeStatus {
+		private final String uri;
+		private final boolean up;
+		private final Map<String, int[]> slotsByBrowser = new LinkedHashMap<>();
+
+		NodeStatus(String uri, boolean up) {
+			this.uri = uri;
+			this.up = up;
+		}
+
+		void addSlot(String browserName, boolean busy) {
+			int[] counts = slotsByBrowser.computeIfAbsent(browserName.toLowerCase(), k -> new int[2]);
+			counts[0]++;
+			if (busy) {
+				counts[1]++;
+			}
+		}
+
+		String getUri() {
+			return uri;
+		}
+
+		boolean isUp() {
+			return up;
+		}
+
+		int getFreeSlots(String browserName) {
+			int[] counts = slotsByBrowser.get(browserName.toLowerCase());
+			return counts == null ? 0 : counts[0] - counts[1];
+		}
+
+		int getTotalSlots() {
+			int total = 0;
+			for (int[] counts : slotsByBrowser.values()) {
+				total += counts[0];
+			}
+			return total;
+		}
+
+		int getBusySlots() {
+			int busy = 0;
+			for (int[] counts : slotsByBrowser.values()) {
+				busy += counts[1];
+			}
+			return busy;
+		}
+	}
+
+	/**
+	 * Busy slot samples of one node over the run.
+	 */
+	private static final class NodeUsage {
+		private long samples;
+		private long busySum;
+		private long totalSum;
+		private int peakBusy;
+		private int totalSlots;
+
+		void record(NodeStatus node) {
+			samples++;
+			busySum += node.getBusySlots();
+			totalSum += node.getTotalSlots();
+			peakBusy = Math.max(peakBusy, node.getBusySlots());
+			totalSlots = node.getTotalSlots();
+		}
+
+		@Override
+		public String toString() {
+			double utilization = totalSum == 0 ? 0 : 100.0 * busySum / totalSum;
+			return String.format("%.0f%% average utilization, peak %d/%d slots busy over %d samples", utilization,
+					peakBusy, totalSlots, samples);
+		}
+	}
+}
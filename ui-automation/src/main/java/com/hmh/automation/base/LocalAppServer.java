@@ -0,0 +1,258 @@
+package com.hmh.automation.base;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.hmh.automation.utils.FrameworkConfig;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Serves the application under test from a local directory, so suites run
+ * offline and navigation costs a loopback round-trip instead of internet
+ * latency. Every file is read into memory when the server starts. Assets are
+ * sent with an ETag and a max-age, so the browser keeps them across the
+ * navigations that reset the application; the page itself is revalidated
+ * with If-None-Match and usually answered with an empty 304.
+ * <p>
+ * Each JVM binds its own ephemeral port, so parallel workers and shards never
+ * contend for a port; the threads of one JVM share its server.
+ */
+public class LocalAppServer {
+
+	private static final Logger logger = LogManager.getLogger(LocalAppServer.class);
+	private static final String INDEX = "index.html";
+	private static final String NODELAY = "sun.net.httpserver.nodelay";
+	private static final Map<String, String> CONTENT_TYPES = new HashMap<>();
+	private static LocalAppServer instance;
+
+	static {
+		CONTENT_TYPES.put("html", "text/html; charset=utf-8");
+		CONTENT_TYPES.put("css", "text/css; charset=utf-8");
+		CONTENT_TYPES.put("js", "application/javascript; charset=utf-8");
+		CONTENT_TYPES.put("json", "application/json; charset=utf-8");
+		CONTENT_TYPES.put("svg", "image/svg+xml");
+		CONTENT_TYPES.put("png", "image/png");
+		CONTENT_TYPES.put("ico", "image/x-icon");
+	}
+
+	private final Map<String, Asset> assets;
+	private final String host;
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final AtomicLong requests = new AtomicLong();
+	private final AtomicLong notModified = new AtomicLong();
+
+	/**
+	 * Loads every file below the root directory and starts serving it.
+	 *
+	 * @param root          directory holding the application, with an
+	 *                      index.html
+	 * @param host          address to bind to and to use in the URL
+	 * @param maxAgeSeconds how long the browser may cache assets other than
+	 *                      index.html without revalidating them
+	 * @param threads       number of request handler threads
+	 */
+	public LocalAppServer(Path root, String host, int maxAgeSeconds, int threads) throws IOException {
+		this.assets = load(root, maxAgeSeconds);
+		if (!assets.containsKey("/" + INDEX)) {
+			throw new IOException("No " + INDEX + " in " + root.toAbsolutePath());
+		}
+		this.host = host;
+		AtomicInteger threadNumber = new AtomicInteger();
+		this.executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+			Thread thread = new Thread(runnable, "local-app-server-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.server = HttpServer.create(new InetSocketAddress(InetAddress.getByName(host), 0), 0);
+		server.createContext("/", this::handle);
+		server.setExecutor(executor);
+		server.start();
+	}
+
+	/**
+	 * @return the server of this JVM, started on first use from localAppDir,
+	 *         localAppHost, localAppMaxAge and poolSize
+	 */
+	public static synchronized LocalAppServer getInstance() {
+		if (instance == null) {
+			FrameworkConfig config = FrameworkConfig.get();
+			Path root = resolveRoot(config.getLocalAppDir());
+			// send headers and body without waiting for a delayed ACK (about 40 ms per response on loopback);
+			// the JDK server reads this JVM-wide property once, so an explicit setting is left alone
+			if (System.getProperty(NODELAY) == null) {
+				System.setProperty(NODELAY, "true");
+				logger.info("Set {}=true for the local application server", NODELAY);
+			}
+			try {
+				instance = new LocalAppServer(root, config.getLocalAppHost(),
+						(int) config.getLocalAppMaxAge().getSeconds(), config.getPoolSize());
+			} catch (IOException e) {
+				throw new UncheckedIOException("Could not start the local application server for " + root, e);
+			}
+			LocalAppServer server = instance;
+			Runtime.getRuntime().addShutdownHook(new Thread(server::stop, "local-app-server-shutdown"));
+			logger.info("Serving {} files from {} at {}", server.assets.size(), root.toAbsolutePath(),
+					server.getUrl());
+		}
+		return instance;
+	}
+
+	/**
+	 * Finds the application directory: the path itself if it is a directory,
+	 * else the classpath directory of that name, so the default works from
+	 * any working directory of a test JVM.
+	 *
+	 * @param dir localAppDir, a path or a classpath resource
+	 * @return the directory to serve, or dir unchanged if neither exists
+	 */
+	public static Path resolveRoot(Path dir) {
+		if (Files.isDirectory(dir) || dir.isAbsolute()) {
+			return dir;
+		}
+		URL resource = LocalAppServer.class.getClassLoader().getResource(dir.toString().replace('\\', '/'));
+		if (resource == null || !"file".equals(resource.getProtocol())) {
+			return dir;
+		}
+		try {
+			return Paths.get(resource.toURI());
+		} catch (URISyntaxException e) {
+			return dir;
+		}
+	}
+
+	/**
+	 * @return the shared server if it was started, else null
+	 */
+	public static synchronized LocalAppServer getInstanceIfStarted() {
+		return instance;
+	}
+
+	/**
+	 * @return the URL of the application's index page
+	 */
+	public String getUrl() {
+		return "http://" + host + ":" + getPort() + "/";
+	}
+
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	/**
+	 * @return requests served and how many of them were answered with 304
+	 */
+	public String summary() {
+		return requests.get() + " requests, " + notModified.get() + " not modified";
+	}
+
+	public void stop() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try {
+			requests.incrementAndGet();
+			String method = exchange.getRequestMethod();
+			if (!"GET".equals(method) && !"HEAD".equals(method)) {
+				exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+				exchange.sendResponseHeaders(405, -1);
+				return;
+			}
+			String path = exchange.getRequestURI().getPath();
+			Asset asset = assets.get(path.endsWith("/") ? path + INDEX : path);
+			if (asset == null) {
+				exchange.sendResponseHeaders(404, -1);
+				return;
+			}
+			Headers headers = exchange.getResponseHeaders();
+			headers.set("ETag", asset.etag);
+			headers.set("Cache-Control", asset.cacheControl);
+			if (asset.etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+				notModified.incrementAndGet();
+				exchange.sendResponseHeaders(304, -1);
+				return;
+			}
+			headers.set("Content-Type", asset.contentType);
+			if ("HEAD".equals(method)) {
+				exchange.sendResponseHeaders(200, -1);
+				return;
+			}
+			exchange.sendResponseHeaders(200, asset.body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(asset.body);
+			}
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private static Map<String, Asset> load(Path root, int maxAgeSeconds) throws IOException {
+		Map<String, Asset> assets = new HashMap<>();
+		try (Stream<Path> files = Files.walk(root)) {
+			for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+				String path = "/" + root.relativize(file).toString().replace('\\', '/');
+				String name = file.getFileName().toString();
+				String extension = name.substring(name.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+				String cacheControl = INDEX.equals(name) ? "no-cache" : "public, max-age=" + maxAgeSeconds;
+				assets.put(path, new Asset(Files.readAllBytes(file),
+						CONTENT_TYPES.getOrDefault(extension, "application/octet-stream"), cacheControl));
+			}
+		}
+		return Collections.unmodifiableMap(assets);
+	}
+
+	/**
+	 * A file held in memory with its response headers.
+	 */
+	private static final class Asset {
+		final byte[] body;
+		final String contentType;
+		final String cacheControl;
+		final String etag;
+
+		Asset(byte[] body, String contentType, String cacheControl) {
+			this.body = body;
+			this.contentType = contentType;
+			this.cacheControl = cacheControl;
+			this.etag = "\"" + sha256(body) + "\"";
+		}
+
+		private static String sha256(byte[] body) {
+			try {
+				StringBuilder hex = new StringBuilder();
+				for (byte b : MessageDigest.getInstance("SHA-256").digest(body)) {
+					hex.append(String.format("%02x", b));
+				}
+				return hex.substring(0, 16);
+			} catch (NoSuchAlgorithmException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+}
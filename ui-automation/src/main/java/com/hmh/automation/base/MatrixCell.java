@@ -0,0 +1,112 @@
+package com.hmh.automation.base;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.openqa.selenium.Dimension;
+
+import com.hmh.automation.utils.FrameworkConfig;
+
+/**
+ * One browser configuration of the matrix mode (matrix=true): a browser,
+ * headless or headed, and a viewport. {@link SuiteConfigListener} runs every
+ * test of the suite once per cell, and {@link TestDriverManager} gives each
+ * cell its own {@link DriverPool} of matrixPoolSize sessions.
+ */
+public final class MatrixCell {
+
+	/**
+	 * Name of the testng.xml test parameter that holds the cell of a test.
+	 */
+	public static final String PARAMETER = "matrixCell";
+
+	private final String browser;
+	private final boolean headless;
+	private final Dimension viewport;
+	private final String name;
+
+	/**
+	 * @param browser  chrome, firefox or remote
+	 * @param headless true to start the browser without a UI
+	 * @param viewport window size, or null for a maximized window
+	 */
+	public MatrixCell(String browser, boolean headless, Dimension viewport) {
+		this.browser = browser;
+		this.headless = headless;
+		this.viewport = viewport;
+		this.name = browser + "-" + (headless ? "headless" : "headed") + "-"
+				+ (viewport == null ? "max" : viewport.getWidth() + "x" + viewport.getHeight());
+	}
+
+	/**
+	 * @return every combination of matrixBrowsers, matrixHeadless and
+	 *         matrixViewports, or no cells if matrix=false
+	 */
+	public static List<MatrixCell> fromConfig(FrameworkConfig config) {
+		if (!config.isMatrix()) {
+			return Collections.emptyList();
+		}
+		List<MatrixCell> cells = new ArrayList<>();
+		for (String browser : config.getMatrixBrowsers()) {
+			for (boolean headless : config.getMatrixHeadless()) {
+				for (String viewport : config.getMatrixViewports()) {
+					cells.add(new MatrixCell(browser, headless, parseViewport(viewport)));
+				}
+			}
+		}
+		return cells;
+	}
+
+	/**
+	 * @return the cell of that name in the configured matrix
+	 * @throws IllegalArgumentException if the matrix has no such cell
+	 */
+	public static MatrixCell named(String name) {
+		for (MatrixCell cell : fromConfig(FrameworkConfig.get())) {
+			if (cell.getName().equals(name)) {
+				return cell;
+			}
+		}
+		throw new IllegalArgumentException("No matrix cell " + name + " in the configured matrix");
+	}
+
+	/**
+	 * @param viewport WIDTHxHEIGHT, or max
+	 * @return the window size, or null for max
+	 */
+	static Dimension parseViewport(String viewport) {
+		if ("max".equals(viewport)) {
+			return null;
+		}
+		String[] size = viewport.split("x");
+		return new Dimension(Integer.parseInt(size[0]), Integer.parseInt(size[1]));
+	}
+
+	public String getBrowser() {
+		return browser;
+	}
+
+	public boolean isHeadless() {
+		return headless;
+	}
+
+	/**
+	 * @return the window size, or null for a maximized window
+	 */
+	public Dimension getViewport() {
+		return viewport;
+	}
+
+	/**
+	 * @return browser-headless|headed-viewport, e.g. firefox-headless-1280x800
+	 */
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
@@ -0,0 +1,118 @@
+package com.hmh.automation.base;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.testng.ITestResult;
+
+/**
+ * Test counts and timings per {@link MatrixCell}, so the cells of a matrix
+ * run can be compared side by side. The wall time of a cell runs from the
+ * first browser lease of its tests to the end of its last test, so it
+ * includes browser startup.
+ */
+public class MatrixTimings {
+
+	private final Map<String, CellTiming> cells = new ConcurrentSkipListMap<>();
+
+	/**
+	 * Adds a finished test to its cell.
+	 *
+	 * @param cell        name of the cell
+	 * @param status      the {@link ITestResult} status of the test
+	 * @param startMillis when the test started leasing its browser
+	 * @param endMillis   when the test and its teardown finished
+	 */
+	public void record(String cell, int status, long startMillis, long endMillis) {
+		cells.computeIfAbsent(cell, k -> new CellTiming()).record(status, startMillis, endMillis);
+	}
+
+	public boolean isEmpty() {
+		return cells.isEmpty();
+	}
+
+	/**
+	 * @return a header row, then one row per cell: cell, tests, passed,
+	 *         failed, skipped, wall time and summed test time in seconds
+	 */
+	public String[][] table() {
+		List<String[]> rows = new ArrayList<>();
+		rows.add(new String[] { "cell", "tests", "passed", "failed", "skipped", "wall s", "test s" });
+		for (Map.Entry<String, CellTiming> entry : cells.entrySet()) {
+			CellTiming timing = entry.getValue();
+			synchronized (timing) {
+				rows.add(new String[] { entry.getKey(), String.valueOf(timing.tests), String.valueOf(timing.passed),
+						String.valueOf(timing.failed), String.valueOf(timing.skipped), seconds(timing.wallMillis()),
+						seconds(timing.testMillis) });
+			}
+		}
+		return rows.toArray(new String[0][]);
+	}
+
+	/**
+	 * @return the wall time of the slowest cell against the sum of all cells,
+	 *         i.e. what running the cells one after another would have taken
+	 */
+	public String summary() {
+		long slowest = 0;
+		long sum = 0;
+		for (CellTiming timing : cells.values()) {
+			long wall;
+			synchronized (timing) {
+				wall = timing.wallMillis();
+			}
+			slowest = Math.max(slowest, wall);
+			sum += wall;
+		}
+		return String.format("%d cells, slowest %s s, %s s if run one after another", cells.size(), seconds(slowest),
+				seconds(sum));
+	}
+
+	/**
+	 * @return the table as fixed-width text, for the log
+	 */
+	public String format() {
+		StringBuilder text = new StringBuilder();
+		for (String[] row : table()) {
+			text.append(System.lineSeparator()).append(String.format("%-36s", row[0]));
+			for (int i = 1; i < row.length; i++) {
+				text.append(String.format("%9s", row[i]));
+			}
+		}
+		return text.toString();
+	}
+
+	private static String seconds(long millis) {
+		return String.format("%.1f", millis / 1000.0);
+	}
+
+	private static final class CellTiming {
+		int tests;
+		int passed;
+		int failed;
+		int skipped;
+		long firstStart = Long.MAX_VALUE;
+		long lastEnd;
+		long testMillis;
+
+		synchronized void record(int status, long start, long end) {
+			tests++;
+			if (status == ITestResult.SUCCESS) {
+				passed++;
+			} else if (status == ITestResult.FAILURE) {
+				failed++;
+			} else {
+				skipped++;
+			}
+			firstStart = Math.min(firstStart, start);
+			lastEnd = Math.max(lastEnd, end);
+			testMillis += Math.max(0, end - start);
+		}
+
+		long wallMillis() {
+			return tests == 0 ? 0 : Math.max(0, lastEnd - firstStart);
+		}
+	}
+}
@@ -0,0 +1,165 @@
+package com.hmh.automation.base;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import com.hmh.automation.utils.FrameworkConfig;
+
+/**
+ * Page-load time of the application page each test starts on, with and
+ * without the {@link BrowserProfile}. Times come from the page's navigation
+ * timing entry and are kept per test and profile in pageLoadHistoryFile as a
+ * moving average, so a run with the profile can be compared with earlier
+ * runs without it, test by test.
+ */
+public class PageLoadTimes {
+
+	private static final String PROFILE = "profile";
+	private static final String DEFAULT = "default";
+
+	private static final Logger logger = LogManager.getLogger(PageLoadTimes.class);
+	private static final double NEW_RUN_WEIGHT = 0.5;
+	private static final String SCRIPT = "var n = performance.getEntriesByType('navigation')[0];"
+			+ " return n && n.loadEventEnd > 0 ? Math.round(n.loadEventEnd - n.startTime) : null;";
+	private static PageLoadTimes instance;
+
+	private final Path file;
+	private final Map<String, Long> averages = new TreeMap<>();
+	private final Map<String, long[]> run = new TreeMap<>();
+
+	/**
+	 * @param file history file, read if it exists
+	 */
+	public PageLoadTimes(Path file) {
+		this.file = file;
+		if (Files.isRegularFile(file)) {
+			Properties properties = new Properties();
+			try (InputStream in = Files.newInputStream(file)) {
+				properties.load(in);
+			} catch (IOException e) {
+				logger.warn("Could not read page load history {}: {}", file, e.getMessage());
+			}
+			for (String key : properties.stringPropertyNames()) {
+				averages.put(key, Long.parseLong(properties.getProperty(key).trim()));
+			}
+		}
+	}
+
+	/**
+	 * @return the history in pageLoadHistoryFile, shared by all threads
+	 */
+	public static synchronized PageLoadTimes getInstance() {
+		if (instance == null) {
+			instance = new PageLoadTimes(FrameworkConfig.get().getPageLoadHistoryFile());
+		}
+		return instance;
+	}
+
+	/**
+	 * @return load time in ms of the page the session is on, or null if it
+	 *         has not finished loading or cannot tell
+	 */
+	public static Long measure(WebDriver driver) {
+		try {
+			Object millis = ((JavascriptExecutor) driver).executeScript(SCRIPT);
+			return millis instanceof Number ? ((Number) millis).longValue() : null;
+		} catch (WebDriverException e) {
+			logger.debug("Could not read the page load time: {}", e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Adds a page load of a test.
+	 *
+	 * @param test    test id, {@code className#methodName}
+	 * @param profile true if the browser ran with the performance profile
+	 * @param millis  load time
+	 * @return the load time, next to the test's average in the other mode if
+	 *         it has one
+	 */
+	public synchronized String record(String test, boolean profile, long millis) {
+		String mode = profile ? PROFILE : DEFAULT;
+		String other = profile ? DEFAULT : PROFILE;
+		Long previous = averages.get(key(test, mode));
+		averages.put(key(test, mode),
+				previous == null ? millis : Math.round(NEW_RUN_WEIGHT * millis + (1 - NEW_RUN_WEIGHT) * previous));
+		Long baseline = averages.get(key(test, other));
+		long[] totals = run.computeIfAbsent(test, k -> new long[3]);
+		totals[0]++;
+		totals[1] += millis;
+		totals[2] = baseline == null ? -1 : baseline;
+		return millis + " ms " + label(profile)
+				+ (baseline == null ? "" : ", " + baseline + " ms on average " + label(!profile));
+	}
+
+	/**
+	 * @return the average page load of this run's tests, next to their
+	 *         average in the other mode
+	 */
+	public synchronized String summary(boolean profile) {
+		long loads = 0;
+		double sum = 0;
+		double baselineSum = 0;
+		int baselineTests = 0;
+		double comparedSum = 0;
+		for (long[] totals : run.values()) {
+			double average = (double) totals[1] / totals[0];
+			loads += totals[0];
+			sum += totals[1];
+			if (totals[2] >= 0) {
+				baselineSum += totals[2];
+				comparedSum += average;
+				baselineTests++;
+			}
+		}
+		if (loads == 0) {
+			return "no page loads measured";
+		}
+		String summary = String.format(Locale.ROOT, "%.0f ms average over %d page loads %s", sum / loads, loads,
+				label(profile));
+		if (baselineTests > 0) {
+			summary += String.format(Locale.ROOT, "; %d of the tests averaged %.0f ms this run and %.0f ms %s",
+					baselineTests, comparedSum / baselineTests, baselineSum / baselineTests, label(!profile));
+		}
+		return summary;
+	}
+
+	private static String key(String test, String mode) {
+		return test + "." + mode;
+	}
+
+	private static String label(boolean profile) {
+		return profile ? "with the performance profile" : "without the performance profile";
+	}
+
+	public synchronized void save() {
+		Properties properties = new Properties();
+		for (Map.Entry<String, Long> entry : averages.entrySet()) {
+			properties.setProperty(entry.getKey(), String.valueOf(entry.getValue()));
+		}
+		try {
+			if (file.getParent() != null) {
+				Files.createDirectories(file.getParent());
+			}
+			try (OutputStream out = Files.newOutputStream(file)) {
+				properties.store(out, "Moving average page load in ms per test method and browser profile");
+			}
+		} catch (IOException e) {
+			logger.warn("Could not save page load history to {}: {}", file, e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package com.hmh.automation.base;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.IAlterSuiteListener;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+import com.hmh.automation.impact.TestSelection;
+import com.hmh.automation.retry.FlakeHistory;
+import com.hmh.automation.retry.QuarantineLane;
+import com.hmh.automation.utils.FrameworkConfig;
+
+/**
+ * Applies the parallelism and dataProviderParallelism settings to the suites
+ * before they run, so the thread count can be changed per run (e.g.
+ * {@code -Dparallelism=8}) without editing testng.xml. With
+ * impactSelection=true, only the tests affected by the changes since
+ * impactBase run (see {@link TestSelection}). With quarantine=true,
+ * chronically flaky tests are moved into a {@link QuarantineLane}. With
+ * matrix=true, every test of the suite is copied once per
+ * {@link MatrixCell}; the copies run in parallel, each on matrixPoolSize
+ * threads. Registered as a listener in testng.xml.
+ */
+public class SuiteConfigListener implements IAlterSuiteListener {
+
+	private static final Logger logger = LogManager.getLogger(SuiteConfigListener.class);
+
+	@Override
+	public void alter(List<XmlSuite> suites) {
+		FrameworkConfig config = FrameworkConfig.get();
+		int parallelism = config.getParallelism();
+		int dataProviderParallelism = config.getDataProviderParallelism();
+		for (XmlSuite suite : suites) {
+			if (parallelism > 0) {
+				suite.setThreadCount(parallelism);
+				for (XmlTest test : suite.getTests()) {
+					test.setThreadCount(parallelism);
+				}
+				logger.info("Running suite {} on {} threads", suite.getName(), parallelism);
+			}
+			if (dataProviderParallelism > 0) {
+				suite.setDataProviderThreadCount(dataProviderParallelism);
+			}
+		}
+		if (config.isImpactSelection()) {
+			TestSelection.apply(suites);
+		}
+		if (config.isQuarantine()) {
+			Set<String> quarantined = FlakeHistory.getInstance().getQuarantined();
+			for (XmlSuite suite : suites) {
+				QuarantineLane.apply(suite, quarantined);
+			}
+		}
+		List<MatrixCell> cells = MatrixCell.fromConfig(config);
+		if (!cells.isEmpty()) {
+			for (XmlSuite suite : suites) {
+				expandMatrix(suite, cells, config.getMatrixPoolSize());
+			}
+			return;
+		}
+		if (parallelism > config.getPoolSize()) {
+			logger.warn("parallelism {} is above poolSize {}; the extra threads wait for a free browser", parallelism,
+					config.getPoolSize());
+		}
+	}
+
+	/**
+	 * Replaces every test of the suite by one copy per cell, named after the
+	 * cell and given its name as the {@link MatrixCell#PARAMETER} parameter.
+	 * The suite runs the copies in parallel, so the matrix takes about as long
+	 * as its slowest cell.
+	 */
+	public static void expandMatrix(XmlSuite suite, List<MatrixCell> cells, int threadsPerCell) {
+		List<XmlTest> tests = new ArrayList<>(suite.getTests());
+		suite.getTests().clear();
+		for (XmlTest test : tests) {
+			for (MatrixCell cell : cells) {
+				// clone() adds the copy to the suite
+				XmlTest copy = (XmlTest) test.clone();
+				copy.setName(test.getName() + " [" + cell.getName() + "]");
+				List<XmlClass> classes = new ArrayList<>();
+				for (XmlClass xmlClass : test.getXmlClasses()) {
+					XmlClass classCopy = (XmlClass) xmlClass.clone();
+					classCopy.setXmlTest(copy);
+					classes.add(classCopy);
+				}
+				copy.setXmlClasses(classes);
+				Map<String, String> parameters = new HashMap<>(test.getLocalParameters());
+				parameters.put(MatrixCell.PARAMETER, cell.getName());
+				copy.setParameters(parameters);
+				if (copy.getParallel() == null || !copy.getParallel().isParallel()) {
+					copy.setParallel(XmlSuite.ParallelMode.METHODS);
+				}
+				copy.setThreadCount(threadsPerCell);
+			}
+		}
+		suite.setParallel(XmlSuite.ParallelMode.TESTS);
+		suite.setThreadCount(suite.getTests().size());
+		logger.info("Running suite {} as a matrix of {} cells ({}), {} threads each", suite.getName(), cells.size(),
+				cells, threadsPerCell);
+	}
+}
@@ -1,87 +1,361 @@
 package com.hmh.automation.base;
 
-import java.time.Duration;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.chrome.ChromeDriver;
-import org.openqa.selenium.chrome.ChromeOptions;
-import org.openqa.selenium.firefox.FirefoxDriver;
-import org.openqa.selenium.firefox.FirefoxOptions;
+import org.testng.ITestContext;
 import org.testng.ITestResult;
+import org.testng.SkipException;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.AfterSuite;
+import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.BeforeSuite;
 
-import com.aventstack.extentreports.ExtentReports;
-import com.aventstack.extentreports.ExtentTest;
 import com.aventstack.extentreports.MediaEntityBuilder;
+import com.aventstack.extentreports.markuputils.MarkupHelper;
+import com.hmh.automation.impact.DependencyRecorder;
+import com.hmh.automation.impact.ImpactMap;
+import com.hmh.automation.impact.TestSelection;
+import com.hmh.automation.journal.ResultJournal;
+import com.hmh.automation.locators.LocatorContext;
+import com.hmh.automation.metrics.CommandMetrics;
+import com.hmh.automation.pages.TodoFixture;
+import com.hmh.automation.pages.TodoPage;
+import com.hmh.automation.pages.TodoState;
+import com.hmh.automation.retry.FlakeListener;
+import com.hmh.automation.schedule.FailFast;
+import com.hmh.automation.utils.FrameworkConfig;
 import com.hmh.automation.utils.ScreenshotUtil;
+import com.hmh.automation.waits.DomCondition;
+import com.hmh.automation.waits.DomWaiter;
+import com.hmh.automation.waits.WaitEngine;
 
+/**
+ * Base class for UI tests. Every test method runs on a browser session leased
+ * from a shared {@link DriverPool}, so methods can run in parallel (see
+ * {@code parallel="methods"} in testng.xml) with up to {@code poolSize}
+ * browsers open at once. Each method starts from an empty todo list or from
+ * the list declared by its {@link TodoFixture}. With
+ * {@code warmSessions=true} (off by default) the browsers stay alive across
+ * test classes and suites and are only quit when the JVM exits. In matrix mode (see
+ * {@link MatrixCell}) each cell has its own pool, and the cells' timings are
+ * reported side by side. The page-object members each test uses are recorded
+ * in the {@link ImpactMap}. Once {@link FailFast} aborts the run, the
+ * remaining tests are skipped and the browsers quit. The load time of the
+ * page each test starts on is reported next to its time with (or without)
+ * the {@link BrowserProfile}, see {@link PageLoadTimes}.
+ */
 public class TestDriverManager {
 
-	protected static ExtentReports extent;
-	protected static ExtentTest test;
-
 	private static final Logger logger = LogManager.getLogger(TestDriverManager.class);
-	protected WebDriver driver;
+	private static final Map<String, DriverPool> driverPools = new LinkedHashMap<>();
+	private static final ThreadLocal<MatrixCell> matrixCell = new ThreadLocal<>();
+	private static final ThreadLocal<Long> leaseStartMillis = new ThreadLocal<>();
+	private static final ThreadLocal<Long> pageLoadMillis = new ThreadLocal<>();
+	private static final MatrixTimings matrixTimings = new MatrixTimings();
+	private static final String APP_READY = "#todo-input";
+
+	static {
+		FailFast.getInstance().onTrip(TestDriverManager::drainPools);
+	}
 
 	@BeforeSuite
 	public void setupExtent() {
-		extent = ExtentReportManager.getInstance();
-	}
-
-	public WebDriver setup(String browser, boolean runHeadless) {
-		logger.info("Initializing WebDriver...{}",runHeadless);
-        switch (browser.toLowerCase()) {
-            case "chrome":
-                ChromeOptions chromeOptions = new ChromeOptions();
-                if (runHeadless) {
-                    chromeOptions.addArguments("--headless");
-                }
-                driver = new ChromeDriver(chromeOptions);
-                break;
-
-            case "firefox":
-                FirefoxOptions firefoxOptions = new FirefoxOptions();
-                if (runHeadless) {
-                    firefoxOptions.addArguments("--headless");
-                }
-                driver = new FirefoxDriver(firefoxOptions);
-                break;
-
-            default:
-                throw new IllegalArgumentException("Unsupported browser: " + browser);
-        }
-
-		driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(10));
-		driver.manage().window().maximize();
-		logger.info("WebDriver successfully initialized...");
-		return driver;
-	}
-
-	@AfterMethod
+		ExtentReportManager.start();
+	}
+
+	/**
+	 * @return the driver pool of the current test thread's matrix cell, or the
+	 *         shared pool outside matrix mode
+	 */
+	protected static DriverPool getDriverPool() {
+		return getDriverPool(matrixCell.get());
+	}
+
+	/**
+	 * Creates a driver pool on first use. The shared pool (cell null) uses the
+	 * browser, runheadless and poolSize settings in config.properties; a
+	 * matrix cell's pool uses the cell's browser, headless mode and viewport
+	 * and matrixPoolSize. With localApp=true the sessions use the bundled
+	 * application served by {@link LocalAppServer} instead of url.
+	 */
+	protected static synchronized DriverPool getDriverPool(MatrixCell cell) {
+		String key = cell == null ? "" : cell.getName();
+		DriverPool pool = driverPools.get(key);
+		if (pool == null) {
+			FrameworkConfig config = FrameworkConfig.get();
+			String url = config.isLocalApp() ? LocalAppServer.getInstance().getUrl() : config.getUrl();
+			pool = cell == null
+					? new DriverPool(config.getPoolSize(), (int) config.getPoolLeaseTimeout().getSeconds(),
+							() -> DriverFactory.createDriver(config.getBrowser(), config.isHeadless()),
+							driver -> resetApplicationState(driver, url))
+					: new DriverPool(config.getMatrixPoolSize(), (int) config.getPoolLeaseTimeout().getSeconds(),
+							() -> DriverFactory.createDriver(cell.getBrowser(), cell.isHeadless(), cell.getViewport()),
+							driver -> resetApplicationState(driver, url));
+			if (config.isWarmSessions()) {
+				Runtime.getRuntime().addShutdownHook(new Thread(pool::shutdown, "driver-pool-shutdown"));
+			}
+			driverPools.put(key, pool);
+		}
+		return pool;
+	}
+
+	/**
+	 * Clears cookies and web storage, then loads the application so every lease
+	 * starts from an empty todo list. A session that is still on the application
+	 * is reset with a single navigation; the TodoMVC store lives in page memory
+	 * and does not survive it.
+	 */
+	public static void resetApplicationState(WebDriver driver, String url) {
+		String currentUrl = driver.getCurrentUrl();
+		if (currentUrl == null || !currentUrl.startsWith(url)) {
+			driver.get(url);
+		}
+		driver.manage().deleteAllCookies();
+		((JavascriptExecutor) driver).executeScript("window.localStorage.clear(); window.sessionStorage.clear();");
+		driver.get(url);
+		new DomWaiter(driver).until("applicationReady", DomCondition.present(APP_READY));
+	}
+
+	/**
+	 * Creates the report node of the test method about to run, leases a
+	 * browser session for it (from its matrix cell's pool in matrix mode) and
+	 * seeds the todo list declared by its {@link TodoFixture}, if any. Skips
+	 * the test instead once {@link FailFast} has aborted the run.
+	 */
+	@BeforeMethod(alwaysRun = true)
+	public void leaseDriver(Method method, Object[] parameters, ITestContext context) {
+		FailFast failFast = FailFast.getInstance();
+		if (failFast.isTripped()) {
+			throw new SkipException("Run aborted: " + failFast.getReason());
+		}
+		String cellName = context.getCurrentXmlTest().getParameter(MatrixCell.PARAMETER);
+		matrixCell.set(cellName == null ? null : MatrixCell.named(cellName));
+		leaseStartMillis.set(System.currentTimeMillis());
+		String testName = parameters.length == 0 ? method.getName()
+				: method.getName() + Arrays.toString(parameters);
+		if (cellName != null) {
+			testName += " [" + cellName + "]";
+		}
+		ExtentReportManager.startTest(getClass(), testName);
+		CommandMetrics.getInstance().startTest();
+		DependencyRecorder.getInstance().startTest();
+		WebDriver driver = getDriverPool().lease();
+		pageLoadMillis.set(PageLoadTimes.measure(driver));
+		TodoFixture fixture = method.getAnnotation(TodoFixture.class);
+		if (fixture != null) {
+			new TodoPage(driver).applyState(TodoState.of(fixture));
+		}
+	}
+
+	/**
+	 * @return the browser session leased to the current test thread
+	 */
+	protected WebDriver getDriver() {
+		return getDriverPool().lease();
+	}
+
+	@AfterMethod(alwaysRun = true)
 	public void tearDown(ITestResult result) {
+		ExtentReportManager.TestNode node = ExtentReportManager.finishTest();
+		boolean endsLater = false;
+		try {
+			recordDependencies(result);
+			WebDriver driver = getDriverPool().current();
+			if (node == null) {
+				return;
+			}
+			journalResult(node, result);
+			Long pageLoad = pageLoadMillis.get();
+			if (pageLoad != null) {
+				String comparison = PageLoadTimes.getInstance().record(FlakeListener.testId(result),
+						BrowserProfile.getInstance() != null, pageLoad);
+				node.log(t -> t.info("Page load: " + comparison));
+			}
+			String[][] breakdown = CommandMetrics.getInstance().testBreakdown();
+			if (breakdown != null && breakdown.length > 1) {
+				node.log(t -> t.info(MarkupHelper.createTable(breakdown)));
+			}
+			if (result.getStatus() == ITestResult.FAILURE && driver != null) {
+				// the screenshot is written in the background; the failure is logged once it is on disk
+				ScreenshotUtil.captureScreenshotAsync(driver, result.getName(), (path, error) -> {
+					if (error == null) {
+						Map<String, Object> fields = new LinkedHashMap<>();
+						fields.put("test", node.getId());
+						fields.put("path", path);
+						ResultJournal.getInstance().append(ResultJournal.SCREENSHOT, fields);
+						node.log(t -> t.fail("Test Failed", MediaEntityBuilder.createScreenCaptureFromPath(path).build()));
+					} else {
+						logger.error("Could not save screenshot of {}", result.getName(), error);
+						node.log(t -> t.fail("Test Failed (screenshot not saved: " + error.getMessage() + ")"));
+					}
+					node.end();
+				});
+				endsLater = true;
+			} else if (result.getStatus() == ITestResult.FAILURE) {
+				node.log(t -> t.fail(result.getThrowable()));
+			} else if (result.getStatus() == ITestResult.SUCCESS) {
+				node.log(t -> t.pass("Test Passed"));
+			} else if (result.wasRetried()) {
+				node.log(t -> t.warning("Retried on a fresh browser after a transient failure: "
+						+ result.getThrowable()));
+			} else if (result.getAttribute(FlakeListener.QUARANTINED) != null) {
+				node.log(t -> t.skip("Quarantined test failed; the run does not fail: " + result.getThrowable()));
+			} else if (result.getStatus() == ITestResult.SKIP) {
+				node.log(t -> t.skip("Test Skipped"));
+			}
+		} finally {
+			if (node != null && !endsLater) {
+				node.end();
+			}
+			if (result.wasRetried()) {
+				// the retry leases a new browser instead of the one that failed
+				getDriverPool().discard();
+			} else {
+				getDriverPool().release();
+			}
+			MatrixCell cell = matrixCell.get();
+			if (cell != null && leaseStartMillis.get() != null) {
+				matrixTimings.record(cell.getName(), result.getStatus(), leaseStartMillis.get(),
+						System.currentTimeMillis());
+			}
+			leaseStartMillis.remove();
+			pageLoadMillis.remove();
+		}
+	}
 
-		if (result.getStatus() == ITestResult.FAILURE) {
-			String screenshotPath = ScreenshotUtil.captureScreenshot(driver, result.getName());
-			test.fail("Test Failed", MediaEntityBuilder.createScreenCaptureFromPath(screenshotPath).build());
-		} else if (result.getStatus() == ITestResult.SUCCESS) {
-			test.pass("Test Passed");
+	/**
+	 * Adds the page object members the test used to the impact map. Test
+	 * selection is an optimization, so a failure here is only logged and never
+	 * keeps the browser from going back to the pool.
+	 */
+	private static void recordDependencies(ITestResult result) {
+		try {
+			Set<String> usedMembers = DependencyRecorder.getInstance().finishTest();
+			if (result.getStatus() == ITestResult.SUCCESS || result.getStatus() == ITestResult.FAILURE) {
+				// a skipped test may not have reached the page, so it says nothing about what the test uses
+				ImpactMap.getInstance().add(FlakeListener.testId(result), usedMembers);
+			}
+		} catch (RuntimeException e) {
+			logger.warn("Could not record the dependencies of {}", FlakeListener.testId(result), e);
 		}
 	}
 
-	public void teardown() {
-		logger.info("Ending WebDriver Session...");
-		if (driver != null) {
-			driver.quit();
+	/**
+	 * Quits the idle browsers of every pool, and the others as their tests
+	 * end.
+	 */
+	private static synchronized void drainPools() {
+		for (DriverPool pool : driverPools.values()) {
+			pool.drain();
+		}
+	}
+
+	private static void journalResult(ExtentReportManager.TestNode node, ITestResult result) {
+		Map<String, Object> fields = new LinkedHashMap<>();
+		fields.put("test", node.getId());
+		fields.put("status", result.getStatus() == ITestResult.SUCCESS ? "PASS"
+				: result.getStatus() == ITestResult.FAILURE ? "FAIL" : "SKIP");
+		fields.put("durationMillis", result.getEndMillis() - result.getStartMillis());
+		if (result.getThrowable() != null) {
+			fields.put("error", String.valueOf(result.getThrowable()));
+		}
+		if (pageLoadMillis.get() != null) {
+			fields.put("pageLoadMillis", pageLoadMillis.get());
 		}
+		if (result.wasRetried()) {
+			fields.put("retried", true);
+		}
+		if (result.getAttribute(FlakeListener.QUARANTINED) != null) {
+			fields.put("quarantined", true);
+		}
+		ResultJournal.getInstance().append(ResultJournal.TEST_RESULT, fields);
 	}
 
-	@AfterSuite
+	@AfterSuite(alwaysRun = true)
 	public void generateReport() {
+		synchronized (TestDriverManager.class) {
+			for (Map.Entry<String, DriverPool> pool : driverPools.entrySet()) {
+				reportSessionReuse(pool.getKey(), pool.getValue());
+				if (!FrameworkConfig.get().isWarmSessions()) {
+					pool.getValue().shutdown();
+				}
+			}
+			if (!FrameworkConfig.get().isWarmSessions()) {
+				driverPools.clear();
+			}
+		}
+		if (!matrixTimings.isEmpty()) {
+			reportMatrixTimings();
+		}
+		GridScheduler grid = GridScheduler.getInstanceIfStarted();
+		if (grid != null) {
+			String gridUsage = grid.summary();
+			logger.info("Selenium Grid usage: {}", gridUsage);
+			ExtentReportManager.setSystemInfo("Selenium Grid usage", gridUsage);
+		}
+		LocalAppServer localApp = LocalAppServer.getInstanceIfStarted();
+		if (localApp != null) {
+			logger.info("Local application server at {}: {}", localApp.getUrl(), localApp.summary());
+		}
+		logger.info("Locator lookup times:{}", LocatorContext.lookupTimes().summary());
+		reportPageLoads();
+		WaitEngine.getInstance().save();
+		TestSelection.saveMap();
+		writeCommandMetrics();
+		ScreenshotUtil.awaitPendingWrites(FrameworkConfig.get().getScreenshotWriteTimeout().toMillis(),
+				TimeUnit.MILLISECONDS);
 		ExtentReportManager.flushReport();
+	}
+
+	private static void writeCommandMetrics() {
+		Path metricsFile = FrameworkConfig.get().getMetricsFile();
+		try {
+			CommandMetrics.getInstance().writePrometheus(metricsFile);
+			logger.info("WebDriver command metrics written to {}", metricsFile);
+		} catch (IOException e) {
+			logger.warn("Could not write command metrics to {}: {}", metricsFile, e.getMessage());
+		}
+	}
 
+	private static void reportPageLoads() {
+		PageLoadTimes pageLoads = PageLoadTimes.getInstance();
+		String summary = pageLoads.summary(BrowserProfile.getInstance() != null);
+		logger.info("Page load times: {}", summary);
+		ExtentReportManager.setSystemInfo("Page load times", summary);
+		pageLoads.save();
+	}
+
+	private static void reportSessionReuse(String cell, DriverPool pool) {
+		String summary = String.format("%d cold launches (avg %d ms), %d warm leases, ~%d ms startup saved",
+				pool.getColdStarts(), pool.getAverageStartupMillis(), pool.getWarmLeases(),
+				pool.getSavedStartupMillis());
+		String label = cell.isEmpty() ? "Browser session reuse" : "Browser session reuse [" + cell + "]";
+		logger.info("{}: {}", label, summary);
+		ExtentReportManager.setSystemInfo(label, summary);
+	}
+
+	private static void reportMatrixTimings() {
+		logger.info("Matrix timings per cell:{}", matrixTimings.format());
+		String[][] table = matrixTimings.table();
+		for (int i = 1; i < table.length; i++) {
+			String[] row = table[i];
+			ExtentReportManager.setSystemInfo("Matrix [" + row[0] + "]",
+					String.format("%s tests (%s passed, %s failed, %s skipped), %s s wall, %s s in tests", row[1],
+							row[2], row[3], row[4], row[5], row[6]));
+		}
+		String summary = matrixTimings.summary();
+		logger.info("Matrix wall time: {}", summary);
+		ExtentReportManager.setSystemInfo("Matrix wall time", summary);
 	}
 }
@@ -0,0 +1,137 @@
+package com.hmh.automation.data;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads a UTF-8 CSV file one record at a time. Fields may be quoted with
+ * double quotes, in which case they can hold commas, line breaks and doubled
+ * quotes. Blank lines are skipped.
+ */
+public class CsvRowSource implements RowSource {
+
+	private final Path file;
+	private final BufferedReader reader;
+	private final List<String> headers;
+	private int lineNumber;
+	private int rowNumber = 1;
+	private List<String> next;
+
+	public CsvRowSource(Path file) throws IOException {
+		this.file = file;
+		this.reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+		List<String> header = readRecord();
+		if (header == null) {
+			reader.close();
+			throw new IOException("Data file " + file + " has no header row");
+		}
+		// drop the byte order mark Excel writes at the start of a UTF-8 CSV
+		if (!header.isEmpty() && header.get(0).startsWith("\uFEFF")) {
+			header.set(0, header.get(0).substring(1));
+		}
+		this.headers = header;
+		this.next = readRecord();
+		if (next == null) {
+			close();
+		}
+	}
+
+	@Override
+	public boolean hasNext() {
+		return next != null;
+	}
+
+	@Override
+	public DataRow next() {
+		if (next == null) {
+			throw new NoSuchElementException();
+		}
+		Map<String, String> values = new LinkedHashMap<>();
+		for (int i = 0; i < headers.size(); i++) {
+			values.put(headers.get(i), i < next.size() ? next.get(i) : "");
+		}
+		DataRow row = new DataRow(++rowNumber, values);
+		try {
+			next = readRecord();
+		} catch (IOException e) {
+			close();
+			throw new UncheckedIOException("Could not read " + file + " at line " + lineNumber, e);
+		}
+		if (next == null) {
+			close();
+		}
+		return row;
+	}
+
+	@Override
+	public void close() {
+		try {
+			reader.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * @return the fields of the next non-blank record, or null at the end
+	 */
+	private List<String> readRecord() throws IOException {
+		String line;
+		do {
+			line = reader.readLine();
+			lineNumber++;
+			if (line == null) {
+				return null;
+			}
+		} while (line.trim().isEmpty());
+
+		List<String> fields = new ArrayList<>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		int i = 0;
+		while (true) {
+			if (i == line.length()) {
+				if (!quoted) {
+					fields.add(field.toString());
+					return fields;
+				}
+				// a quoted field continues on the next line
+				line = reader.readLine();
+				lineNumber++;
+				if (line == null) {
+					throw new IOException("Unterminated quoted field in " + file + " at line " + lineNumber);
+				}
+				field.append('\n');
+				i = 0;
+				continue;
+			}
+			char c = line.charAt(i++);
+			if (quoted) {
+				if (c == '"' && i < line.length() && line.charAt(i) == '"') {
+					field.append('"');
+					i++;
+				} else if (c == '"') {
+					quoted = false;
+				} else {
+					field.append(c);
+				}
+			} else if (c == '"') {
+				quoted = true;
+			} else if (c == ',') {
+				fields.add(field.toString());
+				field.setLength(0);
+			} else {
+				field.append(c);
+			}
+		}
+	}
+}
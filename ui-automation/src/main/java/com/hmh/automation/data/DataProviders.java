@@ -0,0 +1,77 @@
+package com.hmh.automation.data;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.annotations.DataProvider;
+
+/**
+ * TestNG data providers backed by data sheets. The rows are streamed from the
+ * sheet named by the test method's {@link DataSource} and run in parallel on
+ * TestNG's data provider threads (data-provider-thread-count in testng.xml,
+ * or dataProviderParallelism). Each pooled browser serves one row at a time.
+ */
+public final class DataProviders {
+
+	public static final String SHEET = "sheet";
+	private static final Logger logger = LogManager.getLogger(DataProviders.class);
+
+	private DataProviders() {
+	}
+
+	/**
+	 * @return one invocation per row of the method's data sheet, read lazily
+	 */
+	@DataProvider(name = SHEET, parallel = true)
+	public static Iterator<Object[]> sheet(Method method) throws IOException {
+		DataSource source = method.getAnnotation(DataSource.class);
+		if (source == null) {
+			throw new IllegalStateException(method.getName() + " uses the " + SHEET + " data provider but has no @"
+					+ DataSource.class.getSimpleName());
+		}
+		Path file = resolve(source.value());
+		logger.info("Streaming test data for {} from {}", method.getName(), file);
+		RowSource rows = RowSource.open(file, source.sheet());
+		return new Iterator<Object[]>() {
+			@Override
+			public boolean hasNext() {
+				return rows.hasNext();
+			}
+
+			@Override
+			public Object[] next() {
+				return new Object[] { rows.next() };
+			}
+		};
+	}
+
+	/**
+	 * @return the classpath resource of that name if it is a file, else the
+	 *         name as a path
+	 */
+	static Path resolve(String name) {
+		URL resource = DataProviders.class.getClassLoader().getResource(name);
+		if (resource != null && "file".equals(resource.getProtocol())) {
+			try {
+				return Paths.get(resource.toURI());
+			} catch (URISyntaxException e) {
+				throw new IllegalArgumentException("Invalid data file location " + resource, e);
+			}
+		}
+		Path path = Paths.get(name);
+		if (!Files.isRegularFile(path)) {
+			throw new UncheckedIOException(new IOException("Data file " + name + " not found on the classpath or at "
+					+ path.toAbsolutePath()));
+		}
+		return path;
+	}
+}
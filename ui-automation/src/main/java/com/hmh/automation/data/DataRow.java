@@ -0,0 +1,82 @@
+package com.hmh.automation.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One row of a data sheet: the cell values keyed by the column headers of the
+ * sheet's first row. Missing and blank cells read as empty strings.
+ */
+public final class DataRow {
+
+	private final int number;
+	private final Map<String, String> values;
+
+	/**
+	 * @param number 1-based row number in the sheet, counting the header row
+	 * @param values cell values keyed by column header
+	 */
+	public DataRow(int number, Map<String, String> values) {
+		this.number = number;
+		this.values = Collections.unmodifiableMap(values);
+	}
+
+	public int getNumber() {
+		return number;
+	}
+
+	/**
+	 * @return the trimmed value of the column, or an empty string
+	 * @throws IllegalArgumentException if the sheet has no such column
+	 */
+	public String get(String column) {
+		String value = values.get(column);
+		if (value == null && !values.containsKey(column)) {
+			throw new IllegalArgumentException("No column '" + column + "' in data row " + number + ", columns are "
+					+ values.keySet());
+		}
+		return value == null ? "" : value.trim();
+	}
+
+	/**
+	 * @throws IllegalArgumentException if the value is not an integer
+	 */
+	public int getInt(String column) {
+		String value = get(column);
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Column '" + column + "' of data row " + number + " is not an integer: "
+					+ value);
+		}
+	}
+
+	/**
+	 * @return the values of a column holding a list separated by '|', e.g.
+	 *         {@code Read book|Go for a walk}; empty for a blank cell
+	 */
+	public List<String> getList(String column) {
+		List<String> items = new ArrayList<>();
+		for (String item : get(column).split("\\|")) {
+			if (!item.trim().isEmpty()) {
+				items.add(item.trim());
+			}
+		}
+		return items;
+	}
+
+	public Map<String, String> getValues() {
+		return values;
+	}
+
+	/**
+	 * Shown as the test parameter in reports, so keep it short.
+	 */
+	@Override
+	public String toString() {
+		String first = values.isEmpty() ? "" : ": " + values.values().iterator().next();
+		return "row " + number + first;
+	}
+}
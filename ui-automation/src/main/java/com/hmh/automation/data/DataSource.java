@@ -0,0 +1,33 @@
+package com.hmh.automation.data;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Names the data sheet a data-driven test method runs on. Each row of the
+ * sheet becomes one invocation, receiving the row as a {@link DataRow}.
+ *
+ * <pre>
+ * &#64;Test(dataProvider = DataProviders.SHEET, dataProviderClass = DataProviders.class)
+ * &#64;DataSource("data/todo-scenarios.csv")
+ * public void testScenario(DataRow row) { ... }
+ * </pre>
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface DataSource {
+
+	/**
+	 * @return .csv or .xlsx file, as a classpath resource or a path
+	 */
+	String value();
+
+	/**
+	 * @return workbook sheet to read; the first sheet if empty
+	 */
+	String sheet() default "";
+}
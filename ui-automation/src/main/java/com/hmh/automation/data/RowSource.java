@@ -0,0 +1,34 @@
+package com.hmh.automation.data;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Locale;
+
+/**
+ * Rows of a data sheet, read lazily as the iterator advances. The source
+ * closes itself after the last row; close it explicitly when stopping early.
+ */
+public interface RowSource extends Iterator<DataRow>, AutoCloseable {
+
+	@Override
+	void close();
+
+	/**
+	 * Opens a CSV file, or a sheet of an xlsx workbook.
+	 *
+	 * @param file  .csv or .xlsx file
+	 * @param sheet name of the workbook sheet, or null/empty for the first;
+	 *              ignored for CSV
+	 */
+	static RowSource open(Path file, String sheet) throws IOException {
+		String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+		if (name.endsWith(".csv")) {
+			return new CsvRowSource(file);
+		}
+		if (name.endsWith(".xlsx")) {
+			return new XlsxRowSource(file, sheet);
+		}
+		throw new IllegalArgumentException("Unsupported data file " + file + ", expected .csv or .xlsx");
+	}
+}
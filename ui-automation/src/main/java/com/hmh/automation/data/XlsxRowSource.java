@@ -0,0 +1,213 @@
+package com.hmh.automation.data;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler.SheetContentsHandler;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+/**
+ * Reads one sheet of an xlsx workbook with POI's event API: the sheet XML is
+ * parsed by SAX on a background thread, which hands rows over through a
+ * small bounded queue. Only the queued rows and the shared strings table are
+ * in memory at any time, unlike XSSFWorkbook which builds the whole workbook
+ * first. The parser blocks while the queue is full, so it never runs far
+ * ahead of the tests consuming the rows.
+ */
+public class XlsxRowSource implements RowSource {
+
+	private static final int QUEUE_SIZE = 256;
+	private static final Object END = new Object();
+	private static final AtomicInteger readers = new AtomicInteger();
+
+	private final Path file;
+	private final OPCPackage workbook;
+	private final BlockingQueue<Object> rows = new ArrayBlockingQueue<>(QUEUE_SIZE);
+	private final Thread parser;
+	private volatile boolean closed;
+	private Object next;
+
+	/**
+	 * @param sheet name of the sheet, or null/empty for the first one
+	 */
+	public XlsxRowSource(Path file, String sheet) throws IOException {
+		this.file = file;
+		try {
+			this.workbook = OPCPackage.open(file.toFile(), PackageAccess.READ);
+		} catch (Exception e) {
+			throw new IOException("Could not open workbook " + file, e);
+		}
+		this.parser = new Thread(() -> parse(sheet), "data-sheet-reader-" + readers.incrementAndGet());
+		parser.setDaemon(true);
+		parser.start();
+	}
+
+	@Override
+	public boolean hasNext() {
+		return advance() != END;
+	}
+
+	@Override
+	public DataRow next() {
+		Object row = advance();
+		if (row == END) {
+			throw new NoSuchElementException();
+		}
+		next = null;
+		return (DataRow) row;
+	}
+
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		parser.interrupt();
+		workbook.revert();
+	}
+
+	private Object advance() {
+		if (next == null) {
+			if (closed) {
+				return END;
+			}
+			try {
+				next = rows.take();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				close();
+				throw new IllegalStateException("Interrupted while reading " + file, e);
+			}
+			if (next instanceof Throwable) {
+				close();
+				throw new UncheckedIOException(new IOException("Could not read " + file, (Throwable) next));
+			}
+			if (next == END) {
+				close();
+			}
+		}
+		return next;
+	}
+
+	/**
+	 * Runs on the parser thread until the sheet ends, the source is closed or
+	 * parsing fails; the last element queued is END or the failure.
+	 */
+	private void parse(String sheetName) {
+		Object last = END;
+		try {
+			XSSFReader reader = new XSSFReader(workbook);
+			XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+			while (sheets.hasNext()) {
+				try (InputStream sheet = sheets.next()) {
+					if (sheetName == null || sheetName.isEmpty() || sheetName.equals(sheets.getSheetName())) {
+						XMLReader xml = XMLHelper.newXMLReader();
+						xml.setContentHandler(new XSSFSheetXMLHandler(reader.getStylesTable(),
+								new ReadOnlySharedStringsTable(workbook), new RowCollector(), new DataFormatter(),
+								false));
+						xml.parse(new InputSource(sheet));
+						sheetName = null;
+						break;
+					}
+				}
+			}
+			if (sheetName != null && !sheetName.isEmpty()) {
+				throw new IllegalArgumentException("No sheet '" + sheetName + "' in " + file);
+			}
+		} catch (Stopped e) {
+			return;
+		} catch (Exception e) {
+			last = e;
+		}
+		try {
+			put(last);
+		} catch (Stopped e) {
+			// closed by the consumer, nobody is waiting for the end
+		}
+	}
+
+	private void put(Object row) {
+		try {
+			while (!rows.offer(row, 100, TimeUnit.MILLISECONDS)) {
+				if (closed) {
+					throw new Stopped();
+				}
+			}
+		} catch (InterruptedException e) {
+			throw new Stopped();
+		}
+	}
+
+	/**
+	 * Ends parsing when the consumer closed the source.
+	 */
+	private static final class Stopped extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		Stopped() {
+			super(null, null, false, false);
+		}
+	}
+
+	/**
+	 * Turns the cells of each parsed row into a {@link DataRow}, using the
+	 * first row as headers. Rows without any value are skipped.
+	 */
+	private final class RowCollector implements SheetContentsHandler {
+		private final List<String> headers = new ArrayList<>();
+		private final Map<Integer, String> cells = new LinkedHashMap<>();
+
+		@Override
+		public void startRow(int rowNum) {
+			cells.clear();
+		}
+
+		@Override
+		public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+			if (cellReference != null && formattedValue != null) {
+				cells.put((int) new CellReference(cellReference).getCol(), formattedValue);
+			}
+		}
+
+		@Override
+		public void endRow(int rowNum) {
+			if (cells.isEmpty()) {
+				return;
+			}
+			if (headers.isEmpty()) {
+				int columns = cells.keySet().stream().mapToInt(Integer::intValue).max().getAsInt() + 1;
+				for (int column = 0; column < columns; column++) {
+					headers.add(cells.getOrDefault(column, "column" + (column + 1)).trim());
+				}
+				return;
+			}
+			Map<String, String> values = new LinkedHashMap<>();
+			for (int column = 0; column < headers.size(); column++) {
+				values.put(headers.get(column), cells.getOrDefault(column, ""));
+			}
+			put(new DataRow(rowNum + 1, values));
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package com.hmh.automation.impact;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Records which page-object methods and locators each test uses. Page
+ * methods are reported by their {@code CommandMetrics.pageMethod} timers and
+ * locators by {@code CachedLocator} lookups, so recording needs no proxy
+ * around the page objects. Members are recorded by their bare names (e.g.
+ * {@code addTodoItem}, {@code todoInput}), which is how
+ * {@link SourceMembers} finds them in a diff.
+ */
+public class DependencyRecorder {
+
+	private static final DependencyRecorder INSTANCE = new DependencyRecorder();
+
+	private final ThreadLocal<Set<String>> current = new ThreadLocal<>();
+
+	DependencyRecorder() {
+	}
+
+	/**
+	 * @return the recorder shared by all threads
+	 */
+	public static DependencyRecorder getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Starts recording the calling thread's test.
+	 */
+	public void startTest() {
+		current.set(new TreeSet<String>());
+	}
+
+	/**
+	 * Adds a page-object member to the calling thread's test, if one is
+	 * being recorded.
+	 */
+	public void record(String member) {
+		Set<String> members = current.get();
+		if (members != null) {
+			members.add(member);
+		}
+	}
+
+	/**
+	 * Stops recording the calling thread's test.
+	 *
+	 * @return the members it used, empty if no test was started
+	 */
+	public Set<String> finishTest() {
+		Set<String> members = current.get();
+		current.remove();
+		return members == null ? Collections.<String>emptySet() : members;
+	}
+}
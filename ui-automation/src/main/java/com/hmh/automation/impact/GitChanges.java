@@ -0,0 +1,229 @@
+package com.hmh.automation.impact;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The files changed since a git commit, with the lines that changed in
+ * each. Covers committed, staged and unstaged changes and untracked files,
+ * as {@code git diff -U0 <base>} and {@code git ls-files --others} report
+ * them.
+ */
+public class GitChanges {
+
+	private static final Pattern HUNK = Pattern.compile("^@@ -\\d+(?:,(\\d+))? \\+(\\d+)(?:,(\\d+))? @@");
+	private static final Pattern BINARY = Pattern.compile(" b/(.+) differ$");
+	private static final Pattern COMMENT = Pattern.compile("^\\s*(//.*|/\\*.*|\\*.*)?$");
+	private static final long TIMEOUT_SECONDS = 30;
+
+	/**
+	 * A changed file.
+	 */
+	public static class ChangedFile {
+
+		private final String path;
+		private final Set<Integer> lines = new TreeSet<>();
+		private boolean codeChanged;
+		private boolean whole;
+
+		ChangedFile(String path) {
+			this.path = path;
+		}
+
+		/**
+		 * @return path relative to the repository root, with '/' separators
+		 */
+		public String getPath() {
+			return path;
+		}
+
+		/**
+		 * @return 1-based lines of the new version that were added or
+		 *         changed, or next to a deletion, in hunks that changed more
+		 *         than blank lines and comments; empty if {@link #isWhole()}
+		 */
+		public Set<Integer> getLines() {
+			return lines;
+		}
+
+		/**
+		 * @return false if only blank lines and comments changed
+		 */
+		public boolean isCodeChanged() {
+			return codeChanged;
+		}
+
+		/**
+		 * @return true if the file was added, deleted or is binary, so the
+		 *         change has no lines to map
+		 */
+		public boolean isWhole() {
+			return whole;
+		}
+
+		@Override
+		public String toString() {
+			return path;
+		}
+	}
+
+	private GitChanges() {
+	}
+
+	/**
+	 * Runs git in a directory of the repository.
+	 *
+	 * @param directory any directory inside the work tree
+	 * @param base      commit, branch or tag to compare the work tree to
+	 * @return the changed files
+	 * @throws IOException if git is missing, fails or the base is unknown
+	 */
+	public static List<ChangedFile> since(File directory, String base) throws IOException {
+		String root = git(directory, "rev-parse", "--show-toplevel").trim();
+		File rootDir = new File(root);
+		List<ChangedFile> changes = parse(git(rootDir, "diff", "-U0", "--no-color", "--no-ext-diff", base, "--"));
+		for (String untracked : git(rootDir, "ls-files", "--others", "--exclude-standard").split("\n")) {
+			if (!untracked.trim().isEmpty()) {
+				ChangedFile file = new ChangedFile(untracked.trim());
+				file.whole = true;
+				file.codeChanged = true;
+				changes.add(file);
+			}
+		}
+		return changes;
+	}
+
+	/**
+	 * @return the commit checked out in the directory's repository
+	 * @throws IOException if git is missing or fails
+	 */
+	public static String head(File directory) throws IOException {
+		return git(directory, "rev-parse", "HEAD").trim();
+	}
+
+	/**
+	 * @return path of the directory relative to the repository root, with a
+	 *         trailing '/', or an empty string for the root itself
+	 * @throws IOException if git is missing or fails
+	 */
+	public static String prefix(File directory) throws IOException {
+		return git(directory, "rev-parse", "--show-prefix").trim();
+	}
+
+	/**
+	 * Parses the output of {@code git diff -U0}.
+	 */
+	public static List<ChangedFile> parse(String diff) {
+		Map<String, ChangedFile> files = new LinkedHashMap<>();
+		ChangedFile file = null;
+		String oldPath = null;
+		boolean header = false;
+		List<Integer> hunkLines = new ArrayList<>();
+		boolean hunkCode = false;
+		for (String line : diff.split("\n")) {
+			boolean hunkLine = !header && file != null && (line.startsWith("+") || line.startsWith("-"));
+			if (!hunkLine && hunkCode) {
+				file.lines.addAll(hunkLines);
+				file.codeChanged = true;
+			}
+			if (!hunkLine) {
+				hunkLines.clear();
+				hunkCode = false;
+			}
+			if (line.startsWith("diff --git ")) {
+				file = null;
+				oldPath = null;
+				header = true;
+			} else if (header && line.startsWith("--- ")) {
+				oldPath = path(line.substring(4));
+			} else if (header && line.startsWith("+++ ")) {
+				String newPath = path(line.substring(4));
+				file = files.computeIfAbsent(newPath != null ? newPath : oldPath, ChangedFile::new);
+				if (newPath == null || oldPath == null) {
+					file.whole = true;
+					file.codeChanged = true;
+				}
+			} else if (header && line.startsWith("Binary files ")) {
+				Matcher binary = BINARY.matcher(line);
+				if (binary.find()) {
+					file = files.computeIfAbsent(binary.group(1), ChangedFile::new);
+					file.whole = true;
+					file.codeChanged = true;
+				}
+			} else if (file != null && line.startsWith("@@")) {
+				header = false;
+				Matcher hunk = HUNK.matcher(line);
+				if (hunk.find()) {
+					int start = Integer.parseInt(hunk.group(2));
+					int count = hunk.group(3) == null ? 1 : Integer.parseInt(hunk.group(3));
+					if (count == 0) {
+						// a deletion after line start: blame the lines around it
+						hunkLines.addAll(Arrays.asList(start, start + 1));
+					}
+					for (int i = 0; i < count; i++) {
+						hunkLines.add(start + i);
+					}
+				}
+			} else if (hunkLine && !COMMENT.matcher(line.substring(1)).matches()) {
+				hunkCode = true;
+			}
+		}
+		if (hunkCode) {
+			file.lines.addAll(hunkLines);
+			file.codeChanged = true;
+		}
+		return new ArrayList<>(files.values());
+	}
+
+	private static String path(String header) {
+		if (header.startsWith("/dev/null")) {
+			return null;
+		}
+		String path = header.startsWith("a/") || header.startsWith("b/") ? header.substring(2) : header;
+		int tab = path.indexOf('\t');
+		return tab >= 0 ? path.substring(0, tab) : path;
+	}
+
+	private static String git(File directory, String... args) throws IOException {
+		List<String> command = new ArrayList<>();
+		command.add("git");
+		command.addAll(Arrays.asList(args));
+		Process process = new ProcessBuilder(command).directory(directory).redirectErrorStream(true).start();
+		String output = read(process.getInputStream());
+		try {
+			if (!process.waitFor(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+				process.destroyForcibly();
+				throw new IOException(String.join(" ", command) + " timed out");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(String.join(" ", command) + " interrupted", e);
+		}
+		if (process.exitValue() != 0) {
+			throw new IOException(String.join(" ", command) + " failed: " + output.trim());
+		}
+		return output;
+	}
+
+	private static String read(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		for (int n; (n = in.read(buffer)) > 0;) {
+			out.write(buffer, 0, n);
+		}
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+}
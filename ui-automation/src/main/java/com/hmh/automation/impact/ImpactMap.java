@@ -0,0 +1,146 @@
+package com.hmh.automation.impact;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.hmh.automation.utils.FrameworkConfig;
+
+/**
+ * The page-object members each test method used, kept in impactMapFile
+ * between runs together with the commit they were recorded at. Members of
+ * a test are added up over its runs, so a test that failed early still keeps
+ * what earlier runs saw.
+ */
+public class ImpactMap {
+
+	private static final Logger logger = LogManager.getLogger(ImpactMap.class);
+	private static final String COMMIT_KEY = "@commit";
+
+	private static ImpactMap instance;
+
+	private final Path file;
+	private final Map<String, Set<String>> dependencies = new TreeMap<>();
+	private String commit;
+
+	/**
+	 * @param file map file, read if it exists
+	 */
+	public ImpactMap(Path file) {
+		this.file = file;
+		if (!Files.isRegularFile(file)) {
+			return;
+		}
+		Properties properties = new Properties();
+		try (InputStream in = Files.newInputStream(file)) {
+			properties.load(in);
+		} catch (IOException e) {
+			logger.warn("Could not read test impact map {}: {}", file, e.getMessage());
+			return;
+		}
+		for (String key : properties.stringPropertyNames()) {
+			String value = properties.getProperty(key).trim();
+			if (COMMIT_KEY.equals(key)) {
+				commit = value.isEmpty() ? null : value;
+			} else {
+				dependencies.put(key, new TreeSet<>(value.isEmpty() ? Collections.<String>emptyList()
+						: Arrays.asList(value.split(","))));
+			}
+		}
+	}
+
+	/**
+	 * @return the map in impactMapFile, shared by all threads
+	 */
+	public static synchronized ImpactMap getInstance() {
+		if (instance == null) {
+			instance = new ImpactMap(FrameworkConfig.get().getImpactMapFile());
+		}
+		return instance;
+	}
+
+	/**
+	 * Adds members used by a test.
+	 *
+	 * @param test    test id, {@code className#methodName}
+	 * @param members page-object method and locator names
+	 */
+	public synchronized void add(String test, Collection<String> members) {
+		dependencies.computeIfAbsent(test, k -> new TreeSet<String>()).addAll(members);
+	}
+
+	/**
+	 * @return the members recorded for the test, or null if it was never
+	 *         recorded
+	 */
+	public synchronized Set<String> getDependencies(String test) {
+		return dependencies.get(test);
+	}
+
+	/**
+	 * @return ids of all recorded tests
+	 */
+	public synchronized Set<String> getTests() {
+		return new TreeSet<>(dependencies.keySet());
+	}
+
+	/**
+	 * @return every member used by at least one test
+	 */
+	public synchronized Set<String> getAllMembers() {
+		Set<String> members = new HashSet<>();
+		for (Set<String> used : dependencies.values()) {
+			members.addAll(used);
+		}
+		return members;
+	}
+
+	public synchronized boolean isEmpty() {
+		return dependencies.isEmpty();
+	}
+
+	/**
+	 * @return the commit the map was last saved at, or null if unknown
+	 */
+	public synchronized String getCommit() {
+		return commit;
+	}
+
+	public synchronized void setCommit(String commit) {
+		this.commit = commit;
+	}
+
+	public synchronized void save() {
+		Properties properties = new Properties();
+		for (Map.Entry<String, Set<String>> entry : dependencies.entrySet()) {
+			properties.setProperty(entry.getKey(), String.join(",", entry.getValue()));
+		}
+		if (commit != null) {
+			properties.setProperty(COMMIT_KEY, commit);
+		}
+		try {
+			if (file.getParent() != null) {
+				Files.createDirectories(file.getParent());
+			}
+			try (OutputStream out = Files.newOutputStream(file)) {
+				properties.store(out, "Page-object methods and locators used per test method");
+			}
+		} catch (IOException e) {
+			logger.warn("Could not save test impact map to {}: {}", file, e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,238 @@
+package com.hmh.automation.impact;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+import com.hmh.automation.impact.GitChanges.ChangedFile;
+
+/**
+ * Decides which tests a set of changes can affect, from the page-object
+ * members each test used in earlier runs ({@link ImpactMap}):
+ * <ul>
+ * <li>a changed method, locator or constant of a page object selects the
+ * tests that used it; a member no test used directly (a private helper, a
+ * script constant) selects the tests of the members that use it, in any
+ * page object;</li>
+ * <li>a changed test class selects all of its test methods;</li>
+ * <li>comment-only changes, docs (*.md) and files outside the module's
+ * sources are ignored;</li>
+ * <li>anything else (framework code, resources, the pom, a page member
+ * nothing recorded leads to, a new or deleted page object) selects every
+ * test.</li>
+ * </ul>
+ */
+public class ImpactSelector {
+
+	private static final String PAGES = "/pages/";
+	private static final String TEST_SOURCES = "src/test/java/";
+
+	/**
+	 * The tests to run.
+	 */
+	public static class Selection {
+
+		private final String fullRunReason;
+		private final Set<String> tests;
+		private final Set<String> classes;
+		private final Map<String, Set<String>> reasons;
+
+		Selection(String fullRunReason, Set<String> tests, Set<String> classes, Map<String, Set<String>> reasons) {
+			this.fullRunReason = fullRunReason;
+			this.tests = tests;
+			this.classes = classes;
+			this.reasons = reasons;
+		}
+
+		static Selection fullRun(String reason) {
+			return new Selection(reason, Collections.<String>emptySet(), Collections.<String>emptySet(),
+					Collections.<String, Set<String>>emptyMap());
+		}
+
+		/**
+		 * @return true if every test has to run
+		 */
+		public boolean isFullRun() {
+			return fullRunReason != null;
+		}
+
+		/**
+		 * @return why every test has to run, or null
+		 */
+		public String getFullRunReason() {
+			return fullRunReason;
+		}
+
+		/**
+		 * @return ids of the selected test methods, {@code className#methodName}
+		 */
+		public Set<String> getTests() {
+			return tests;
+		}
+
+		/**
+		 * @return names of the test classes selected as a whole
+		 */
+		public Set<String> getClasses() {
+			return classes;
+		}
+
+		/**
+		 * @return the changed members or classes that selected each test or
+		 *         class
+		 */
+		public Map<String, Set<String>> getReasons() {
+			return reasons;
+		}
+	}
+
+	private final ImpactMap map;
+	private final String modulePrefix;
+	private final Set<String> suiteClasses;
+	private final Map<String, List<String>> pageSources;
+
+	/**
+	 * @param map          members used per test
+	 * @param modulePrefix path of this module from the repository root, with a
+	 *                     trailing '/', or an empty string
+	 * @param suiteClasses names of the test classes the suite runs
+	 * @param pageSources  current source of every page object, by path from
+	 *                     the repository root
+	 */
+	public ImpactSelector(ImpactMap map, String modulePrefix, Set<String> suiteClasses,
+			Map<String, List<String>> pageSources) {
+		this.map = map;
+		this.modulePrefix = modulePrefix;
+		this.suiteClasses = suiteClasses;
+		this.pageSources = pageSources;
+	}
+
+	/**
+	 * @param changes the files changed since the map was recorded
+	 * @return the tests the changes can affect
+	 */
+	public Selection select(List<ChangedFile> changes) {
+		if (map.isEmpty()) {
+			return Selection.fullRun("no tests recorded yet");
+		}
+		Set<String> tests = new TreeSet<>();
+		Set<String> classes = new TreeSet<>();
+		Map<String, Set<String>> reasons = new LinkedHashMap<>();
+		Map<String, Map<String, String>> memberCode = null;
+		for (ChangedFile change : changes) {
+			String path = change.getPath();
+			if (!change.isCodeChanged() || path.endsWith(".md")) {
+				continue;
+			}
+			if (!path.startsWith(modulePrefix)) {
+				if (path.equals("pom.xml")) {
+					return Selection.fullRun(path + " changed");
+				}
+				continue;
+			}
+			String modulePath = path.substring(modulePrefix.length());
+			if (!modulePath.startsWith("src/") && !modulePath.equals("pom.xml")) {
+				continue;
+			}
+			if (modulePath.startsWith(TEST_SOURCES) && modulePath.endsWith(".java")) {
+				String className = modulePath.substring(TEST_SOURCES.length(), modulePath.length() - 5).replace('/',
+						'.');
+				if (!suiteClasses.contains(className)) {
+					return Selection.fullRun(path + " changed and is not a test class of the suite");
+				}
+				classes.add(className);
+				reasons.computeIfAbsent(className, k -> new TreeSet<String>()).add(path);
+				continue;
+			}
+			if (!modulePath.contains(PAGES) || !modulePath.endsWith(".java")) {
+				return Selection.fullRun(path + " changed");
+			}
+			if (change.isWhole() || !pageSources.containsKey(path)) {
+				return Selection.fullRun("page object " + path + " was added or deleted");
+			}
+			if (memberCode == null) {
+				memberCode = memberCode();
+			}
+			SourceMembers members = new SourceMembers(pageSources.get(path));
+			for (int line : change.getLines()) {
+				String member = members.memberAt(line);
+				if (SourceMembers.OUTSIDE.equals(member)) {
+					return Selection.fullRun("declaration or imports of " + path + " changed");
+				}
+				if (member == null) {
+					continue;
+				}
+				Set<String> used = usedMembers(member, memberCode);
+				if (used.isEmpty()) {
+					return Selection.fullRun(path + " member " + member + " changed, but no recorded test uses it");
+				}
+				for (String test : map.getTests()) {
+					if (!Collections.disjoint(map.getDependencies(test), used)) {
+						tests.add(test);
+						reasons.computeIfAbsent(test, k -> new TreeSet<String>()).add(member);
+					}
+				}
+			}
+		}
+		return new Selection(null, tests, classes, reasons);
+	}
+
+	/**
+	 * Finds the recorded members a changed member reaches the tests through:
+	 * the member itself if a test used it, else the members using it, in
+	 * turn.
+	 */
+	private Set<String> usedMembers(String member, Map<String, Map<String, String>> memberCode) {
+		Set<String> recorded = map.getAllMembers();
+		Set<String> used = new TreeSet<>();
+		Set<String> seen = new HashSet<>();
+		Deque<String> pending = new ArrayDeque<>();
+		pending.add(member);
+		seen.add(member);
+		while (!pending.isEmpty()) {
+			String next = pending.poll();
+			if (recorded.contains(next)) {
+				used.add(next);
+				continue;
+			}
+			Pattern reference = Pattern.compile("\\b" + Pattern.quote(next) + "\\b");
+			for (Map<String, String> fileMembers : memberCode.values()) {
+				for (Map.Entry<String, String> caller : fileMembers.entrySet()) {
+					if (!seen.contains(caller.getKey()) && reference.matcher(caller.getValue()).find()) {
+						seen.add(caller.getKey());
+						pending.add(caller.getKey());
+					}
+				}
+			}
+		}
+		return used;
+	}
+
+	private Map<String, Map<String, String>> memberCode() {
+		Map<String, Map<String, String>> code = new LinkedHashMap<>();
+		for (Map.Entry<String, List<String>> source : pageSources.entrySet()) {
+			code.put(source.getKey(), new SourceMembers(source.getValue()).getMemberCode());
+		}
+		return code;
+	}
+
+	/**
+	 * @return one line per selected test or test class, naming the changes
+	 *         that selected it
+	 */
+	public static List<String> describe(Selection selection) {
+		List<String> lines = new ArrayList<>();
+		for (Map.Entry<String, Set<String>> reason : selection.getReasons().entrySet()) {
+			lines.add(reason.getKey() + " <- " + String.join(", ", reason.getValue()));
+		}
+		return lines;
+	}
+}
@@ -0,0 +1,170 @@
+package com.hmh.automation.impact;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Tells which member of a Java class each line of its source belongs to.
+ * Members are the methods, constructors and fields declared directly in the
+ * top-level class, named as {@link DependencyRecorder} records them. Lines
+ * between members (blank lines, comments, Javadoc) belong to none, and lines
+ * outside the class body (package, imports, class declaration) to
+ * {@link #OUTSIDE}. Braces inside strings, characters and comments are
+ * ignored, so the JavaScript kept in string constants does not confuse it.
+ */
+public class SourceMembers {
+
+	/**
+	 * Member of lines outside the class body.
+	 */
+	public static final String OUTSIDE = "<class>";
+
+	private static final Pattern TYPE = Pattern.compile("\\b(?:class|interface|enum)\\s+([\\w$]+)");
+	private static final Pattern METHOD = Pattern.compile("([\\w$]+)\\s*\\(");
+	private static final Pattern FIELD = Pattern.compile("([\\w$]+)\\s*[=;]");
+	private static final Pattern ANNOTATION = Pattern.compile("@[\\w.]+(\\s*\\(.*\\))?");
+
+	private final String[] members;
+	private final String[] code;
+
+	/**
+	 * @param lines the source, one line per element
+	 */
+	public SourceMembers(List<String> lines) {
+		members = new String[lines.size()];
+		code = new String[lines.size()];
+		int depth = 0;
+		boolean blockComment = false;
+		String member = null;
+		StringBuilder header = new StringBuilder();
+		for (int i = 0; i < lines.size(); i++) {
+			String line = lines.get(i);
+			int startDepth = depth;
+			StringBuilder lineCode = new StringBuilder();
+			char quote = 0;
+			for (int c = 0; c < line.length(); c++) {
+				char ch = line.charAt(c);
+				char next = c + 1 < line.length() ? line.charAt(c + 1) : 0;
+				if (blockComment) {
+					if (ch == '*' && next == '/') {
+						blockComment = false;
+						c++;
+					}
+				} else if (quote != 0) {
+					if (ch == '\\') {
+						c++;
+					} else if (ch == quote) {
+						quote = 0;
+					}
+				} else if (ch == '/' && next == '/') {
+					break;
+				} else if (ch == '/' && next == '*') {
+					blockComment = true;
+					c++;
+				} else if (ch == '"' || ch == '\'') {
+					quote = ch;
+					lineCode.append(ch);
+				} else {
+					if (ch == '{') {
+						depth++;
+					} else if (ch == '}') {
+						depth--;
+					}
+					lineCode.append(ch);
+				}
+			}
+			String text = lineCode.toString().trim();
+			code[i] = text;
+			if (startDepth == 0 && depth <= 1) {
+				members[i] = text.isEmpty() ? null : OUTSIDE;
+				continue;
+			}
+			if (startDepth == 1 && member == null) {
+				if (text.isEmpty() || ANNOTATION.matcher(text).matches()) {
+					// blank, comment, Javadoc or annotation before a member
+					continue;
+				}
+				header.setLength(0);
+				member = "?";
+			}
+			if (member != null) {
+				members[i] = member;
+				if ("?".equals(member) || header.length() > 0) {
+					header.append(text).append(' ');
+					String name = name(header.toString());
+					if (name != null) {
+						member = name;
+						header.setLength(0);
+						backfill(i, name);
+					}
+				}
+				if (depth == 1 && (text.endsWith(";") || text.endsWith("}"))) {
+					member = null;
+				}
+			}
+			if (depth == 0 && startDepth >= 1) {
+				members[i] = OUTSIDE;
+				member = null;
+			}
+		}
+	}
+
+	/**
+	 * Names the member once enough of its declaration has been read.
+	 */
+	private static String name(String header) {
+		int end = header.length();
+		for (char stop : new char[] { '=', '{', ';' }) {
+			int at = header.indexOf(stop);
+			if (at >= 0) {
+				end = Math.min(end, at + 1);
+			}
+		}
+		String declaration = header.substring(0, end);
+		Matcher type = TYPE.matcher(declaration);
+		if (type.find()) {
+			return type.group(1);
+		}
+		Matcher method = METHOD.matcher(declaration);
+		if (method.find() && (declaration.indexOf('=') < 0 || method.start() < declaration.indexOf('='))) {
+			return method.group(1);
+		}
+		Matcher field = FIELD.matcher(declaration);
+		if (field.find()) {
+			return field.group(1);
+		}
+		return declaration.endsWith("{") ? "<initializer>" : null;
+	}
+
+	private void backfill(int line, String name) {
+		for (int i = line; i >= 0 && "?".equals(members[i]); i--) {
+			members[i] = name;
+		}
+	}
+
+	/**
+	 * @return the code of every member with strings and comments left out,
+	 *         which tells where a member is used
+	 */
+	public Map<String, String> getMemberCode() {
+		Map<String, String> memberCode = new LinkedHashMap<>();
+		for (int i = 0; i < members.length; i++) {
+			if (members[i] != null && !OUTSIDE.equals(members[i])) {
+				memberCode.merge(members[i], code[i], (previous, line) -> previous + "\n" + line);
+			}
+		}
+		return memberCode;
+	}
+
+	/**
+	 * @param line 1-based line number
+	 * @return the member the line belongs to, {@link #OUTSIDE}, or null for a
+	 *         line between members or past the end of the source
+	 */
+	public String memberAt(int line) {
+		return line < 1 || line > members.length ? null : members[line - 1];
+	}
+}
@@ -0,0 +1,173 @@
+package com.hmh.automation.impact;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.annotations.Test;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlInclude;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+import com.hmh.automation.impact.GitChanges.ChangedFile;
+import com.hmh.automation.impact.ImpactSelector.Selection;
+import com.hmh.automation.utils.FrameworkConfig;
+
+/**
+ * Narrows the suites to the tests the changes since impactBase can affect
+ * (see {@link ImpactSelector}). A test method the {@link ImpactMap} has no
+ * entry for always runs, and when git or the map cannot account for a
+ * change, the suites run in full.
+ */
+public final class TestSelection {
+
+	private static final Logger logger = LogManager.getLogger(TestSelection.class);
+	private static final String MAIN_SOURCES = "src/main/java";
+
+	private TestSelection() {
+	}
+
+	/**
+	 * Selects the tests to run and excludes the others from the suites.
+	 */
+	public static void apply(List<XmlSuite> suites) {
+		ImpactMap map = ImpactMap.getInstance();
+		String base = FrameworkConfig.get().getImpactBase();
+		if (base.isEmpty()) {
+			base = map.getCommit();
+		}
+		if (base == null) {
+			logger.info("Impact selection: running all tests, no impact map recorded yet");
+			return;
+		}
+		File moduleDir = new File(System.getProperty("user.dir"));
+		Selection selection;
+		try {
+			String prefix = GitChanges.prefix(moduleDir);
+			List<ChangedFile> changes = GitChanges.since(moduleDir, base);
+			Set<String> classes = new TreeSet<>();
+			for (XmlSuite suite : suites) {
+				for (XmlTest test : suite.getTests()) {
+					for (XmlClass xmlClass : test.getXmlClasses()) {
+						classes.add(xmlClass.getName());
+					}
+				}
+			}
+			selection = new ImpactSelector(map, prefix, classes, pageSources(moduleDir.toPath(), prefix))
+					.select(changes);
+		} catch (IOException e) {
+			selection = Selection.fullRun(e.getMessage());
+		}
+		if (selection.isFullRun()) {
+			logger.info("Impact selection: running all tests, {}", selection.getFullRunReason());
+			return;
+		}
+		int excluded = 0;
+		for (XmlSuite suite : suites) {
+			excluded += exclude(suite, selection, map);
+		}
+		logger.info("Impact selection against {}: {} test methods excluded; selected:{}", base, excluded,
+				ImpactSelector.describe(selection).stream().map(line -> "\n  " + line).collect(Collectors.joining()));
+	}
+
+	/**
+	 * Excludes the recorded test methods the selection does not include.
+	 *
+	 * @return number of test methods excluded
+	 */
+	public static int exclude(XmlSuite suite, Selection selection, ImpactMap map) {
+		int excluded = 0;
+		for (XmlTest test : suite.getTests()) {
+			for (XmlClass xmlClass : test.getXmlClasses()) {
+				if (selection.getClasses().contains(xmlClass.getName())) {
+					continue;
+				}
+				List<String> excludedMethods = new ArrayList<>(xmlClass.getExcludedMethods());
+				for (String method : testMethods(xmlClass)) {
+					String id = xmlClass.getName() + "#" + method;
+					if (map.getDependencies(id) != null && !selection.getTests().contains(id)
+							&& !excludedMethods.contains(method)) {
+						excludedMethods.add(method);
+						excluded++;
+					}
+				}
+				xmlClass.setExcludedMethods(excludedMethods);
+			}
+		}
+		return excluded;
+	}
+
+	/**
+	 * @return the test methods of the class, or the methods testng.xml
+	 *         includes from it
+	 */
+	private static List<String> testMethods(XmlClass xmlClass) {
+		List<String> methods = new ArrayList<>();
+		if (!xmlClass.getIncludedMethods().isEmpty()) {
+			for (XmlInclude include : xmlClass.getIncludedMethods()) {
+				methods.add(include.getName());
+			}
+			return methods;
+		}
+		Class<?> testClass = xmlClass.getSupportClass();
+		boolean classLevel = testClass.isAnnotationPresent(Test.class);
+		for (Method method : testClass.getMethods()) {
+			if (method.isAnnotationPresent(Test.class) || (classLevel && method.getDeclaringClass() == testClass
+					&& !Modifier.isStatic(method.getModifiers()))) {
+				methods.add(method.getName());
+			}
+		}
+		return methods;
+	}
+
+	/**
+	 * Reads every page object of the module's main sources.
+	 *
+	 * @param moduleDir the module directory
+	 * @param prefix    its path from the repository root
+	 */
+	static Map<String, List<String>> pageSources(Path moduleDir, String prefix) throws IOException {
+		Map<String, List<String>> sources = new LinkedHashMap<>();
+		Path mainSources = moduleDir.resolve(MAIN_SOURCES);
+		if (!Files.isDirectory(mainSources)) {
+			return sources;
+		}
+		try (Stream<Path> files = Files.walk(mainSources)) {
+			for (Path file : files.filter(f -> f.toString().endsWith(".java")).collect(Collectors.toList())) {
+				String path = prefix + moduleDir.relativize(file).toString().replace(File.separatorChar, '/');
+				if (path.contains("/pages/")) {
+					sources.put(path, Files.readAllLines(file));
+				}
+			}
+		}
+		return sources;
+	}
+
+	/**
+	 * Records the commit the map now reflects and saves it.
+	 */
+	public static void saveMap() {
+		ImpactMap map = ImpactMap.getInstance();
+		try {
+			map.setCommit(GitChanges.head(Paths.get(System.getProperty("user.dir")).toFile()));
+		} catch (IOException e) {
+			logger.debug("Test impact map saved without a commit: {}", e.getMessage());
+		}
+		map.save();
+	}
+}
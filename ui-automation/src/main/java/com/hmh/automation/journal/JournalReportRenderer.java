@@ -0,0 +1,222 @@
+package com.hmh.automation.journal;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.json.JsonException;
+
+import com.hmh.automation.utils.FrameworkConfig;
+
+/**
+ * Renders a {@link ResultJournal} as one self-contained HTML page: a summary
+ * row per run in the journal, followed by the test results of the selected
+ * runs. The journal is read twice, line by line: the first pass only keeps
+ * per-run counters and the screenshots of the selected runs, the second
+ * writes each result row as it is read, so memory use does not grow with
+ * the number of results.
+ * <p>
+ * Usage (normally through {@code mvn -Pjournal-report test-compile exec:exec}):
+ *
+ * <pre>
+ * JournalReportRenderer [--journal file] [--out report.html] [--run latest|all|runId]
+ * </pre>
+ */
+public class JournalReportRenderer {
+
+	private static final Logger logger = LogManager.getLogger(JournalReportRenderer.class);
+	private static final String LATEST = "latest";
+	private static final String ALL = "all";
+
+	private final Path journal;
+	private final Json json = new Json();
+
+	public JournalReportRenderer(Path journal) {
+		this.journal = journal;
+	}
+
+	public static void main(String[] args) throws IOException {
+		Map<String, String> options = new HashMap<>();
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			if (!args[i].startsWith("--")) {
+				throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+			}
+			options.put(args[i].substring(2), args[i + 1]);
+		}
+		Path journal = options.containsKey("journal") ? Paths.get(options.get("journal"))
+				: FrameworkConfig.get().getResultJournalFile();
+		Path out = Paths.get(options.getOrDefault("out", "target/results-journal/report.html"));
+		new JournalReportRenderer(journal).render(out, options.getOrDefault("run", LATEST));
+	}
+
+	/**
+	 * Writes the HTML report.
+	 *
+	 * @param out the HTML file to write
+	 * @param run "latest", "all" or the id of one run
+	 */
+	public void render(Path out, String run) throws IOException {
+		Map<String, RunSummary> runs = new LinkedHashMap<>();
+		Map<String, String> screenshots = new HashMap<>();
+		String latest = null;
+		try (BufferedReader reader = Files.newBufferedReader(journal, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				Map<String, Object> event = parse(line);
+				if (event == null) {
+					continue;
+				}
+				String runId = String.valueOf(event.get("run"));
+				RunSummary summary = runs.computeIfAbsent(runId, RunSummary::new);
+				summary.add(event);
+				if (ResultJournal.RUN_STARTED.equals(event.get("event"))) {
+					latest = runId;
+				} else if (ResultJournal.SCREENSHOT.equals(event.get("event"))) {
+					screenshots.put(runId + " " + event.get("test"), String.valueOf(event.get("path")));
+				}
+			}
+		}
+		String selected = LATEST.equals(run) ? latest : run;
+
+		if (out.getParent() != null) {
+			Files.createDirectories(out.getParent());
+		}
+		int rows = 0;
+		try (BufferedReader reader = Files.newBufferedReader(journal, StandardCharsets.UTF_8);
+				Writer html = new BufferedWriter(Files.newBufferedWriter(out, StandardCharsets.UTF_8))) {
+			html.write("<!DOCTYPE html>\n<html><head><meta charset=\"utf-8\"><title>Test results</title><style>"
+					+ "body{font-family:sans-serif;margin:2em}table{border-collapse:collapse;margin-bottom:2em}"
+					+ "td,th{border:1px solid #ccc;padding:4px 8px;text-align:left;vertical-align:top}"
+					+ ".PASS{color:#2e7d32}.FAIL{color:#c62828}.SKIP{color:#f9a825}pre{margin:0;white-space:pre-wrap}"
+					+ "</style></head><body>\n<h1>Test results</h1>\n<h2>Runs</h2>\n<table>\n"
+					+ "<tr><th>Run</th><th>Started</th><th>Tests</th><th>Passed</th><th>Failed</th><th>Skipped</th>"
+					+ "<th>Test time (s)</th></tr>\n");
+			for (RunSummary summary : runs.values()) {
+				summary.writeRow(html);
+			}
+			html.write("</table>\n<h2>Results of " + escape(ALL.equals(selected) ? "all runs" : "run " + selected)
+					+ "</h2>\n<table>\n<tr><th>Run</th><th>Test</th><th>Status</th><th>Duration (ms)</th>"
+					+ "<th>Error</th><th>Screenshot</th></tr>\n");
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (!line.contains(ResultJournal.TEST_RESULT)) {
+					continue;
+				}
+				Map<String, Object> event = parse(line);
+				if (event == null || !ResultJournal.TEST_RESULT.equals(event.get("event"))) {
+					continue;
+				}
+				String runId = String.valueOf(event.get("run"));
+				if (!ALL.equals(selected) && !runId.equals(selected)) {
+					continue;
+				}
+				String status = String.valueOf(event.get("status"));
+				String screenshot = screenshots.get(runId + " " + event.get("test"));
+				html.write("<tr><td>" + escape(runId) + "</td><td>" + escape(String.valueOf(event.get("test")))
+						+ "</td><td class=\"" + escape(status) + "\">" + escape(status) + "</td><td>"
+						+ event.get("durationMillis") + "</td><td><pre>"
+						+ escape(event.get("error") == null ? "" : String.valueOf(event.get("error")))
+						+ "</pre></td><td>" + (screenshot == null ? ""
+								: "<a href=\"" + escape(out.toAbsolutePath().getParent()
+										.relativize(Paths.get(screenshot).toAbsolutePath()).toString()
+										.replace('\\', '/')) + "\">screenshot</a>")
+						+ "</td></tr>\n");
+				rows++;
+			}
+			html.write("</table>\n</body></html>\n");
+		}
+		logger.info("Rendered {} run(s) and {} result(s) from {} into {}", runs.size(), rows, journal, out);
+	}
+
+	private Map<String, Object> parse(String line) {
+		if (line.trim().isEmpty()) {
+			return null;
+		}
+		try {
+			return json.toType(line, Json.MAP_TYPE);
+		} catch (JsonException e) {
+			// the last line may be cut short if a run was killed mid-write
+			logger.warn("Skipping unreadable journal line: {}", e.getMessage());
+			return null;
+		}
+	}
+
+	static String escape(String text) {
+		StringBuilder escaped = new StringBuilder(text.length());
+		for (char c : text.toCharArray()) {
+			switch (c) {
+			case '<':
+				escaped.append("&lt;");
+				break;
+			case '>':
+				escaped.append("&gt;");
+				break;
+			case '&':
+				escaped.append("&amp;");
+				break;
+			case '"':
+				escaped.append("&quot;");
+				break;
+			default:
+				escaped.append(c);
+			}
+		}
+		return escaped.toString();
+	}
+
+	/**
+	 * Counters of one run.
+	 */
+	private static final class RunSummary {
+		private final String runId;
+		private long started;
+		private int passed;
+		private int failed;
+		private int skipped;
+		private long testMillis;
+
+		RunSummary(String runId) {
+			this.runId = runId;
+		}
+
+		void add(Map<String, Object> event) {
+			if (started == 0 && event.get("time") instanceof Number) {
+				started = ((Number) event.get("time")).longValue();
+			}
+			if (!ResultJournal.TEST_RESULT.equals(event.get("event"))) {
+				return;
+			}
+			String status = String.valueOf(event.get("status"));
+			if ("PASS".equals(status)) {
+				passed++;
+			} else if ("FAIL".equals(status)) {
+				failed++;
+			} else {
+				skipped++;
+			}
+			if (event.get("durationMillis") instanceof Number) {
+				testMillis += ((Number) event.get("durationMillis")).longValue();
+			}
+		}
+
+		void writeRow(Writer html) throws IOException {
+			html.write("<tr><td>" + escape(runId) + "</td><td>"
+					+ new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date(started)) + "</td><td>"
+					+ (passed + failed + skipped) + "</td><td class=\"PASS\">" + passed + "</td><td class=\"FAIL\">"
+					+ failed + "</td><td class=\"SKIP\">" + skipped + "</td><td>" + testMillis / 1000 + "</td></tr>\n");
+		}
+	}
+}
@@ -0,0 +1,184 @@
+package com.hmh.automation.journal;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.json.JsonOutput;
+
+import com.hmh.automation.utils.FrameworkConfig;
+
+/**
+ * Append-only journal of test events, one JSON object per line. Every run
+ * appends to the same file (resultJournalFile), tagged with its own run id,
+ * so the history of many runs stays in one cheap, greppable file that
+ * {@link JournalReportRenderer} turns into HTML. Lines are collected in a
+ * buffer of resultJournalBufferKb and written with a single append to the
+ * file channel when it fills up, when a test ends and when the run ends.
+ * Set resultJournal=false to turn the journal off.
+ */
+public class ResultJournal {
+
+	public static final String RUN_STARTED = "runStarted";
+	public static final String RUN_FINISHED = "runFinished";
+	public static final String TEST_STARTED = "testStarted";
+	public static final String TEST_RESULT = "testResult";
+	public static final String TEST_ENDED = "testEnded";
+	public static final String SCREENSHOT = "screenshot";
+	public static final String SYSTEM_INFO = "systemInfo";
+
+	private static final Logger logger = LogManager.getLogger(ResultJournal.class);
+	private static ResultJournal instance;
+
+	private final Path file;
+	private final String runId;
+	private final Json json = new Json();
+	private FileChannel channel;
+	private ByteBuffer buffer;
+
+	/**
+	 * Opens the journal for appending and records the start of a run.
+	 *
+	 * @param file       the journal file, created if missing; null for a
+	 *                   journal that records nothing
+	 * @param runId      id that tags every event of this run
+	 * @param bufferSize bytes collected before they are written
+	 */
+	public ResultJournal(Path file, String runId, int bufferSize) {
+		this.file = file;
+		this.runId = runId;
+		if (file == null) {
+			return;
+		}
+		try {
+			if (file.getParent() != null) {
+				Files.createDirectories(file.getParent());
+			}
+			channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.APPEND);
+			buffer = ByteBuffer.allocate(bufferSize);
+		} catch (IOException e) {
+			logger.warn("Could not open result journal {}: {}", file, e.getMessage());
+			channel = null;
+		}
+	}
+
+	/**
+	 * @return the journal configured in config.properties, shared by all
+	 *         threads; it records the end of the run on JVM shutdown
+	 */
+	public static synchronized ResultJournal getInstance() {
+		if (instance == null) {
+			FrameworkConfig config = FrameworkConfig.get();
+			String runId = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + "-"
+					+ ManagementFactory.getRuntimeMXBean().getName().split("@")[0];
+			if (config.getShardIndex().isPresent()) {
+				runId += "-shard" + config.getShardIndex().getAsInt();
+			}
+			ResultJournal journal = new ResultJournal(config.isResultJournal() ? config.getResultJournalFile() : null,
+					runId, config.getResultJournalBufferKb() * 1024);
+			journal.append(RUN_STARTED, Collections.<String, Object>singletonMap("browser", config.getBrowser()));
+			Runtime.getRuntime().addShutdownHook(new Thread(journal::close, "result-journal-close"));
+			instance = journal;
+		}
+		return instance;
+	}
+
+	public String getRunId() {
+		return runId;
+	}
+
+	public Path getFile() {
+		return file;
+	}
+
+	/**
+	 * Appends one event to the buffer.
+	 *
+	 * @param event  the event type, e.g. {@link #TEST_RESULT}
+	 * @param fields the event's data, written in iteration order
+	 */
+	public synchronized void append(String event, Map<String, ?> fields) {
+		if (channel == null) {
+			return;
+		}
+		Map<String, Object> line = new LinkedHashMap<>();
+		line.put("run", runId);
+		line.put("time", System.currentTimeMillis());
+		line.put("event", event);
+		line.putAll(fields);
+		StringBuilder text = new StringBuilder();
+		try (JsonOutput out = json.newOutput(text)) {
+			out.setPrettyPrint(false).write(line);
+		}
+		byte[] bytes = text.append('\n').toString().getBytes(StandardCharsets.UTF_8);
+		try {
+			if (bytes.length > buffer.remaining()) {
+				writeBuffer();
+			}
+			if (bytes.length > buffer.capacity()) {
+				write(ByteBuffer.wrap(bytes));
+			} else {
+				buffer.put(bytes);
+			}
+		} catch (IOException e) {
+			logger.warn("Could not append to result journal {}: {}", file, e.getMessage());
+		}
+	}
+
+	/**
+	 * Writes the buffered events to the file.
+	 */
+	public synchronized void flush() {
+		if (channel == null) {
+			return;
+		}
+		try {
+			writeBuffer();
+		} catch (IOException e) {
+			logger.warn("Could not write result journal {}: {}", file, e.getMessage());
+		}
+	}
+
+	/**
+	 * Records the end of the run and closes the file.
+	 */
+	public synchronized void close() {
+		if (channel == null) {
+			return;
+		}
+		append(RUN_FINISHED, Collections.<String, Object>emptyMap());
+		flush();
+		try {
+			channel.close();
+		} catch (IOException e) {
+			logger.warn("Could not close result journal {}: {}", file, e.getMessage());
+		}
+		channel = null;
+	}
+
+	private void writeBuffer() throws IOException {
+		buffer.flip();
+		write(buffer);
+		buffer.clear();
+	}
+
+	private void write(ByteBuffer bytes) throws IOException {
+		while (bytes.hasRemaining()) {
+			channel.write(bytes);
+		}
+	}
+}
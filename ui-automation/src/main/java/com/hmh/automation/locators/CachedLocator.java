@@ -0,0 +1,127 @@
+package com.hmh.automation.locators;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebElement;
+
+import com.hmh.automation.impact.DependencyRecorder;
+import com.hmh.automation.waits.WaitEngine;
+
+/**
+ * A locator that resolves its element (or list of elements) once and reuses
+ * the handle until its {@link LocatorContext} invalidates it. A locator with
+ * a scope searches below the scope's element instead of from the document
+ * root. Top-level single elements stay cached until a stale element is seen;
+ * lists and scoped elements are looked up again after every DOM change the
+ * page reports. Lists never wait, so a check that expects no matches
+ * returns at once. Each real lookup is timed under the locator's name in
+ * {@link LocatorContext#lookupTimes()}, and every use, cached or not, is
+ * reported to the {@link DependencyRecorder}.
+ */
+public class CachedLocator {
+
+	private final LocatorContext context;
+	private final String name;
+	private final By by;
+	private final CachedLocator scope;
+
+	private WebElement element;
+	private int elementStamp;
+	private List<WebElement> elements;
+	private int elementsStamp;
+
+	CachedLocator(LocatorContext context, String name, By by, CachedLocator scope) {
+		this.context = context;
+		this.name = name;
+		this.by = by;
+		this.scope = scope;
+	}
+
+	/**
+	 * Returns the cached element or looks it up. If the element is not there
+	 * yet, waits for it through the {@link WaitEngine}.
+	 *
+	 * @return the first matching element
+	 * @throws TimeoutException if the element does not appear in time
+	 */
+	public WebElement find() {
+		DependencyRecorder.getInstance().record(name);
+		int stamp = scope == null ? context.getEpoch() : context.getGeneration();
+		if (element != null && elementStamp == stamp) {
+			return element;
+		}
+		try {
+			element = lookup(() -> searchContext().findElement(by));
+		} catch (NoSuchElementException e) {
+			element = WaitEngine.getInstance().until("present:" + name,
+					() -> lookup(() -> searchContext().findElement(by)));
+		}
+		elementStamp = stamp;
+		return element;
+	}
+
+	/**
+	 * @return all matching elements; empty if nothing matches or the scope
+	 *         element is not present
+	 */
+	public List<WebElement> findAll() {
+		DependencyRecorder.getInstance().record(name);
+		int stamp = context.getGeneration();
+		if (elements != null && elementsStamp == stamp) {
+			return elements;
+		}
+		elements = lookup(() -> {
+			SearchContext searchContext;
+			try {
+				searchContext = searchContext();
+			} catch (NoSuchElementException e) {
+				return Collections.<WebElement>emptyList();
+			}
+			return Collections.unmodifiableList(searchContext.findElements(by));
+		});
+		elementsStamp = stamp;
+		return elements;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the By this locator resolves with, after any XPath-to-CSS rewrite
+	 */
+	public By getBy() {
+		return by;
+	}
+
+	private SearchContext searchContext() {
+		return scope == null ? context.getRoot() : scope.find();
+	}
+
+	private <T> T lookup(Supplier<T> search) {
+		long start = System.nanoTime();
+		try {
+			try {
+				return search.get();
+			} catch (StaleElementReferenceException e) {
+				// the scope element was replaced in the DOM; resolve the whole chain again
+				context.invalidateAll();
+				return search.get();
+			}
+		} finally {
+			LocatorContext.lookupTimes().record(name, System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return name + " (" + by + ")";
+	}
+}
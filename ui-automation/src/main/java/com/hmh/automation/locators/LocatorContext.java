@@ -0,0 +1,135 @@
+package com.hmh.automation.locators;
+
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.By;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.StaleElementReferenceException;
+
+import com.hmh.automation.utils.LatencyRecorder;
+
+/**
+ * Owns the {@link CachedLocator}s of one page object. Locators are declared
+ * as page-object fields and bound to the browser in the page constructor.
+ * The page tells the context when it has changed the DOM with
+ * {@link #domChanged()}, which drops cached lists and scoped elements while
+ * top-level elements such as the new-todo input stay cached;
+ * {@link #retryOnStale(Supplier)} drops everything and retries once when a
+ * cached handle turns out to be stale.
+ */
+public class LocatorContext {
+
+	private static final Logger logger = LogManager.getLogger(LocatorContext.class);
+	private static final LatencyRecorder LOOKUP_TIMES = new LatencyRecorder();
+
+	private SearchContext root;
+	private volatile int generation;
+	private volatile int epoch;
+
+	/**
+	 * @param root the driver (or element) that top-level locators search from
+	 */
+	public void bind(SearchContext root) {
+		this.root = root;
+		invalidateAll();
+	}
+
+	SearchContext getRoot() {
+		if (root == null) {
+			throw new IllegalStateException("Locators used before the page was bound to a driver");
+		}
+		return root;
+	}
+
+	int getGeneration() {
+		return generation;
+	}
+
+	int getEpoch() {
+		return epoch;
+	}
+
+	/**
+	 * Declares a locator searched from the page root.
+	 */
+	public CachedLocator xpath(String name, String xpath) {
+		return xpath(name, xpath, null);
+	}
+
+	/**
+	 * Declares a locator searched below the element found by {@code scope}.
+	 * Simple XPath expressions are rewritten to CSS selectors.
+	 */
+	public CachedLocator xpath(String name, String xpath, CachedLocator scope) {
+		String css = XPathToCss.compile(xpath);
+		if (css == null) {
+			logger.debug("Locator {} kept as XPath: {}", name, xpath);
+			return new CachedLocator(this, name, By.xpath(xpath), scope);
+		}
+		logger.debug("Locator {} rewritten from XPath {} to CSS {}", name, xpath, css);
+		return new CachedLocator(this, name, By.cssSelector(css), scope);
+	}
+
+	/**
+	 * Declares a CSS locator searched from the page root.
+	 */
+	public CachedLocator css(String name, String selector) {
+		return css(name, selector, null);
+	}
+
+	/**
+	 * Declares a CSS locator searched below the element found by {@code scope}.
+	 */
+	public CachedLocator css(String name, String selector, CachedLocator scope) {
+		return new CachedLocator(this, name, By.cssSelector(selector), scope);
+	}
+
+	/**
+	 * Signals that the page changed the DOM, so cached lists and elements below
+	 * a scope must be looked up again.
+	 */
+	public void domChanged() {
+		generation++;
+	}
+
+	/**
+	 * Drops every cached handle, including top-level elements.
+	 */
+	public void invalidateAll() {
+		epoch++;
+		generation++;
+	}
+
+	/**
+	 * Runs the action; if it hits a stale element, drops every cached handle and
+	 * runs it once more.
+	 */
+	public <T> T retryOnStale(Supplier<T> action) {
+		try {
+			return action.get();
+		} catch (StaleElementReferenceException e) {
+			logger.debug("Stale element, re-resolving locators: {}", e.getMessage());
+			invalidateAll();
+			return action.get();
+		}
+	}
+
+	/**
+	 * @see #retryOnStale(Supplier)
+	 */
+	public void retryOnStale(Runnable action) {
+		retryOnStale(() -> {
+			action.run();
+			return null;
+		});
+	}
+
+	/**
+	 * @return lookup latency per locator name, across all page objects
+	 */
+	public static LatencyRecorder lookupTimes() {
+		return LOOKUP_TIMES;
+	}
+}
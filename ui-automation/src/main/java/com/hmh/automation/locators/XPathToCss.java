@@ -0,0 +1,152 @@
+package com.hmh.automation.locators;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Rewrites simple XPath locators into equivalent CSS selectors, which
+ * browsers resolve faster. Only a small, safe subset is translated: element
+ * steps joined by {@code /} or {@code //}, attribute equality, attribute
+ * presence, {@code contains(@attr, 'value')} and {@code not(...)} of those.
+ * Anything else, such as text predicates like {@code normalize-space()} or
+ * positional predicates, cannot be expressed in CSS and is left as XPath.
+ */
+public final class XPathToCss {
+
+	private static final String NAME = "([A-Za-z_][\\w.-]*)";
+	private static final String VALUE = "(?:'([^']*)'|\"([^\"]*)\")";
+	private static final Pattern ATTRIBUTE_EQUALS = Pattern.compile("@" + NAME + "\\s*=\\s*" + VALUE);
+	private static final Pattern ATTRIBUTE_CONTAINS = Pattern
+			.compile("contains\\(\\s*@" + NAME + "\\s*,\\s*" + VALUE + "\\s*\\)");
+	private static final Pattern ATTRIBUTE_PRESENT = Pattern.compile("@" + NAME);
+	private static final Pattern NOT = Pattern.compile("not\\(\\s*(.*)\\s*\\)");
+	private static final Pattern STEP_NAME = Pattern.compile("\\*|[A-Za-z_][\\w-]*");
+	private static final Pattern CSS_IDENTIFIER = Pattern.compile("-?[A-Za-z_][\\w-]*");
+
+	private XPathToCss() {
+	}
+
+	/**
+	 * @param xpath an XPath locator; relative locators (starting with
+	 *              {@code ./} or {@code .//}) are translated for use below a
+	 *              scope element
+	 * @return the equivalent CSS selector, or null if the XPath uses anything
+	 *         outside the supported subset
+	 */
+	public static String compile(String xpath) {
+		String path = xpath.trim();
+		StringBuilder css = new StringBuilder();
+		int pos;
+		if (path.startsWith(".//")) {
+			pos = 3;
+		} else if (path.startsWith("./")) {
+			css.append(":scope > ");
+			pos = 2;
+		} else if (path.startsWith("//")) {
+			pos = 2;
+		} else {
+			// absolute paths from the document root and bare relative steps are not translated
+			return null;
+		}
+
+		while (true) {
+			Matcher name = STEP_NAME.matcher(path).region(pos, path.length());
+			if (!name.lookingAt()) {
+				return null;
+			}
+			css.append(name.group());
+			pos = name.end();
+
+			while (pos < path.length() && path.charAt(pos) == '[') {
+				int end = closingBracket(path, pos);
+				if (end < 0) {
+					return null;
+				}
+				String predicate = compilePredicate(path.substring(pos + 1, end).trim());
+				if (predicate == null) {
+					return null;
+				}
+				css.append(predicate);
+				pos = end + 1;
+			}
+
+			if (pos == path.length()) {
+				return css.toString();
+			} else if (path.startsWith("//", pos)) {
+				css.append(' ');
+				pos += 2;
+			} else if (path.charAt(pos) == '/') {
+				css.append(" > ");
+				pos += 1;
+			} else {
+				return null;
+			}
+		}
+	}
+
+	private static String compilePredicate(String predicate) {
+		Matcher not = NOT.matcher(predicate);
+		if (not.matches()) {
+			String inner = compilePredicate(not.group(1).trim());
+			return inner == null ? null : ":not(" + inner + ")";
+		}
+		Matcher equals = ATTRIBUTE_EQUALS.matcher(predicate);
+		if (equals.matches()) {
+			String attribute = equals.group(1);
+			String value = value(equals);
+			if ("id".equals(attribute) && CSS_IDENTIFIER.matcher(value).matches()) {
+				return "#" + value;
+			}
+			return "[" + attribute + "=" + quote(value) + "]";
+		}
+		Matcher contains = ATTRIBUTE_CONTAINS.matcher(predicate);
+		if (contains.matches()) {
+			return "[" + contains.group(1) + "*=" + quote(value(contains)) + "]";
+		}
+		Matcher present = ATTRIBUTE_PRESENT.matcher(predicate);
+		if (present.matches()) {
+			return "[" + present.group(1) + "]";
+		}
+		return null;
+	}
+
+	private static String value(Matcher matcher) {
+		return matcher.group(2) != null ? matcher.group(2) : matcher.group(3);
+	}
+
+	/**
+	 * Quotes an XPath literal as a CSS string. XPath has no escapes, so a
+	 * backslash is literal there but starts an escape in CSS.
+	 */
+	private static String quote(String value) {
+		String escaped = value.replace("\\", "\\\\").replace("\n", "\\a ");
+		if (value.indexOf('\'') < 0) {
+			return "'" + escaped + "'";
+		}
+		return "\"" + escaped.replace("\"", "\\\"") + "\"";
+	}
+
+	/**
+	 * Finds the bracket closing the predicate opened at {@code open}, skipping
+	 * quoted strings and nested brackets.
+	 */
+	private static int closingBracket(String path, int open) {
+		int depth = 0;
+		char quote = 0;
+		for (int i = open; i < path.length(); i++) {
+			char c = path.charAt(i);
+			if (quote != 0) {
+				if (c == quote) {
+					quote = 0;
+				}
+			} else if (c == '\'' || c == '"') {
+				quote = c;
+			} else if (c == '[') {
+				depth++;
+			} else if (c == ']' && --depth == 0) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,197 @@
+package com.hmh.automation.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.hmh.automation.impact.DependencyRecorder;
+
+/**
+ * Latency histograms of WebDriver commands, page-object methods and wait
+ * conditions. Commands are recorded by {@link CommandTimingListener}, page
+ * methods through {@link #pageMethod(String)} timers and waits by the
+ * WaitEngine. A command is also attributed to the page method running on
+ * its thread, which shows where a slow page method spends its time. Besides
+ * the run-wide histograms, each thread keeps a per-test breakdown between
+ * {@link #startTest()} and {@link #testBreakdown()}. Page methods are also
+ * reported to the {@link DependencyRecorder}. The histograms are
+ * exported in the Prometheus text format by {@link #writePrometheus(Path)}.
+ */
+public class CommandMetrics {
+
+	static final String COMMANDS = "webdriver_command_duration_seconds";
+	static final String PAGE_METHODS = "page_method_duration_seconds";
+	static final String PAGE_METHOD_COMMANDS = "page_method_command_duration_seconds";
+	static final String WAITS = "wait_condition_duration_seconds";
+	private static final String[][] FAMILIES = { { COMMANDS, "Latency of WebDriver commands" },
+			{ PAGE_METHODS, "Latency of page object methods, including nested calls" },
+			{ PAGE_METHOD_COMMANDS, "Latency of WebDriver commands per calling page object method" },
+			{ WAITS, "Time until an explicit wait condition was met or timed out" } };
+	private static final CommandMetrics INSTANCE = new CommandMetrics();
+
+	private final Map<String, ConcurrentMap<String, LatencyHistogram>> families = new LinkedHashMap<>();
+	private final ThreadLocal<Deque<String>> pageMethods = ThreadLocal.withInitial(ArrayDeque::new);
+	private final ThreadLocal<Map<String, long[]>> testBreakdown = new ThreadLocal<>();
+
+	CommandMetrics() {
+		for (String[] family : FAMILIES) {
+			families.put(family[0], new ConcurrentHashMap<String, LatencyHistogram>());
+		}
+	}
+
+	/**
+	 * @return the metrics shared by all threads
+	 */
+	public static CommandMetrics getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Records one WebDriver command run on the calling thread.
+	 *
+	 * @param command command name, e.g. {@code WebElement.click}
+	 */
+	public void recordCommand(String command, long nanos) {
+		histogram(COMMANDS, label("command", command)).record(nanos);
+		String pageMethod = pageMethods.get().peek();
+		if (pageMethod != null) {
+			histogram(PAGE_METHOD_COMMANDS, label("method", pageMethod) + "," + label("command", command))
+					.record(nanos);
+		}
+		addToTest("command", command, nanos);
+	}
+
+	/**
+	 * Records how long a wait condition took on the calling thread.
+	 */
+	public void recordWait(String condition, long nanos) {
+		histogram(WAITS, label("condition", condition)).record(nanos);
+		addToTest("wait", condition, nanos);
+	}
+
+	/**
+	 * Starts timing a page-object method on the calling thread; close the
+	 * returned timer when the method returns.
+	 */
+	public Timer pageMethod(String method) {
+		DependencyRecorder.getInstance().record(method);
+		pageMethods.get().push(method);
+		return new Timer(method, System.nanoTime());
+	}
+
+	/**
+	 * Starts a new per-test breakdown on the calling thread.
+	 */
+	public void startTest() {
+		testBreakdown.set(new LinkedHashMap<String, long[]>());
+	}
+
+	/**
+	 * Ends the calling thread's per-test breakdown.
+	 *
+	 * @return one row per command, page method and wait condition seen: kind,
+	 *         name, count, total ms and max ms; the first row holds the column
+	 *         headers. Null if no test was started.
+	 */
+	public String[][] testBreakdown() {
+		Map<String, long[]> breakdown = testBreakdown.get();
+		testBreakdown.remove();
+		if (breakdown == null) {
+			return null;
+		}
+		List<String[]> rows = new ArrayList<>();
+		rows.add(new String[] { "kind", "name", "count", "total ms", "max ms" });
+		for (Map.Entry<String, long[]> entry : breakdown.entrySet()) {
+			String[] key = entry.getKey().split("\t", 2);
+			long[] values = entry.getValue();
+			rows.add(new String[] { key[0], key[1], String.valueOf(values[0]), millis(values[1]),
+					millis(values[2]) });
+		}
+		return rows.toArray(new String[0][]);
+	}
+
+	/**
+	 * Writes every histogram in the Prometheus text exposition format.
+	 */
+	public void writePrometheus(Path file) throws IOException {
+		if (file.getParent() != null) {
+			Files.createDirectories(file.getParent());
+		}
+		try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			for (String[] family : FAMILIES) {
+				out.write("# HELP " + family[0] + " " + family[1] + "\n");
+				out.write("# TYPE " + family[0] + " histogram\n");
+				for (Map.Entry<String, LatencyHistogram> entry : families.get(family[0]).entrySet()) {
+					String labels = entry.getKey();
+					LatencyHistogram histogram = entry.getValue();
+					long[] cumulative = histogram.getCumulativeCounts();
+					for (int i = 0; i < cumulative.length; i++) {
+						String bound = i < LatencyHistogram.BUCKETS.length
+								? String.valueOf(LatencyHistogram.BUCKETS[i])
+								: "+Inf";
+						out.write(family[0] + "_bucket{" + labels + ",le=\"" + bound + "\"} " + cumulative[i] + "\n");
+					}
+					out.write(family[0] + "_sum{" + labels + "} "
+							+ String.format(Locale.ROOT, "%.6f", histogram.getSumSeconds()) + "\n");
+					out.write(family[0] + "_count{" + labels + "} " + histogram.getCount() + "\n");
+				}
+			}
+		}
+	}
+
+	private LatencyHistogram histogram(String family, String labels) {
+		ConcurrentMap<String, LatencyHistogram> histograms = families.get(family);
+		LatencyHistogram histogram = histograms.get(labels);
+		return histogram != null ? histogram : histograms.computeIfAbsent(labels, k -> new LatencyHistogram());
+	}
+
+	private void addToTest(String kind, String name, long nanos) {
+		Map<String, long[]> breakdown = testBreakdown.get();
+		if (breakdown != null) {
+			long[] values = breakdown.computeIfAbsent(kind + "\t" + name, k -> new long[3]);
+			values[0]++;
+			values[1] += nanos;
+			values[2] = Math.max(values[2], nanos);
+		}
+	}
+
+	static String label(String name, String value) {
+		return name + "=\"" + value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n") + "\"";
+	}
+
+	private static String millis(long nanos) {
+		return String.format(Locale.ROOT, "%.1f", nanos / 1_000_000.0);
+	}
+
+	/**
+	 * Times one page-object method call.
+	 */
+	public final class Timer implements AutoCloseable {
+		private final String method;
+		private final long start;
+
+		private Timer(String method, long start) {
+			this.method = method;
+			this.start = start;
+		}
+
+		@Override
+		public void close() {
+			long nanos = System.nanoTime() - start;
+			pageMethods.get().pop();
+			histogram(PAGE_METHODS, label("method", method)).record(nanos);
+			addToTest("page method", method, nanos);
+		}
+	}
+}
@@ -0,0 +1,49 @@
+package com.hmh.automation.metrics;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.openqa.selenium.support.events.WebDriverListener;
+
+/**
+ * Times every call made through a driver decorated with
+ * {@link org.openqa.selenium.support.events.EventFiringDecorator}, including
+ * calls on the elements, navigation, options and actions it hands out, and
+ * records them in {@link CommandMetrics} as {@code Interface.method}, e.g.
+ * {@code WebElement.click} or {@code JavascriptExecutor.executeScript}.
+ */
+public class CommandTimingListener implements WebDriverListener {
+
+	private final CommandMetrics metrics;
+	// calls can nest, e.g. an element method may go through the driver again
+	private final ThreadLocal<Deque<Long>> starts = ThreadLocal.withInitial(ArrayDeque::new);
+
+	public CommandTimingListener(CommandMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	@Override
+	public void beforeAnyCall(Object target, Method method, Object[] args) {
+		starts.get().push(System.nanoTime());
+	}
+
+	@Override
+	public void afterAnyCall(Object target, Method method, Object[] args, Object result) {
+		record(method);
+	}
+
+	@Override
+	public void onError(Object target, Method method, Object[] args, InvocationTargetException e) {
+		record(method);
+	}
+
+	private void record(Method method) {
+		Long start = starts.get().poll();
+		if (start != null && method.getDeclaringClass() != Object.class) {
+			metrics.recordCommand(method.getDeclaringClass().getSimpleName() + "." + method.getName(),
+					System.nanoTime() - start);
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package com.hmh.automation.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with fixed, Prometheus-style cumulative
+ * buckets. Recording is a bucket search over a dozen bounds and two adder
+ * increments, cheap enough to run on every WebDriver command.
+ */
+public class LatencyHistogram {
+
+	/** Upper bucket bounds in seconds; the implicit last bucket is +Inf. */
+	static final double[] BUCKETS = { 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10 };
+	private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+	private final LongAdder[] counts = new LongAdder[BUCKETS.length + 1];
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sumNanos = new LongAdder();
+	private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+	public LatencyHistogram() {
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] = new LongAdder();
+		}
+	}
+
+	public void record(long nanos) {
+		double seconds = nanos / NANOS_PER_SECOND;
+		int bucket = 0;
+		while (bucket < BUCKETS.length && seconds > BUCKETS[bucket]) {
+			bucket++;
+		}
+		counts[bucket].increment();
+		count.increment();
+		sumNanos.add(nanos);
+		maxNanos.accumulate(nanos);
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	public double getSumSeconds() {
+		return sumNanos.sum() / NANOS_PER_SECOND;
+	}
+
+	public double getMaxSeconds() {
+		return maxNanos.get() / NANOS_PER_SECOND;
+	}
+
+	/**
+	 * @return the cumulative count of each bucket in {@link #BUCKETS}, followed
+	 *         by the +Inf bucket
+	 */
+	public long[] getCumulativeCounts() {
+		long[] cumulative = new long[counts.length];
+		long total = 0;
+		for (int i = 0; i < counts.length; i++) {
+			total += counts[i].sum();
+			cumulative[i] = total;
+		}
+		return cumulative;
+	}
+}
@@ -0,0 +1,219 @@
+package com.hmh.automation.pages;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.JavascriptException;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WrapsDriver;
+import org.openqa.selenium.chromium.ChromiumDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.json.Json;
+
+import com.hmh.automation.metrics.CommandMetrics;
+
+/**
+ * Sends input events and DOM queries to a Chrome page over the DevTools
+ * websocket instead of one WebDriver HTTP request per element lookup, hover
+ * and click. Commands are sent as raw protocol methods, so they do not depend
+ * on the Chrome version matching one of Selenium's generated devtools
+ * packages. Each command is recorded in {@link CommandMetrics} as
+ * {@code DevTools.<method>}, next to the WebDriver commands it replaces.
+ */
+public class CdpInput {
+
+	private static final Logger logger = LogManager.getLogger(CdpInput.class);
+	private static final Map<WebDriver, CdpInput> sessions = Collections.synchronizedMap(new WeakHashMap<>());
+
+	/**
+	 * Scrolls the element into view and returns the viewport coordinates of
+	 * its centre, or null if it is missing or not rendered.
+	 */
+	private static final String CENTER_FUNCTION = "(function (el) {"
+			+ "  if (!el) { return null; }"
+			+ "  el.scrollIntoView({block: 'center', inline: 'center'});"
+			+ "  var r = el.getBoundingClientRect();"
+			+ "  return r.width && r.height ? [Math.round(r.left + r.width / 2), Math.round(r.top + r.height / 2)] : null;"
+			+ "})";
+
+	private final DevTools devTools;
+	private final CommandMetrics metrics = CommandMetrics.getInstance();
+	private final Json json = new Json();
+
+	private CdpInput(DevTools devTools) {
+		this.devTools = devTools;
+	}
+
+	/**
+	 * @param driver a session, possibly decorated
+	 * @return the DevTools input of the session, or null if it is not a local
+	 *         Chrome (or Edge) session
+	 */
+	public static CdpInput forDriver(WebDriver driver) {
+		WebDriver unwrapped = driver;
+		while (unwrapped instanceof WrapsDriver) {
+			unwrapped = ((WrapsDriver) unwrapped).getWrappedDriver();
+		}
+		if (!(unwrapped instanceof ChromiumDriver)) {
+			return null;
+		}
+		ChromiumDriver chromium = (ChromiumDriver) unwrapped;
+		synchronized (sessions) {
+			CdpInput input = sessions.get(chromium);
+			if (input == null) {
+				DevTools devTools = chromium.maybeGetDevTools().orElse(null);
+				if (devTools == null) {
+					logger.warn("No DevTools connection to the session; using WebDriver for page actions");
+					return null;
+				}
+				devTools.createSessionIfThereIsNotOne();
+				input = new CdpInput(devTools);
+				sessions.put(chromium, input);
+			}
+			return input;
+		}
+	}
+
+	/**
+	 * Focuses the first element matching the selector.
+	 */
+	public void focus(String selector) {
+		Object found = evaluate("(function (el) { if (el) { el.focus(); } return !!el; })(document.querySelector("
+				+ json.toJson(selector) + "))");
+		if (!Boolean.TRUE.equals(found)) {
+			throw new NoSuchElementException("No element matches " + selector);
+		}
+	}
+
+	/**
+	 * Selects the whole value of the focused input, so typing replaces it.
+	 */
+	public void selectFocusedText() {
+		evaluate("document.activeElement && document.activeElement.select && document.activeElement.select()");
+	}
+
+	/**
+	 * Types text into the focused element as one input event.
+	 */
+	public void insertText(String text) {
+		send("Input.insertText", params("text", text));
+	}
+
+	/**
+	 * Presses and releases the Enter key on the focused element.
+	 */
+	public void pressEnter() {
+		Map<String, Object> key = params("key", "Enter");
+		key.put("code", "Enter");
+		key.put("windowsVirtualKeyCode", 13);
+		key.put("nativeVirtualKeyCode", 13);
+		key.put("type", "keyDown");
+		key.put("text", "\r");
+		send("Input.dispatchKeyEvent", key);
+		key.put("type", "keyUp");
+		key.remove("text");
+		send("Input.dispatchKeyEvent", key);
+	}
+
+	/**
+	 * @param selector CSS selector of the elements
+	 * @param index    0-based index among the matching elements
+	 * @param child    CSS selector of a descendant of that element to locate
+	 *                 instead, or null
+	 * @return viewport coordinates of the element's centre, after scrolling it
+	 *         into view
+	 * @throws NoSuchElementException if the element is missing or not rendered
+	 */
+	public Point center(String selector, int index, String child) {
+		String element = "document.querySelectorAll(" + json.toJson(selector) + ")[" + index + "]";
+		if (child != null) {
+			element = "(function (el) { return el && el.querySelector(" + json.toJson(child) + "); })(" + element + ")";
+		}
+		Object center = evaluate(CENTER_FUNCTION + "(" + element + ")");
+		if (!(center instanceof List)) {
+			throw new NoSuchElementException("No rendered element " + selector + "[" + index + "]"
+					+ (child == null ? "" : " " + child));
+		}
+		List<?> coordinates = (List<?>) center;
+		return new Point(((Number) coordinates.get(0)).intValue(), ((Number) coordinates.get(1)).intValue());
+	}
+
+	/**
+	 * Moves the mouse to the point, triggering hover styles and events.
+	 */
+	public void moveMouse(Point point) {
+		send("Input.dispatchMouseEvent", mouse("mouseMoved", point, 0));
+	}
+
+	/**
+	 * Clicks the left button at the point.
+	 */
+	public void click(Point point) {
+		press(point, 1);
+	}
+
+	/**
+	 * Double-clicks the left button at the point; the page gets two clicks and
+	 * a dblclick, as from a real mouse.
+	 */
+	public void doubleClick(Point point) {
+		press(point, 1);
+		press(point, 2);
+	}
+
+	private void press(Point point, int clickCount) {
+		send("Input.dispatchMouseEvent", mouse("mousePressed", point, clickCount));
+		send("Input.dispatchMouseEvent", mouse("mouseReleased", point, clickCount));
+	}
+
+	private static Map<String, Object> mouse(String type, Point point, int clickCount) {
+		Map<String, Object> event = params("type", type);
+		event.put("x", point.getX());
+		event.put("y", point.getY());
+		if (clickCount > 0) {
+			event.put("button", "left");
+			event.put("clickCount", clickCount);
+		}
+		return event;
+	}
+
+	/**
+	 * Evaluates an expression in the page and returns its value.
+	 *
+	 * @throws JavascriptException if the expression throws
+	 */
+	private Object evaluate(String expression) {
+		Map<String, Object> params = params("expression", expression);
+		params.put("returnByValue", true);
+		Map<String, Object> response = send("Runtime.evaluate", params);
+		if (response.get("exceptionDetails") != null) {
+			throw new JavascriptException("DevTools evaluation failed: " + response.get("exceptionDetails"));
+		}
+		Object result = response.get("result");
+		return result instanceof Map ? ((Map<?, ?>) result).get("value") : null;
+	}
+
+	private Map<String, Object> send(String method, Map<String, Object> params) {
+		long start = System.nanoTime();
+		try {
+			Map<String, Object> response = devTools.send(new Command<Map<String, Object>>(method, params, Json.MAP_TYPE));
+			return response == null ? Collections.<String, Object>emptyMap() : response;
+		} finally {
+			metrics.recordCommand("DevTools." + method, System.nanoTime() - start);
+		}
+	}
+
+	private static Map<String, Object> params(String name, Object value) {
+		Map<String, Object> params = new LinkedHashMap<>();
+		params.put(name, value);
+		return params;
+	}
+}
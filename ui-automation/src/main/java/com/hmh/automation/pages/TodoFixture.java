@@ -0,0 +1,35 @@
+package com.hmh.automation.pages;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the todo list a test method starts from. The list is seeded on the
+ * leased browser before the method runs, so a test does not depend on state
+ * left behind by another test and can run in any order and on any pooled
+ * browser. Methods without this annotation start from an empty list.
+ *
+ * <pre>
+ * &#64;Test
+ * &#64;TodoFixture(todos = { "Read book", "Go for a walk" }, completed = { 0 })
+ * public void testSomething() { ... }
+ * </pre>
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface TodoFixture {
+
+	/**
+	 * @return todo titles in display order
+	 */
+	String[] todos() default {};
+
+	/**
+	 * @return indexes (0-based) of the todos that start out completed
+	 */
+	int[] completed() default {};
+}
@@ -1,128 +1,196 @@
 package com.hmh.automation.pages;
 
-import java.time.Duration;
-import java.util.List;
+import java.util.Map;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.openqa.selenium.By;
 import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.Keys;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.interactions.Actions;
-import org.openqa.selenium.support.FindBy;
-import org.openqa.selenium.support.PageFactory;
-import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.WebDriverWait;
+
+import com.hmh.automation.locators.CachedLocator;
+import com.hmh.automation.locators.LocatorContext;
+import com.hmh.automation.metrics.CommandMetrics;
+import com.hmh.automation.utils.FrameworkConfig;
+import com.hmh.automation.waits.DomCondition;
+import com.hmh.automation.waits.DomWaiter;
+import com.hmh.automation.waits.WaitEngine;
 
 /**
  * This class represents the Page Object Model (POM) for the TodoMVCapplication. 
  * It contains methods to interact with the Todo list such as adding, completing, 
  * deleting, and verifying tasks.
  */
+// each page method is timed by a try-with-resources CommandMetrics.Timer that its body never references
+@SuppressWarnings("try")
 public class TodoPage {
 
-	WebDriverWait wait;
+	WaitEngine wait;
 	WebDriver driver;
+	private final DomWaiter dom;
+	private final LocatorContext locators = new LocatorContext();
+	private final CommandMetrics metrics = CommandMetrics.getInstance();
+	private final CdpInput cdp;
 	public static final String COMPLETED = "completed";
 	public static final String CLASS = "class";
+	private static final String TODO_ROWS = ".todo-list li";
 	private static final Logger logger = LogManager.getLogger(TodoPage.class);
 
 	/**
-	 * Constructor to initialize the WebDriver and WebDriverWait.
+	 * Clears storage, destroys every todo, then types and submits each title
+	 * into the new-todo input and ticks the completed ones. React batches the
+	 * updates of these events and renders them a microtask or frame later, so
+	 * the script waits for the list to show the new todos before ticking, and
+	 * for the ticks to render before it reports the todos and completed todos
+	 * in the list. A step whose list stops changing for SETTLE_MILLIS without
+	 * reaching the expected state ends the wait, and applyState reports it.
+	 */
+	private static final String APPLY_STATE_SCRIPT = "var titles = arguments[0], completed = arguments[1],"
+			+ "    settleMillis = arguments[2], done = arguments[arguments.length - 1];"
+			+ "function rows() { return document.querySelectorAll('.todo-list li'); }"
+			+ "function completedRows() { return document.querySelectorAll('.todo-list li.completed').length; }"
+			+ "function whenRendered(progress, target, next) {"
+			+ "  var last = -1, changedAt = Date.now();"
+			+ "  (function poll() {"
+			+ "    var current = progress();"
+			+ "    if (current !== last) { last = current; changedAt = Date.now(); }"
+			+ "    if (current === target || Date.now() - changedAt > settleMillis) { next(); }"
+			+ "    else { setTimeout(poll, 10); }"
+			+ "  })();"
+			+ "}"
+			+ "window.localStorage.clear(); window.sessionStorage.clear();"
+			+ "document.querySelectorAll('.todo-list li .destroy').forEach(function (b) { b.click(); });"
+			+ "var input = document.querySelector('#todo-input');"
+			+ "var setValue = Object.getOwnPropertyDescriptor(HTMLInputElement.prototype, 'value').set;"
+			+ "for (var i = 0; i < titles.length; i++) {"
+			+ "  setValue.call(input, titles[i]);"
+			+ "  input.dispatchEvent(new Event('input', {bubbles: true}));"
+			+ "  input.dispatchEvent(new KeyboardEvent('keydown',"
+			+ "      {key: 'Enter', code: 'Enter', keyCode: 13, which: 13, bubbles: true}));"
+			+ "}"
+			+ "var wanted = completed.filter(function (c) { return c; }).length;"
+			+ "whenRendered(function () { return rows().length; }, titles.length, function () {"
+			+ "  var toggles = document.querySelectorAll('.todo-list li .toggle');"
+			+ "  for (var j = 0; j < completed.length; j++) {"
+			+ "    if (completed[j] && toggles[j]) { toggles[j].click(); }"
+			+ "  }"
+			+ "  whenRendered(completedRows, wanted, function () {"
+			+ "    done({todos: rows().length, completed: completedRows()});"
+			+ "  });"
+			+ "});";
+
+	/**
+	 * How long a seeding step may leave the list unchanged before the script
+	 * stops waiting for it to render.
+	 */
+	private static final long SETTLE_MILLIS = 1000;
+
+	/**
+	 * Returns text, completed flag and visibility of every rendered todo row.
+	 */
+	private static final String SNAPSHOT_SCRIPT = "var rows = document.querySelectorAll('.todo-list li');"
+			+ "var result = [];"
+			+ "for (var i = 0; i < rows.length; i++) {"
+			+ "  var li = rows[i];"
+			+ "  result.push({text: li.innerText.trim(), completed: li.classList.contains('completed'),"
+			+ "      visible: li.getClientRects().length > 0});"
+			+ "}"
+			+ "return result;";
+
+	/**
+	 * Constructor to initialize the WebDriver and WaitEngine. Elements are
+	 * resolved lazily through cached locators; see {@link LocatorContext}.
+	 * With cdpActions=true on Chrome, adding, deleting and editing todos go
+	 * over the DevTools protocol (see {@link CdpInput}); other browsers use
+	 * WebDriver. Waits for the page to render an action go through
+	 * {@link DomWaiter}.
 	 *
 	 * @param driver The WebDriver instance used to interact with the browser.
 	 */
 	public TodoPage(WebDriver driver) {
 		logger.info("Initialising drivers.....");
 		this.driver = driver;
-		this.wait = new WebDriverWait(driver, Duration.ofSeconds(10));
-		PageFactory.initElements(driver, this);
+		this.wait = WaitEngine.getInstance();
+		this.dom = new DomWaiter(driver);
+		locators.bind(driver);
+		this.cdp = FrameworkConfig.get().isCdpActions() ? CdpInput.forDriver(driver) : null;
 	}
 
 	/**
 	 * WebElement representing the input field for adding new todo items.
 	 */
-	@FindBy(xpath = "//input[@id='todo-input']")
-	private WebElement todoInput;
+	private final CachedLocator todoInput = locators.xpath("todoInput", "//input[@id='todo-input']");
+
+	/**
+	 * The todo list container that the row locators below are scoped to.
+	 */
+	private final CachedLocator todoList = locators.xpath("todoList", "//ul[@class='todo-list']");
 
-	private By todoItems = By.cssSelector(".todo-list li");
 	/**
 	 * List of WebElements representing all todo items in the list.
 	 */
-	@FindBy(xpath = "//ul[@class='todo-list']//li")
-	private List<WebElement> todoItemList;
+	private final CachedLocator todoItemList = locators.xpath("todoItemList", ".//li", todoList);
 
 	/**
 	 * List of WebElements representing the toggle buttons for marking tasks as
 	 * completed.
 	 */
-	@FindBy(xpath = "//ul[@class='todo-list']/li//input[@class='toggle']")
-	private List<WebElement> check_Buttons;
+	private final CachedLocator check_Buttons = locators.xpath("check_Buttons", "./li//input[@class='toggle']",
+			todoList);
 
 	/**
 	 * WebElement representing the toggle-all button to mark all tasks as completed.
 	 */
-	@FindBy(xpath = "//input[@id='toggle-all']")
-	private WebElement toggle_all_button;
+	private final CachedLocator toggle_all_button = locators.xpath("toggle_all_button", "//input[@id='toggle-all']");
 
 	/**
 	 * List of WebElements representing the delete buttons for removing tasks.
 	 */
-	@FindBy(xpath = "//ul[@class='todo-list']/li//button[@class='destroy']")
-	private List<WebElement> destroy_Buttons;
+	private final CachedLocator destroy_Buttons = locators.xpath("destroy_Buttons", "./li//button[@class='destroy']",
+			todoList);
 
 	/**
 	 * List of WebElements representing the Clear Completed option
 	 */
-	@FindBy(xpath = "//button[normalize-space()='Clear completed']")
-	private WebElement clearCompleted_Button;
+	private final CachedLocator clearCompleted_Button = locators.xpath("clearCompleted_Button",
+			"//button[normalize-space()='Clear completed']");
 
 	/**
 	 * This is completed filter button
 	 */
-	@FindBy(xpath = "//a[normalize-space()='Completed']")
-	private WebElement completed_Button;
-
-	/**
-	 * It gives the list of tasks that are marked as completed
-	 */
-	@FindBy(xpath = "//ul[@class='todo-list']//li[@class='completed']")
-	private List<WebElement> completedToDoItems;
+	private final CachedLocator completed_Button = locators.xpath("completed_Button",
+			"//a[normalize-space()='Completed']");
 
 	/**
 	 * This is Active filter button
 	 */
-	@FindBy(xpath = "//a[normalize-space()='Active']")
-	private WebElement active_Button;
-
-	/**
-	 * It gives the list of tasks that are marked as Active
-	 */
-	@FindBy(xpath = "//ul[@class='todo-list']//li[not(contains(@class, 'completed'))]")
-	private List<WebElement> activeToDoItems;
+	private final CachedLocator active_Button = locators.xpath("active_Button", "//a[normalize-space()='Active']");
 
 	/**
 	 * This is All filter Button
 	 */
-	@FindBy(xpath = "//a[normalize-space()='All']")
-	private WebElement all_Button;
+	private final CachedLocator all_Button = locators.xpath("all_Button", "//a[normalize-space()='All']");
 
 	/**
 	 * List of WebElements representing the todo task label buttons for editing
 	 * test".
 	 */
-	@FindBy(xpath = "//ul[@class='todo-list']/li//label")
-	private List<WebElement> todoLabel;
+	private final CachedLocator todoLabel = locators.xpath("todoLabel", "./li//label", todoList);
+
+	/**
+	 * The input field of the row being edited (only present in edit mode).
+	 */
+	private final CachedLocator editingInput = locators.css("editingInput", "li.editing .edit", todoList);
 
 	/**
 	 * List of WebElements representing the todo task label buttons for editing
 	 * test".
 	 */
 	// Locate the input field for editing (only visible in edit mode)
-	@FindBy(xpath = "//div[contains(@class, 'input-container')]//input[contains(@class, 'new-todo')]")
-	private WebElement editInputField;
+	private final CachedLocator editInputField = locators.xpath("editInputField",
+			"//div[contains(@class, 'input-container')]//input[contains(@class, 'new-todo')]");
 
 	// Methods
 
@@ -132,8 +200,17 @@ public class TodoPage {
 	 * @param task The task to be added.
 	 */
 	public void addTodoItem(String task) {
-		logger.info("Inside addTodoItem method todoItem:{}", task);
-		todoInput.sendKeys(task + "\n");
+		try (CommandMetrics.Timer timer = metrics.pageMethod("addTodoItem")) {
+			logger.info("Inside addTodoItem method todoItem:{}", task);
+			if (cdp != null) {
+				cdp.focus("#todo-input");
+				cdp.insertText(task);
+				cdp.pressEnter();
+			} else {
+				locators.retryOnStale(() -> todoInput.find().sendKeys(task + "\n"));
+			}
+			locators.domChanged();
+		}
 	}
 
 	/**
@@ -142,8 +219,10 @@ public class TodoPage {
 	 * @param index The index of todo task to get text
 	 */
 	public String getToDoText(int index) {
-		logger.info("Inside getToDoText method for ToDoTask to get text at:{}", index + 1);
-		return todoItemList.get(index).getText();
+		try (CommandMetrics.Timer timer = metrics.pageMethod("getToDoText")) {
+			logger.info("Inside getToDoText method for ToDoTask to get text at:{}", index + 1);
+			return snapshot().getRow(index).getText();
+		}
 	}
 
 	/**
@@ -152,8 +231,18 @@ public class TodoPage {
 	 * @param index The index of the task to be marked as completed.
 	 */
 	public void completeTodoItem(int index) {
-		logger.info("Inside completeTodoItem method to mark task as complete at:{}", index + 1);
-		check_Buttons.get(index).click();
+		try (CommandMetrics.Timer timer = metrics.pageMethod("completeTodoItem")) {
+			logger.info("Inside completeTodoItem method to mark task as complete at:{}", index + 1);
+			boolean completed = locators.retryOnStale(() -> {
+				WebElement toggle = check_Buttons.findAll().get(index);
+				// the click toggles the row, so wait for the opposite of its current state
+				boolean wasCompleted = toggle.isSelected();
+				toggle.click();
+				return !wasCompleted;
+			});
+			locators.domChanged();
+			dom.until("todoCompletedRendered", DomCondition.completedSettled(index, completed));
+		}
 	}
 
 	/**
@@ -163,11 +252,32 @@ public class TodoPage {
 	 */
 
 	public void deleteTodoItem(int index) {
-		logger.info("Inside deleteTodoItem method to delete the task at:{}", index + 1);
+		try (CommandMetrics.Timer timer = metrics.pageMethod("deleteTodoItem")) {
+			logger.info("Inside deleteTodoItem method to delete the task at:{}", index + 1);
+			if (cdp != null) {
+				// the destroy button is only rendered while its row is hovered
+				cdp.moveMouse(cdp.center(TODO_ROWS, index, null));
+				cdp.click(cdp.center(TODO_ROWS, index, ".destroy"));
+				locators.domChanged();
+				return;
+			}
+			deleteWithHover(index);
+		}
+	}
+
+	/**
+	 * Hovers over the row, waits for its destroy button to show and clicks it,
+	 * then waits for the row to leave the list.
+	 */
+	private void deleteWithHover(int index) {
 		Actions actions = new Actions(driver);
-		WebElement todoItem = todoItemList.get(index);
-		actions.moveToElement(todoItem).perform(); // Hover over the item
-		wait.until(ExpectedConditions.elementToBeClickable(destroy_Buttons.get(index))).click();
+		locators.retryOnStale(() -> {
+			actions.moveToElement(todoItemList.findAll().get(index)).perform(); // Hover over the item
+			long version = dom.until("destroyButtonDisplayed", DomCondition.displayed(TODO_ROWS, index, ".destroy"));
+			destroy_Buttons.findAll().get(index).click();
+			dom.until("todoListChanged", DomCondition.listChangedSince(version));
+		});
+		locators.domChanged();
 	}
 
 	/**
@@ -175,49 +285,68 @@ public class TodoPage {
 	 * 
 	 */
 	public void clearCompleteToDoItems() {
-		logger.info("Inside clearCompleteToDoItems method to clear the completed task");
-		clearCompleted_Button.click();
-		clearCompletedTask();
+		try (CommandMetrics.Timer timer = metrics.pageMethod("clearCompleteToDoItems")) {
+			logger.info("Inside clearCompleteToDoItems method to clear the completed task");
+			locators.retryOnStale(() -> clearCompleted_Button.find().click());
+			locators.domChanged();
+			clearCompletedTask();
+		}
 	}
 
 	/**
 	 * Gives the list of completed task
 	 */
 	public void filterCompletedItems() {
-		logger.info("Inside filterCompletedItems method to filter the completed tasks");
-		completed_Button.click();
+		try (CommandMetrics.Timer timer = metrics.pageMethod("filterCompletedItems")) {
+			logger.info("Inside filterCompletedItems method to filter the completed tasks");
+			locators.retryOnStale(() -> completed_Button.find().click());
+			locators.domChanged();
+			dom.until("filterApplied", DomCondition.filterApplied("Completed"));
+		}
 	}
 
 	/**
 	 * Gives the size of completed items from the tasks
 	 */
 	public int listOfCompletedToDoItems() {
-		logger.info("Inside listOfCompletedToDoItems method to get the size of completed tasks");
-		return completedToDoItems.size();
+		try (CommandMetrics.Timer timer = metrics.pageMethod("listOfCompletedToDoItems")) {
+			logger.info("Inside listOfCompletedToDoItems method to get the size of completed tasks");
+			return snapshot().completedCount();
+		}
 	}
 
 	/**
 	 * clicks on Active button
 	 */
 	public void filterActiveToDoItems() {
-		logger.info("Inside filterActiveToDoItems method to click active button ");
-		active_Button.click();
+		try (CommandMetrics.Timer timer = metrics.pageMethod("filterActiveToDoItems")) {
+			logger.info("Inside filterActiveToDoItems method to click active button ");
+			locators.retryOnStale(() -> active_Button.find().click());
+			locators.domChanged();
+			dom.until("filterApplied", DomCondition.filterApplied("Active"));
+		}
 	}
 
 	/**
 	 * clicks on All filter button
 	 */
 	public void filterAllToDoItems() {
-		logger.info("Inside filterAllToDoItems method to click all button ");
-		all_Button.click();
+		try (CommandMetrics.Timer timer = metrics.pageMethod("filterAllToDoItems")) {
+			logger.info("Inside filterAllToDoItems method to click all button ");
+			locators.retryOnStale(() -> all_Button.find().click());
+			locators.domChanged();
+			dom.until("filterApplied", DomCondition.filterApplied("All"));
+		}
 	}
 
 	/**
 	 * Gives the list of Active ToDo tasks
 	 */
 	public int listOfActiveToDoItems() {
-		logger.info("Inside listOfActiveToDoItems method to get all active Items ");
-		return activeToDoItems.size();
+		try (CommandMetrics.Timer timer = metrics.pageMethod("listOfActiveToDoItems")) {
+			logger.info("Inside listOfActiveToDoItems method to get all active Items ");
+			return snapshot().activeCount();
+		}
 	}
 
 	/**
@@ -226,8 +355,10 @@ public class TodoPage {
 	 * @return The number of tasks currently in the list.
 	 */
 	public int getTodoCount() {
-		logger.info("Inside getTodoCount method to get count of all tasks ");
-		return todoItemList.size();
+		try (CommandMetrics.Timer timer = metrics.pageMethod("getTodoCount")) {
+			logger.info("Inside getTodoCount method to get count of all tasks ");
+			return snapshot().size();
+		}
 	}
 
 	/**
@@ -237,17 +368,39 @@ public class TodoPage {
 	 * @return True if the task is completed, otherwise false.
 	 */
 	public boolean isTaskCompleted(int index) {
-		logger.info("Inside isTaskCompleted method to check whether task is completed or not at:{}", index + 1);
-		WebElement tasks = todoItemList.get(index);
-		return tasks.getDomAttribute(CLASS).contains(COMPLETED);
+		try (CommandMetrics.Timer timer = metrics.pageMethod("isTaskCompleted")) {
+			logger.info("Inside isTaskCompleted method to check whether task is completed or not at:{}", index + 1);
+			return snapshot().getRow(index).isCompleted();
+		}
+	}
+
+	/**
+	 * Reads the whole todo list with one script call.
+	 *
+	 * @return an immutable model of the rendered rows
+	 */
+	public TodoSnapshot snapshot() {
+		try (CommandMetrics.Timer timer = metrics.pageMethod("snapshot")) {
+			return TodoSnapshot.fromScriptResult(((JavascriptExecutor) driver).executeScript(SNAPSHOT_SCRIPT));
+		}
 	}
 
 	/**
 	 * Marks all tasks in the Todo list as completed.
 	 */
 	public void markAllAsCompleted() {
-		logger.info("Inside markAllAsCompleted method to mark all task as complete");
-		toggle_all_button.click();
+		try (CommandMetrics.Timer timer = metrics.pageMethod("markAllAsCompleted")) {
+			logger.info("Inside markAllAsCompleted method to mark all task as complete");
+			boolean completed = locators.retryOnStale(() -> {
+				WebElement toggleAll = toggle_all_button.find();
+				// toggle-all is checked while every todo is completed, and a click flips all of them
+				boolean allCompleted = toggleAll.isSelected();
+				toggleAll.click();
+				return !allCompleted;
+			});
+			locators.domChanged();
+			dom.until("todoCompletedRendered", DomCondition.completedSettled(-1, completed));
+		}
 	}
 
 	/**
@@ -256,14 +409,10 @@ public class TodoPage {
 	 * @return True if all tasks are completed, otherwise false.
 	 */
 	public boolean isAllTaskCompleted() {
-		logger.info("Inside isAllTaskCompleted method to check all task as complete");
-		for (WebElement webElement : todoItemList) {
-			if (!webElement.getDomAttribute(CLASS).contains(COMPLETED)) {
-
-				return false;
-			}
+		try (CommandMetrics.Timer timer = metrics.pageMethod("isAllTaskCompleted")) {
+			logger.info("Inside isAllTaskCompleted method to check all task as complete");
+			return snapshot().allCompleted();
 		}
-		return true;
 	}
 
 	/**
@@ -271,14 +420,14 @@ public class TodoPage {
 	 * This clears already completed tasks
 	 */
 	public void clearCompletedTask() {
-		logger.info("Inside clearCompletedTask method to check clear all completed task");
-		int index = 0;
-		for (WebElement webElement : todoItemList) {
-			if (webElement.getDomAttribute(CLASS).contains(COMPLETED)) {
-				deleteTodoItem(index);
-				index++;
-			} else {
-				index++;
+		try (CommandMetrics.Timer timer = metrics.pageMethod("clearCompletedTask")) {
+			logger.info("Inside clearCompletedTask method to check clear all completed task");
+			TodoSnapshot snapshot = snapshot();
+			// delete from the bottom up so the indexes of the remaining rows do not shift
+			for (int index = snapshot.size() - 1; index >= 0; index--) {
+				if (snapshot.getRow(index).isCompleted()) {
+					deleteTodoItem(index);
+				}
 			}
 		}
 	}
@@ -288,24 +437,67 @@ public class TodoPage {
 	 * 
 	 */
 	public void editText(int index, String text) throws InterruptedException {
-
-		WebElement todoItem = driver.findElements(todoItems).get(index);
-		Actions actions = new Actions(driver);
-
-		// Double-click to activate edit mode
-		actions.doubleClick(todoItem).perform();
-
-		// Locate the active input field
-		WebElement editInput = driver.findElement(By.cssSelector(".todo-list li.editing .edit"));
-
-		// Clear existing text and enter new text
-		editInput.sendKeys(Keys.CONTROL + "a"); // Select all text
-		editInput.sendKeys(Keys.BACK_SPACE); // Clear text
-		editInput.sendKeys("test");
-		editInput.sendKeys(Keys.ENTER); // Press Enter to save
-
+		try (CommandMetrics.Timer timer = metrics.pageMethod("editText")) {
+			if (cdp != null) {
+				// the edit field takes focus when it opens
+				cdp.doubleClick(cdp.center(TODO_ROWS, index, "label"));
+				locators.domChanged();
+				cdp.selectFocusedText();
+				cdp.insertText(text);
+				cdp.pressEnter();
+				locators.domChanged();
+				return;
+			}
+			WebElement todoItem = todoItemList.findAll().get(index);
+			Actions actions = new Actions(driver);
+
+			// Double-click to activate edit mode
+			actions.doubleClick(todoItem).perform();
+			locators.domChanged();
+
+			// Locate the active input field
+			WebElement editInput = editingInput.find();
+
+			// Clear existing text and enter new text
+			editInput.sendKeys(Keys.CONTROL + "a"); // Select all text
+			editInput.sendKeys(Keys.BACK_SPACE); // Clear text
+			editInput.sendKeys(text);
+			editInput.sendKeys(Keys.ENTER); // Press Enter to save
+			locators.domChanged();
+		}
 	}
 	
+	/**
+	 * Wipes the todo list and web storage, then creates the todos described by
+	 * the state in a single asynchronous script call that returns once the
+	 * list has rendered them. The todos are added through the application's
+	 * own input handlers, so the app ends up exactly as if they had been
+	 * typed, but without one browser round-trip per todo.
+	 *
+	 * @param state The todos to start from.
+	 */
+	public void applyState(TodoState state) {
+		try (CommandMetrics.Timer timer = metrics.pageMethod("applyState")) {
+			logger.info("Inside applyState method to seed {} todos", state.size());
+			Map<?, ?> seeded = (Map<?, ?>) ((JavascriptExecutor) driver).executeAsyncScript(APPLY_STATE_SCRIPT,
+					state.getTitles(), state.getCompletedFlags(), SETTLE_MILLIS);
+			locators.domChanged();
+			int todos = ((Number) seeded.get("todos")).intValue();
+			int completed = ((Number) seeded.get("completed")).intValue();
+			if (todos != state.size() || completed != state.getCompletedCount()) {
+				throw new IllegalStateException("Seeding produced " + todos + " todos (" + completed
+						+ " completed) instead of " + state.size() + " (" + state.getCompletedCount() + " completed)");
+			}
+		}
+	}
+
+	/**
+	 * Removes every todo and clears web storage in a single script call.
+	 */
+	public void clearState() {
+		applyState(TodoState.empty());
+	}
+
 	/**
 	 * if present it will Deletes all task from the Todo list.
 	 *
@@ -313,14 +505,11 @@ public class TodoPage {
 	 */
 
 	public void deleteAllTodoItem() {
-		logger.info("Inside delete all todo items");
-		Actions actions = new Actions(driver);
-		int index = 0;
-		for(WebElement webElement:todoItemList) {
-			actions.moveToElement(webElement).perform(); // Hover over the item
-			wait.until(ExpectedConditions.elementToBeClickable(destroy_Buttons.get(index))).click();
-			
+		try (CommandMetrics.Timer timer = metrics.pageMethod("deleteAllTodoItem")) {
+			logger.info("Inside delete all todo items");
+			while (!todoItemList.findAll().isEmpty()) {
+				deleteWithHover(0);
+			}
 		}
-		
 	}
 }
@@ -0,0 +1,109 @@
+package com.hmh.automation.pages;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable copy of the todo list as rendered at one moment, read with a
+ * single script call by {@link TodoPage#snapshot()}. Read-only page queries
+ * answer from a snapshot instead of querying each element over WebDriver.
+ */
+public final class TodoSnapshot {
+
+	/**
+	 * One rendered todo row.
+	 */
+	public static final class Row {
+		private final String text;
+		private final boolean completed;
+		private final boolean visible;
+
+		Row(String text, boolean completed, boolean visible) {
+			this.text = text;
+			this.completed = completed;
+			this.visible = visible;
+		}
+
+		public String getText() {
+			return text;
+		}
+
+		public boolean isCompleted() {
+			return completed;
+		}
+
+		public boolean isVisible() {
+			return visible;
+		}
+
+		@Override
+		public String toString() {
+			return (completed ? "[x] " : "[ ] ") + text + (visible ? "" : " (hidden)");
+		}
+	}
+
+	private final List<Row> rows;
+
+	private TodoSnapshot(List<Row> rows) {
+		this.rows = Collections.unmodifiableList(rows);
+	}
+
+	/**
+	 * Builds a snapshot from the list of row maps returned by the snapshot
+	 * script.
+	 */
+	static TodoSnapshot fromScriptResult(Object result) {
+		List<Row> rows = new ArrayList<>();
+		if (result instanceof List) {
+			for (Object item : (List<?>) result) {
+				Map<?, ?> row = (Map<?, ?>) item;
+				rows.add(new Row(String.valueOf(row.get("text")), Boolean.TRUE.equals(row.get("completed")),
+						Boolean.TRUE.equals(row.get("visible"))));
+			}
+		}
+		return new TodoSnapshot(rows);
+	}
+
+	/**
+	 * @return all rows in display order
+	 */
+	public List<Row> getRows() {
+		return rows;
+	}
+
+	public Row getRow(int index) {
+		return rows.get(index);
+	}
+
+	public int size() {
+		return rows.size();
+	}
+
+	public int completedCount() {
+		int count = 0;
+		for (Row row : rows) {
+			if (row.isCompleted()) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	public int activeCount() {
+		return rows.size() - completedCount();
+	}
+
+	/**
+	 * @return true if every row is completed (also true for an empty list)
+	 */
+	public boolean allCompleted() {
+		return completedCount() == rows.size();
+	}
+
+	@Override
+	public String toString() {
+		return "TodoSnapshot" + rows;
+	}
+}
@@ -0,0 +1,152 @@
+package com.hmh.automation.pages;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable description of the todo list a test starts from: the titles of
+ * the todos in display order and whether each one is completed. It is applied
+ * to the browser with {@link TodoPage#applyState(TodoState)}.
+ */
+public final class TodoState {
+
+	/**
+	 * TodoMVC ignores titles shorter than this once trimmed.
+	 */
+	public static final int MIN_TITLE_LENGTH = 2;
+
+	private static final TodoState EMPTY = new TodoState(Collections.<String>emptyList(),
+			Collections.<Boolean>emptyList());
+
+	private final List<String> titles;
+	private final List<Boolean> completed;
+
+	private TodoState(List<String> titles, List<Boolean> completed) {
+		this.titles = titles;
+		this.completed = completed;
+	}
+
+	/**
+	 * @return a state with no todos
+	 */
+	public static TodoState empty() {
+		return EMPTY;
+	}
+
+	/**
+	 * @param titles titles of active todos
+	 * @return a state holding the given active todos
+	 */
+	public static TodoState of(String... titles) {
+		TodoState state = EMPTY;
+		for (String title : titles) {
+			state = state.active(title);
+		}
+		return state;
+	}
+
+	/**
+	 * @param titles    todo titles in display order
+	 * @param completed completed flag for each title
+	 * @return a state holding the given todos
+	 */
+	public static TodoState of(List<String> titles, List<Boolean> completed) {
+		if (titles.size() != completed.size()) {
+			throw new IllegalArgumentException(
+					"Got " + titles.size() + " titles but " + completed.size() + " completed flags");
+		}
+		for (String title : titles) {
+			checkTitle(title);
+		}
+		return new TodoState(Collections.unmodifiableList(new ArrayList<>(titles)),
+				Collections.unmodifiableList(new ArrayList<>(completed)));
+	}
+
+	/**
+	 * @param fixture the fixture declared on a test method, may be null
+	 * @return the state described by the fixture, or an empty state
+	 */
+	public static TodoState of(TodoFixture fixture) {
+		if (fixture == null) {
+			return EMPTY;
+		}
+		List<String> titles = Arrays.asList(fixture.todos());
+		List<Boolean> completed = new ArrayList<>(Collections.nCopies(titles.size(), Boolean.FALSE));
+		for (int index : fixture.completed()) {
+			if (index < 0 || index >= titles.size()) {
+				throw new IllegalArgumentException("Completed index " + index + " is outside the fixture's "
+						+ titles.size() + " todos");
+			}
+			completed.set(index, Boolean.TRUE);
+		}
+		return of(titles, completed);
+	}
+
+	/**
+	 * @return a copy of this state with an active todo appended
+	 */
+	public TodoState active(String title) {
+		return append(title, false);
+	}
+
+	/**
+	 * @return a copy of this state with a completed todo appended
+	 */
+	public TodoState completed(String title) {
+		return append(title, true);
+	}
+
+	/**
+	 * @return the todo titles in display order
+	 */
+	public List<String> getTitles() {
+		return titles;
+	}
+
+	/**
+	 * @return the completed flag of each todo, in display order
+	 */
+	public List<Boolean> getCompletedFlags() {
+		return completed;
+	}
+
+	public int size() {
+		return titles.size();
+	}
+
+	/**
+	 * @return the number of completed todos
+	 */
+	public int getCompletedCount() {
+		int count = 0;
+		for (Boolean flag : completed) {
+			if (flag) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private static void checkTitle(String title) {
+		if (title.trim().length() < MIN_TITLE_LENGTH) {
+			throw new IllegalArgumentException("Todo title \"" + title + "\" is shorter than " + MIN_TITLE_LENGTH
+					+ " characters; TodoMVC would not add it");
+		}
+	}
+
+	private TodoState append(String title, boolean isCompleted) {
+		checkTitle(title);
+		List<String> newTitles = new ArrayList<>(titles);
+		newTitles.add(title);
+		List<Boolean> newCompleted = new ArrayList<>(completed);
+		newCompleted.add(isCompleted);
+		return new TodoState(Collections.unmodifiableList(newTitles), Collections.unmodifiableList(newCompleted));
+	}
+
+	@Override
+	public String toString() {
+		return "TodoState" + titles + completed;
+	}
+}
@@ -0,0 +1,154 @@
+package com.hmh.automation.retry;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.hmh.automation.utils.FrameworkConfig;
+
+/**
+ * Outcome of each test method in its recent runs, kept in flakeHistoryFile
+ * between runs. Each run adds one outcome per test ({@link #PASSED},
+ * {@link #FLAKY} or {@link #FAILED}); the last flakeWindow are kept. The flake
+ * rate of a test is the share of flaky runs among them, and a test with at
+ * least quarantineMinRuns runs and a flake rate of quarantineFlakeRate or more
+ * is quarantined. Tests that fail for other reasons are never quarantined.
+ */
+public class FlakeHistory {
+
+	/**
+	 * Passed at the first attempt.
+	 */
+	public static final char PASSED = 'P';
+
+	/**
+	 * Failed transiently at least once, whether or not a retry passed.
+	 */
+	public static final char FLAKY = 'F';
+
+	/**
+	 * Failed for a reason that is not transient.
+	 */
+	public static final char FAILED = 'X';
+
+	private static final Logger logger = LogManager.getLogger(FlakeHistory.class);
+	private static FlakeHistory instance;
+
+	private final Path file;
+	private final int window;
+	private final int minRuns;
+	private final double quarantineRate;
+	private final Map<String, String> outcomes = new TreeMap<>();
+
+	/**
+	 * @param file           history file, read if it exists
+	 * @param window         number of recent runs kept per test
+	 * @param minRuns        runs a test needs before it can be quarantined
+	 * @param quarantineRate flake rate from which a test is quarantined
+	 */
+	public FlakeHistory(Path file, int window, int minRuns, double quarantineRate) {
+		this.file = file;
+		this.window = window;
+		this.minRuns = minRuns;
+		this.quarantineRate = quarantineRate;
+		if (Files.isRegularFile(file)) {
+			Properties properties = new Properties();
+			try (InputStream in = Files.newInputStream(file)) {
+				properties.load(in);
+			} catch (IOException e) {
+				logger.warn("Could not read flake history {}: {}", file, e.getMessage());
+			}
+			for (String test : properties.stringPropertyNames()) {
+				outcomes.put(test, properties.getProperty(test).trim());
+			}
+		}
+	}
+
+	/**
+	 * @return the history configured from config.properties, shared by all
+	 *         threads
+	 */
+	public static synchronized FlakeHistory getInstance() {
+		if (instance == null) {
+			FrameworkConfig config = FrameworkConfig.get();
+			instance = new FlakeHistory(config.getFlakeHistoryFile(), config.getFlakeWindow(),
+					config.getQuarantineMinRuns(), config.getQuarantineFlakeRate());
+		}
+		return instance;
+	}
+
+	/**
+	 * Adds the outcome of one run of a test.
+	 *
+	 * @param test    test id, {@code className#methodName}
+	 * @param outcome {@link #PASSED}, {@link #FLAKY} or {@link #FAILED}
+	 */
+	public synchronized void record(String test, char outcome) {
+		String recent = outcomes.getOrDefault(test, "") + outcome;
+		outcomes.put(test, recent.substring(Math.max(0, recent.length() - window)));
+	}
+
+	/**
+	 * @return the outcomes of the recent runs of the test, oldest first;
+	 *         empty if it has no history
+	 */
+	public synchronized String getOutcomes(String test) {
+		return outcomes.getOrDefault(test, "");
+	}
+
+	/**
+	 * @return share of the recent runs of the test that were flaky, 0 if it
+	 *         has no history
+	 */
+	public synchronized double flakeRate(String test) {
+		String recent = outcomes.get(test);
+		if (recent == null || recent.isEmpty()) {
+			return 0;
+		}
+		long flaky = recent.chars().filter(outcome -> outcome == FLAKY).count();
+		return (double) flaky / recent.length();
+	}
+
+	public synchronized boolean isQuarantined(String test) {
+		String recent = outcomes.get(test);
+		return recent != null && recent.length() >= minRuns && flakeRate(test) >= quarantineRate;
+	}
+
+	/**
+	 * @return ids of the tests that are quarantined
+	 */
+	public synchronized Set<String> getQuarantined() {
+		Set<String> quarantined = new TreeSet<>();
+		for (String test : outcomes.keySet()) {
+			if (isQuarantined(test)) {
+				quarantined.add(test);
+			}
+		}
+		return quarantined;
+	}
+
+	public synchronized void save() {
+		Properties properties = new Properties();
+		properties.putAll(outcomes);
+		try {
+			if (file.getParent() != null) {
+				Files.createDirectories(file.getParent());
+			}
+			try (OutputStream out = Files.newOutputStream(file)) {
+				properties.store(out, "Recent outcomes per test method, oldest first: P passed, F flaky, X failed");
+			}
+		} catch (IOException e) {
+			logger.warn("Could not save flake history to {}: {}", file, e.getMessage());
+		}
+	}
+}
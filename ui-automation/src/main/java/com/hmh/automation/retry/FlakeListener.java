@@ -0,0 +1,140 @@
+package com.hmh.automation.retry;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.IAnnotationTransformer;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestListener;
+import org.testng.ITestResult;
+import org.testng.annotations.ITestAnnotation;
+import org.testng.internal.annotations.DisabledRetryAnalyzer;
+
+import com.hmh.automation.utils.FrameworkConfig;
+
+/**
+ * Sets {@link SmartRetry} on every test without a retry analyzer of its own,
+ * records the outcome of each test in the {@link FlakeHistory} and keeps the
+ * quarantine lane (see {@link QuarantineLane}) non-blocking: a failure there
+ * is logged, recorded and reported as skipped instead of failing the run.
+ * Registered as a listener in testng.xml.
+ */
+public class FlakeListener implements IAnnotationTransformer, IInvokedMethodListener, ITestListener, ISuiteListener {
+
+	/**
+	 * Result attribute set on a quarantined failure.
+	 */
+	public static final String QUARANTINED = "quarantined";
+
+	private static final Logger logger = LogManager.getLogger(FlakeListener.class);
+
+	private final Map<String, Character> runOutcomes = new ConcurrentHashMap<>();
+	private final Set<String> retried = ConcurrentHashMap.newKeySet();
+
+	@Override
+	@SuppressWarnings("rawtypes")
+	public void transform(ITestAnnotation annotation, Class testClass, Constructor testConstructor,
+			Method testMethod) {
+		Class<?> analyzer = annotation.getRetryAnalyzerClass();
+		if (FrameworkConfig.get().isRetry() && (analyzer == null || analyzer == DisabledRetryAnalyzer.class)) {
+			annotation.setRetryAnalyzer(SmartRetry.class);
+		}
+	}
+
+	/**
+	 * @return true if the test runs in a quarantine lane
+	 */
+	public static boolean isQuarantineLane(ITestResult result) {
+		return "true".equals(result.getTestContext().getCurrentXmlTest().getParameter(QuarantineLane.PARAMETER));
+	}
+
+	/**
+	 * @return the id the flake history uses, {@code className#methodName}
+	 */
+	public static String testId(ITestResult result) {
+		return result.getTestClass().getName() + "#" + result.getMethod().getMethodName();
+	}
+
+	/**
+	 * @return the test, its parameters and its testng.xml test, which tell one
+	 *         invocation from another
+	 */
+	static String invocationKey(ITestResult result) {
+		String key = testId(result) + " in " + result.getTestContext().getName();
+		return result.getParameters().length == 0 ? key : key + " " + Arrays.toString(result.getParameters());
+	}
+
+	@Override
+	public void afterInvocation(IInvokedMethod method, ITestResult result) {
+		if (!method.isTestMethod() || result.getStatus() != ITestResult.FAILURE || !isQuarantineLane(result)) {
+			return;
+		}
+		boolean flaky = TransientFailures.isTransient(result.getThrowable());
+		record(testId(result), flaky ? FlakeHistory.FLAKY : FlakeHistory.FAILED);
+		logger.warn("Quarantined test {} failed; not failing the run: {}", invocationKey(result),
+				String.valueOf(result.getThrowable()));
+		result.setAttribute(QUARANTINED, true);
+		result.setStatus(ITestResult.SKIP);
+	}
+
+	@Override
+	public void onTestSuccess(ITestResult result) {
+		record(testId(result), retried.remove(invocationKey(result)) ? FlakeHistory.FLAKY : FlakeHistory.PASSED);
+	}
+
+	@Override
+	public void onTestFailure(ITestResult result) {
+		retried.remove(invocationKey(result));
+		record(testId(result),
+				TransientFailures.isTransient(result.getThrowable()) ? FlakeHistory.FLAKY : FlakeHistory.FAILED);
+	}
+
+	@Override
+	public void onTestSkipped(ITestResult result) {
+		if (result.wasRetried()) {
+			retried.add(invocationKey(result));
+		}
+	}
+
+	/**
+	 * Adds the outcomes of this suite's tests to the flake history and saves
+	 * it.
+	 */
+	@Override
+	public void onFinish(ISuite suite) {
+		FlakeHistory history = FlakeHistory.getInstance();
+		int flaky = 0;
+		for (Map.Entry<String, Character> outcome : runOutcomes.entrySet()) {
+			history.record(outcome.getKey(), outcome.getValue());
+			if (outcome.getValue() == FlakeHistory.FLAKY) {
+				flaky++;
+			}
+		}
+		runOutcomes.clear();
+		history.save();
+		logger.info("{} flaky tests, {} retries used of {}; quarantined: {}", flaky, SmartRetry.getRetries(),
+				FrameworkConfig.get().getRetryBudget(), history.getQuarantined());
+	}
+
+	/**
+	 * Keeps the worst outcome of a test in this run: several invocations
+	 * (data provider rows, matrix cells) make one run.
+	 */
+	private void record(String test, char outcome) {
+		runOutcomes.merge(test, outcome, (previous, current) -> severity(current) > severity(previous) ? current
+				: previous);
+	}
+
+	private static int severity(char outcome) {
+		return outcome == FlakeHistory.FAILED ? 2 : outcome == FlakeHistory.FLAKY ? 1 : 0;
+	}
+}
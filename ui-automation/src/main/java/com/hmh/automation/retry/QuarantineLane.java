@@ -0,0 +1,100 @@
+package com.hmh.automation.retry;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlInclude;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+/**
+ * Moves quarantined test methods out of the tests of a suite into a separate
+ * test, the quarantine lane, marked with the {@link #PARAMETER} parameter.
+ * The lane still runs them, so their flake rate keeps being tracked and they
+ * return to their test once it drops, but {@link FlakeListener} reports
+ * their failures as skipped.
+ */
+public final class QuarantineLane {
+
+	/**
+	 * Name of the testng.xml test parameter that marks a quarantine lane.
+	 */
+	public static final String PARAMETER = "quarantine";
+
+	private static final Logger logger = LogManager.getLogger(QuarantineLane.class);
+
+	private QuarantineLane() {
+	}
+
+	/**
+	 * Adds one quarantine lane per test of the suite that has quarantined
+	 * methods, and excludes those methods from the test.
+	 *
+	 * @param suite       the suite to change
+	 * @param quarantined ids of the quarantined tests, {@code className#methodName}
+	 * @return number of test methods moved
+	 */
+	public static int apply(XmlSuite suite, Set<String> quarantined) {
+		if (quarantined.isEmpty()) {
+			return 0;
+		}
+		int moved = 0;
+		for (XmlTest test : new ArrayList<>(suite.getTests())) {
+			Map<String, List<String>> laneMethods = new LinkedHashMap<>();
+			for (XmlClass xmlClass : test.getXmlClasses()) {
+				for (String id : quarantined) {
+					String className = id.substring(0, id.indexOf('#'));
+					String method = id.substring(id.indexOf('#') + 1);
+					if (className.equals(xmlClass.getName()) && isIncluded(xmlClass, method)) {
+						List<String> excluded = new ArrayList<>(xmlClass.getExcludedMethods());
+						excluded.add(method);
+						xmlClass.setExcludedMethods(excluded);
+						laneMethods.computeIfAbsent(className, k -> new ArrayList<>()).add(method);
+						moved++;
+					}
+				}
+			}
+			if (!laneMethods.isEmpty()) {
+				addLane(suite, test, laneMethods);
+			}
+		}
+		return moved;
+	}
+
+	private static boolean isIncluded(XmlClass xmlClass, String method) {
+		if (xmlClass.getExcludedMethods().contains(method)) {
+			return false;
+		}
+		List<XmlInclude> included = xmlClass.getIncludedMethods();
+		return included.isEmpty() || included.stream().anyMatch(include -> include.getName().equals(method));
+	}
+
+	private static void addLane(XmlSuite suite, XmlTest test, Map<String, List<String>> methods) {
+		XmlTest lane = new XmlTest(suite);
+		lane.setName(test.getName() + " [quarantine]");
+		Map<String, String> parameters = new HashMap<>(test.getLocalParameters());
+		parameters.put(PARAMETER, "true");
+		lane.setParameters(parameters);
+		lane.setParallel(test.getParallel());
+		lane.setThreadCount(test.getThreadCount());
+		List<XmlClass> classes = new ArrayList<>();
+		for (Map.Entry<String, List<String>> entry : methods.entrySet()) {
+			XmlClass xmlClass = new XmlClass(entry.getKey());
+			List<XmlInclude> includes = new ArrayList<>();
+			for (String method : entry.getValue()) {
+				includes.add(new XmlInclude(method));
+			}
+			xmlClass.setIncludedMethods(includes);
+			classes.add(xmlClass);
+		}
+		lane.setXmlClasses(classes);
+		logger.warn("Quarantined {} in {}; their failures will not fail the run", methods, lane.getName());
+	}
+}
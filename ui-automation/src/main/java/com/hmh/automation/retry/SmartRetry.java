@@ -0,0 +1,60 @@
+package com.hmh.automation.retry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.IRetryAnalyzer;
+import org.testng.ITestResult;
+
+import com.hmh.automation.utils.FrameworkConfig;
+
+/**
+ * Retries a failed test when the failure is transient (see
+ * {@link TransientFailures}), at most retryMaxAttempts times per invocation
+ * and at most retryBudget times per JVM, so a broken build cannot turn into
+ * a rerun of the whole suite. Tests in the quarantine lane are not retried.
+ * The retried attempt is reported as skipped, and
+ * {@link com.hmh.automation.base.TestDriverManager} quits its browser, so the
+ * retry runs on a fresh pooled session. {@link FlakeListener} sets this
+ * analyzer on every test.
+ */
+public class SmartRetry implements IRetryAnalyzer {
+
+	private static final Logger logger = LogManager.getLogger(SmartRetry.class);
+	private static final AtomicInteger retries = new AtomicInteger();
+
+	private final Map<String, Integer> attempts = new ConcurrentHashMap<>();
+
+	@Override
+	public boolean retry(ITestResult result) {
+		FrameworkConfig config = FrameworkConfig.get();
+		if (!config.isRetry() || FlakeListener.isQuarantineLane(result)
+				|| !TransientFailures.isTransient(result.getThrowable())) {
+			return false;
+		}
+		String invocation = FlakeListener.invocationKey(result);
+		int attempt = attempts.getOrDefault(invocation, 0);
+		if (attempt >= config.getRetryMaxAttempts()) {
+			return false;
+		}
+		if (retries.getAndUpdate(used -> used < config.getRetryBudget() ? used + 1 : used) >= config
+				.getRetryBudget()) {
+			logger.warn("Retry budget of {} used up; not retrying {}", config.getRetryBudget(), invocation);
+			return false;
+		}
+		attempts.put(invocation, attempt + 1);
+		logger.warn("Retrying {} on a fresh browser after a transient failure: {}", invocation,
+				result.getThrowable().toString());
+		return true;
+	}
+
+	/**
+	 * @return retries made in this JVM so far
+	 */
+	public static int getRetries() {
+		return retries.get();
+	}
+}
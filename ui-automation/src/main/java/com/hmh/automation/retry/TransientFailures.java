@@ -0,0 +1,31 @@
+package com.hmh.automation.retry;
+
+import org.openqa.selenium.ElementClickInterceptedException;
+import org.openqa.selenium.ScriptTimeoutException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.TimeoutException;
+
+/**
+ * Tells transient failures, which a retry on a fresh browser is likely to
+ * fix, from failures of the application or the test itself. Only a stale
+ * element, an intercepted click or a timed-out wait or script count as
+ * transient; assertion errors never do.
+ */
+public final class TransientFailures {
+
+	private TransientFailures() {
+	}
+
+	/**
+	 * @return true if the failure or one of its causes is transient
+	 */
+	public static boolean isTransient(Throwable failure) {
+		for (Throwable cause = failure; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+			if (cause instanceof StaleElementReferenceException || cause instanceof ElementClickInterceptedException
+					|| cause instanceof TimeoutException || cause instanceof ScriptTimeoutException) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
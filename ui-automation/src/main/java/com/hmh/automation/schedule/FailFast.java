@@ -0,0 +1,88 @@
+package com.hmh.automation.schedule;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.hmh.automation.utils.FrameworkConfig;
+
+/**
+ * Aborts a run once failFastThreshold tests have failed: from then on the
+ * tests that have not started are skipped, and the actions registered with
+ * {@link #onTrip(Runnable)} (e.g. quitting the idle browsers) run once. A
+ * threshold of 0 never aborts. Retried attempts and quarantined failures do
+ * not count.
+ */
+public class FailFast {
+
+	private static final Logger logger = LogManager.getLogger(FailFast.class);
+	private static FailFast instance;
+
+	private final int threshold;
+	private final AtomicInteger failures = new AtomicInteger();
+	private final List<Runnable> tripActions = new CopyOnWriteArrayList<>();
+	private volatile String reason;
+
+	/**
+	 * @param threshold failures that abort the run, 0 to never abort
+	 */
+	public FailFast(int threshold) {
+		this.threshold = threshold;
+	}
+
+	/**
+	 * @return the instance configured from config.properties, shared by all
+	 *         threads
+	 */
+	public static synchronized FailFast getInstance() {
+		if (instance == null) {
+			instance = new FailFast(FrameworkConfig.get().getFailFastThreshold());
+		}
+		return instance;
+	}
+
+	/**
+	 * Registers an action to run when the run is aborted.
+	 */
+	public void onTrip(Runnable action) {
+		tripActions.add(action);
+	}
+
+	/**
+	 * Counts a failed test and aborts the run if it reaches the threshold.
+	 *
+	 * @param test the test that failed
+	 */
+	public void recordFailure(String test) {
+		int failed = failures.incrementAndGet();
+		if (threshold == 0 || failed != threshold) {
+			return;
+		}
+		reason = failed + " tests failed, the last one " + test + " (failFastThreshold=" + threshold + ")";
+		logger.error("Aborting the run: {}; skipping the tests that have not started", reason);
+		for (Runnable action : tripActions) {
+			action.run();
+		}
+	}
+
+	/**
+	 * @return true once the run is aborted
+	 */
+	public boolean isTripped() {
+		return reason != null;
+	}
+
+	/**
+	 * @return why the run was aborted, or null
+	 */
+	public String getReason() {
+		return reason;
+	}
+
+	public int getFailures() {
+		return failures.get();
+	}
+}
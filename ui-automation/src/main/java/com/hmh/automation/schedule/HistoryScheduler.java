@@ -0,0 +1,101 @@
+package com.hmh.automation.schedule;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.IMethodInstance;
+import org.testng.IMethodInterceptor;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestContext;
+import org.testng.ITestListener;
+import org.testng.ITestNGMethod;
+import org.testng.ITestResult;
+
+import com.hmh.automation.retry.FlakeHistory;
+import com.hmh.automation.retry.FlakeListener;
+import com.hmh.automation.shard.TestDurationHistory;
+import com.hmh.automation.utils.FrameworkConfig;
+
+/**
+ * Runs the test methods of each test in {@link TestOrder} instead of
+ * declaration or priority order, using the outcomes in the
+ * {@link FlakeHistory} and the durations in shardHistoryFile. Also counts
+ * failed tests for {@link FailFast} and adds this run's durations to the
+ * history; shard JVMs leave that to the ShardRunner. Registered as a
+ * listener in testng.xml.
+ */
+public class HistoryScheduler implements IMethodInterceptor, ITestListener, ISuiteListener {
+
+	private static final Logger logger = LogManager.getLogger(HistoryScheduler.class);
+	private static final int LOGGED_METHODS = 5;
+
+	private final Map<String, Long> runDurations = new ConcurrentHashMap<>();
+
+	@Override
+	public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+		FrameworkConfig config = FrameworkConfig.get();
+		if (!config.isHistoryOrder() || methods.size() < 2) {
+			return methods;
+		}
+		Map<String, Long> durations = new TestDurationHistory(config.getShardHistoryFile()).getDurations();
+		List<IMethodInstance> ordered = TestOrder.order(methods, instance -> testId(instance.getMethod()),
+				FlakeHistory.getInstance(), durations);
+		logger.info("Running the {} methods of {} in history order, starting with {}", ordered.size(),
+				context.getName(), ordered.stream().limit(LOGGED_METHODS).map(i -> i.getMethod().getMethodName())
+						.collect(Collectors.toList()));
+		return ordered;
+	}
+
+	private static String testId(ITestNGMethod method) {
+		return method.getTestClass().getName() + "#" + method.getMethodName();
+	}
+
+	@Override
+	public void onTestSuccess(ITestResult result) {
+		recordDuration(result);
+	}
+
+	@Override
+	public void onTestFailure(ITestResult result) {
+		recordDuration(result);
+		FailFast.getInstance().recordFailure(FlakeListener.testId(result));
+	}
+
+	@Override
+	public void onTestSkipped(ITestResult result) {
+		if (result.wasRetried()) {
+			recordDuration(result);
+		}
+	}
+
+	private void recordDuration(ITestResult result) {
+		runDurations.merge(FlakeListener.testId(result), result.getEndMillis() - result.getStartMillis(), Long::sum);
+	}
+
+	@Override
+	public void onFinish(ISuite suite) {
+		FrameworkConfig config = FrameworkConfig.get();
+		FailFast failFast = FailFast.getInstance();
+		if (failFast.isTripped()) {
+			logger.error("Run aborted early: {}", failFast.getReason());
+		}
+		if (runDurations.isEmpty() || config.getShardIndex().isPresent()) {
+			runDurations.clear();
+			return;
+		}
+		TestDurationHistory history = new TestDurationHistory(config.getShardHistoryFile());
+		history.update(runDurations);
+		runDurations.clear();
+		try {
+			history.save();
+		} catch (IOException e) {
+			logger.warn("Could not save test durations to {}: {}", config.getShardHistoryFile(), e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package com.hmh.automation.schedule;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import com.hmh.automation.retry.FlakeHistory;
+
+/**
+ * Orders tests so a broken build shows up early and parallel threads finish
+ * together: first the tests that failed in their last run, then tests with
+ * no history yet, then the rest; within each group, the tests most likely
+ * to fail first and, among equally likely ones, the longest first. The
+ * likelihood weighs recent runs more than older ones, and a flaky run counts
+ * as half a failure, since a retry passed it.
+ */
+public final class TestOrder {
+
+	/**
+	 * Weight of a run relative to the run after it.
+	 */
+	static final double DECAY = 0.7;
+
+	private static final int LAST_RUN_FAILED = 0;
+	private static final int NO_HISTORY = 1;
+	private static final int OTHER = 2;
+
+	private TestOrder() {
+	}
+
+	/**
+	 * @param items     what to order, e.g. TestNG method instances
+	 * @param id        test id of an item, {@code className#methodName}
+	 * @param history   recent outcomes per test
+	 * @param durations average duration in ms per test; tests without one
+	 *                  are taken to last as long as the average test
+	 * @return the items in running order; equally ranked items keep their
+	 *         order
+	 */
+	public static <T> List<T> order(List<T> items, Function<T, String> id, FlakeHistory history,
+			Map<String, Long> durations) {
+		long average = Math.round(durations.values().stream().mapToLong(Long::longValue).average().orElse(0));
+		Map<T, Integer> groups = new IdentityHashMap<>();
+		Map<T, Double> likelihoods = new IdentityHashMap<>();
+		Map<T, Long> lengths = new IdentityHashMap<>();
+		for (T item : items) {
+			String test = id.apply(item);
+			String outcomes = history.getOutcomes(test);
+			groups.put(item, outcomes.isEmpty() ? NO_HISTORY
+					: outcomes.charAt(outcomes.length() - 1) == FlakeHistory.FAILED ? LAST_RUN_FAILED : OTHER);
+			likelihoods.put(item, failureLikelihood(outcomes));
+			lengths.put(item, durations.getOrDefault(test, average));
+		}
+		List<T> ordered = new ArrayList<>(items);
+		// List.sort is stable
+		ordered.sort(Comparator.<T>comparingInt(groups::get)
+				.thenComparing(Comparator.<T>comparingDouble(likelihoods::get).reversed())
+				.thenComparing(Comparator.<T>comparingLong(lengths::get).reversed()));
+		return ordered;
+	}
+
+	/**
+	 * @param outcomes recent outcomes, oldest first
+	 * @return between 0 (passed every recent run) and 1 (failed them all)
+	 */
+	public static double failureLikelihood(String outcomes) {
+		double failures = 0;
+		double runs = 0;
+		double weight = 1;
+		for (int i = outcomes.length() - 1; i >= 0; i--) {
+			char outcome = outcomes.charAt(i);
+			failures += weight * (outcome == FlakeHistory.FAILED ? 1 : outcome == FlakeHistory.FLAKY ? 0.5 : 0);
+			runs += weight;
+			weight *= DECAY;
+		}
+		return runs == 0 ? 0 : failures / runs;
+	}
+}
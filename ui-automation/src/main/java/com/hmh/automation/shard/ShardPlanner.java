@@ -0,0 +1,105 @@
+package com.hmh.automation.shard;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Splits test methods into shards of roughly equal total duration using the
+ * longest-processing-time rule: tests are taken longest first and each goes
+ * to the shard with the least work so far. Tests without history are assumed
+ * to take the median of the known durations.
+ */
+public class ShardPlanner {
+
+	private static final long DEFAULT_DURATION_MILLIS = 1000;
+
+	/**
+	 * One shard: the tests assigned to it and their expected total duration.
+	 */
+	public static final class Shard {
+		private final int index;
+		private final List<String> tests = new ArrayList<>();
+		private long expectedMillis;
+
+		Shard(int index) {
+			this.index = index;
+		}
+
+		public int getIndex() {
+			return index;
+		}
+
+		/**
+		 * @return test ids in the form {@code className#methodName}
+		 */
+		public List<String> getTests() {
+			return Collections.unmodifiableList(tests);
+		}
+
+		public long getExpectedMillis() {
+			return expectedMillis;
+		}
+
+		@Override
+		public String toString() {
+			return "shard " + index + ": " + tests.size() + " tests, ~" + expectedMillis + " ms";
+		}
+	}
+
+	/**
+	 * @param tests     test ids in the form {@code className#methodName}
+	 * @param durations historical duration in ms per test id
+	 * @param shards    number of shards to create
+	 * @return the shards, some of which may be empty if there are fewer tests
+	 *         than shards
+	 */
+	public List<Shard> plan(List<String> tests, Map<String, Long> durations, int shards) {
+		if (shards < 1) {
+			throw new IllegalArgumentException("Shard count must be at least 1 but was " + shards);
+		}
+		long fallback = median(tests, durations);
+		List<String> ordered = new ArrayList<>(tests);
+		// longest first; ties broken by name so the plan is stable between runs
+		ordered.sort(Comparator.comparingLong((String test) -> durationOf(test, durations, fallback)).reversed()
+				.thenComparing(Comparator.naturalOrder()));
+
+		List<Shard> result = new ArrayList<>();
+		for (int i = 0; i < shards; i++) {
+			result.add(new Shard(i));
+		}
+		for (String test : ordered) {
+			Shard lightest = result.get(0);
+			for (Shard shard : result) {
+				if (shard.expectedMillis < lightest.expectedMillis) {
+					lightest = shard;
+				}
+			}
+			lightest.tests.add(test);
+			lightest.expectedMillis += durationOf(test, durations, fallback);
+		}
+		return result;
+	}
+
+	private static long durationOf(String test, Map<String, Long> durations, long fallback) {
+		Long duration = durations.get(test);
+		return duration == null ? fallback : duration;
+	}
+
+	private static long median(List<String> tests, Map<String, Long> durations) {
+		List<Long> known = new ArrayList<>();
+		for (String test : tests) {
+			Long duration = durations.get(test);
+			if (duration != null) {
+				known.add(duration);
+			}
+		}
+		if (known.isEmpty()) {
+			return DEFAULT_DURATION_MILLIS;
+		}
+		Collections.sort(known);
+		return known.get(known.size() / 2);
+	}
+}
@@ -0,0 +1,141 @@
+package com.hmh.automation.shard;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import com.aventstack.extentreports.ExtentReports;
+import com.aventstack.extentreports.reporter.ExtentSparkReporter;
+
+/**
+ * Merges the results of the shard directories written by {@link ShardRunner}
+ * into one {@code testng-results.xml} and one Extent Spark report in the
+ * output directory.
+ */
+public class ShardResultMerger {
+
+	private static final Logger logger = LogManager.getLogger(ShardResultMerger.class);
+	private static final String[] COUNTERS = { "total", "passed", "failed", "skipped", "ignored" };
+
+	private final Path outputDir;
+	private final List<Path> shardResults = new ArrayList<>();
+	private final List<Path> shardExtentArchives = new ArrayList<>();
+
+	public ShardResultMerger(Path outputDir) throws IOException {
+		this.outputDir = outputDir;
+		if (!Files.isDirectory(outputDir)) {
+			return;
+		}
+		try (DirectoryStream<Path> shardDirs = Files.newDirectoryStream(outputDir, ShardRunner.SHARD_DIR_PREFIX + "*")) {
+			for (Path shardDir : shardDirs) {
+				Path results = shardDir.resolve("testng-results.xml");
+				if (Files.isRegularFile(results)) {
+					shardResults.add(results);
+				}
+				// a shard's report may have rolled over into extent-report-2.json, ...
+				try (DirectoryStream<Path> archives = Files.newDirectoryStream(shardDir, "extent-report*.json")) {
+					for (Path archive : archives) {
+						shardExtentArchives.add(archive);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the testng-results.xml file of every shard found
+	 */
+	public List<Path> getShardResults() {
+		return shardResults;
+	}
+
+	/**
+	 * Writes the merged testng-results.xml and extent-report.html.
+	 *
+	 * @return true if no test failed in any shard
+	 */
+	public boolean merge() throws IOException {
+		int failed = mergeTestNgResults(outputDir.resolve("testng-results.xml"));
+		mergeExtentReports(outputDir.resolve("extent-report.html"));
+		logger.info("Merged {} shard result(s) into {}, {} failure(s)", shardResults.size(), outputDir, failed);
+		return failed == 0;
+	}
+
+	/**
+	 * Copies the suite elements of every shard under one root and adds up the
+	 * root counters.
+	 *
+	 * @return the total number of failed tests
+	 */
+	private int mergeTestNgResults(Path target) throws IOException {
+		try {
+			DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+			factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+			DocumentBuilder builder = factory.newDocumentBuilder();
+			Document merged = builder.newDocument();
+			Element root = merged.createElement("testng-results");
+			merged.appendChild(root);
+			int[] totals = new int[COUNTERS.length];
+
+			for (Path results : shardResults) {
+				Document shard = builder.parse(results.toFile());
+				Element shardRoot = shard.getDocumentElement();
+				for (int i = 0; i < COUNTERS.length; i++) {
+					String value = shardRoot.getAttribute(COUNTERS[i]);
+					totals[i] += value.isEmpty() ? 0 : Integer.parseInt(value);
+				}
+				NodeList children = shardRoot.getChildNodes();
+				for (int i = 0; i < children.getLength(); i++) {
+					if ("suite".equals(children.item(i).getNodeName())) {
+						root.appendChild(merged.importNode(children.item(i), true));
+					}
+				}
+			}
+			for (int i = 0; i < COUNTERS.length; i++) {
+				root.setAttribute(COUNTERS[i], String.valueOf(totals[i]));
+			}
+
+			Transformer transformer = TransformerFactory.newInstance().newTransformer();
+			transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+			transformer.transform(new DOMSource(merged), new StreamResult(target.toFile()));
+			return totals[2];
+		} catch (ParserConfigurationException | SAXException | TransformerException e) {
+			throw new IOException("Could not merge shard results into " + target, e);
+		}
+	}
+
+	/**
+	 * Rebuilds one Spark report from the JSON archives written by each shard.
+	 */
+	private void mergeExtentReports(Path target) throws IOException {
+		if (shardExtentArchives.isEmpty()) {
+			return;
+		}
+		ExtentReports extent = new ExtentReports();
+		for (Path archive : shardExtentArchives) {
+			extent.createDomainFromJsonArchive(archive.toFile());
+		}
+		extent.attachReporter(new ExtentSparkReporter(target.toString()));
+		extent.flush();
+	}
+}
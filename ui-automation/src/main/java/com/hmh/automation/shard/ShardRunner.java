@@ -0,0 +1,239 @@
+package com.hmh.automation.shard;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.TestNG;
+import org.testng.annotations.Test;
+import org.testng.xml.Parser;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlInclude;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+import com.hmh.automation.utils.FrameworkConfig;
+
+/**
+ * Runs a TestNG suite split into shards, each in its own forked JVM with
+ * headless browsers. Shards are balanced by historical test duration (see
+ * {@link ShardPlanner}); after all shards finish, their TestNG and Extent
+ * results are merged into one report and the duration history is updated.
+ * <p>
+ * Usage (normally through {@code mvn -Pshard test-compile exec:exec}):
+ *
+ * <pre>
+ * ShardRunner [--suite testng.xml] [--shards N] [--out dir] [--shard i] [--merge]
+ * </pre>
+ *
+ * {@code --shard i} runs only shard i, so each CI node can run one shard of
+ * the same plan; {@code --merge} then merges the shard directories collected
+ * from the nodes without running anything.
+ */
+public class ShardRunner {
+
+	private static final Logger logger = LogManager.getLogger(ShardRunner.class);
+	static final String SHARD_DIR_PREFIX = "shard-";
+
+	private final Path suiteFile;
+	private final int shardCount;
+	private final Path outputDir;
+	private final TestDurationHistory history;
+
+	public ShardRunner(Path suiteFile, int shardCount, Path outputDir, Path historyFile) {
+		this.suiteFile = suiteFile;
+		this.shardCount = shardCount;
+		this.outputDir = outputDir;
+		this.history = new TestDurationHistory(historyFile);
+	}
+
+	public static void main(String[] args) throws Exception {
+		FrameworkConfig config = FrameworkConfig.get();
+		Map<String, String> options = parseArguments(args);
+		ShardRunner runner = new ShardRunner(
+				Paths.get(options.getOrDefault("suite", "src/test/resources/testng.xml")),
+				options.containsKey("shards") ? Integer.parseInt(options.get("shards")) : config.getShards(),
+				options.containsKey("out") ? Paths.get(options.get("out")) : config.getShardOutputDir(),
+				config.getShardHistoryFile());
+
+		boolean passed;
+		if (options.containsKey("merge")) {
+			passed = runner.merge();
+		} else if (options.containsKey("shard")) {
+			passed = runner.runShards(Integer.parseInt(options.get("shard")));
+		} else {
+			passed = runner.runShards(-1) & runner.merge();
+		}
+		System.exit(passed ? 0 : 1);
+	}
+
+	/**
+	 * Plans the shards and runs them in parallel forked JVMs.
+	 *
+	 * @param only index of the only shard to run, or -1 to run all of them
+	 * @return true if every shard that ran passed
+	 */
+	public boolean runShards(int only) throws IOException, InterruptedException {
+		List<XmlSuite> suites = new Parser(suiteFile.toString()).parseToList();
+		List<String> tests = discoverTests(suites);
+		List<ShardPlanner.Shard> shards = new ShardPlanner().plan(tests, history.getDurations(), shardCount);
+
+		List<Process> processes = new ArrayList<>();
+		for (ShardPlanner.Shard shard : shards) {
+			logger.info("Planned {}", shard);
+			if (shard.getTests().isEmpty() || (only >= 0 && shard.getIndex() != only)) {
+				continue;
+			}
+			Path shardDir = outputDir.resolve(SHARD_DIR_PREFIX + shard.getIndex());
+			Files.createDirectories(shardDir);
+			Path shardSuite = shardDir.resolve("testng-shard.xml");
+			Files.write(shardSuite, shardSuite(suites, shard).toXml().getBytes(StandardCharsets.UTF_8));
+			processes.add(fork(shard.getIndex(), shardDir, shardSuite));
+		}
+
+		boolean passed = true;
+		for (Process process : processes) {
+			passed &= process.waitFor() == 0;
+		}
+		return passed;
+	}
+
+	/**
+	 * Merges the TestNG and Extent results of every shard directory into the
+	 * output directory and folds the shard durations into the history.
+	 *
+	 * @return true if no merged test failed
+	 */
+	public boolean merge() throws IOException {
+		ShardResultMerger merger = new ShardResultMerger(outputDir);
+		boolean passed = merger.merge();
+		for (Path results : merger.getShardResults()) {
+			history.update(results);
+		}
+		history.save();
+		return passed;
+	}
+
+	/**
+	 * Lists every test method of the suite as {@code className#methodName},
+	 * honouring explicit method includes.
+	 */
+	static List<String> discoverTests(List<XmlSuite> suites) {
+		List<String> tests = new ArrayList<>();
+		for (XmlSuite suite : suites) {
+			for (XmlTest xmlTest : suite.getTests()) {
+				for (XmlClass xmlClass : xmlTest.getXmlClasses()) {
+					List<String> included = new ArrayList<>();
+					for (XmlInclude include : xmlClass.getIncludedMethods()) {
+						included.add(include.getName());
+					}
+					for (Method method : xmlClass.getSupportClass().getMethods()) {
+						if (method.isAnnotationPresent(Test.class) && !Modifier.isStatic(method.getModifiers())
+								&& (included.isEmpty() || included.contains(method.getName()))) {
+							String test = xmlClass.getName() + "#" + method.getName();
+							if (!tests.contains(test)) {
+								tests.add(test);
+							}
+						}
+					}
+				}
+			}
+		}
+		return tests;
+	}
+
+	/**
+	 * Builds a copy of the suite that includes only the shard's methods, keeping
+	 * parallel mode, thread count, parameters and listeners of the original.
+	 */
+	private static XmlSuite shardSuite(List<XmlSuite> suites, ShardPlanner.Shard shard) {
+		XmlSuite original = suites.get(0);
+		XmlSuite result = new XmlSuite();
+		result.setName(original.getName() + " (" + SHARD_DIR_PREFIX + shard.getIndex() + ")");
+		result.setParallel(original.getParallel());
+		result.setThreadCount(original.getThreadCount());
+		result.setParameters(original.getParameters());
+		result.setListeners(original.getListeners());
+
+		for (XmlSuite suite : suites) {
+			for (XmlTest originalTest : suite.getTests()) {
+				List<XmlClass> classes = new ArrayList<>();
+				for (XmlClass originalClass : originalTest.getXmlClasses()) {
+					List<XmlInclude> includes = new ArrayList<>();
+					for (String test : shard.getTests()) {
+						if (test.startsWith(originalClass.getName() + "#")) {
+							includes.add(new XmlInclude(test.substring(test.indexOf('#') + 1)));
+						}
+					}
+					if (!includes.isEmpty()) {
+						XmlClass xmlClass = new XmlClass(originalClass.getName(), false);
+						xmlClass.setIncludedMethods(includes);
+						classes.add(xmlClass);
+					}
+				}
+				if (!classes.isEmpty()) {
+					XmlTest xmlTest = new XmlTest(result);
+					xmlTest.setName(originalTest.getName());
+					xmlTest.setParallel(originalTest.getParallel());
+					xmlTest.setThreadCount(originalTest.getThreadCount());
+					xmlTest.setParameters(originalTest.getLocalParameters());
+					xmlTest.setXmlClasses(classes);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Starts a JVM running TestNG on the shard suite with headless browsers and
+	 * shard-local report paths. Output goes to shard.log in the shard
+	 * directory.
+	 */
+	private static Process fork(int index, Path shardDir, Path shardSuite) throws IOException {
+		List<String> command = new ArrayList<>();
+		command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add("-Drunheadless=true");
+		command.add("-DextentReportPath=" + shardDir.resolve("extent-report.html"));
+		command.add("-DextentJsonPath=" + shardDir.resolve("extent-report.json"));
+		command.add("-DshardIndex=" + index);
+		command.add(TestNG.class.getName());
+		command.add("-d");
+		command.add(shardDir.toString());
+		command.add(shardSuite.toString());
+
+		logger.info("Starting {}{} in a forked JVM", SHARD_DIR_PREFIX, index);
+		File log = shardDir.resolve("shard.log").toFile();
+		return new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log).start();
+	}
+
+	private static Map<String, String> parseArguments(String[] args) {
+		Map<String, String> options = new LinkedHashMap<>();
+		for (int i = 0; i < args.length; i++) {
+			if (!args[i].startsWith("--")) {
+				throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+			}
+			String name = args[i].substring(2);
+			if ("merge".equals(name)) {
+				options.put(name, "true");
+			} else if (i + 1 < args.length) {
+				options.put(name, args[++i]);
+			} else {
+				throw new IllegalArgumentException("Missing value for --" + name);
+			}
+		}
+		return options;
+	}
+}
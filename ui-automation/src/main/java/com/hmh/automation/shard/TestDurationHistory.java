@@ -0,0 +1,124 @@
+package com.hmh.automation.shard;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Historical duration per test method, used to balance shards and to start
+ * long tests first. Durations are read from TestNG {@code testng-results.xml}
+ * files or recorded during a run, and kept in a properties file as a moving
+ * average, so one slow run does not swing the plan.
+ */
+public class TestDurationHistory {
+
+	private static final Logger logger = LogManager.getLogger(TestDurationHistory.class);
+	private static final double NEW_RUN_WEIGHT = 0.5;
+
+	private final Path file;
+	private final Map<String, Long> durations = new TreeMap<>();
+
+	public TestDurationHistory(Path file) {
+		this.file = file;
+		if (Files.isRegularFile(file)) {
+			Properties properties = new Properties();
+			try (InputStream in = Files.newInputStream(file)) {
+				properties.load(in);
+			} catch (IOException e) {
+				logger.warn("Could not read test duration history {}: {}", file, e.getMessage());
+			}
+			for (String test : properties.stringPropertyNames()) {
+				durations.put(test, Long.parseLong(properties.getProperty(test).trim()));
+			}
+		}
+	}
+
+	/**
+	 * @return duration in ms per test id ({@code className#methodName})
+	 */
+	public Map<String, Long> getDurations() {
+		return durations;
+	}
+
+	/**
+	 * Folds the test method durations of a TestNG results file into the
+	 * history. All invocations of a method (e.g. data provider rows) are added
+	 * up; configuration methods are ignored.
+	 */
+	public void update(Path testngResults) throws IOException {
+		update(readDurations(testngResults));
+	}
+
+	/**
+	 * Folds the durations of one run into the history.
+	 *
+	 * @param runDurations duration in ms per test id, all invocations of a
+	 *                     method added up
+	 */
+	public void update(Map<String, Long> runDurations) {
+		for (Map.Entry<String, Long> entry : runDurations.entrySet()) {
+			Long previous = durations.get(entry.getKey());
+			long current = entry.getValue();
+			durations.put(entry.getKey(),
+					previous == null ? current : Math.round(NEW_RUN_WEIGHT * current + (1 - NEW_RUN_WEIGHT) * previous));
+		}
+	}
+
+	public void save() throws IOException {
+		Properties properties = new Properties();
+		for (Map.Entry<String, Long> entry : durations.entrySet()) {
+			properties.setProperty(entry.getKey(), String.valueOf(entry.getValue()));
+		}
+		if (file.getParent() != null) {
+			Files.createDirectories(file.getParent());
+		}
+		try (OutputStream out = Files.newOutputStream(file)) {
+			properties.store(out, "Moving average duration in ms per test method");
+		}
+	}
+
+	/**
+	 * Streams a testng-results.xml file and sums the duration of each test
+	 * method.
+	 */
+	static Map<String, Long> readDurations(Path testngResults) throws IOException {
+		Map<String, Long> result = new HashMap<>();
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		try (InputStream in = Files.newInputStream(testngResults)) {
+			XMLStreamReader reader = factory.createXMLStreamReader(in);
+			String className = null;
+			while (reader.hasNext()) {
+				if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+					continue;
+				}
+				if ("class".equals(reader.getLocalName())) {
+					className = reader.getAttributeValue(null, "name");
+				} else if ("test-method".equals(reader.getLocalName()) && className != null
+						&& !"true".equals(reader.getAttributeValue(null, "is-config"))) {
+					String test = className + "#" + reader.getAttributeValue(null, "name");
+					long duration = Long.parseLong(reader.getAttributeValue(null, "duration-ms"));
+					result.merge(test, duration, Long::sum);
+				}
+			}
+			reader.close();
+		} catch (XMLStreamException e) {
+			throw new IOException("Could not parse " + testngResults, e);
+		}
+		return result;
+	}
+}
@@ -1,22 +0,0 @@
-package com.hmh.automation.utils;
-
-import java.io.FileInputStream;
-import java.io.IOException;
-import java.util.Properties;
-
-public class ConfigReader {
-	  private static Properties properties;
-	    static {
-	        try {
-	            FileInputStream fis = new FileInputStream("src/test/resources/config.properties");
-	            properties = new Properties();
-	            properties.load(fis);
-	        } catch (IOException e) {
-	            e.printStackTrace();
-	        }
-	    }
-
-	    public static Properties getConfig() {
-	        return properties;
-	    }
-}
@@ -0,0 +1,1062 @@
+package com.hmh.automation.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Properties;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The framework settings, read once per JVM and shared by every thread. The
+ * settings are layered, each layer overriding the previous one:
+ * <ol>
+ * <li>built-in defaults,</li>
+ * <li>config.properties from the classpath (or the file named by
+ * configFile),</li>
+ * <li>environment variables named {@code HMH_} plus the key in upper snake
+ * case, e.g. {@code HMH_POOL_SIZE} for poolSize,</li>
+ * <li>system properties, e.g. {@code -DpoolSize=4}.</li>
+ * </ol>
+ * Every framework setting is parsed when the config is loaded, so a bad
+ * value fails the run at startup and workers never parse strings. The
+ * defaults live here only; a blank value also means the default, and
+ * config.properties holds just the project's own choices. The untyped
+ * getters are for settings of the tests themselves.
+ */
+public final class FrameworkConfig {
+
+	private static final Logger logger = LogManager.getLogger(FrameworkConfig.class);
+	static final String ENV_PREFIX = "HMH_";
+	private static final String RESOURCE = "config.properties";
+	private static final String SOURCE_FILE = "src/test/resources/config.properties";
+	private static final Properties DEFAULTS = new Properties();
+
+	static {
+		DEFAULTS.setProperty("browser", "chrome");
+		// browser=remote runs remoteBrowser sessions on the Grid at gridUrl; tests queue for a free slot (polled
+		// every gridPollMillis, for at most gridQueueTimeout seconds) and node usage is sampled every gridSampleMillis
+		DEFAULTS.setProperty("remoteBrowser", "chrome");
+		DEFAULTS.setProperty("gridUrl", "http://localhost:4444");
+		DEFAULTS.setProperty("gridPollMillis", "500");
+		DEFAULTS.setProperty("gridQueueTimeout", "600");
+		DEFAULTS.setProperty("gridSampleMillis", "1000");
+		DEFAULTS.setProperty("runheadless", "false");
+		DEFAULTS.setProperty("url", "https://todomvc.com/examples/react/dist/");
+		// localApp=true serves the bundled TodoMVC in localAppDir (a directory, else a classpath directory) from
+		// an in-JVM server on an ephemeral port of localAppHost instead of url; assets are cached for
+		// localAppMaxAge seconds
+		DEFAULTS.setProperty("localApp", "false");
+		DEFAULTS.setProperty("localAppDir", "todomvc");
+		DEFAULTS.setProperty("localAppHost", "127.0.0.1");
+		DEFAULTS.setProperty("localAppMaxAge", "3600");
+		// browsers open at once, and seconds a test waits for one
+		DEFAULTS.setProperty("poolSize", "1");
+		DEFAULTS.setProperty("poolLeaseTimeout", "300");
+		// warmSessions=true keeps the pools' browsers open until the JVM exits instead of quitting them after each suite
+		DEFAULTS.setProperty("warmSessions", "false");
+		// WebDriver timeouts in seconds; keep the implicit wait at 0, explicit waits go through WaitEngine
+		DEFAULTS.setProperty("implicitWait", "0");
+		DEFAULTS.setProperty("pageLoadTimeout", "60");
+		DEFAULTS.setProperty("scriptTimeout", "30");
+		// TestNG threads; 0 keeps the thread counts in testng.xml
+		DEFAULTS.setProperty("parallelism", "0");
+		DEFAULTS.setProperty("dataProviderParallelism", "0");
+		// TodoScaleTest: list sizes to seed, iterations per size and script timeout in seconds
+		DEFAULTS.setProperty("scaleTest", "false");
+		DEFAULTS.setProperty("scaleSizes", "1000,10000,50000");
+		DEFAULTS.setProperty("scaleIterations", "3");
+		DEFAULTS.setProperty("scaleScriptTimeout", "600");
+		// WaitEngine: poll backoff, timeout bounds (ms) and learned timeout = factor x slowest recent settle time
+		DEFAULTS.setProperty("waitInitialPollMillis", "10");
+		DEFAULTS.setProperty("waitBackoffMultiplier", "2");
+		DEFAULTS.setProperty("waitMaxPollMillis", "250");
+		DEFAULTS.setProperty("waitMinTimeoutMillis", "500");
+		DEFAULTS.setProperty("waitMaxTimeoutMillis", "10000");
+		DEFAULTS.setProperty("waitTimeoutFactor", "3");
+		DEFAULTS.setProperty("waitHistoryFile", "target/wait-history.properties");
+		// failure screenshots, written in the background; screenshotWriteTimeout is in seconds
+		DEFAULTS.setProperty("screenshotDir", "target/screenshots");
+		DEFAULTS.setProperty("screenshotFormat", "png");
+		DEFAULTS.setProperty("screenshotScale", "1.0");
+		DEFAULTS.setProperty("screenshotQuality", "0.8");
+		DEFAULTS.setProperty("screenshotWriterThreads", "2");
+		DEFAULTS.setProperty("screenshotQueueSize", "32");
+		DEFAULTS.setProperty("screenshotWriteTimeout", "60");
+		// Extent report; extentJsonPath (unset by default) also archives it as JSON. Times in seconds
+		DEFAULTS.setProperty("extentReportPath", "target/extent-reports/extent-report.html");
+		DEFAULTS.setProperty("extentFlushSeconds", "30");
+		DEFAULTS.setProperty("extentRolloverTests", "500");
+		DEFAULTS.setProperty("extentFlushTimeout", "60");
+		// append-only journal of test events shared by all runs
+		DEFAULTS.setProperty("resultJournal", "true");
+		DEFAULTS.setProperty("resultJournalFile", "target/results-journal/journal.jsonl");
+		DEFAULTS.setProperty("resultJournalBufferKb", "64");
+		DEFAULTS.setProperty("commandMetrics", "true");
+		DEFAULTS.setProperty("metricsFile", "target/metrics/webdriver-metrics.prom");
+		DEFAULTS.setProperty("cdpActions", "false");
+		DEFAULTS.setProperty("pushWaits", "true");
+		// matrix mode: every test once per browser x headless x viewport (WIDTHxHEIGHT or max) combination
+		DEFAULTS.setProperty("matrix", "false");
+		DEFAULTS.setProperty("matrixBrowsers", "chrome,firefox");
+		DEFAULTS.setProperty("matrixHeadless", "true");
+		DEFAULTS.setProperty("matrixViewports", "max");
+		DEFAULTS.setProperty("matrixPoolSize", "2");
+		// retries of transient failures, and the quarantine lane for tests flaky in quarantineFlakeRate or more of
+		// their last flakeWindow runs (with at least quarantineMinRuns runs)
+		DEFAULTS.setProperty("retry", "true");
+		DEFAULTS.setProperty("retryBudget", "10");
+		DEFAULTS.setProperty("retryMaxAttempts", "1");
+		DEFAULTS.setProperty("quarantine", "true");
+		DEFAULTS.setProperty("flakeHistoryFile", "target/flake-history/flake-history.properties");
+		DEFAULTS.setProperty("flakeWindow", "20");
+		DEFAULTS.setProperty("quarantineMinRuns", "5");
+		DEFAULTS.setProperty("quarantineFlakeRate", "0.3");
+		// change-impact selection; an empty impactBase means the commit the map was recorded at
+		DEFAULTS.setProperty("impactSelection", "false");
+		DEFAULTS.setProperty("impactMapFile", "target/test-impact/test-impact.properties");
+		DEFAULTS.setProperty("impactBase", "");
+		// history-based order; failFastThreshold > 0 aborts the run after that many failed tests
+		DEFAULTS.setProperty("historyOrder", "true");
+		DEFAULTS.setProperty("failFastThreshold", "0");
+		// performance browser profile; CSS stays unblocked, the hover-only delete buttons need it
+		DEFAULTS.setProperty("performanceProfile", "false");
+		DEFAULTS.setProperty("blockedUrls", "*.woff,*.woff2,*.ttf,*.otf,*.png,*.jpg,*.jpeg,*.gif,*.webp,*.ico,"
+				+ "*google-analytics.com*,*googletagmanager.com*,*doubleclick.net*");
+		DEFAULTS.setProperty("browserCacheDir", "target/browser-cache");
+		DEFAULTS.setProperty("performanceViewport", "1280x720");
+		DEFAULTS.setProperty("pageLoadHistoryFile", "target/page-load/page-load-times.properties");
+		// sharded runs (ShardRunner): default shard count, output directory and test duration history
+		DEFAULTS.setProperty("shards", "2");
+		DEFAULTS.setProperty("shardOutputDir", "target/shards");
+		DEFAULTS.setProperty("shardHistoryFile", "target/shard-history/test-durations.properties");
+	}
+
+	private final Properties values;
+	private final String browser;
+	private final String remoteBrowser;
+	private final URL gridUrl;
+	private final Duration gridPoll;
+	private final Duration gridQueueTimeout;
+	private final Duration gridSample;
+	private final boolean headless;
+	private final String url;
+	private final boolean localApp;
+	private final Path localAppDir;
+	private final String localAppHost;
+	private final Duration localAppMaxAge;
+	private final int poolSize;
+	private final Duration poolLeaseTimeout;
+	private final boolean warmSessions;
+	private final Duration implicitWait;
+	private final Duration pageLoadTimeout;
+	private final Duration scriptTimeout;
+	private final int parallelism;
+	private final int dataProviderParallelism;
+	private final boolean scaleTest;
+	private final List<Integer> scaleSizes;
+	private final int scaleIterations;
+	private final Duration scaleScriptTimeout;
+	private final Duration waitInitialPoll;
+	private final double waitBackoffMultiplier;
+	private final Duration waitMaxPoll;
+	private final Duration waitMinTimeout;
+	private final Duration waitMaxTimeout;
+	private final double waitTimeoutFactor;
+	private final Path waitHistoryFile;
+	private final Path screenshotDir;
+	private final String screenshotFormat;
+	private final double screenshotScale;
+	private final float screenshotQuality;
+	private final int screenshotWriterThreads;
+	private final int screenshotQueueSize;
+	private final Duration screenshotWriteTimeout;
+	private final Path extentReportPath;
+	private final Optional<Path> extentJsonPath;
+	private final Duration extentFlushInterval;
+	private final int extentRolloverTests;
+	private final Duration extentFlushTimeout;
+	private final boolean resultJournal;
+	private final Path resultJournalFile;
+	private final int resultJournalBufferKb;
+	private final Path metricsFile;
+	private final int shards;
+	private final OptionalInt shardIndex;
+	private final Path shardOutputDir;
+	private final Path shardHistoryFile;
+	private final boolean commandMetrics;
+	private final boolean cdpActions;
+	private final boolean pushWaits;
+	private final boolean matrix;
+	private final List<String> matrixBrowsers;
+	private final List<Boolean> matrixHeadless;
+	private final List<String> matrixViewports;
+	private final int matrixPoolSize;
+	private final boolean retry;
+	private final int retryBudget;
+	private final int retryMaxAttempts;
+	private final boolean quarantine;
+	private final Path flakeHistoryFile;
+	private final int flakeWindow;
+	private final int quarantineMinRuns;
+	private final double quarantineFlakeRate;
+	private final boolean impactSelection;
+	private final Path impactMapFile;
+	private final String impactBase;
+	private final boolean historyOrder;
+	private final int failFastThreshold;
+	private final boolean performanceProfile;
+	private final List<String> blockedUrls;
+	private final Path browserCacheDir;
+	private final String performanceViewport;
+	private final Path pageLoadHistoryFile;
+
+	/**
+	 * Layers the given sources over the built-in defaults and parses the
+	 * typed settings.
+	 *
+	 * @param file             settings from the config file
+	 * @param environment      environment variables; only those starting with
+	 *                         HMH_ are used
+	 * @param systemProperties system properties
+	 * @throws IllegalArgumentException if a typed setting has an invalid value
+	 */
+	public FrameworkConfig(Properties file, Map<String, String> environment, Properties systemProperties) {
+		Properties merged = new Properties();
+		merged.putAll(DEFAULTS);
+		merged.putAll(file);
+		for (Map.Entry<String, String> variable : environment.entrySet()) {
+			if (variable.getKey().startsWith(ENV_PREFIX) && variable.getKey().length() > ENV_PREFIX.length()) {
+				merged.setProperty(keyOf(variable.getKey()), variable.getValue());
+			}
+		}
+		for (String key : systemProperties.stringPropertyNames()) {
+			merged.setProperty(key, systemProperties.getProperty(key));
+		}
+		this.values = merged;
+
+		browser = text("browser").toLowerCase(Locale.ROOT);
+		remoteBrowser = text("remoteBrowser").toLowerCase(Locale.ROOT);
+		try {
+			gridUrl = new URL(text("gridUrl"));
+		} catch (MalformedURLException e) {
+			throw invalid("gridUrl", text("gridUrl"), "a URL");
+		}
+		gridPoll = Duration.ofMillis(atLeast("gridPollMillis", 1));
+		gridQueueTimeout = Duration.ofSeconds(atLeast("gridQueueTimeout", 0));
+		gridSample = Duration.ofMillis(atLeast("gridSampleMillis", 1));
+		headless = flag("runheadless");
+		url = text("url");
+		localApp = flag("localApp");
+		localAppDir = path("localAppDir");
+		localAppHost = text("localAppHost");
+		localAppMaxAge = Duration.ofSeconds(atLeast("localAppMaxAge", 0));
+		poolSize = atLeast("poolSize", 1);
+		poolLeaseTimeout = Duration.ofSeconds(atLeast("poolLeaseTimeout", 0));
+		warmSessions = flag("warmSessions");
+		implicitWait = Duration.ofSeconds(atLeast("implicitWait", 0));
+		pageLoadTimeout = Duration.ofSeconds(atLeast("pageLoadTimeout", 1));
+		scriptTimeout = Duration.ofSeconds(atLeast("scriptTimeout", 1));
+		parallelism = atLeast("parallelism", 0);
+		dataProviderParallelism = atLeast("dataProviderParallelism", 0);
+		scaleTest = flag("scaleTest");
+		scaleSizes = new ArrayList<>();
+		for (String value : getList("scaleSizes")) {
+			if (!value.matches("[1-9][0-9]*")) {
+				throw invalid("scaleSizes", value, "a positive number of todos");
+			}
+			scaleSizes.add(Integer.valueOf(value));
+		}
+		scaleIterations = atLeast("scaleIterations", 1);
+		scaleScriptTimeout = Duration.ofSeconds(atLeast("scaleScriptTimeout", 1));
+		waitInitialPoll = Duration.ofMillis(atLeast("waitInitialPollMillis", 1));
+		waitBackoffMultiplier = atLeast("waitBackoffMultiplier", 1.0);
+		waitMaxPoll = Duration.ofMillis(atLeast("waitMaxPollMillis", 1));
+		waitMinTimeout = Duration.ofMillis(atLeast("waitMinTimeoutMillis", 1));
+		waitMaxTimeout = Duration.ofMillis(atLeast("waitMaxTimeoutMillis", 1));
+		if (waitMaxTimeout.compareTo(waitMinTimeout) < 0) {
+			throw invalid("waitMaxTimeoutMillis", text("waitMaxTimeoutMillis"), "at least waitMinTimeoutMillis");
+		}
+		waitTimeoutFactor = atLeast("waitTimeoutFactor", 1.0);
+		waitHistoryFile = path("waitHistoryFile");
+		screenshotDir = path("screenshotDir");
+		screenshotFormat = text("screenshotFormat").toLowerCase(Locale.ROOT);
+		if (!screenshotFormat.matches("png|jpg")) {
+			throw invalid("screenshotFormat", screenshotFormat, "png or jpg");
+		}
+		screenshotScale = number("screenshotScale");
+		if (screenshotScale <= 0 || screenshotScale > 1) {
+			throw invalid("screenshotScale", text("screenshotScale"), "above 0 and at most 1");
+		}
+		screenshotQuality = (float) number("screenshotQuality");
+		if (screenshotQuality <= 0 || screenshotQuality > 1) {
+			throw invalid("screenshotQuality", text("screenshotQuality"), "above 0 and at most 1");
+		}
+		screenshotWriterThreads = atLeast("screenshotWriterThreads", 1);
+		screenshotQueueSize = atLeast("screenshotQueueSize", 1);
+		screenshotWriteTimeout = Duration.ofSeconds(atLeast("screenshotWriteTimeout", 0));
+		extentReportPath = path("extentReportPath");
+		extentJsonPath = text("extentJsonPath").isEmpty() ? Optional.<Path>empty()
+				: Optional.of(path("extentJsonPath"));
+		extentFlushInterval = Duration.ofSeconds(atLeast("extentFlushSeconds", 1));
+		extentRolloverTests = atLeast("extentRolloverTests", 1);
+		extentFlushTimeout = Duration.ofSeconds(atLeast("extentFlushTimeout", 0));
+		resultJournal = flag("resultJournal");
+		resultJournalFile = path("resultJournalFile");
+		resultJournalBufferKb = atLeast("resultJournalBufferKb", 1);
+		metricsFile = path("metricsFile");
+		shards = atLeast("shards", 1);
+		String index = getString("shardIndex");
+		shardIndex = index == null || index.trim().isEmpty() ? OptionalInt.empty()
+				: OptionalInt.of(atLeast("shardIndex", 0));
+		shardOutputDir = path("shardOutputDir");
+		shardHistoryFile = path("shardHistoryFile");
+		commandMetrics = flag("commandMetrics");
+		cdpActions = flag("cdpActions");
+		pushWaits = flag("pushWaits");
+		matrix = flag("matrix");
+		matrixBrowsers = new ArrayList<>();
+		for (String value : getList("matrixBrowsers")) {
+			if (!value.matches("(?i)chrome|firefox|remote")) {
+				throw invalid("matrixBrowsers", value, "chrome, firefox or remote");
+			}
+			matrixBrowsers.add(value.toLowerCase(Locale.ROOT));
+		}
+		matrixHeadless = new ArrayList<>();
+		for (String value : getList("matrixHeadless")) {
+			if (!value.matches("(?i)true|false")) {
+				throw invalid("matrixHeadless", value, "true or false");
+			}
+			matrixHeadless.add(Boolean.valueOf(value.toLowerCase(Locale.ROOT)));
+		}
+		matrixViewports = new ArrayList<>();
+		for (String value : getList("matrixViewports")) {
+			if (!value.matches("(?i)max|[1-9][0-9]*x[1-9][0-9]*")) {
+				throw invalid("matrixViewports", value, "max or WIDTHxHEIGHT");
+			}
+			matrixViewports.add(value.toLowerCase(Locale.ROOT));
+		}
+		matrixPoolSize = atLeast("matrixPoolSize", 1);
+		retry = flag("retry");
+		retryBudget = atLeast("retryBudget", 0);
+		retryMaxAttempts = atLeast("retryMaxAttempts", 0);
+		quarantine = flag("quarantine");
+		flakeHistoryFile = path("flakeHistoryFile");
+		flakeWindow = atLeast("flakeWindow", 1);
+		quarantineMinRuns = atLeast("quarantineMinRuns", 1);
+		quarantineFlakeRate = number("quarantineFlakeRate");
+		if (quarantineFlakeRate <= 0 || quarantineFlakeRate > 1) {
+			throw invalid("quarantineFlakeRate", String.valueOf(quarantineFlakeRate), "above 0 and at most 1");
+		}
+		impactSelection = flag("impactSelection");
+		impactMapFile = path("impactMapFile");
+		impactBase = text("impactBase");
+		historyOrder = flag("historyOrder");
+		failFastThreshold = atLeast("failFastThreshold", 0);
+		performanceProfile = flag("performanceProfile");
+		blockedUrls = getList("blockedUrls");
+		browserCacheDir = path("browserCacheDir");
+		performanceViewport = text("performanceViewport").toLowerCase(Locale.ROOT);
+		if (!performanceViewport.matches("[1-9][0-9]*x[1-9][0-9]*")) {
+			throw invalid("performanceViewport", performanceViewport, "WIDTHxHEIGHT");
+		}
+		pageLoadHistoryFile = path("pageLoadHistoryFile");
+	}
+
+	/**
+	 * @return the config of this JVM, loaded on first use
+	 */
+	public static FrameworkConfig get() {
+		return Holder.INSTANCE;
+	}
+
+	/**
+	 * Reads the config file named by the configFile system property or
+	 * HMH_CONFIG_FILE (a classpath resource or a path), else config.properties
+	 * from the classpath, else src/test/resources/config.properties. Without
+	 * any of them only the defaults and overrides apply.
+	 */
+	static FrameworkConfig load() {
+		String configFile = System.getProperty("configFile", System.getenv(ENV_PREFIX + "CONFIG_FILE"));
+		Properties file = new Properties();
+		try {
+			if (configFile != null) {
+				if (!read(configFile, file)) {
+					throw new IllegalStateException("Config file " + configFile + " not found");
+				}
+			} else if (!read(RESOURCE, file) && !read(SOURCE_FILE, file)) {
+				logger.warn("No {} found on the classpath or at {}; using defaults", RESOURCE, SOURCE_FILE);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not read the framework config", e);
+		}
+		return new FrameworkConfig(file, System.getenv(), System.getProperties());
+	}
+
+	/**
+	 * @return false if there is neither a classpath resource nor a file of
+	 *         that name
+	 */
+	private static boolean read(String name, Properties target) throws IOException {
+		URL resource = FrameworkConfig.class.getClassLoader().getResource(name);
+		Path path = Paths.get(name);
+		if (resource == null && !Files.isRegularFile(path)) {
+			return false;
+		}
+		try (InputStream in = resource != null ? resource.openStream() : Files.newInputStream(path);
+				Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+			target.load(reader);
+		}
+		logger.debug("Loaded config from {}", resource != null ? resource : path.toAbsolutePath());
+		return true;
+	}
+
+	/**
+	 * @return the setting key for an HMH_ environment variable, e.g. poolSize
+	 *         for HMH_POOL_SIZE
+	 */
+	static String keyOf(String variable) {
+		StringBuilder key = new StringBuilder();
+		for (String part : variable.substring(ENV_PREFIX.length()).toLowerCase(Locale.ROOT).split("_")) {
+			if (part.isEmpty()) {
+				continue;
+			}
+			key.append(key.length() == 0 ? part : Character.toUpperCase(part.charAt(0)) + part.substring(1));
+		}
+		return key.toString();
+	}
+
+	public String getBrowser() {
+		return browser;
+	}
+
+	/**
+	 * @return the browser of Grid sessions when browser is remote
+	 */
+	public String getRemoteBrowser() {
+		return remoteBrowser;
+	}
+
+	/**
+	 * @return hub of the Selenium Grid used when browser is remote
+	 */
+	public URL getGridUrl() {
+		return gridUrl;
+	}
+
+	/**
+	 * @return how often a queued test asks the Grid for a free slot
+	 */
+	public Duration getGridPoll() {
+		return gridPoll;
+	}
+
+	/**
+	 * @return how long a test waits in the Grid queue before failing
+	 */
+	public Duration getGridQueueTimeout() {
+		return gridQueueTimeout;
+	}
+
+	/**
+	 * @return interval at which Grid node usage is sampled
+	 */
+	public Duration getGridSample() {
+		return gridSample;
+	}
+
+	public boolean isHeadless() {
+		return headless;
+	}
+
+	public String getUrl() {
+		return url;
+	}
+
+	/**
+	 * @return true to test the bundled application served in-JVM instead of url
+	 */
+	public boolean isLocalApp() {
+		return localApp;
+	}
+
+	/**
+	 * @return directory holding the bundled application, or the name of a
+	 *         classpath directory holding it
+	 */
+	public Path getLocalAppDir() {
+		return localAppDir;
+	}
+
+	/**
+	 * @return address the local application server binds to
+	 */
+	public String getLocalAppHost() {
+		return localAppHost;
+	}
+
+	/**
+	 * @return how long browsers may cache the local application's files
+	 */
+	public Duration getLocalAppMaxAge() {
+		return localAppMaxAge;
+	}
+
+	/**
+	 * @return maximum number of browser sessions open at once
+	 */
+	public int getPoolSize() {
+		return poolSize;
+	}
+
+	/**
+	 * @return how long a test waits for a free pooled session
+	 */
+	public Duration getPoolLeaseTimeout() {
+		return poolLeaseTimeout;
+	}
+
+	public boolean isWarmSessions() {
+		return warmSessions;
+	}
+
+	public Duration getImplicitWait() {
+		return implicitWait;
+	}
+
+	public Duration getPageLoadTimeout() {
+		return pageLoadTimeout;
+	}
+
+	public Duration getScriptTimeout() {
+		return scriptTimeout;
+	}
+
+	/**
+	 * @return threads TestNG runs tests on, or 0 to keep testng.xml's
+	 *         thread-count
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * @return threads TestNG runs parallel data providers on, or 0 to keep
+	 *         testng.xml's data-provider-thread-count
+	 */
+	public int getDataProviderParallelism() {
+		return dataProviderParallelism;
+	}
+
+	/**
+	 * @return true to run TodoScaleTest
+	 */
+	public boolean isScaleTest() {
+		return scaleTest;
+	}
+
+	/**
+	 * @return list sizes TodoScaleTest seeds
+	 */
+	public List<Integer> getScaleSizes() {
+		return Collections.unmodifiableList(scaleSizes);
+	}
+
+	/**
+	 * @return times TodoScaleTest runs its flows per list size
+	 */
+	public int getScaleIterations() {
+		return scaleIterations;
+	}
+
+	/**
+	 * @return script timeout while TodoScaleTest seeds and reads large lists
+	 */
+	public Duration getScaleScriptTimeout() {
+		return scaleScriptTimeout;
+	}
+
+	/**
+	 * @return first poll interval of a polling wait
+	 */
+	public Duration getWaitInitialPoll() {
+		return waitInitialPoll;
+	}
+
+	/**
+	 * @return factor the poll interval grows by after each poll
+	 */
+	public double getWaitBackoffMultiplier() {
+		return waitBackoffMultiplier;
+	}
+
+	public Duration getWaitMaxPoll() {
+		return waitMaxPoll;
+	}
+
+	/**
+	 * @return lower bound of a learned wait timeout
+	 */
+	public Duration getWaitMinTimeout() {
+		return waitMinTimeout;
+	}
+
+	/**
+	 * @return upper bound of a learned wait timeout, also used for conditions
+	 *         without history
+	 */
+	public Duration getWaitMaxTimeout() {
+		return waitMaxTimeout;
+	}
+
+	/**
+	 * @return learned timeout as a multiple of the slowest recent settle time
+	 */
+	public double getWaitTimeoutFactor() {
+		return waitTimeoutFactor;
+	}
+
+	public Path getWaitHistoryFile() {
+		return waitHistoryFile;
+	}
+
+	public Path getScreenshotDir() {
+		return screenshotDir;
+	}
+
+	/**
+	 * @return png, or jpg to recompress screenshots
+	 */
+	public String getScreenshotFormat() {
+		return screenshotFormat;
+	}
+
+	/**
+	 * @return factor screenshots are downscaled by, 1 to keep their size
+	 */
+	public double getScreenshotScale() {
+		return screenshotScale;
+	}
+
+	/**
+	 * @return JPEG quality of recompressed screenshots, from 0 to 1
+	 */
+	public float getScreenshotQuality() {
+		return screenshotQuality;
+	}
+
+	public int getScreenshotWriterThreads() {
+		return screenshotWriterThreads;
+	}
+
+	/**
+	 * @return screenshots waiting for a writer before the test thread writes
+	 *         its own
+	 */
+	public int getScreenshotQueueSize() {
+		return screenshotQueueSize;
+	}
+
+	/**
+	 * @return how long the end of the run waits for pending screenshots
+	 */
+	public Duration getScreenshotWriteTimeout() {
+		return screenshotWriteTimeout;
+	}
+
+	public Path getExtentReportPath() {
+		return extentReportPath;
+	}
+
+	/**
+	 * @return where the report is also archived as JSON, if anywhere
+	 */
+	public Optional<Path> getExtentJsonPath() {
+		return extentJsonPath;
+	}
+
+	/**
+	 * @return interval at which the report is written in the background
+	 */
+	public Duration getExtentFlushInterval() {
+		return extentFlushInterval;
+	}
+
+	/**
+	 * @return tests after which the report rolls over to a new file
+	 */
+	public int getExtentRolloverTests() {
+		return extentRolloverTests;
+	}
+
+	/**
+	 * @return how long the end of the run waits for the report to be written
+	 */
+	public Duration getExtentFlushTimeout() {
+		return extentFlushTimeout;
+	}
+
+	/**
+	 * @return true to append test events to the result journal
+	 */
+	public boolean isResultJournal() {
+		return resultJournal;
+	}
+
+	public Path getResultJournalFile() {
+		return resultJournalFile;
+	}
+
+	public int getResultJournalBufferKb() {
+		return resultJournalBufferKb;
+	}
+
+	/**
+	 * @return file the command metrics are written to, in Prometheus format
+	 */
+	public Path getMetricsFile() {
+		return metricsFile;
+	}
+
+	/**
+	 * @return default number of shards of a sharded run
+	 */
+	public int getShards() {
+		return shards;
+	}
+
+	/**
+	 * @return index of the shard this JVM runs, empty outside sharded runs
+	 */
+	public OptionalInt getShardIndex() {
+		return shardIndex;
+	}
+
+	public Path getShardOutputDir() {
+		return shardOutputDir;
+	}
+
+	public Path getShardHistoryFile() {
+		return shardHistoryFile;
+	}
+
+	public boolean isCommandMetrics() {
+		return commandMetrics;
+	}
+
+	/**
+	 * @return true to send page actions over the DevTools protocol on Chrome
+	 */
+	public boolean isCdpActions() {
+		return cdpActions;
+	}
+
+	/**
+	 * @return true to wait for page conditions with a DOM observer in the
+	 *         browser instead of polling them
+	 */
+	public boolean isPushWaits() {
+		return pushWaits;
+	}
+
+	/**
+	 * @return true to run every test of the suite once per combination of
+	 *         matrixBrowsers, matrixHeadless and matrixViewports
+	 */
+	public boolean isMatrix() {
+		return matrix;
+	}
+
+	public List<String> getMatrixBrowsers() {
+		return Collections.unmodifiableList(matrixBrowsers);
+	}
+
+	public List<Boolean> getMatrixHeadless() {
+		return Collections.unmodifiableList(matrixHeadless);
+	}
+
+	/**
+	 * @return viewport sizes as WIDTHxHEIGHT, or max for a maximized window
+	 */
+	public List<String> getMatrixViewports() {
+		return Collections.unmodifiableList(matrixViewports);
+	}
+
+	/**
+	 * @return browsers open at once, and tests run at once, per matrix cell
+	 */
+	public int getMatrixPoolSize() {
+		return matrixPoolSize;
+	}
+
+	/**
+	 * @return true to retry tests that fail with a transient error
+	 */
+	public boolean isRetry() {
+		return retry;
+	}
+
+	/**
+	 * @return retries allowed in this JVM across all tests
+	 */
+	public int getRetryBudget() {
+		return retryBudget;
+	}
+
+	/**
+	 * @return retries allowed per test invocation
+	 */
+	public int getRetryMaxAttempts() {
+		return retryMaxAttempts;
+	}
+
+	/**
+	 * @return true to run chronically flaky tests in a non-blocking lane
+	 */
+	public boolean isQuarantine() {
+		return quarantine;
+	}
+
+	public Path getFlakeHistoryFile() {
+		return flakeHistoryFile;
+	}
+
+	/**
+	 * @return number of recent runs the flake rate of a test is taken over
+	 */
+	public int getFlakeWindow() {
+		return flakeWindow;
+	}
+
+	/**
+	 * @return recent runs a test needs before it can be quarantined
+	 */
+	public int getQuarantineMinRuns() {
+		return quarantineMinRuns;
+	}
+
+	/**
+	 * @return flake rate from which a test is quarantined
+	 */
+	public double getQuarantineFlakeRate() {
+		return quarantineFlakeRate;
+	}
+
+	/**
+	 * @return true to run only the tests whose recorded page-object members
+	 *         changed since {@link #getImpactBase()}
+	 */
+	public boolean isImpactSelection() {
+		return impactSelection;
+	}
+
+	public Path getImpactMapFile() {
+		return impactMapFile;
+	}
+
+	/**
+	 * @return git commit, branch or tag to select tests against, or an empty
+	 *         string for the commit the impact map was recorded at
+	 */
+	public String getImpactBase() {
+		return impactBase;
+	}
+
+	/**
+	 * @return true to run recently failed, likely-to-fail and long tests
+	 *         first
+	 */
+	public boolean isHistoryOrder() {
+		return historyOrder;
+	}
+
+	/**
+	 * @return failed tests after which the run is aborted, 0 to never abort
+	 */
+	public int getFailFastThreshold() {
+		return failFastThreshold;
+	}
+
+	/**
+	 * @return true to start browsers with the performance profile (see
+	 *         BrowserProfile)
+	 */
+	public boolean isPerformanceProfile() {
+		return performanceProfile;
+	}
+
+	/**
+	 * @return URL patterns the performance profile blocks, '*' matching any
+	 *         characters
+	 */
+	public List<String> getBlockedUrls() {
+		return Collections.unmodifiableList(blockedUrls);
+	}
+
+	public Path getBrowserCacheDir() {
+		return browserCacheDir;
+	}
+
+	/**
+	 * @return window size of the performance profile, as WIDTHxHEIGHT
+	 */
+	public String getPerformanceViewport() {
+		return performanceViewport;
+	}
+
+	public Path getPageLoadHistoryFile() {
+		return pageLoadHistoryFile;
+	}
+
+	/**
+	 * @return the value of any setting, or null if it is not set
+	 */
+	public String getString(String key) {
+		return values.getProperty(key);
+	}
+
+	public String getString(String key, String defaultValue) {
+		return values.getProperty(key, defaultValue);
+	}
+
+	/**
+	 * @throws IllegalArgumentException if the value is not an integer
+	 */
+	public int getInt(String key, int defaultValue) {
+		String value = getString(key);
+		if (value == null || value.trim().isEmpty()) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {
+			throw invalid(key, value, "an integer");
+		}
+	}
+
+	/**
+	 * @throws IllegalArgumentException if the value is not true or false
+	 */
+	public boolean getBoolean(String key, boolean defaultValue) {
+		String value = getString(key);
+		if (value == null || value.trim().isEmpty()) {
+			return defaultValue;
+		}
+		if ("true".equalsIgnoreCase(value.trim())) {
+			return true;
+		}
+		if ("false".equalsIgnoreCase(value.trim())) {
+			return false;
+		}
+		throw invalid(key, value, "true or false");
+	}
+
+	/**
+	 * @throws IllegalArgumentException if the value is not a number
+	 */
+	public double getDouble(String key, double defaultValue) {
+		String value = getString(key);
+		if (value == null || value.trim().isEmpty()) {
+			return defaultValue;
+		}
+		try {
+			return Double.parseDouble(value.trim());
+		} catch (NumberFormatException e) {
+			throw invalid(key, value, "a number");
+		}
+	}
+
+	/**
+	 * @return a mutable copy of every setting
+	 */
+	public Properties toProperties() {
+		Properties copy = new Properties();
+		copy.putAll(values);
+		return copy;
+	}
+
+	/**
+	 * @return the comma-separated values of a setting, trimmed, without empty
+	 *         ones
+	 */
+	private List<String> getList(String key) {
+		List<String> list = new ArrayList<>();
+		for (String value : text(key).split(",")) {
+			if (!value.trim().isEmpty()) {
+				list.add(value.trim());
+			}
+		}
+		if (list.isEmpty()) {
+			throw invalid(key, text(key), "a comma-separated list");
+		}
+		return list;
+	}
+
+	/**
+	 * @return the trimmed value of a setting, or its default if it is blank
+	 */
+	private String text(String key) {
+		String value = getString(key);
+		return value == null || value.trim().isEmpty() ? DEFAULTS.getProperty(key, "") : value.trim();
+	}
+
+	private Path path(String key) {
+		return Paths.get(text(key));
+	}
+
+	private boolean flag(String key) {
+		return getBoolean(key, Boolean.parseBoolean(DEFAULTS.getProperty(key)));
+	}
+
+	private double number(String key) {
+		return getDouble(key, Double.parseDouble(DEFAULTS.getProperty(key)));
+	}
+
+	private int atLeast(String key, int minimum) {
+		String fallback = DEFAULTS.getProperty(key);
+		int value = getInt(key, fallback == null ? minimum : Integer.parseInt(fallback));
+		if (value < minimum) {
+			throw invalid(key, String.valueOf(value), "at least " + minimum);
+		}
+		return value;
+	}
+
+	private double atLeast(String key, double minimum) {
+		double value = number(key);
+		if (value < minimum) {
+			throw invalid(key, String.valueOf(value), "at least " + minimum);
+		}
+		return value;
+	}
+
+	private static IllegalArgumentException invalid(String key, String value, String expected) {
+		return new IllegalArgumentException("Invalid value '" + value + "' for " + key + " (set in config.properties, "
+				+ ENV_PREFIX + key.replaceAll("([a-z0-9])([A-Z])", "$1_$2").toUpperCase(Locale.ROOT) + " or -D"
+				+ key + "): expected " + expected);
+	}
+
+	/**
+	 * Loads the shared config on first use; class initialisation makes it
+	 * thread-safe without locking.
+	 */
+	private static final class Holder {
+		static final FrameworkConfig INSTANCE = load();
+	}
+}
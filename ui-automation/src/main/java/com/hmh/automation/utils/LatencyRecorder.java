@@ -0,0 +1,156 @@
+package com.hmh.automation.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Collects latency samples per named operation and reports percentiles. Safe
+ * to use from several test threads at once. Operations are reported in the
+ * order they were first recorded.
+ */
+public class LatencyRecorder {
+
+	private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+	private final Map<String, List<Long>> samples = new LinkedHashMap<>();
+
+	/**
+	 * Records one sample.
+	 *
+	 * @param operation name of the operation
+	 * @param nanos     measured latency in nanoseconds
+	 */
+	public void record(String operation, long nanos) {
+		List<Long> values;
+		synchronized (samples) {
+			values = samples.computeIfAbsent(operation, k -> Collections.synchronizedList(new ArrayList<Long>()));
+		}
+		values.add(nanos);
+	}
+
+	/**
+	 * Records one sample given in (fractional) milliseconds, e.g. a value
+	 * measured with {@code performance.now()} inside the browser.
+	 */
+	public void recordMillis(String operation, double millis) {
+		record(operation, (long) (millis * NANOS_PER_MILLI));
+	}
+
+	/**
+	 * Runs the action and records how long it took.
+	 */
+	public void time(String operation, Runnable action) {
+		long start = System.nanoTime();
+		try {
+			action.run();
+		} finally {
+			record(operation, System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Runs the action, records how long it took and returns its result.
+	 */
+	public <T> T time(String operation, Supplier<T> action) {
+		long start = System.nanoTime();
+		try {
+			return action.get();
+		} finally {
+			record(operation, System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * @return the operations recorded so far, in first-recorded order
+	 */
+	public List<String> operations() {
+		synchronized (samples) {
+			return new ArrayList<>(samples.keySet());
+		}
+	}
+
+	/**
+	 * @return number of samples recorded for the operation
+	 */
+	public int count(String operation) {
+		return sorted(operation).length;
+	}
+
+	/**
+	 * Nearest-rank percentile of the recorded samples.
+	 *
+	 * @param operation  name of the operation
+	 * @param percentile a value between 0 and 100
+	 * @return the percentile in milliseconds, or 0 if nothing was recorded
+	 */
+	public double percentileMillis(String operation, double percentile) {
+		long[] values = sorted(operation);
+		if (values.length == 0) {
+			return 0;
+		}
+		int rank = (int) Math.ceil(percentile / 100.0 * values.length);
+		return values[Math.max(0, Math.min(values.length - 1, rank - 1))] / NANOS_PER_MILLI;
+	}
+
+	/**
+	 * Builds a table with one row per operation: count, p50, p90, p99 and max
+	 * in milliseconds. The first row holds the column headers.
+	 */
+	public String[][] summaryTable() {
+		List<String> operations = operations();
+		String[][] table = new String[operations.size() + 1][];
+		table[0] = new String[] { "operation", "count", "p50 ms", "p90 ms", "p99 ms", "max ms" };
+		for (int i = 0; i < operations.size(); i++) {
+			String operation = operations.get(i);
+			table[i + 1] = new String[] { operation, String.valueOf(count(operation)),
+					format(percentileMillis(operation, 50)), format(percentileMillis(operation, 90)),
+					format(percentileMillis(operation, 99)), format(percentileMillis(operation, 100)) };
+		}
+		return table;
+	}
+
+	/**
+	 * @return the summary table as aligned plain text, for logging
+	 */
+	public String summary() {
+		StringBuilder builder = new StringBuilder();
+		for (String[] row : summaryTable()) {
+			builder.append(String.format("%n%-40s %8s %10s %10s %10s %10s", (Object[]) row));
+		}
+		return builder.toString();
+	}
+
+	public void clear() {
+		synchronized (samples) {
+			samples.clear();
+		}
+	}
+
+	private long[] sorted(String operation) {
+		List<Long> values;
+		synchronized (samples) {
+			values = samples.get(operation);
+		}
+		if (values == null) {
+			return new long[0];
+		}
+		long[] copy;
+		synchronized (values) {
+			copy = new long[values.size()];
+			for (int i = 0; i < copy.length; i++) {
+				copy[i] = values.get(i);
+			}
+		}
+		Arrays.sort(copy);
+		return copy;
+	}
+
+	private static String format(double millis) {
+		return String.format("%.2f", millis);
+	}
+}
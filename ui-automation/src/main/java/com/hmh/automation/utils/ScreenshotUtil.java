@@ -1,31 +1,222 @@
 package com.hmh.automation.utils;
 
-import java.io.File;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 
-import org.apache.commons.io.FileUtils;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.openqa.selenium.OutputType;
 import org.openqa.selenium.TakesScreenshot;
 import org.openqa.selenium.WebDriver;
 
+/**
+ * Captures screenshots without blocking the test thread on disk I/O. The test
+ * thread only grabs the PNG bytes from the browser; a bounded pool of writer
+ * threads (screenshotWriterThreads, queue of screenshotQueueSize) optionally
+ * downscales (screenshotScale) or recompresses them to JPEG
+ * (screenshotFormat=jpg, screenshotQuality) and writes them with a file
+ * channel. When the queue is full the test thread writes the file itself, so
+ * memory stays bounded. File names carry the test name, a millisecond
+ * timestamp and a sequence number, so parallel failures never collide.
+ */
 public class ScreenshotUtil {
-	
+
+	private static final Logger logger = LogManager.getLogger(ScreenshotUtil.class);
+	private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss_SSS");
+	private static final AtomicLong SEQUENCE = new AtomicLong();
+	private static final Set<CompletableFuture<String>> PENDING = ConcurrentHashMap.newKeySet();
+	private static ThreadPoolExecutor writers;
+
+	private ScreenshotUtil() {
+	}
+
+	/**
+	 * Takes a screenshot and waits until it is written.
+	 *
+	 * @return the path of the screenshot file
+	 */
 	public static String captureScreenshot(WebDriver driver, String testName) {
-        String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
-        String screenshotPath = "target/screenshots/" + testName + "_" + timestamp + ".png";
-        
-        File srcFile = ((TakesScreenshot) driver).getScreenshotAs(OutputType.FILE);
-        File destFile = new File(screenshotPath);
-        
-        try {
-            FileUtils.copyFile(srcFile, destFile);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        
-        return screenshotPath;
-    }
+		try {
+			return captureScreenshotAsync(driver, testName).join();
+		} catch (CompletionException e) {
+			logger.error("Could not save screenshot of {}", testName, e.getCause());
+			return null;
+		}
+	}
+
+	/**
+	 * Takes a screenshot on the calling thread and writes it in the background.
+	 *
+	 * @return a future completed with the path of the screenshot file once it
+	 *         is on disk
+	 */
+	public static CompletableFuture<String> captureScreenshotAsync(WebDriver driver, String testName) {
+		return captureScreenshotAsync(driver, testName, null);
+	}
+
+	/**
+	 * Takes a screenshot on the calling thread and writes it in the background.
+	 * {@link #awaitPendingWrites} also waits for the callback, so whatever it
+	 * adds to the report is there before the report is flushed.
+	 *
+	 * @param onWritten called with the file path, or with the error if the
+	 *                  write failed; may be null
+	 * @return a future completed once the file is on disk and the callback ran
+	 */
+	public static CompletableFuture<String> captureScreenshotAsync(WebDriver driver, String testName,
+			BiConsumer<String, Throwable> onWritten) {
+		return captureScreenshotAsync(driver, testName, FrameworkConfig.get().getScreenshotFormat(), onWritten);
+	}
+
+	/**
+	 * Like {@link #captureScreenshotAsync(WebDriver, String, BiConsumer)}, in
+	 * the given format instead of screenshotFormat.
+	 *
+	 * @param format png, or jpg to recompress the screenshot
+	 */
+	public static CompletableFuture<String> captureScreenshotAsync(WebDriver driver, String testName, String format,
+			BiConsumer<String, Throwable> onWritten) {
+		byte[] png = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+		FrameworkConfig config = FrameworkConfig.get();
+		double scale = config.getScreenshotScale();
+		float quality = config.getScreenshotQuality();
+		Path target = config.getScreenshotDir().resolve(uniqueName(testName, format));
+
+		CompletableFuture<String> written = CompletableFuture.supplyAsync(() -> {
+			try {
+				write(target, encode(png, format, scale, quality));
+				return target.toString();
+			} catch (IOException e) {
+				throw new CompletionException(e);
+			}
+		}, writers());
+		CompletableFuture<String> done = onWritten == null ? written : written.whenComplete(onWritten);
+		PENDING.add(done);
+		done.whenComplete((path, error) -> PENDING.remove(done));
+		return done;
+	}
+
+	/**
+	 * Waits for every screenshot still being written, e.g. before the report
+	 * is flushed.
+	 *
+	 * @return true if all writes finished within the timeout
+	 */
+	public static boolean awaitPendingWrites(long timeout, TimeUnit unit) {
+		CompletableFuture<?>[] pending = PENDING.toArray(new CompletableFuture<?>[0]);
+		try {
+			CompletableFuture.allOf(pending).get(timeout, unit);
+			return true;
+		} catch (ExecutionException e) {
+			// the failed write was already reported to its test
+			return true;
+		} catch (TimeoutException e) {
+			logger.warn("{} screenshot(s) still being written after {} {}", PENDING.size(), timeout, unit);
+			return false;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	private static String uniqueName(String testName, String format) {
+		return testName.replaceAll("[^A-Za-z0-9._-]", "_") + "_" + LocalDateTime.now().format(TIMESTAMP) + "_"
+				+ SEQUENCE.incrementAndGet() + ("jpg".equals(format) ? ".jpg" : ".png");
+	}
+
+	/**
+	 * Returns the PNG as is, or decodes it to downscale it or recompress it as
+	 * JPEG.
+	 */
+	private static byte[] encode(byte[] png, String format, double scale, float quality) throws IOException {
+		boolean jpeg = "jpg".equals(format);
+		if (!jpeg && scale >= 1.0) {
+			return png;
+		}
+		BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+		int width = Math.max(1, (int) Math.round(image.getWidth() * Math.min(scale, 1.0)));
+		int height = Math.max(1, (int) Math.round(image.getHeight() * Math.min(scale, 1.0)));
+		BufferedImage scaled = new BufferedImage(width, height,
+				jpeg ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+		Graphics2D graphics = scaled.createGraphics();
+		try {
+			graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			graphics.drawImage(image, 0, 0, width, height, null);
+		} finally {
+			graphics.dispose();
+		}
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Iterator<ImageWriter> imageWriters = ImageIO.getImageWritersByFormatName(jpeg ? "jpeg" : "png");
+		ImageWriter writer = imageWriters.next();
+		try (ImageOutputStream imageOut = ImageIO.createImageOutputStream(out)) {
+			writer.setOutput(imageOut);
+			ImageWriteParam param = writer.getDefaultWriteParam();
+			if (jpeg) {
+				param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+				param.setCompressionQuality(quality);
+			}
+			writer.write(null, new IIOImage(scaled, null, null), param);
+		} finally {
+			writer.dispose();
+		}
+		return out.toByteArray();
+	}
+
+	private static void write(Path target, byte[] bytes) throws IOException {
+		Files.createDirectories(target.getParent());
+		try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE_NEW,
+				StandardOpenOption.WRITE)) {
+			ByteBuffer buffer = ByteBuffer.wrap(bytes);
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+	}
 
+	private static synchronized ThreadPoolExecutor writers() {
+		if (writers == null) {
+			FrameworkConfig config = FrameworkConfig.get();
+			int threads = config.getScreenshotWriterThreads();
+			AtomicInteger count = new AtomicInteger();
+			writers = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+					new ArrayBlockingQueue<>(config.getScreenshotQueueSize()), runnable -> {
+						Thread thread = new Thread(runnable, "screenshot-writer-" + count.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}, new ThreadPoolExecutor.CallerRunsPolicy());
+			writers.allowCoreThreadTimeOut(true);
+		}
+		return writers;
+	}
 }
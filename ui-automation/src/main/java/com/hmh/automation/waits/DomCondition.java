@@ -0,0 +1,93 @@
+package com.hmh.automation.waits;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A condition on the todo page that {@link DomWaiter} evaluates inside the
+ * browser. Conditions are plain data (a kind and its arguments), so the same
+ * check runs from a DOM observer or from a poll.
+ */
+public final class DomCondition {
+
+	private final String kind;
+	private final Map<String, Object> args;
+
+	private DomCondition(String kind, Map<String, Object> args) {
+		this.kind = kind;
+		this.args = Collections.unmodifiableMap(args);
+	}
+
+	/**
+	 * @param selector CSS selector of the element
+	 * @return a condition met once an element matches the selector
+	 */
+	public static DomCondition present(String selector) {
+		return new DomCondition("present", args("selector", selector));
+	}
+
+	/**
+	 * @param selector CSS selector of the elements
+	 * @param index    0-based index among the matching elements
+	 * @param child    CSS selector of a descendant of that element to check
+	 *                 instead, or null
+	 * @return a condition met once the element is rendered and not hidden
+	 */
+	public static DomCondition displayed(String selector, int index, String child) {
+		Map<String, Object> args = args("selector", selector);
+		args.put("index", index);
+		args.put("child", child);
+		return new DomCondition("displayed", args);
+	}
+
+	/**
+	 * @param index     0-based index of the todo row, or -1 for every row
+	 * @param completed the state a click on the toggle switches the row to
+	 * @return a condition met once the row's toggle checkbox and completed
+	 *         class both show that state, i.e. the application has rendered
+	 *         the click; the old list never satisfies it
+	 */
+	public static DomCondition completedSettled(int index, boolean completed) {
+		Map<String, Object> args = args("index", index);
+		args.put("completed", completed);
+		return new DomCondition("completedSettled", args);
+	}
+
+	/**
+	 * @param filter label of the filter link: All, Active or Completed
+	 * @return a condition met once the filter link is selected and only the
+	 *         rows it lets through are listed
+	 */
+	public static DomCondition filterApplied(String filter) {
+		return new DomCondition("filterApplied", args("filter", filter));
+	}
+
+	/**
+	 * @param version list version returned by an earlier
+	 *                {@link DomWaiter#until} on the same page
+	 * @return a condition met once the todo list has changed since then
+	 */
+	public static DomCondition listChangedSince(long version) {
+		return new DomCondition("listChanged", args("version", version));
+	}
+
+	String getKind() {
+		return kind;
+	}
+
+	Map<String, Object> getArgs() {
+		return args;
+	}
+
+	@Override
+	public String toString() {
+		return kind + args;
+	}
+
+	private static Map<String, Object> args(String name, Object value) {
+		Map<String, Object> args = new LinkedHashMap<>();
+		args.put(name, value);
+		return args;
+	}
+}
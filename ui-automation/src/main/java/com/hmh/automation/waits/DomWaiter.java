@@ -0,0 +1,162 @@
+package com.hmh.automation.waits;
+
+import java.util.Map;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.ScriptTimeoutException;
+import org.openqa.selenium.WebDriver;
+
+import com.hmh.automation.utils.FrameworkConfig;
+
+/**
+ * Waits for {@link DomCondition}s on the todo page. With pushWaits=true (the
+ * default) the condition is checked once in the browser and, if it does not
+ * hold yet, re-checked by a MutationObserver on every DOM change and on
+ * hashchange; the asynchronous script returns as soon as it holds. A wait is
+ * one WebDriver request however long it takes, and it returns within a
+ * mutation callback of the page settling instead of on the next poll. With
+ * pushWaits=false the same check is polled through {@link WaitEngine#until}.
+ * <p>
+ * Both modes learn their timeouts and are recorded through {@link WaitEngine}.
+ * Every wait also installs (once per page load) an observer counting changes
+ * to the todo list, and returns that count, so a later wait can be for
+ * {@link DomCondition#listChangedSince} without reading the list first.
+ */
+public class DomWaiter {
+
+	/**
+	 * Defines the list change counter, check() for the condition in
+	 * arguments[0] with arguments[1], and result(met).
+	 */
+	private static final String CHECK_PRELUDE = "var kind = arguments[0], a = arguments[1], w = window;"
+			+ "var state = w.__hmhWait;"
+			+ "function inList(node) {"
+			+ "  var el = node && (node.nodeType === 1 ? node : node.parentElement);"
+			+ "  return !!el && (!!el.closest('.todo-list') || !!el.querySelector('.todo-list'));"
+			+ "}"
+			+ "if (!state) {"
+			+ "  state = w.__hmhWait = {listVersion: 0};"
+			+ "  new MutationObserver(function (records) {"
+			+ "    for (var i = 0; i < records.length; i++) {"
+			+ "      var r = records[i], nodes = [r.target];"
+			+ "      Array.prototype.push.apply(nodes, r.addedNodes);"
+			+ "      Array.prototype.push.apply(nodes, r.removedNodes);"
+			+ "      if (nodes.some(inList)) { state.listVersion++; return; }"
+			+ "    }"
+			+ "  }).observe(document, {subtree: true, childList: true, attributes: true, characterData: true});"
+			+ "}"
+			+ "function rows() { return document.querySelectorAll('.todo-list li'); }"
+			+ "function shown(el) {"
+			+ "  return !!el && el.getClientRects().length > 0 && getComputedStyle(el).visibility !== 'hidden';"
+			+ "}"
+			+ "function check() {"
+			+ "  var list = rows(), i;"
+			+ "  switch (kind) {"
+			+ "  case 'present': return !!document.querySelector(a.selector);"
+			+ "  case 'displayed':"
+			+ "    var el = document.querySelectorAll(a.selector)[a.index];"
+			+ "    return shown(el && a.child ? el.querySelector(a.child) : el);"
+			+ "  case 'completedSettled':"
+			+ "    var from = a.index < 0 ? 0 : a.index, to = a.index < 0 ? list.length : a.index + 1;"
+			+ "    if (to > list.length) { return false; }"
+			+ "    for (i = from; i < to; i++) {"
+			+ "      var toggle = list[i].querySelector('.toggle');"
+			+ "      if (!toggle || toggle.checked !== a.completed"
+			+ "          || list[i].classList.contains('completed') !== a.completed) { return false; }"
+			+ "    }"
+			+ "    return true;"
+			+ "  case 'filterApplied':"
+			+ "    var link = document.querySelector('.filters a.selected');"
+			+ "    if (!link || link.textContent.trim() !== a.filter) { return false; }"
+			+ "    for (i = 0; i < list.length; i++) {"
+			+ "      var completed = list[i].classList.contains('completed');"
+			+ "      if (shown(list[i]) && (a.filter === 'Active' ? completed : a.filter === 'Completed' && !completed)) {"
+			+ "        return false;"
+			+ "      }"
+			+ "    }"
+			+ "    return true;"
+			+ "  case 'listChanged': return state.listVersion > a.version;"
+			+ "  }"
+			+ "  throw new Error('Unknown wait condition ' + kind);"
+			+ "}"
+			+ "function result(met) { return {met: met, listVersion: state.listVersion}; }";
+
+	/**
+	 * Calls back as soon as the condition holds, or with met=false after
+	 * arguments[2] milliseconds.
+	 */
+	private static final String OBSERVE_SCRIPT = CHECK_PRELUDE
+			+ "var done = arguments[arguments.length - 1], timeout = arguments[2];"
+			+ "if (check()) { done(result(true)); return; }"
+			+ "var finished = false, observer, timer;"
+			+ "function finish(met) {"
+			+ "  if (finished) { return; }"
+			+ "  finished = true;"
+			+ "  observer.disconnect(); clearTimeout(timer); w.removeEventListener('hashchange', changed);"
+			+ "  done(result(met));"
+			+ "}"
+			+ "function changed() { if (check()) { finish(true); } }"
+			+ "observer = new MutationObserver(changed);"
+			+ "observer.observe(document, {subtree: true, childList: true, attributes: true, characterData: true});"
+			+ "w.addEventListener('hashchange', changed);"
+			+ "timer = setTimeout(function () { finish(check()); }, timeout);";
+
+	private static final String CHECK_SCRIPT = CHECK_PRELUDE + "return result(check());";
+
+	private final JavascriptExecutor executor;
+	private final WaitEngine engine;
+	private final boolean push;
+
+	/**
+	 * Uses the shared {@link WaitEngine} and the pushWaits setting.
+	 */
+	public DomWaiter(WebDriver driver) {
+		this(driver, WaitEngine.getInstance(), FrameworkConfig.get().isPushWaits());
+	}
+
+	/**
+	 * @param driver a session whose driver can execute scripts
+	 * @param engine learns the timeouts and records the waits
+	 * @param push   true to wait with a DOM observer, false to poll
+	 */
+	public DomWaiter(WebDriver driver, WaitEngine engine, boolean push) {
+		this.executor = (JavascriptExecutor) driver;
+		this.engine = engine;
+		this.push = push;
+	}
+
+	/**
+	 * Waits until the condition holds.
+	 *
+	 * @param name      stable name of the condition, used to learn its timeout
+	 * @param condition the condition to wait for
+	 * @return the todo list version when the condition held, for a later
+	 *         {@link DomCondition#listChangedSince}
+	 * @throws org.openqa.selenium.TimeoutException if the condition is not met
+	 *                                              within its timeout
+	 */
+	public long until(String name, DomCondition condition) {
+		Number version = push ? engine.untilNotified(name, timeoutMillis -> observe(condition, timeoutMillis))
+				: engine.until(name, () -> listVersionIfMet(
+						executor.executeScript(CHECK_SCRIPT, condition.getKind(), condition.getArgs())));
+		return version.longValue();
+	}
+
+	private Number observe(DomCondition condition, long timeoutMillis) {
+		try {
+			return listVersionIfMet(executor.executeAsyncScript(OBSERVE_SCRIPT, condition.getKind(),
+					condition.getArgs(), timeoutMillis));
+		} catch (ScriptTimeoutException e) {
+			// the session's script timeout is shorter than the wait's
+			return null;
+		}
+	}
+
+	private static Number listVersionIfMet(Object result) {
+		if (!(result instanceof Map)) {
+			return null;
+		}
+		Map<?, ?> values = (Map<?, ?>) result;
+		return Boolean.TRUE.equals(values.get("met")) ? (Number) values.get("listVersion") : null;
+	}
+}
@@ -0,0 +1,256 @@
+package com.hmh.automation.waits;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.NotFoundException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.TimeoutException;
+
+import com.hmh.automation.metrics.CommandMetrics;
+import com.hmh.automation.utils.FrameworkConfig;
+
+/**
+ * Explicit-wait engine used instead of implicit waits. A condition is polled
+ * with an increasing interval (waitInitialPollMillis, multiplied by
+ * waitBackoffMultiplier up to waitMaxPollMillis), so conditions that are
+ * already true return after a single check. Each named condition remembers
+ * how long it took to settle; once it has settled {@link #LEARNING_SAMPLES}
+ * times, its timeout is waitTimeoutFactor times the slowest recent settle
+ * time, kept between waitMinTimeoutMillis and waitMaxTimeoutMillis. A timeout
+ * clears the condition's history, so its next wait gets waitMaxTimeoutMillis
+ * again instead of timing out on a value learned from faster runs. History is
+ * kept in waitHistoryFile between runs.
+ */
+public class WaitEngine {
+
+	private static final Logger logger = LogManager.getLogger(WaitEngine.class);
+	private static final int HISTORY_SIZE = 50;
+	/**
+	 * Settle times a condition needs before its timeout is learned from them.
+	 */
+	public static final int LEARNING_SAMPLES = 5;
+	private static WaitEngine instance;
+
+	private final long initialPollMillis;
+	private final double backoffMultiplier;
+	private final long maxPollMillis;
+	private final long minTimeoutMillis;
+	private final long maxTimeoutMillis;
+	private final double timeoutFactor;
+	private final Path historyFile;
+	private final Map<String, SettleHistory> histories = new ConcurrentHashMap<>();
+
+	public WaitEngine(long initialPollMillis, double backoffMultiplier, long maxPollMillis, long minTimeoutMillis,
+			long maxTimeoutMillis, double timeoutFactor, Path historyFile) {
+		this.initialPollMillis = initialPollMillis;
+		this.backoffMultiplier = backoffMultiplier;
+		this.maxPollMillis = maxPollMillis;
+		this.minTimeoutMillis = minTimeoutMillis;
+		this.maxTimeoutMillis = maxTimeoutMillis;
+		this.timeoutFactor = timeoutFactor;
+		this.historyFile = historyFile;
+		load();
+	}
+
+	/**
+	 * @return the engine configured from config.properties, shared by all threads
+	 */
+	public static synchronized WaitEngine getInstance() {
+		if (instance == null) {
+			FrameworkConfig config = FrameworkConfig.get();
+			instance = new WaitEngine(config.getWaitInitialPoll().toMillis(), config.getWaitBackoffMultiplier(),
+					config.getWaitMaxPoll().toMillis(), config.getWaitMinTimeout().toMillis(),
+					config.getWaitMaxTimeout().toMillis(), config.getWaitTimeoutFactor(), config.getWaitHistoryFile());
+		}
+		return instance;
+	}
+
+	/**
+	 * Polls the condition until it returns a non-null value other than
+	 * {@code false}. Missing and stale elements count as "not yet".
+	 *
+	 * @param name      stable name of the condition, used to learn its timeout
+	 * @param condition the check to poll
+	 * @return the condition's value
+	 * @throws TimeoutException if the condition is not met within its timeout
+	 */
+	public <T> T until(String name, Supplier<T> condition) {
+		long timeoutMillis = timeoutFor(name);
+		long start = System.nanoTime();
+		long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+		long pollMillis = initialPollMillis;
+		RuntimeException lastError = null;
+		while (true) {
+			try {
+				T value = condition.get();
+				if (value != null && !Boolean.FALSE.equals(value)) {
+					long elapsed = System.nanoTime() - start;
+					history(name).record(TimeUnit.NANOSECONDS.toMillis(elapsed));
+					CommandMetrics.getInstance().recordWait(name, elapsed);
+					return value;
+				}
+			} catch (NotFoundException | StaleElementReferenceException e) {
+				lastError = e;
+			}
+			long remaining = deadline - System.nanoTime();
+			if (remaining <= 0) {
+				CommandMetrics.getInstance().recordWait(name, System.nanoTime() - start);
+				history(name).clear();
+				throw new TimeoutException("Condition '" + name + "' not met within " + timeoutMillis + " ms",
+						lastError);
+			}
+			sleep(Math.min(pollMillis, TimeUnit.NANOSECONDS.toMillis(remaining) + 1));
+			pollMillis = Math.min(maxPollMillis, (long) Math.ceil(pollMillis * backoffMultiplier));
+		}
+	}
+
+	/**
+	 * Waits for a condition that reports itself instead of being polled, such
+	 * as a {@link DomWaiter} observer running in the browser. The wait gets
+	 * the same learned timeout and is recorded like {@link #until}.
+	 *
+	 * @param name   stable name of the condition, used to learn its timeout
+	 * @param waiter blocks for at most the given number of milliseconds and
+	 *               returns the condition's value, or null or {@code false} if
+	 *               it was not met in time
+	 * @return the condition's value
+	 * @throws TimeoutException if the condition is not met within its timeout
+	 */
+	public <T> T untilNotified(String name, LongFunction<T> waiter) {
+		long timeoutMillis = timeoutFor(name);
+		long start = System.nanoTime();
+		T value = waiter.apply(timeoutMillis);
+		long elapsed = System.nanoTime() - start;
+		CommandMetrics.getInstance().recordWait(name, elapsed);
+		if (value == null || Boolean.FALSE.equals(value)) {
+			history(name).clear();
+			throw new TimeoutException("Condition '" + name + "' not met within " + timeoutMillis + " ms");
+		}
+		history(name).record(TimeUnit.NANOSECONDS.toMillis(elapsed));
+		return value;
+	}
+
+	/**
+	 * @return the timeout the named condition currently gets, in milliseconds
+	 */
+	public long timeoutFor(String name) {
+		SettleHistory history = histories.get(name);
+		long slowest = history == null ? -1 : history.slowest(LEARNING_SAMPLES);
+		if (slowest < 0) {
+			return maxTimeoutMillis;
+		}
+		long learned = (long) Math.ceil(slowest * timeoutFactor);
+		return Math.max(minTimeoutMillis, Math.min(maxTimeoutMillis, learned));
+	}
+
+	/**
+	 * Writes the recent settle times of every condition to the history file.
+	 */
+	public void save() {
+		Properties properties = new Properties();
+		for (Map.Entry<String, SettleHistory> entry : histories.entrySet()) {
+			properties.setProperty(entry.getKey(), entry.getValue().toString());
+		}
+		try {
+			if (historyFile.getParent() != null) {
+				Files.createDirectories(historyFile.getParent());
+			}
+			try (OutputStream out = Files.newOutputStream(historyFile)) {
+				properties.store(out, "Recent settle times in ms per wait condition");
+			}
+		} catch (IOException e) {
+			logger.warn("Could not save wait history to {}: {}", historyFile, e.getMessage());
+		}
+	}
+
+	private void load() {
+		if (!Files.isRegularFile(historyFile)) {
+			return;
+		}
+		Properties properties = new Properties();
+		try (InputStream in = Files.newInputStream(historyFile)) {
+			properties.load(in);
+		} catch (IOException e) {
+			logger.warn("Could not read wait history from {}: {}", historyFile, e.getMessage());
+			return;
+		}
+		for (String name : properties.stringPropertyNames()) {
+			SettleHistory history = history(name);
+			for (String value : properties.getProperty(name).split(",")) {
+				if (!value.trim().isEmpty()) {
+					history.record(Long.parseLong(value.trim()));
+				}
+			}
+		}
+	}
+
+	private SettleHistory history(String name) {
+		return histories.computeIfAbsent(name, k -> new SettleHistory());
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new TimeoutException("Interrupted while waiting", e);
+		}
+	}
+
+	/**
+	 * Ring buffer of the most recent settle times of one condition.
+	 */
+	private static final class SettleHistory {
+		private final long[] values = new long[HISTORY_SIZE];
+		private int count;
+		private int next;
+
+		synchronized void record(long millis) {
+			values[next] = millis;
+			next = (next + 1) % values.length;
+			count = Math.min(count + 1, values.length);
+		}
+
+		synchronized void clear() {
+			count = 0;
+			next = 0;
+		}
+
+		/**
+		 * @return the slowest recent settle time, or -1 with fewer than
+		 *         minSamples of them
+		 */
+		synchronized long slowest(int minSamples) {
+			if (count < minSamples) {
+				return -1;
+			}
+			long slowest = -1;
+			for (int i = 0; i < count; i++) {
+				slowest = Math.max(slowest, values[i]);
+			}
+			return slowest;
+		}
+
+		@Override
+		public synchronized String toString() {
+			long[] recent = new long[count];
+			for (int i = 0; i < count; i++) {
+				recent[i] = values[(next - count + i + values.length) % values.length];
+			}
+			return Arrays.toString(recent).replaceAll("[\\[\\] ]", "");
+		}
+	}
+}
@@ -0,0 +1,101 @@
+package com.hmh.automation.tests;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.firefox.FirefoxOptions;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.hmh.automation.base.BrowserProfile;
+import com.hmh.automation.base.PageLoadTimes;
+
+/**
+ * Test class for the performance browser profile and the page-load times reported with it. Runs
+ * without a browser.
+ */
+public class BrowserProfileTest {
+
+    private static final List<String> BLOCKED = Arrays.asList("*.woff2", "*.png");
+
+    /**
+     * Test that concurrent sessions get different cache directories and a later session reuses a
+     * released one.
+     */
+    @Test
+    public void testCacheDirectoriesAreReused() throws Exception {
+        Path parent = Files.createTempDirectory("browser-cache");
+        BrowserProfile profile = new BrowserProfile(BLOCKED, parent, new Dimension(1280, 720));
+
+        Path first = profile.leaseCacheDir("chrome");
+        Path second = profile.leaseCacheDir("chrome");
+        Assert.assertNotEquals(first, second, "Running browsers never share a cache");
+        Assert.assertTrue(Files.isDirectory(first));
+        Assert.assertEquals(profile.leaseCacheDir("firefox").getFileName().toString(), "firefox-0");
+
+        profile.releaseCacheDir(first);
+        Assert.assertEquals(profile.leaseCacheDir("chrome"), first, "The next session gets the warm cache");
+    }
+
+    /**
+     * Test that the Chrome and Firefox options carry the profile's switches, viewport and cache.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testBrowserOptions() throws Exception {
+        Path cacheDir = Files.createTempDirectory("browser-cache");
+        BrowserProfile profile = new BrowserProfile(BLOCKED, cacheDir, new Dimension(800, 600));
+
+        ChromeOptions chrome = new ChromeOptions();
+        profile.configure(chrome, cacheDir);
+        List<String> args = (List<String>) ((Map<String, Object>) chrome.getCapability(ChromeOptions.CAPABILITY))
+                .get("args");
+        Assert.assertTrue(args.containsAll(Arrays.asList("--disable-extensions", "--disable-gpu",
+                "--disable-background-timer-throttling", "--window-size=800,600", "--disk-cache-dir=" + cacheDir)),
+                args.toString());
+
+        FirefoxOptions firefox = new FirefoxOptions();
+        profile.configure(firefox, null);
+        Map<String, Object> firefoxOptions = (Map<String, Object>) firefox.getCapability(FirefoxOptions.FIREFOX_OPTIONS);
+        Map<String, Object> prefs = (Map<String, Object>) firefoxOptions.get("prefs");
+        Assert.assertEquals(prefs.get("permissions.default.image"), 2, "Images are blocked");
+        Assert.assertEquals(prefs.get("gfx.downloadable_fonts.enabled"), false, "Fonts are blocked");
+        Assert.assertFalse(prefs.containsKey("browser.cache.disk.parent_directory"), "No cache directory was given");
+        Assert.assertTrue(((List<String>) firefoxOptions.get("args")).contains("--width=800"));
+
+        FirefoxOptions unblocked = new FirefoxOptions();
+        new BrowserProfile(Collections.emptyList(), cacheDir, new Dimension(800, 600)).configure(unblocked, null);
+        Map<String, Object> unblockedPrefs = (Map<String, Object>) ((Map<String, Object>) unblocked
+                .getCapability(FirefoxOptions.FIREFOX_OPTIONS)).get("prefs");
+        Assert.assertFalse(unblockedPrefs.containsKey("permissions.default.image"));
+    }
+
+    /**
+     * Test that a page load is reported against the test's average in the other mode and that the
+     * averages survive a save and reload.
+     */
+    @Test
+    public void testPageLoadComparison() throws Exception {
+        Path file = Files.createTempDirectory("page-load").resolve("page-load-times.properties");
+        PageLoadTimes withoutProfile = new PageLoadTimes(file);
+        Assert.assertEquals(withoutProfile.summary(false), "no page loads measured");
+        Assert.assertEquals(withoutProfile.record("TodoPageTest#testAddTodoItem", false, 1000),
+                "1000 ms without the performance profile");
+        withoutProfile.record("TodoPageTest#testAddTodoItem", false, 2000);
+        withoutProfile.save();
+
+        PageLoadTimes withProfile = new PageLoadTimes(file);
+        Assert.assertEquals(withProfile.record("TodoPageTest#testAddTodoItem", true, 400),
+                "400 ms with the performance profile, 1500 ms on average without the performance profile");
+        withProfile.record("TodoPageTest#testDeleteTask", true, 600);
+        Assert.assertEquals(withProfile.summary(true),
+                "500 ms average over 2 page loads with the performance profile; 1 of the tests averaged 400 ms this run"
+                        + " and 1500 ms without the performance profile");
+    }
+}
@@ -0,0 +1,78 @@
+package com.hmh.automation.tests;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.events.EventFiringDecorator;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.hmh.automation.metrics.CommandMetrics;
+import com.hmh.automation.metrics.CommandTimingListener;
+import com.hmh.automation.testutil.StubDrivers;
+
+/**
+ * Test class for WebDriver command and page method timing. Uses a stub driver
+ * instead of a browser.
+ */
+public class CommandMetricsTest {
+
+    private final CommandMetrics metrics = CommandMetrics.getInstance();
+
+    /**
+     * Test that commands are timed per command and per calling page method, and show up in the
+     * per-test breakdown and the Prometheus export.
+     */
+    @Test
+    @SuppressWarnings("try") // the timer only scopes the commands, like in the page objects
+    public void testCommandsAreAttributedToPageMethods() throws Exception {
+        WebDriver driver = new EventFiringDecorator<WebDriver>(new CommandTimingListener(metrics))
+                .decorate(stubDriver());
+        metrics.startTest();
+        try (CommandMetrics.Timer timer = metrics.pageMethod("readTitle")) {
+            driver.getTitle();
+            ((JavascriptExecutor) driver).executeScript("return 1");
+        }
+
+        String[][] breakdown = metrics.testBreakdown();
+        Assert.assertTrue(contains(breakdown, "command", "WebDriver.getTitle"), Arrays.deepToString(breakdown));
+        Assert.assertTrue(contains(breakdown, "command", "JavascriptExecutor.executeScript"),
+                Arrays.deepToString(breakdown));
+        Assert.assertTrue(contains(breakdown, "page method", "readTitle"), Arrays.deepToString(breakdown));
+        Assert.assertNull(metrics.testBreakdown(), "Breakdown not reset after the test");
+
+        Path file = Files.createTempDirectory("metrics").resolve("metrics.prom");
+        metrics.writePrometheus(file);
+        String exported = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        Assert.assertTrue(exported.contains("# TYPE webdriver_command_duration_seconds histogram"));
+        Assert.assertTrue(exported.contains(
+                "page_method_command_duration_seconds_count{method=\"readTitle\",command=\"WebDriver.getTitle\"} "));
+        Assert.assertTrue(exported.contains("webdriver_command_duration_seconds_bucket{command=\"WebDriver.getTitle\",le=\"+Inf\"} "));
+    }
+
+    private static boolean contains(String[][] rows, String kind, String name) {
+        for (String[] row : rows) {
+            if (row[0].equals(kind) && row[1].equals(name) && Integer.parseInt(row[2]) > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static WebDriver stubDriver() {
+        return StubDrivers.stub((name, args) -> {
+            switch (name) {
+            case "getTitle":
+                return "stub";
+            case "executeScript":
+                return 1L;
+            default:
+                throw StubDrivers.unsupported(name);
+            }
+        }, JavascriptExecutor.class);
+    }
+}
@@ -0,0 +1,122 @@
+package com.hmh.automation.tests;
+
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.hmh.automation.data.DataProviders;
+import com.hmh.automation.data.DataRow;
+import com.hmh.automation.data.DataSource;
+import com.hmh.automation.data.RowSource;
+
+/**
+ * Test class for the streaming CSV and xlsx data sources. Runs without a browser.
+ */
+public class DataSourceTest {
+
+    /**
+     * Test that quoted CSV fields keep commas, doubled quotes and line breaks.
+     */
+    @Test
+    public void testCsvQuotedFields() throws Exception {
+        Path file = Files.createTempFile("scenarios", ".csv");
+        Files.write(file, ("scenario,todos\n" + "\"a, b\",\"say \"\"hi\"\"\"\n" + "\n" + "multi,\"line 1\nline 2\"\n"
+                + "short\n").getBytes(StandardCharsets.UTF_8));
+
+        try (RowSource rows = RowSource.open(file, null)) {
+            DataRow first = rows.next();
+            Assert.assertEquals(first.get("scenario"), "a, b");
+            Assert.assertEquals(first.get("todos"), "say \"hi\"");
+            Assert.assertEquals(rows.next().get("todos"), "line 1\nline 2");
+            Assert.assertEquals(rows.next().get("todos"), "");
+            Assert.assertFalse(rows.hasNext());
+        }
+    }
+
+    /**
+     * Test that every row of a large sheet is streamed, with formatted numbers and blank cells.
+     */
+    @Test
+    public void testXlsxStreamsAllRows() throws Exception {
+        Path file = writeWorkbook(20_000);
+        int count = 0;
+        try (RowSource rows = RowSource.open(file, "scenarios")) {
+            while (rows.hasNext()) {
+                DataRow row = rows.next();
+                count++;
+                Assert.assertEquals(row.getNumber(), count + 1);
+                Assert.assertEquals(row.getInt("expectedVisible"), count % 7);
+                Assert.assertEquals(row.get("todos"), count % 2 == 0 ? "" : "todo " + count);
+            }
+        }
+        Assert.assertEquals(count, 20_000);
+    }
+
+    /**
+     * Test that a source closed before its end stops the background parser.
+     */
+    @Test
+    public void testXlsxEarlyClose() throws Exception {
+        Path file = writeWorkbook(5_000);
+        RowSource rows = RowSource.open(file, "scenarios");
+        Assert.assertEquals(rows.next().get("scenario"), "scenario 1");
+        rows.close();
+        Assert.assertFalse(rows.hasNext());
+        Files.delete(file);
+    }
+
+    /**
+     * Test that the data provider streams the rows of the method's data source.
+     */
+    @Test
+    public void testDataProviderReadsSampleSheet() throws Exception {
+        Method method = DataSourceTest.class.getDeclaredMethod("sampleScenario", DataRow.class);
+        Iterator<Object[]> invocations = DataProviders.sheet(method);
+        DataRow first = (DataRow) invocations.next()[0];
+        Assert.assertEquals(first.get("scenario"), "Single active todo");
+        int count = 1;
+        while (invocations.hasNext()) {
+            invocations.next();
+            count++;
+        }
+        Assert.assertEquals(count, 6);
+    }
+
+    @DataSource("data/todo-scenarios.csv")
+    void sampleScenario(DataRow row) {
+    }
+
+    private static Path writeWorkbook(int rows) throws Exception {
+        Path file = Files.createTempFile("scenarios", ".xlsx");
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook(100)) {
+            workbook.createSheet("other").createRow(0).createCell(0).setCellValue("ignored");
+            Sheet sheet = workbook.createSheet("scenarios");
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("scenario");
+            header.createCell(1).setCellValue("todos");
+            header.createCell(2).setCellValue("expectedVisible");
+            for (int i = 1; i <= rows; i++) {
+                Row row = sheet.createRow(i);
+                row.createCell(0).setCellValue("scenario " + i);
+                if (i % 2 == 1) {
+                    row.createCell(1).setCellValue("todo " + i);
+                }
+                row.createCell(2).setCellValue(i % 7);
+            }
+            try (OutputStream out = Files.newOutputStream(file)) {
+                workbook.write(out);
+            }
+            workbook.dispose();
+        }
+        return file;
+    }
+}
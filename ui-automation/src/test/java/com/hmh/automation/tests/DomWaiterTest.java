@@ -0,0 +1,103 @@
+package com.hmh.automation.tests;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.hmh.automation.testutil.StubDrivers;
+import com.hmh.automation.waits.DomCondition;
+import com.hmh.automation.waits.DomWaiter;
+import com.hmh.automation.waits.WaitEngine;
+
+/**
+ * Test class for the DOM condition waits. Uses a stub driver instead of a browser.
+ */
+public class DomWaiterTest {
+
+    /**
+     * Test that a push wait is a single asynchronous script given the learned timeout.
+     */
+    @Test
+    public void testPushWaitIsOneAsyncScript() throws Exception {
+        List<Object[]> calls = new ArrayList<>();
+        WebDriver driver = stubDriver((name, args) -> {
+            calls.add(new Object[] { name, args });
+            return result(true, 7);
+        });
+        WaitEngine engine = engine(2000);
+
+        long version = new DomWaiter(driver, engine, true).until("filterApplied",
+                DomCondition.filterApplied("Active"));
+        Assert.assertEquals(version, 7);
+        Assert.assertEquals(calls.size(), 1);
+        Assert.assertEquals(calls.get(0)[0], "executeAsyncScript");
+        Object[] args = (Object[]) calls.get(0)[1];
+        Assert.assertEquals(args[0], "filterApplied");
+        Assert.assertEquals(((Map<?, ?>) args[1]).get("filter"), "Active");
+        Assert.assertEquals(args[2], 2000L);
+    }
+
+    /**
+     * Test that a push wait the browser reports as unmet fails with a timeout.
+     */
+    @Test
+    public void testPushWaitTimesOut() throws Exception {
+        WebDriver driver = stubDriver((name, args) -> result(false, 0));
+        try {
+            new DomWaiter(driver, engine(500), true).until("todoListChanged", DomCondition.listChangedSince(3));
+            Assert.fail("Unmet condition returned");
+        } catch (TimeoutException e) {
+            Assert.assertTrue(e.getMessage().contains("todoListChanged"), e.getMessage());
+        }
+    }
+
+    /**
+     * Test that with push waits off the same check is polled until it holds.
+     */
+    @Test
+    public void testPollWaitRetriesCheck() throws Exception {
+        AtomicInteger checks = new AtomicInteger();
+        WebDriver driver = stubDriver((name, args) -> {
+            Assert.assertEquals(name, "executeScript");
+            return result(checks.incrementAndGet() == 3, 2);
+        });
+        long version = new DomWaiter(driver, engine(2000), false).until("todoCompletedRendered",
+                DomCondition.completedSettled(0, true));
+        Assert.assertEquals(version, 2);
+        Assert.assertEquals(checks.get(), 3);
+    }
+
+    private static WaitEngine engine(long timeoutMillis) throws Exception {
+        return new WaitEngine(1, 2, 5, timeoutMillis, timeoutMillis, 3,
+                Files.createTempDirectory("waits").resolve("history.properties"));
+    }
+
+    private static Map<String, Object> result(boolean met, long version) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("met", met);
+        result.put("listVersion", version);
+        return result;
+    }
+
+    private static WebDriver stubDriver(ScriptHandler scripts) {
+        return StubDrivers.stub((name, args) -> {
+            if ("executeScript".equals(name) || "executeAsyncScript".equals(name)) {
+                return scripts.run(name, (Object[]) args[1]);
+            }
+            throw StubDrivers.unsupported(name);
+        }, JavascriptExecutor.class);
+    }
+
+    private interface ScriptHandler {
+        Object run(String name, Object[] args);
+    }
+}
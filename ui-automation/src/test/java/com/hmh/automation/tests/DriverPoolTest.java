@@ -0,0 +1,45 @@
+package com.hmh.automation.tests;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openqa.selenium.WebDriver;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.hmh.automation.base.DriverPool;
+import com.hmh.automation.testutil.StubDrivers;
+
+/**
+ * Test class for leasing browser sessions from the driver pool. Runs without a browser.
+ */
+public class DriverPoolTest {
+
+    /**
+     * Test that a new session whose reset fails is quit instead of left running outside the pool.
+     */
+    @Test
+    public void testFailedResetQuitsNewSession() {
+        AtomicInteger quits = new AtomicInteger();
+        DriverPool pool = new DriverPool(1, 1, () -> fakeDriver(quits), driver -> {
+            throw new IllegalStateException("application unreachable");
+        });
+        for (int i = 1; i <= 2; i++) {
+            try {
+                pool.lease();
+                Assert.fail("The lease should fail");
+            } catch (IllegalStateException e) {
+                Assert.assertEquals(e.getMessage(), "application unreachable", "The permit was handed back");
+            }
+            Assert.assertEquals(quits.get(), i, "The browser is quit");
+        }
+    }
+
+    private static WebDriver fakeDriver(AtomicInteger quits) {
+        return StubDrivers.stub((name, args) -> {
+            if ("quit".equals(name)) {
+                quits.incrementAndGet();
+            }
+            return null;
+        });
+    }
+}
@@ -0,0 +1,91 @@
+package com.hmh.automation.tests;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.openqa.selenium.ElementClickInterceptedException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriverException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+import com.hmh.automation.retry.FlakeHistory;
+import com.hmh.automation.retry.QuarantineLane;
+import com.hmh.automation.retry.TransientFailures;
+
+/**
+ * Test class for failure classification, flake history and the quarantine lane. Runs without a
+ * browser.
+ */
+public class FlakeHistoryTest {
+
+    /**
+     * Test that only stale elements, intercepted clicks and timeouts count as transient.
+     */
+    @Test
+    public void testTransientFailures() {
+        Assert.assertTrue(TransientFailures.isTransient(new StaleElementReferenceException("stale")));
+        Assert.assertTrue(TransientFailures.isTransient(new ElementClickInterceptedException("covered")));
+        Assert.assertTrue(TransientFailures.isTransient(
+                new IllegalStateException("wrapped", new TimeoutException("Condition 'filterApplied' not met"))));
+        Assert.assertFalse(TransientFailures.isTransient(new AssertionError("Todo count mismatch!")));
+        Assert.assertFalse(TransientFailures.isTransient(new WebDriverException("session deleted")));
+        Assert.assertFalse(TransientFailures.isTransient(null));
+    }
+
+    /**
+     * Test that a test is quarantined once enough of its recent runs were flaky, that the history
+     * survives a reload, and that failures of other kinds never quarantine.
+     */
+    @Test
+    public void testQuarantineFromRecentRuns() throws Exception {
+        Path file = Files.createTempDirectory("flakes").resolve("flake-history.properties");
+        FlakeHistory history = new FlakeHistory(file, 4, 3, 0.5);
+        String flaky = "TodoPageTest#testDeleteTodoItem";
+        String broken = "TodoPageTest#testEditTodoItem";
+        for (char outcome : "PFF".toCharArray()) {
+            history.record(flaky, outcome);
+            history.record(broken, FlakeHistory.FAILED);
+        }
+        Assert.assertEquals(history.flakeRate(flaky), 2.0 / 3, 0.001);
+        Assert.assertEquals(history.getQuarantined(), Collections.singleton(flaky));
+        history.save();
+
+        FlakeHistory reloaded = new FlakeHistory(file, 4, 3, 0.5);
+        Assert.assertTrue(reloaded.isQuarantined(flaky));
+        for (int run = 0; run < 3; run++) {
+            reloaded.record(flaky, FlakeHistory.PASSED);
+        }
+        Assert.assertEquals(reloaded.flakeRate(flaky), 0.25, 0.001, "Only the last 4 runs count");
+        Assert.assertFalse(reloaded.isQuarantined(flaky));
+    }
+
+    /**
+     * Test that quarantined methods are excluded from their test and run in a separate lane.
+     */
+    @Test
+    public void testQuarantineLane() {
+        XmlSuite suite = new XmlSuite();
+        XmlTest test = new XmlTest(suite);
+        test.setName("Test");
+        XmlClass todoTests = new XmlClass(TodoPageTest.class.getName());
+        test.setXmlClasses(Arrays.asList(todoTests, new XmlClass(TodoDataDrivenTest.class.getName())));
+
+        int moved = QuarantineLane.apply(suite,
+                Collections.singleton(TodoPageTest.class.getName() + "#testDeleteTodoItem"));
+        Assert.assertEquals(moved, 1);
+        Assert.assertEquals(todoTests.getExcludedMethods(), Collections.singletonList("testDeleteTodoItem"));
+        Assert.assertEquals(suite.getTests().size(), 2);
+        XmlTest lane = suite.getTests().get(1);
+        Assert.assertEquals(lane.getName(), "Test [quarantine]");
+        Assert.assertEquals(lane.getParameter(QuarantineLane.PARAMETER), "true");
+        Assert.assertEquals(lane.getXmlClasses().size(), 1);
+        Assert.assertEquals(lane.getXmlClasses().get(0).getIncludedMethods().get(0).getName(), "testDeleteTodoItem");
+    }
+}
@@ -0,0 +1,103 @@
+package com.hmh.automation.tests;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.hmh.automation.utils.FrameworkConfig;
+
+/**
+ * Test class for the layered framework config. Runs without a browser.
+ */
+public class FrameworkConfigTest {
+
+    /**
+     * Test that the environment overrides the file and system properties override both.
+     */
+    @Test
+    public void testLayersOverrideInOrder() {
+        Properties file = new Properties();
+        file.setProperty("poolSize", "2");
+        file.setProperty("shards", "3");
+        file.setProperty("browser", "Firefox");
+        Map<String, String> environment = new HashMap<>();
+        environment.put("HMH_POOL_SIZE", "4");
+        environment.put("HMH_PAGE_LOAD_TIMEOUT", "15");
+        environment.put("POOL_SIZE", "99");
+        Properties system = new Properties();
+        system.setProperty("poolSize", "6");
+
+        FrameworkConfig config = new FrameworkConfig(file, environment, system);
+        Assert.assertEquals(config.getPoolSize(), 6);
+        Assert.assertEquals(config.getShards(), 3);
+        Assert.assertEquals(config.getBrowser(), "firefox");
+        Assert.assertEquals(config.getPageLoadTimeout(), Duration.ofSeconds(15));
+        Assert.assertEquals(config.getString("pageLoadTimeout"), "15");
+    }
+
+    /**
+     * Test that unset settings fall back to the defaults.
+     */
+    @Test
+    public void testDefaults() {
+        FrameworkConfig config = new FrameworkConfig(new Properties(), Collections.<String, String>emptyMap(),
+                new Properties());
+        Assert.assertEquals(config.getPoolSize(), 1);
+        Assert.assertEquals(config.getPoolLeaseTimeout(), Duration.ofSeconds(300));
+        Assert.assertEquals(config.getImplicitWait(), Duration.ZERO);
+        Assert.assertEquals(config.getParallelism(), 0);
+        Assert.assertFalse(config.getShardIndex().isPresent());
+        Assert.assertFalse(config.isWarmSessions());
+        Assert.assertFalse(config.isHeadless());
+        Assert.assertEquals(config.getScreenshotFormat(), "png");
+        Assert.assertEquals(config.getScaleSizes(), Arrays.asList(1000, 10000, 50000));
+        Assert.assertFalse(config.getExtentJsonPath().isPresent());
+    }
+
+    /**
+     * Test that a blank value means the default rather than a second fallback at the call site.
+     */
+    @Test
+    public void testBlankValueMeansDefault() {
+        Properties file = new Properties();
+        file.setProperty("poolLeaseTimeout", " ");
+        file.setProperty("screenshotFormat", "");
+        file.setProperty("retry", "");
+        file.setProperty("waitBackoffMultiplier", "");
+        FrameworkConfig config = new FrameworkConfig(file, Collections.<String, String>emptyMap(), new Properties());
+        Assert.assertEquals(config.getPoolLeaseTimeout(), Duration.ofSeconds(300));
+        Assert.assertEquals(config.getScreenshotFormat(), "png");
+        Assert.assertTrue(config.isRetry());
+        Assert.assertEquals(config.getWaitBackoffMultiplier(), 2.0);
+    }
+
+    /**
+     * Test that an invalid value fails when the config is loaded and names the setting.
+     */
+    @Test
+    public void testInvalidValueFailsFast() {
+        Properties file = new Properties();
+        file.setProperty("runheadless", "yes");
+        try {
+            new FrameworkConfig(file, Collections.<String, String>emptyMap(), new Properties());
+            Assert.fail("Invalid runheadless accepted");
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().contains("runheadless"), e.getMessage());
+            Assert.assertTrue(e.getMessage().contains("HMH_RUNHEADLESS"), e.getMessage());
+        }
+        file = new Properties();
+        file.setProperty("screenshotFormat", "gif");
+        try {
+            new FrameworkConfig(file, Collections.<String, String>emptyMap(), new Properties());
+            Assert.fail("Invalid screenshotFormat accepted");
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().contains("png or jpg"), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.hmh.automation.tests;
+
+import java.util.Map;
+
+import org.openqa.selenium.json.Json;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.hmh.automation.base.GridScheduler;
+
+/**
+ * Test class for reading Selenium Grid slot availability. Runs without a
+ * browser or a Grid.
+ */
+public class GridSchedulerTest {
+
+    private static final String STATUS = "{\"value\": {\"ready\": true, \"nodes\": ["
+            + "{\"uri\": \"http://node-1:5555\", \"availability\": \"UP\", \"slots\": ["
+            + "  {\"session\": null, \"stereotype\": {\"browserName\": \"chrome\"}},"
+            + "  {\"session\": {\"sessionId\": \"a\"}, \"stereotype\": {\"browserName\": \"chrome\"}},"
+            + "  {\"session\": null, \"stereotype\": {\"browserName\": \"firefox\"}}]},"
+            + "{\"uri\": \"http://node-2:5555\", \"availability\": \"DRAINING\", \"slots\": ["
+            + "  {\"session\": null, \"stereotype\": {\"browserName\": \"chrome\"}}]}]}}";
+
+    /**
+     * Test that only idle slots of the requested browser on UP nodes are counted.
+     */
+    @Test
+    public void testFreeSlotsPerBrowser() {
+        Map<String, Object> status = new Json().toType(STATUS, Json.MAP_TYPE);
+        Assert.assertEquals(GridScheduler.freeSlots(status, "chrome"), 1);
+        Assert.assertEquals(GridScheduler.freeSlots(status, "firefox"), 1);
+        Assert.assertEquals(GridScheduler.freeSlots(status, "MicrosoftEdge"), 0);
+    }
+
+    /**
+     * Test that a Grid without nodes has no free slots.
+     */
+    @Test
+    public void testEmptyGridHasNoFreeSlots() {
+        Map<String, Object> status = new Json().toType("{\"value\": {\"ready\": false, \"nodes\": []}}",
+                Json.MAP_TYPE);
+        Assert.assertEquals(GridScheduler.freeSlots(status, "chrome"), 0);
+    }
+}
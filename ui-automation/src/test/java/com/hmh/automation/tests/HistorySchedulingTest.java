@@ -0,0 +1,117 @@
+package com.hmh.automation.tests;
+
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.openqa.selenium.WebDriver;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.hmh.automation.base.DriverPool;
+import com.hmh.automation.retry.FlakeHistory;
+import com.hmh.automation.schedule.FailFast;
+import com.hmh.automation.schedule.TestOrder;
+import com.hmh.automation.testutil.StubDrivers;
+
+/**
+ * Test class for history-based test ordering, the fail-fast threshold and draining the driver pool.
+ * Runs without a browser.
+ */
+public class HistorySchedulingTest {
+
+    /**
+     * Test that tests failed in their last run come first, then new tests, then the likeliest to
+     * fail, and that equally likely tests run longest first.
+     */
+    @Test
+    public void testHistoryOrder() throws Exception {
+        FlakeHistory history = new FlakeHistory(Files.createTempDirectory("order").resolve("flakes.properties"),
+                20, 5, 0.3);
+        record(history, "failedLast", "PPPPX");
+        record(history, "failedBefore", "XPPPP");
+        record(history, "flaky", "PFPFP");
+        record(history, "shortPass", "PPPPP");
+        record(history, "longPass", "PPPPP");
+        Map<String, Long> durations = new HashMap<>();
+        durations.put("shortPass", 1_000L);
+        durations.put("longPass", 9_000L);
+
+        List<String> tests = Arrays.asList("shortPass", "longPass", "flaky", "newTest", "failedBefore", "failedLast");
+        Assert.assertEquals(TestOrder.order(tests, Function.identity(), history, durations),
+                Arrays.asList("failedLast", "newTest", "flaky", "failedBefore", "longPass", "shortPass"));
+
+        Assert.assertEquals(TestOrder.failureLikelihood(""), 0.0);
+        Assert.assertEquals(TestOrder.failureLikelihood("XXX"), 1.0, 0.001);
+        Assert.assertTrue(TestOrder.failureLikelihood("PPX") > TestOrder.failureLikelihood("XPP"),
+                "Recent failures weigh more");
+    }
+
+    private static void record(FlakeHistory history, String test, String outcomes) {
+        for (char outcome : outcomes.toCharArray()) {
+            history.record(test, outcome);
+        }
+    }
+
+    /**
+     * Test that the run is aborted exactly once, at the threshold, and never with a threshold of 0.
+     */
+    @Test
+    public void testFailFastThreshold() {
+        AtomicInteger trips = new AtomicInteger();
+        FailFast failFast = new FailFast(2);
+        failFast.onTrip(trips::incrementAndGet);
+        failFast.recordFailure("TodoPageTest#testAddTodoItem");
+        Assert.assertFalse(failFast.isTripped());
+        failFast.recordFailure("TodoPageTest#testDeleteTask");
+        failFast.recordFailure("TodoPageTest#testCompleteTodo");
+        Assert.assertTrue(failFast.isTripped());
+        Assert.assertTrue(failFast.getReason().contains("TodoPageTest#testDeleteTask"), failFast.getReason());
+        Assert.assertEquals(trips.get(), 1);
+
+        FailFast never = new FailFast(0);
+        for (int i = 0; i < 10; i++) {
+            never.recordFailure("TodoPageTest#testAddTodoItem");
+        }
+        Assert.assertFalse(never.isTripped());
+    }
+
+    /**
+     * Test that draining quits the idle sessions at once and leased ones when they are released.
+     */
+    @Test
+    public void testDrainPool() throws Exception {
+        AtomicInteger quits = new AtomicInteger();
+        DriverPool pool = new DriverPool(2, 5, () -> fakeDriver(quits), driver -> {
+        });
+        ExecutorService otherThread = Executors.newSingleThreadExecutor();
+        try {
+            pool.lease();
+            otherThread.submit(pool::lease).get();
+            pool.release();
+            Assert.assertEquals(quits.get(), 0, "Released sessions stay in the pool");
+
+            pool.drain();
+            Assert.assertEquals(quits.get(), 1, "The idle session is quit");
+            otherThread.submit(pool::release).get();
+            Assert.assertEquals(quits.get(), 2, "A session released after draining is quit");
+        } finally {
+            otherThread.shutdown();
+        }
+    }
+
+    private static WebDriver fakeDriver(AtomicInteger quits) {
+        return StubDrivers.stub((name, args) -> {
+            if ("quit".equals(name)) {
+                quits.incrementAndGet();
+            }
+            return null;
+        });
+    }
+}
@@ -0,0 +1,120 @@
+package com.hmh.automation.tests;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.hmh.automation.base.LocalAppServer;
+
+/**
+ * Test class for the local application server, serving the bundled TodoMVC.
+ * Runs without a browser.
+ */
+public class LocalAppServerTest {
+
+    private LocalAppServer server;
+
+    @BeforeClass
+    public void startServer() throws Exception {
+        server = new LocalAppServer(Paths.get("src/test/resources/todomvc"), "127.0.0.1", 600, 2);
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopServer() {
+        server.stop();
+    }
+
+    /**
+     * Test that the index page is served at the root and always revalidated.
+     */
+    @Test
+    public void testServesIndexPage() throws Exception {
+        HttpURLConnection connection = open(server.getUrl());
+        Assert.assertEquals(connection.getResponseCode(), 200);
+        Assert.assertEquals(connection.getHeaderField("Cache-Control"), "no-cache");
+        Assert.assertTrue(connection.getContentType().startsWith("text/html"), connection.getContentType());
+        Assert.assertTrue(read(connection).contains("id=\"todo-input\""), "TodoMVC markup missing");
+    }
+
+    /**
+     * Test that assets are cacheable and a matching If-None-Match is answered with 304.
+     */
+    @Test
+    public void testAssetsAreCachedAndRevalidated() throws Exception {
+        HttpURLConnection connection = open(server.getUrl() + "app.js");
+        Assert.assertEquals(connection.getResponseCode(), 200);
+        Assert.assertEquals(connection.getHeaderField("Cache-Control"), "public, max-age=600");
+        String etag = connection.getHeaderField("ETag");
+        Assert.assertNotNull(etag, "ETag missing");
+        read(connection);
+
+        HttpURLConnection revalidation = open(server.getUrl() + "app.js");
+        revalidation.setRequestProperty("If-None-Match", etag);
+        Assert.assertEquals(revalidation.getResponseCode(), 304);
+    }
+
+    /**
+     * Test that unknown paths are not found.
+     */
+    @Test
+    public void testUnknownPathIsNotFound() throws Exception {
+        Assert.assertEquals(open(server.getUrl() + "missing.js").getResponseCode(), 404);
+    }
+
+    /**
+     * Test that every server binds its own ephemeral port.
+     */
+    @Test
+    public void testServersUseSeparatePorts() throws Exception {
+        LocalAppServer other = new LocalAppServer(Paths.get("src/test/resources/todomvc"), "127.0.0.1", 600, 1);
+        try {
+            Assert.assertNotEquals(other.getPort(), server.getPort());
+            Assert.assertEquals(open(other.getUrl()).getResponseCode(), 200);
+        } finally {
+            other.stop();
+        }
+    }
+
+    /**
+     * Test that the default localAppDir is found on the classpath and an existing directory is kept.
+     */
+    @Test
+    public void testResolvesAppDirectory() throws Exception {
+        Path classpathDir = LocalAppServer.resolveRoot(Paths.get("todomvc"));
+        Assert.assertTrue(classpathDir.isAbsolute(), classpathDir.toString());
+        Assert.assertTrue(Files.isRegularFile(classpathDir.resolve("index.html")), classpathDir.toString());
+
+        Path sourceDir = Paths.get("src/test/resources/todomvc");
+        Assert.assertEquals(LocalAppServer.resolveRoot(sourceDir), sourceDir);
+        Path missing = Paths.get("no-such-app");
+        Assert.assertEquals(LocalAppServer.resolveRoot(missing), missing, "Left for the server to report");
+    }
+
+    private static HttpURLConnection open(String url) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setUseCaches(false);
+        return connection;
+    }
+
+    private static String read(HttpURLConnection connection) throws Exception {
+        try (InputStream in = connection.getInputStream()) {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            byte[] chunk = new byte[8192];
+            int read;
+            while ((read = in.read(chunk)) != -1) {
+                body.write(chunk, 0, read);
+            }
+            return new String(body.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.hmh.automation.tests;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import org.testng.Assert;
+import org.testng.ITestResult;
+import org.testng.annotations.Test;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+import com.hmh.automation.base.MatrixCell;
+import com.hmh.automation.base.MatrixTimings;
+import com.hmh.automation.base.SuiteConfigListener;
+import com.hmh.automation.utils.FrameworkConfig;
+
+/**
+ * Test class for the browser matrix mode. Runs without a browser.
+ */
+public class MatrixTest {
+
+    /**
+     * Test that the cells are every combination of the configured axes.
+     */
+    @Test
+    public void testCellsCombineAxes() {
+        Properties file = new Properties();
+        file.setProperty("matrix", "true");
+        file.setProperty("matrixBrowsers", "chrome, firefox");
+        file.setProperty("matrixHeadless", "true,false");
+        file.setProperty("matrixViewports", "1280x800,max");
+
+        List<MatrixCell> cells = MatrixCell.fromConfig(
+                new FrameworkConfig(file, Collections.<String, String>emptyMap(), new Properties()));
+        Assert.assertEquals(cells.size(), 8);
+        Assert.assertEquals(cells.get(0).getName(), "chrome-headless-1280x800");
+        Assert.assertEquals(cells.get(0).getViewport().getWidth(), 1280);
+        Assert.assertNull(cells.get(7).getViewport());
+        Assert.assertEquals(cells.get(7).getName(), "firefox-headed-max");
+    }
+
+    /**
+     * Test that an unknown matrix browser fails when the config is loaded.
+     */
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = ".*matrixBrowsers.*")
+    public void testInvalidBrowserFailsFast() {
+        Properties file = new Properties();
+        file.setProperty("matrixBrowsers", "chrome,safari");
+        new FrameworkConfig(file, Collections.<String, String>emptyMap(), new Properties());
+    }
+
+    /**
+     * Test that every test of the suite is copied once per cell, and the copies run in parallel.
+     */
+    @Test
+    public void testSuiteIsExpandedPerCell() {
+        XmlSuite suite = new XmlSuite();
+        XmlTest test = new XmlTest(suite);
+        test.setName("Test");
+        test.setXmlClasses(Arrays.asList(new XmlClass(TodoPageTest.class.getName(), false)));
+        List<MatrixCell> cells = Arrays.asList(new MatrixCell("chrome", true, null),
+                new MatrixCell("firefox", false, null));
+
+        SuiteConfigListener.expandMatrix(suite, cells, 3);
+        Assert.assertEquals(suite.getTests().size(), 2);
+        Assert.assertEquals(suite.getParallel(), XmlSuite.ParallelMode.TESTS);
+        XmlTest firefox = suite.getTests().get(1);
+        Assert.assertEquals(firefox.getName(), "Test [firefox-headed-max]");
+        Assert.assertEquals(firefox.getParameter(MatrixCell.PARAMETER), "firefox-headed-max");
+        Assert.assertEquals(firefox.getThreadCount(), 3);
+        Assert.assertEquals(firefox.getParallel(), XmlSuite.ParallelMode.METHODS);
+        Assert.assertFalse(firefox.getXmlClasses().get(0) == test.getXmlClasses().get(0), "XmlClass shared between tests");
+    }
+
+    /**
+     * Test that cell timings are reported side by side against their sum.
+     */
+    @Test
+    public void testTimingsPerCell() {
+        MatrixTimings timings = new MatrixTimings();
+        timings.record("chrome-headless-max", ITestResult.SUCCESS, 1_000, 3_000);
+        timings.record("chrome-headless-max", ITestResult.FAILURE, 2_000, 5_000);
+        timings.record("firefox-headless-max", ITestResult.SUCCESS, 1_000, 2_500);
+
+        String[][] table = timings.table();
+        Assert.assertEquals(table.length, 3);
+        Assert.assertEquals(table[1], new String[] { "chrome-headless-max", "2", "1", "1", "0", "4.0", "5.0" });
+        Assert.assertTrue(timings.summary().contains("slowest 4.0 s, 5.5 s if run one after another"),
+                timings.summary());
+    }
+}
@@ -0,0 +1,68 @@
+package com.hmh.automation.tests;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.hmh.automation.journal.JournalReportRenderer;
+import com.hmh.automation.journal.ResultJournal;
+
+/**
+ * Test class for the result journal and its HTML renderer. Runs without a browser.
+ */
+public class ResultJournalTest {
+
+    /**
+     * Test that every run appends complete lines to the same journal, even with a tiny buffer.
+     */
+    @Test
+    public void testRunsAppendToOneJournal() throws Exception {
+        Path file = Files.createTempDirectory("journal").resolve("journal.jsonl");
+        writeRun(file, "run-1", "PASS");
+        writeRun(file, "run-2", "FAIL");
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        Assert.assertEquals(lines.size(), 6);
+        Assert.assertTrue(lines.get(0).startsWith("{\"run\": \"run-1\""), lines.get(0));
+        Assert.assertTrue(lines.get(4).contains("\"status\": \"FAIL\""), lines.get(4));
+    }
+
+    /**
+     * Test that the renderer shows only the latest run's results but a summary of every run.
+     */
+    @Test
+    public void testRendererSelectsLatestRun() throws Exception {
+        Path dir = Files.createTempDirectory("journal");
+        Path file = dir.resolve("journal.jsonl");
+        writeRun(file, "run-1", "PASS");
+        writeRun(file, "run-2", "FAIL");
+
+        Path html = dir.resolve("report.html");
+        new JournalReportRenderer(file).render(html, "latest");
+        String report = new String(Files.readAllBytes(html), StandardCharsets.UTF_8);
+        Assert.assertTrue(report.contains("<td>run-1</td>"), "Run summary missing");
+        Assert.assertTrue(report.contains("Results of run run-2"), "Latest run not selected");
+        Assert.assertTrue(report.contains("&lt;boom&gt;"), "Error not escaped");
+        Assert.assertFalse(report.contains("<tr><td>run-1</td><td>Sample#test</td>"), "Older run results shown");
+    }
+
+    private static void writeRun(Path file, String runId, String status) {
+        ResultJournal journal = new ResultJournal(file, runId, 16);
+        journal.append(ResultJournal.RUN_STARTED, new LinkedHashMap<String, Object>());
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("test", "Sample#test");
+        result.put("status", status);
+        result.put("durationMillis", 42);
+        if ("FAIL".equals(status)) {
+            result.put("error", "<boom>");
+        }
+        journal.append(ResultJournal.TEST_RESULT, result);
+        journal.close();
+    }
+}
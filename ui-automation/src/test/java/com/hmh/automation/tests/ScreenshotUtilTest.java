@@ -0,0 +1,59 @@
+package com.hmh.automation.tests;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.hmh.automation.testutil.StubDrivers;
+import com.hmh.automation.utils.ScreenshotUtil;
+
+/**
+ * Test class for the background screenshot writer. Uses a stub driver instead
+ * of a browser.
+ */
+public class ScreenshotUtilTest {
+
+    private static final byte[] PNG = { (byte) 0x89, 'P', 'N', 'G', 1, 2, 3 };
+
+    /**
+     * Test that screenshots of the same test taken at the same time get separate files.
+     */
+    @Test
+    public void testParallelScreenshotsDoNotCollide() throws Exception {
+        WebDriver driver = stubDriver();
+        CompletableFuture<String> first = ScreenshotUtil.captureScreenshotAsync(driver, "sameName");
+        CompletableFuture<String> second = ScreenshotUtil.captureScreenshotAsync(driver, "sameName");
+        Assert.assertTrue(ScreenshotUtil.awaitPendingWrites(10, TimeUnit.SECONDS));
+
+        Assert.assertNotEquals(first.get(), second.get());
+        Assert.assertEquals(Files.readAllBytes(Paths.get(first.get())), PNG);
+        Assert.assertEquals(Files.readAllBytes(Paths.get(second.get())), PNG);
+    }
+
+    /**
+     * Test that the callback has run by the time pending writes are awaited.
+     */
+    @Test
+    public void testCallbackRunsBeforeAwaitReturns() {
+        StringBuilder linked = new StringBuilder();
+        ScreenshotUtil.captureScreenshotAsync(stubDriver(), "callback", (path, error) -> linked.append(path));
+        Assert.assertTrue(ScreenshotUtil.awaitPendingWrites(10, TimeUnit.SECONDS));
+        Assert.assertTrue(linked.toString().endsWith(".png"), linked.toString());
+    }
+
+    private static WebDriver stubDriver() {
+        return StubDrivers.stub((name, args) -> {
+            if ("getScreenshotAs".equals(name)) {
+                return ((OutputType<?>) args[0]).convertFromPngBytes(PNG);
+            }
+            throw StubDrivers.unsupported(name);
+        }, TakesScreenshot.class);
+    }
+}
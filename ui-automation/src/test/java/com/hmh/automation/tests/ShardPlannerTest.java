@@ -0,0 +1,65 @@
+package com.hmh.automation.tests;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.hmh.automation.shard.ShardPlanner;
+
+/**
+ * Test class for duration-balanced shard planning. Runs without a browser.
+ */
+public class ShardPlannerTest {
+
+    private final ShardPlanner planner = new ShardPlanner();
+
+    /**
+     * Test that shards are balanced by duration rather than by test count.
+     */
+    @Test
+    public void testShardsAreBalancedByDuration() {
+        Map<String, Long> durations = new HashMap<>();
+        durations.put("A#slow", 9000L);
+        durations.put("A#a", 3000L);
+        durations.put("A#b", 3000L);
+        durations.put("A#c", 3000L);
+        List<ShardPlanner.Shard> shards = planner.plan(Arrays.asList("A#a", "A#b", "A#c", "A#slow"), durations, 2);
+
+        Assert.assertEquals(shards.get(0).getTests(), Collections.singletonList("A#slow"));
+        Assert.assertEquals(shards.get(1).getTests(), Arrays.asList("A#a", "A#b", "A#c"));
+        Assert.assertEquals(shards.get(0).getExpectedMillis(), 9000L);
+        Assert.assertEquals(shards.get(1).getExpectedMillis(), 9000L);
+    }
+
+    /**
+     * Test that tests without history are planned with the median known duration.
+     */
+    @Test
+    public void testUnknownTestsUseMedianDuration() {
+        Map<String, Long> durations = new HashMap<>();
+        durations.put("A#known1", 1000L);
+        durations.put("A#known2", 2000L);
+        durations.put("A#known3", 3000L);
+        List<ShardPlanner.Shard> shards = planner.plan(Arrays.asList("A#known1", "A#known2", "A#known3", "A#new"),
+                durations, 1);
+
+        Assert.assertEquals(shards.get(0).getExpectedMillis(), 8000L);
+    }
+
+    /**
+     * Test that every test is planned exactly once, even with more shards than tests.
+     */
+    @Test
+    public void testMoreShardsThanTests() {
+        List<ShardPlanner.Shard> shards = planner.plan(Arrays.asList("A#a", "A#b"), new HashMap<String, Long>(), 3);
+
+        Assert.assertEquals(shards.size(), 3);
+        Assert.assertEquals(shards.get(0).getTests().size() + shards.get(1).getTests().size()
+                + shards.get(2).getTests().size(), 2);
+    }
+}
@@ -0,0 +1,179 @@
+package com.hmh.automation.tests;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+import com.hmh.automation.impact.GitChanges;
+import com.hmh.automation.impact.GitChanges.ChangedFile;
+import com.hmh.automation.impact.ImpactMap;
+import com.hmh.automation.impact.ImpactSelector;
+import com.hmh.automation.impact.ImpactSelector.Selection;
+import com.hmh.automation.impact.SourceMembers;
+import com.hmh.automation.impact.TestSelection;
+
+/**
+ * Test class for change-impact test selection: mapping diffs to page-object members and members to
+ * the tests that used them. Runs without a browser or git.
+ */
+public class TestImpactTest {
+
+    private static final String PAGE = "ui-automation/src/main/java/com/hmh/automation/pages/TodoPage.java";
+    private static final String ADD = TodoPageTest.class.getName() + "#testAddTodoItem";
+    private static final String DELETE = TodoPageTest.class.getName() + "#testDeleteTask";
+    private static final String FILTER = TodoPageTest.class.getName() + "#testCompletedTaskFilter";
+
+    private static final List<String> PAGE_SOURCE = Arrays.asList(
+            "package com.hmh.automation.pages;",
+            "",
+            "public class TodoPage {",
+            "",
+            "\tprivate static final String ROWS = \"ul.todo-list > li\";",
+            "",
+            "\tprivate final CachedLocator todoInput = locators.xpath(\"todoInput\",",
+            "\t\t\t\"//input[@id='todo-input']\");",
+            "",
+            "\t/**",
+            "\t * Adds a todo { with a brace in a comment",
+            "\t */",
+            "\tpublic void addTodoItem(String item) {",
+            "\t\ttodoInput.find().sendKeys(item + \"}\");",
+            "\t}",
+            "",
+            "\tpublic void deleteTodoItem(int index) {",
+            "\t\tdeleteWithHover(index);",
+            "\t}",
+            "",
+            "\tprivate void deleteWithHover(int index) {",
+            "\t\tdriver.findElements(By.cssSelector(ROWS)).get(index).click();",
+            "\t}",
+            "",
+            "\tprivate void unused() {",
+            "\t}",
+            "}");
+
+    /**
+     * Test that every line is attributed to the member declaring it, ignoring braces in strings and
+     * comments.
+     */
+    @Test
+    public void testSourceMembers() {
+        SourceMembers members = new SourceMembers(PAGE_SOURCE);
+        Assert.assertEquals(members.memberAt(1), SourceMembers.OUTSIDE);
+        Assert.assertEquals(members.memberAt(3), SourceMembers.OUTSIDE);
+        Assert.assertEquals(members.memberAt(5), "ROWS");
+        Assert.assertEquals(members.memberAt(8), "todoInput");
+        Assert.assertNull(members.memberAt(11), "Javadoc belongs to no member");
+        Assert.assertEquals(members.memberAt(14), "addTodoItem");
+        Assert.assertEquals(members.memberAt(15), "addTodoItem");
+        Assert.assertEquals(members.memberAt(22), "deleteWithHover");
+        Assert.assertEquals(members.memberAt(27), SourceMembers.OUTSIDE);
+        Assert.assertTrue(members.getMemberCode().get("deleteTodoItem").contains("deleteWithHover(index)"));
+    }
+
+    /**
+     * Test that a diff is reduced to the changed lines of hunks changing code.
+     */
+    @Test
+    public void testParseDiff() {
+        String diff = String.join("\n",
+                "diff --git a/" + PAGE + " b/" + PAGE,
+                "index 1111111..2222222 100644",
+                "--- a/" + PAGE,
+                "+++ b/" + PAGE,
+                "@@ -11 +11 @@",
+                "-\t * Adds a todo",
+                "+\t * Adds a todo { with a brace in a comment",
+                "@@ -14,0 +14,2 @@ public class TodoPage {",
+                "+\t\ttodoInput.find().clear();",
+                "+\t\tlogger.info(\"adding\");",
+                "@@ -22 +23,0 @@",
+                "-\t\tdriver.findElement(By.cssSelector(ROWS)).click();",
+                "diff --git a/README.md b/README.md",
+                "new file mode 100644",
+                "--- /dev/null",
+                "+++ b/README.md",
+                "@@ -0,0 +1 @@",
+                "+# Notes");
+        List<ChangedFile> changes = GitChanges.parse(diff);
+        Assert.assertEquals(changes.size(), 2);
+        Assert.assertEquals(changes.get(0).getPath(), PAGE);
+        Assert.assertEquals(changes.get(0).getLines(), new HashSet<>(Arrays.asList(14, 15, 23, 24)));
+        Assert.assertFalse(changes.get(0).isWhole());
+        Assert.assertEquals(changes.get(1).getPath(), "README.md");
+        Assert.assertTrue(changes.get(1).isWhole());
+    }
+
+    /**
+     * Test that changed members select the tests that used them, directly or through the members
+     * calling them, that changed test classes run whole, and that anything unaccounted for runs
+     * everything.
+     */
+    @Test
+    public void testSelectAndExclude() throws Exception {
+        ImpactMap map = new ImpactMap(Files.createTempDirectory("impact").resolve("test-impact.properties"));
+        map.add(ADD, Arrays.asList("addTodoItem", "todoInput"));
+        map.add(DELETE, Arrays.asList("addTodoItem", "deleteTodoItem", "todoInput"));
+        map.add(FILTER, Arrays.asList("filterCompletedItems"));
+        Map<String, List<String>> pages = new LinkedHashMap<>();
+        pages.put(PAGE, PAGE_SOURCE);
+        Set<String> classes = new HashSet<>(Arrays.asList(TodoPageTest.class.getName(),
+                TodoDataDrivenTest.class.getName()));
+        ImpactSelector selector = new ImpactSelector(map, "ui-automation/", classes, pages);
+
+        Selection helper = selector.select(changes(PAGE, 22));
+        Assert.assertFalse(helper.isFullRun(), String.valueOf(helper.getFullRunReason()));
+        Assert.assertEquals(helper.getTests(), Collections.singleton(DELETE));
+        Assert.assertEquals(selector.select(changes(PAGE, 8)).getTests(), new HashSet<>(Arrays.asList(ADD, DELETE)));
+        Assert.assertTrue(selector.select(changes(PAGE, 11)).getTests().isEmpty(), "Javadoc changes select nothing");
+        Assert.assertTrue(selector.select(changes("ui-automation/README.md", 1)).getTests().isEmpty());
+
+        Assert.assertTrue(selector.select(changes(PAGE, 26)).isFullRun(), "No recorded test reaches unused()");
+        Assert.assertTrue(selector.select(changes(PAGE, 1)).isFullRun());
+        Assert.assertTrue(selector.select(changes(
+                "ui-automation/src/main/java/com/hmh/automation/base/DriverFactory.java", 10)).isFullRun());
+        Assert.assertTrue(new ImpactSelector(new ImpactMap(missing()),
+                "ui-automation/", classes, pages).select(changes(PAGE, 22)).isFullRun(), "Nothing recorded yet");
+
+        String dataDriven = "ui-automation/src/test/java/com/hmh/automation/tests/TodoDataDrivenTest.java";
+        Selection selection = selector.select(GitChanges.parse(String.join("\n",
+                diffHeader(PAGE), "@@ -14 +14 @@", "-a();", "+b();",
+                diffHeader(dataDriven), "@@ -40 +40 @@", "-a();", "+b();")));
+        Assert.assertEquals(selection.getClasses(), Collections.singleton(TodoDataDrivenTest.class.getName()));
+
+        XmlSuite suite = new XmlSuite();
+        XmlTest test = new XmlTest(suite);
+        XmlClass todoTests = new XmlClass(TodoPageTest.class.getName());
+        XmlClass dataDrivenTests = new XmlClass(TodoDataDrivenTest.class.getName());
+        test.setXmlClasses(Arrays.asList(todoTests, dataDrivenTests));
+        Assert.assertEquals(TestSelection.exclude(suite, selection, map), 1);
+        Assert.assertEquals(todoTests.getExcludedMethods(), Collections.singletonList("testCompletedTaskFilter"),
+                "Unrecorded methods still run");
+        Assert.assertTrue(dataDrivenTests.getExcludedMethods().isEmpty());
+    }
+
+    private static Path missing() throws Exception {
+        return Files.createTempDirectory("impact").resolve("missing.properties");
+    }
+
+    private static String diffHeader(String path) {
+        return String.join("\n", "diff --git a/" + path + " b/" + path, "--- a/" + path, "+++ b/" + path);
+    }
+
+    private static List<ChangedFile> changes(String path, int line) {
+        return GitChanges.parse(String.join("\n", diffHeader(path), "@@ -" + line + " +" + line + " @@",
+                "-old();", "+changed();"));
+    }
+}
@@ -0,0 +1,62 @@
+package com.hmh.automation.tests;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.hmh.automation.base.ExtentReportManager;
+import com.hmh.automation.base.TestDriverManager;
+import com.hmh.automation.data.DataProviders;
+import com.hmh.automation.data.DataRow;
+import com.hmh.automation.data.DataSource;
+import com.hmh.automation.pages.TodoPage;
+import com.hmh.automation.pages.TodoState;
+
+/**
+ * Data-driven test of the TodoMVC filters. Every row of todo-scenarios.csv
+ * describes a starting list, a filter and the number of todos expected to be
+ * shown; the rows run in parallel, each on its own pooled browser.
+ */
+public class TodoDataDrivenTest extends TestDriverManager {
+
+    private static final Logger logger = LogManager.getLogger(TodoDataDrivenTest.class);
+
+    @BeforeClass
+    public void setUpTest() {
+        ExtentReportManager.setClassNodeName(TodoDataDrivenTest.class, "ToDo data-driven scenarios");
+    }
+
+    /**
+     * Seeds the row's todos, applies its filter and checks how many todos are shown.
+     */
+    @Test(dataProvider = DataProviders.SHEET, dataProviderClass = DataProviders.class)
+    @DataSource("data/todo-scenarios.csv")
+    public void testFilterScenario(DataRow row) {
+        logger.info("Running scenario {}", row.get("scenario"));
+        TodoPage todoPage = new TodoPage(getDriver());
+        List<String> todos = row.getList("todos");
+        List<Boolean> completed = new ArrayList<>(Collections.nCopies(todos.size(), Boolean.FALSE));
+        for (String index : row.getList("completed")) {
+            completed.set(Integer.parseInt(index), Boolean.TRUE);
+        }
+        todoPage.applyState(TodoState.of(todos, completed));
+
+        switch (row.get("filter")) {
+        case "active":
+            todoPage.filterActiveToDoItems();
+            break;
+        case "completed":
+            todoPage.filterCompletedItems();
+            break;
+        default:
+            break;
+        }
+        Assert.assertEquals(todoPage.getTodoCount(), row.getInt("expectedVisible"), row.get("scenario"));
+    }
+}
@@ -2,52 +2,63 @@ package com.hmh.automation.tests;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.openqa.selenium.WebDriver;
 import org.testng.Assert;
-import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import com.aventstack.extentreports.Status;
 import com.hmh.automation.base.ExtentReportManager;
 import com.hmh.automation.base.TestDriverManager;
 import com.hmh.automation.pages.TodoPage;
-import com.hmh.automation.utils.ConfigReader;
+import com.hmh.automation.pages.TodoFixture;
 
 /**
  * Test class for verifying the functionality of the TodoMVC application.
  * This class extends WebBrowserDriverManager to manage browser setup and teardown.
+ * Every test declares the todo list it starts from with {@link TodoFixture}, so the tests
+ * do not depend on each other and can run in parallel and in any order. Fixtures only
+ * set up what a test does not check: tests about completing todos still tick them in the UI.
  */
 public class TodoPageTest extends TestDriverManager{
     
-    private WebDriver driver;
-    private TodoPage todoPage;
+    private final ThreadLocal<TodoPage> todoPage = new ThreadLocal<>();
     private static final String TASK_NAME_LONG_TEXT="this is supposed to be a very long task and you have to perform it in very less time";
     private static final Logger logger = LogManager.getLogger(TodoPageTest.class);
 
 
     /**
-     * Sets up the WebDriver and initializes the TodoPage object before running the tests.
-     * The browser type and URL are fetched from the configuration file.
+     * Creates the report entry for this class. Browsers are leased per test method
+     * from the shared driver pool, so no browser is started here.
      */
     @BeforeClass
     public void setUpTest() {
     	logger.info("Setting up the test..");
-    	test = ExtentReportManager.createTest("ToDo list test report");
-        driver = setup(ConfigReader.getConfig().getProperty("browser"),Boolean.valueOf(ConfigReader.getConfig().getProperty("runheadless")));  // Start browser
-        driver.get(ConfigReader.getConfig().getProperty("url"));  // Navigate to the application
-        todoPage = new TodoPage(driver);  // Initialize Page Object Model (POM)
+    	ExtentReportManager.setClassNodeName(TodoPageTest.class, "ToDo list test report");
+    }
+
+    /**
+     * Initializes the TodoPage object on the browser leased for the current test method.
+     * The leased browser is already on the application URL with an empty todo list.
+     */
+    @BeforeMethod
+    public void initPage() {
+        todoPage.set(new TodoPage(getDriver()));  // Initialize Page Object Model (POM)
+    }
+
+    private TodoPage todoPage() {
+        return todoPage.get();
     }
 
     /**
      * Test case to verify adding a single todo item.
      * It adds one todo item and verifies that the count is updated correctly.
      */
-    @Test(priority = 1)
+    @Test
     public void testAddTodoItem() {
     	logger.info("Inside testAddTodoItem to add task in todo ..");
-        todoPage.addTodoItem("Buy groceries");
-        Assert.assertEquals(todoPage.getTodoCount(), 1, "Todo count mismatch!");
+        todoPage().addTodoItem("Buy groceries");
+        Assert.assertEquals(todoPage().getTodoCount(), 1, "Todo count mismatch!");
         
     }
 
@@ -55,13 +66,12 @@ public class TodoPageTest extends TestDriverManager{
      * Test case to verify adding multiple todo items.
      * It adds multiple tasks and checks if the count matches the expected number.
      */
-    @Test(priority = 2)
+    @Test
     public void testAddMultipleTodoItems(){
     	logger.info("Inside testAddMultipleTodoItems to add multiple tasks in todo ..");
-    	todoPage.deleteAllTodoItem();
-        todoPage.addTodoItem("Read book");
-        todoPage.addTodoItem("Go for a walk");
-        Assert.assertEquals(todoPage.getTodoCount(), 2, "Incorrect number of todos added!");
+        todoPage().addTodoItem("Read book");
+        todoPage().addTodoItem("Go for a walk");
+        Assert.assertEquals(todoPage().getTodoCount(), 2, "Incorrect number of todos added!");
     }
     
     
@@ -69,25 +79,24 @@ public class TodoPageTest extends TestDriverManager{
      * Test case to mark a specific todo item as completed.
      * It completes the first task and asserts whether it is marked as completed.
      */
-    @Test(priority = 3, dependsOnMethods = "testAddMultipleTodoItems")
+    @Test
+    @TodoFixture(todos = { "Read book", "Go for a walk" })
     public void testCompleteTodo() {
     	logger.info("Inside testCompleteTodo to complete a task");
-        todoPage.completeTodoItem(0);  
-        Assert.assertTrue(todoPage.isTaskCompleted(0), "Task was not marked as completed!");
+        todoPage().completeTodoItem(0);  
+        Assert.assertTrue(todoPage().isTaskCompleted(0), "Task was not marked as completed!");
     }
 
     /**
      * Test case to mark all tasks as completed.
      * This method ensures that every task in the list is marked as completed.
      */
-    @Test(priority = 4)
+    @Test
+    @TodoFixture(todos = { "Read book", "Go for a walk" })
     public void testAllMarkedAsCompleted() {
     	logger.info("Inside testAllMarkedAsCompleted method to mark all task as complete"); 
-    	todoPage.deleteAllTodoItem();
-        todoPage.addTodoItem("Read book");
-        todoPage.addTodoItem("Go for a walk");
-        todoPage.markAllAsCompleted();
-        Assert.assertTrue(todoPage.isAllTaskCompleted(), "Tasks are still marked as not completed!");
+        todoPage().markAllAsCompleted();
+        Assert.assertTrue(todoPage().isAllTaskCompleted(), "Tasks are still marked as not completed!");
     }
 
     /**
@@ -95,15 +104,12 @@ public class TodoPageTest extends TestDriverManager{
      * Deletes the first item from the list and checks if the count is reduced accordingly.
      *
      */
-    @Test(priority = 5)
+    @Test
+    @TodoFixture(todos = { "This is a new task", "another task given", "task completed" })
     public void testDeleteTask() {
     	logger.info("Inside testDeleteTask method to delete a task");
-    	todoPage.deleteAllTodoItem();
-        todoPage.addTodoItem("This is a new task");
-        todoPage.addTodoItem("another task given");
-        todoPage.addTodoItem("task completed");
-        todoPage.deleteTodoItem(0);  // Delete the first task
-        Assert.assertEquals(todoPage.getTodoCount(), 2, "Todo count mismatch after deletion!");
+        todoPage().deleteTodoItem(0);  // Delete the first task
+        Assert.assertEquals(todoPage().getTodoCount(), 2, "Todo count mismatch after deletion!");
     }
 
 
@@ -111,193 +117,167 @@ public class TodoPageTest extends TestDriverManager{
      * Test case to verify the Clear Completed Button.
      * Deletes the completed task and reduces the list by 1.
      */
-    @Test(priority = 6, dependsOnMethods = "testDeleteTask")
+    @Test
+    @TodoFixture(todos = { "another task given", "task completed" })
     public void testClearCompletedTask() {
     	logger.info("Inside testClearCompletedTask method to delete a completed task");
-    	Assert.assertEquals(todoPage.getTodoCount(), 2);
-    	todoPage.completeTodoItem(0);
-    	todoPage.clearCompleteToDoItems();
-    	Assert.assertEquals(todoPage.getTodoCount(), 1);
+    	todoPage().completeTodoItem(0);
+    	Assert.assertEquals(todoPage().getTodoCount(), 2);
+    	todoPage().clearCompleteToDoItems();
+    	Assert.assertEquals(todoPage().getTodoCount(), 1);
     }
     
     
     /**
      * Test case to verify the 'completed' button returns completed task list and remaining task should be in active list
      */
-    @Test(priority = 7)
+    @Test
+    @TodoFixture(todos = { "new task given", "done with new task", "done with new task" })
     public void testCompletedTaskFilter() {
     	logger.info("Inside testCompletedTaskFilter method to check completed task list");
-    	todoPage.deleteAllTodoItem();
-        todoPage.addTodoItem("new task given");
-        todoPage.addTodoItem("done with new task");
-        todoPage.addTodoItem("done with new task");
-    	todoPage.completeTodoItem(0);
-    	todoPage.filterCompletedItems();
-    	Assert.assertEquals(todoPage.listOfCompletedToDoItems(),1);
+    	todoPage().completeTodoItem(0);
+    	todoPage().filterCompletedItems();
+    	Assert.assertEquals(todoPage().listOfCompletedToDoItems(),1);
     
     }
     
     /**
      * Test case to verify the 'Active' button returns Active task list and remaining tasks should be in completed list
      */
-    @Test(priority = 8)
+    @Test
+    @TodoFixture(todos = { "go for a spin", "watch movie" })
     public void testActiveTaskFilter() {
     	logger.info("Inside testActiveTaskFilter method to check Active task list");
-    	todoPage.deleteAllTodoItem();
-    	todoPage.addTodoItem("go for a spin");
-    	todoPage.addTodoItem("watch movie");
     	
-    	todoPage.filterActiveToDoItems();
-    	Assert.assertTrue(todoPage.listOfActiveToDoItems()>0);
-    	Assert.assertEquals(todoPage.listOfCompletedToDoItems(),0);
+    	todoPage().filterActiveToDoItems();
+    	Assert.assertTrue(todoPage().listOfActiveToDoItems()>0);
+    	Assert.assertEquals(todoPage().listOfCompletedToDoItems(),0);
     }
     
     /**
      * Test case to verify the 'All' button returns All tasks in the list
      */
-    @Test(priority = 9, dependsOnMethods = "testActiveTaskFilter")
+    @Test
+    @TodoFixture(todos = { "go for a spin", "watch movie" })
     public void testAllTasksFilter() {
     	logger.info("Inside testAllTasksFilter method to check all tasks in the list");
-    	todoPage.filterAllToDoItems();
-    	Assert.assertTrue(todoPage.getTodoCount()>0);
+    	todoPage().filterAllToDoItems();
+    	Assert.assertTrue(todoPage().getTodoCount()>0);
     }
     
     
     /**
      * Test case to verify the 'Completed' button returns Completed tasks in the list
      */
-    @Test(priority = 10)
+    @Test
+    @TodoFixture(todos = { "go hiking", "done with watching movie" })
     public void testWhenAllToDOAreComplete() {
     	logger.info("Inside testAllTasksFilter method to check all completed task list");
-    	todoPage.deleteAllTodoItem();
-    	todoPage.addTodoItem("go hiking");
-    	todoPage.addTodoItem("done with watching movie");
-    	todoPage.markAllAsCompleted();
-    	Assert.assertTrue(todoPage.listOfCompletedToDoItems()>0);
-    	Assert.assertTrue(todoPage.getTodoCount()>0);
-    	Assert.assertEquals(todoPage.listOfActiveToDoItems(),0);
+    	todoPage().markAllAsCompleted();
+    	Assert.assertTrue(todoPage().listOfCompletedToDoItems()>0);
+    	Assert.assertTrue(todoPage().getTodoCount()>0);
+    	Assert.assertEquals(todoPage().listOfActiveToDoItems(),0);
     }
     
     /**
      * Test case to verify the 'Active' button returns Active tasks in
      */
-    @Test(priority = 11, dependsOnMethods = "testWhenAllToDOAreComplete")
+    @Test
+    @TodoFixture(todos = { "go hiking", "done with watching movie" }, completed = { 0, 1 })
     public void testWhenAllToDOAreActive() {
     	logger.info("Inside testAllTasksFilter method to check all Active task list");
-    	todoPage.markAllAsCompleted();
-    	Assert.assertEquals(todoPage.listOfCompletedToDoItems(),0);
-    	Assert.assertTrue(todoPage.getTodoCount()>0);
-    	Assert.assertTrue(todoPage.listOfActiveToDoItems()>0);
+    	todoPage().markAllAsCompleted();
+    	Assert.assertEquals(todoPage().listOfCompletedToDoItems(),0);
+    	Assert.assertTrue(todoPage().getTodoCount()>0);
+    	Assert.assertTrue(todoPage().listOfActiveToDoItems()>0);
 
     }
     
     /**
      * Test case to filter after deleting a completed task
      */
-    @Test(priority = 12)
+    @Test
+    @TodoFixture(todos = { "this is good", "this is really good", "this is amazing" })
     public void testFilterAfterDeletingCompletedTask() {
     	logger.info("Inside testAllTasksFilter method to check list in all filters after deleting completed task");
-    	todoPage.deleteAllTodoItem();
-    	todoPage.addTodoItem("this is good");
-    	todoPage.addTodoItem("this is really good");
-    	todoPage.addTodoItem("this is amazing");
-    	todoPage.completeTodoItem(0);
-    	todoPage.completeTodoItem(1);
-    	todoPage.deleteTodoItem(0);
-    	Assert.assertEquals(todoPage.listOfCompletedToDoItems(),1);
-    	Assert.assertTrue(todoPage.getTodoCount()>0);
-    	Assert.assertTrue(todoPage.listOfActiveToDoItems()>0);
+    	todoPage().completeTodoItem(0);
+    	todoPage().completeTodoItem(1);
+    	todoPage().deleteTodoItem(0);
+    	Assert.assertEquals(todoPage().listOfCompletedToDoItems(),1);
+    	Assert.assertTrue(todoPage().getTodoCount()>0);
+    	Assert.assertTrue(todoPage().listOfActiveToDoItems()>0);
     	
     }
     
     /**
      * Test case to filter after deleting an active task
      */
-    @Test(priority = 13)
+    @Test
+    @TodoFixture(todos = { "this is good", "this is really good", "this is amazing",
+    		"this is an amazing experience" }, completed = 0)
     public void testFilterAfterDeletingActiveTask() {
     	logger.info("Inside testAllTasksFilter method to check list in all filters after deleting active task");
-    	todoPage.deleteAllTodoItem();
-    	todoPage.addTodoItem("this is good");
-    	todoPage.addTodoItem("this is really good");
-    	todoPage.addTodoItem("this is amazing");
-    	todoPage.addTodoItem("this is an amazing experience");
-    	todoPage.completeTodoItem(0);
-    	todoPage.deleteTodoItem(2);
-    	Assert.assertEquals(todoPage.listOfCompletedToDoItems(),1);
-    	Assert.assertTrue(todoPage.getTodoCount()>0);
-    	Assert.assertEquals(todoPage.listOfActiveToDoItems(),2);
+    	todoPage().deleteTodoItem(2);
+    	Assert.assertEquals(todoPage().listOfCompletedToDoItems(),1);
+    	Assert.assertTrue(todoPage().getTodoCount()>0);
+    	Assert.assertEquals(todoPage().listOfActiveToDoItems(),2);
     	
     }
    
     /**
      * Test entering a long name
      */
-    @Test(priority = 14)
+    @Test
     public void testEnteringLongName() {
     	logger.info("Inside testAllTasksFilter method to check whether a long task can be included or not");
-    	todoPage.deleteAllTodoItem();
-    	todoPage.addTodoItem(TASK_NAME_LONG_TEXT);
-    	Assert.assertEquals(todoPage.getToDoText(0),TASK_NAME_LONG_TEXT);
+    	todoPage().addTodoItem(TASK_NAME_LONG_TEXT);
+    	Assert.assertEquals(todoPage().getToDoText(0),TASK_NAME_LONG_TEXT);
 
     }
     
     /**
      * Test entering a string with spaces at the start and end
      */
-    @Test(priority = 15)
+    @Test
     public void testEnteringSpaceBeforeAfterString() {
     	logger.info("Inside testEnteringSpaceBeforeAfterString method to check trimming of string");
-    	todoPage.deleteAllTodoItem();
-    	todoPage.addTodoItem("  This is new task  ");
-    	Assert.assertEquals(todoPage.getToDoText(0),"This is new task");
+    	todoPage().addTodoItem("  This is new task  ");
+    	Assert.assertEquals(todoPage().getToDoText(0),"This is new task");
     }
    
     /**
      * Test entering special characters
      */
-    @Test(priority = 16)
+    @Test
     public void testEnteringSpecialCharacter() {
     	logger.info("Inside testEnteringSpecialCharacter method to check special character can be added or not");
-    	todoPage.deleteAllTodoItem();
     	String specialChar="!@#$%^";
-    	todoPage.addTodoItem(specialChar);
-    	Assert.assertEquals(todoPage.getToDoText(0),specialChar);
+    	todoPage().addTodoItem(specialChar);
+    	Assert.assertEquals(todoPage().getToDoText(0),specialChar);
     }
     
     /**
      * Test entering duplicate tasks
      */
-    @Test(priority = 17)
+    @Test
     public void testDuplicateToDotask() {
     	logger.info("Inside testDuplicateToDoAtsk method to check duplicate tasks can be entered or not");
-    	todoPage.deleteAllTodoItem();
-    	todoPage.addTodoItem("test1");
-    	todoPage.addTodoItem("test1");
-    	Assert.assertEquals(todoPage.getTodoCount(),2);
+    	todoPage().addTodoItem("test1");
+    	todoPage().addTodoItem("test1");
+    	Assert.assertEquals(todoPage().getTodoCount(),2);
     }
     
     /**
      * Test for marking task which are already marked as complete 
      */
-    @Test(priority = 18)
+    @Test
+    @TodoFixture(todos = "test1")
     public void testMarkAsCompletedAlreadyCompletedTask() {
     	logger.info("Inside testMarkAsCompletedAlreadyCompletedTask method to uncheck the current completed task");
-    	todoPage.deleteAllTodoItem();
-    
-    	todoPage.addTodoItem("test1");
     	
-    	todoPage.completeTodoItem(0);
-    	todoPage.completeTodoItem(0);
+    	todoPage().completeTodoItem(0);
+    	todoPage().completeTodoItem(0);
 
-    	Assert.assertEquals(todoPage.listOfCompletedToDoItems(),0);
+    	Assert.assertEquals(todoPage().listOfCompletedToDoItems(),0);
     }    
-   
-    
-    /**
-     * Cleans up and closes the browser after test execution.
-     */
-    @AfterClass
-    public void tearDownTest() {
-        teardown();  
-    }
 }
@@ -0,0 +1,146 @@
+package com.hmh.automation.tests;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriver.Timeouts;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import com.aventstack.extentreports.markuputils.ExtentColor;
+import com.aventstack.extentreports.markuputils.MarkupHelper;
+import com.hmh.automation.base.ExtentReportManager;
+import com.hmh.automation.base.TestDriverManager;
+import com.hmh.automation.pages.TodoPage;
+import com.hmh.automation.pages.TodoState;
+import com.hmh.automation.utils.FrameworkConfig;
+import com.hmh.automation.utils.LatencyRecorder;
+
+/**
+ * Scale test mode for the TodoMVC page. Seeds large todo lists (scaleSizes in
+ * config.properties), runs the read, filter, delete, toggle-all and
+ * clear-completed flows against them and reports latency percentiles per
+ * operation. "framework" timings are measured around the TodoPage call in the
+ * test; "app" timings are measured inside the browser from the click to the
+ * next rendered frame. The mode is off by default; enable it with
+ * scaleTest=true or -DscaleTest=true.
+ */
+public class TodoScaleTest extends TestDriverManager {
+
+	private static final Logger logger = LogManager.getLogger(TodoScaleTest.class);
+
+	/**
+	 * Records, for every click, the time until the frame after the click has
+	 * been rendered.
+	 */
+	private static final String INSTALL_APP_TIMER_SCRIPT = "if (!window.__hmhAppTimings) {"
+			+ "  window.__hmhAppTimings = [];"
+			+ "  document.addEventListener('click', function () {"
+			+ "    var start = performance.now();"
+			+ "    requestAnimationFrame(function () { setTimeout(function () {"
+			+ "      window.__hmhAppTimings.push(performance.now() - start);"
+			+ "    }, 0); });"
+			+ "  }, true);"
+			+ "}";
+
+	/**
+	 * Waits for pending frames, then returns and clears the recorded app timings.
+	 */
+	private static final String DRAIN_APP_TIMINGS_SCRIPT = "var done = arguments[arguments.length - 1];"
+			+ "requestAnimationFrame(function () { setTimeout(function () {"
+			+ "  var timings = window.__hmhAppTimings || [];"
+			+ "  window.__hmhAppTimings = [];"
+			+ "  done(timings);"
+			+ "}, 0); });";
+
+	@BeforeClass
+	public void setUpScaleTest() {
+		if (!FrameworkConfig.get().isScaleTest()) {
+			throw new SkipException("Scale test mode is off, set scaleTest=true to run it");
+		}
+		ExtentReportManager.setClassNodeName(TodoScaleTest.class, "ToDo list scale test report");
+	}
+
+	@DataProvider
+	public Object[][] listSizes() {
+		List<Integer> sizes = FrameworkConfig.get().getScaleSizes();
+		Object[][] data = new Object[sizes.size()][];
+		for (int i = 0; i < sizes.size(); i++) {
+			data[i] = new Object[] { sizes.get(i) };
+		}
+		return data;
+	}
+
+	/**
+	 * Seeds a list of the given size and times every flow on it for the
+	 * configured number of iterations.
+	 */
+	@Test(dataProvider = "listSizes")
+	public void testTodoListAtScale(int size) {
+		logger.info("Inside testTodoListAtScale with {} todos", size);
+		WebDriver driver = getDriver();
+		// the session goes back to the pool, so the next test must get the configured timeout again
+		Timeouts timeouts = driver.manage().timeouts();
+		Duration scriptTimeout = timeouts.getScriptTimeout();
+		timeouts.scriptTimeout(FrameworkConfig.get().getScaleScriptTimeout());
+		LatencyRecorder recorder = new LatencyRecorder();
+		try {
+			TodoPage todoPage = new TodoPage(driver);
+			TodoState state = generateState(size);
+
+			for (int iteration = 0; iteration < FrameworkConfig.get().getScaleIterations(); iteration++) {
+				recorder.time("framework:applyState", () -> todoPage.applyState(state));
+				((JavascriptExecutor) driver).executeScript(INSTALL_APP_TIMER_SCRIPT);
+
+				recorder.time("framework:getTodoCount", todoPage::getTodoCount);
+				recorder.time("framework:listOfCompletedToDoItems", todoPage::listOfCompletedToDoItems);
+				recorder.time("framework:snapshot", todoPage::snapshot);
+				timeInteraction(recorder, driver, "filterActiveToDoItems", todoPage::filterActiveToDoItems);
+				timeInteraction(recorder, driver, "filterCompletedItems", todoPage::filterCompletedItems);
+				timeInteraction(recorder, driver, "filterAllToDoItems", todoPage::filterAllToDoItems);
+				timeInteraction(recorder, driver, "deleteTodoItem", () -> todoPage.deleteTodoItem(0));
+				timeInteraction(recorder, driver, "markAllAsCompleted", todoPage::markAllAsCompleted);
+				recorder.time("framework:isAllTaskCompleted", todoPage::isAllTaskCompleted);
+				timeInteraction(recorder, driver, "clearCompleteToDoItems", todoPage::clearCompleteToDoItems);
+
+				Assert.assertEquals(todoPage.getTodoCount(), 0, "Clear completed left todos behind");
+			}
+		} finally {
+			timeouts.scriptTimeout(scriptTimeout);
+		}
+
+		logger.info("Latency percentiles for {} todos:{}", size, recorder.summary());
+		String[][] table = recorder.summaryTable();
+		ExtentReportManager.log(node -> node.info(MarkupHelper.createLabel(size + " todos", ExtentColor.BLUE)));
+		ExtentReportManager.log(node -> node.info(MarkupHelper.createTable(table)));
+	}
+
+	private static void timeInteraction(LatencyRecorder recorder, WebDriver driver, String name, Runnable action) {
+		recorder.time("framework:" + name, action);
+		Object timings = ((JavascriptExecutor) driver).executeAsyncScript(DRAIN_APP_TIMINGS_SCRIPT);
+		for (Object timing : (List<?>) timings) {
+			recorder.recordMillis("app:" + name, ((Number) timing).doubleValue());
+		}
+	}
+
+	/**
+	 * Builds a list of the given size where every third todo is completed.
+	 */
+	private static TodoState generateState(int size) {
+		List<String> titles = new ArrayList<>(size);
+		List<Boolean> completed = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			titles.add("scale todo " + i);
+			completed.add(i % 3 == 0);
+		}
+		return TodoState.of(titles, completed);
+	}
+}
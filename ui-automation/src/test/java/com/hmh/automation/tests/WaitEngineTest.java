@@ -0,0 +1,74 @@
+package com.hmh.automation.tests;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.openqa.selenium.TimeoutException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.hmh.automation.waits.WaitEngine;
+
+/**
+ * Test class for the timeouts the wait engine learns from settle times. Runs without a browser.
+ */
+public class WaitEngineTest {
+
+    private static final long MIN_TIMEOUT = 10;
+    private static final long MAX_TIMEOUT = 2000;
+
+    /**
+     * Test that a condition keeps the maximum timeout until it has settled often enough to learn from.
+     */
+    @Test
+    public void testTimeoutIsLearnedAfterEnoughSettles() throws Exception {
+        WaitEngine engine = engine(Files.createTempDirectory("waits").resolve("history.properties"));
+        engine.until("fast", () -> true);
+        Assert.assertEquals(engine.timeoutFor("fast"), MAX_TIMEOUT, "One settle is not enough history");
+
+        for (int i = 1; i < WaitEngine.LEARNING_SAMPLES; i++) {
+            engine.until("fast", () -> true);
+        }
+        Assert.assertTrue(engine.timeoutFor("fast") < MAX_TIMEOUT, String.valueOf(engine.timeoutFor("fast")));
+    }
+
+    /**
+     * Test that a timeout clears the learned timeout, for polled and notified waits and across a save.
+     */
+    @Test
+    public void testTimeoutResetsLearnedTimeout() throws Exception {
+        Path historyFile = Files.createTempDirectory("waits").resolve("history.properties");
+        WaitEngine engine = engine(historyFile);
+        learn(engine, "polled");
+        try {
+            engine.until("polled", () -> false);
+            Assert.fail("Unmet condition returned");
+        } catch (TimeoutException e) {
+            Assert.assertTrue(e.getMessage().contains("polled"), e.getMessage());
+        }
+        Assert.assertEquals(engine.timeoutFor("polled"), MAX_TIMEOUT);
+
+        learn(engine, "notified");
+        try {
+            engine.untilNotified("notified", timeoutMillis -> null);
+            Assert.fail("Unmet condition returned");
+        } catch (TimeoutException e) {
+            Assert.assertTrue(e.getMessage().contains("notified"), e.getMessage());
+        }
+        Assert.assertEquals(engine.timeoutFor("notified"), MAX_TIMEOUT);
+
+        engine.save();
+        Assert.assertEquals(engine(historyFile).timeoutFor("notified"), MAX_TIMEOUT, "The reset is saved");
+    }
+
+    private static void learn(WaitEngine engine, String name) {
+        for (int i = 0; i < WaitEngine.LEARNING_SAMPLES; i++) {
+            engine.until(name, () -> true);
+        }
+        Assert.assertTrue(engine.timeoutFor(name) < MAX_TIMEOUT, String.valueOf(engine.timeoutFor(name)));
+    }
+
+    private static WaitEngine engine(Path historyFile) {
+        return new WaitEngine(1, 2, 5, MIN_TIMEOUT, MAX_TIMEOUT, 3, historyFile);
+    }
+}
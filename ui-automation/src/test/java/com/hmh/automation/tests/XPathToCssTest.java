@@ -0,0 +1,73 @@
+package com.hmh.automation.tests;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.hmh.automation.locators.XPathToCss;
+
+/**
+ * Test class for the XPath to CSS locator rewrite. Runs without a browser.
+ */
+public class XPathToCssTest {
+
+    /**
+     * Test that id and exact attribute predicates become CSS id and attribute selectors.
+     */
+    @Test
+    public void testAttributeEquality() {
+        Assert.assertEquals(XPathToCss.compile("//input[@id='todo-input']"), "input#todo-input");
+        Assert.assertEquals(XPathToCss.compile("//ul[@class='todo-list']//li"), "ul[class='todo-list'] li");
+    }
+
+    /**
+     * Test that backslashes and quotes in attribute values are escaped, since XPath literals have no
+     * escapes but CSS strings do.
+     */
+    @Test
+    public void testAttributeValueEscaping() {
+        Assert.assertEquals(XPathToCss.compile("//input[@title='C:\\todo']"), "input[title='C:\\\\todo']");
+        Assert.assertEquals(XPathToCss.compile("//input[@title=\"it's \\ \"]"), "input[title=\"it's \\\\ \"]");
+        Assert.assertEquals(XPathToCss.compile("//input[contains(@title, 'a\\b')]"), "input[title*='a\\\\b']");
+    }
+
+    /**
+     * Test that child and descendant steps are kept apart.
+     */
+    @Test
+    public void testChildAndDescendantSteps() {
+        Assert.assertEquals(XPathToCss.compile("//ul[@class='todo-list']/li//input[@class='toggle']"),
+                "ul[class='todo-list'] > li input[class='toggle']");
+    }
+
+    /**
+     * Test contains() and not(contains()) predicates.
+     */
+    @Test
+    public void testContainsAndNot() {
+        Assert.assertEquals(
+                XPathToCss.compile("//div[contains(@class, 'input-container')]//input[contains(@class, 'new-todo')]"),
+                "div[class*='input-container'] input[class*='new-todo']");
+        Assert.assertEquals(XPathToCss.compile("//ul[@class='todo-list']//li[not(contains(@class, 'completed'))]"),
+                "ul[class='todo-list'] li:not([class*='completed'])");
+    }
+
+    /**
+     * Test that relative locators are translated for use below a scope element.
+     */
+    @Test
+    public void testRelativeLocators() {
+        Assert.assertEquals(XPathToCss.compile(".//li"), "li");
+        Assert.assertEquals(XPathToCss.compile("./li//button[@class='destroy']"), ":scope > li button[class='destroy']");
+    }
+
+    /**
+     * Test that XPath features without a CSS equivalent are left untranslated.
+     */
+    @Test
+    public void testUnsupportedXPathIsNotTranslated() {
+        Assert.assertNull(XPathToCss.compile("//button[normalize-space()='Clear completed']"));
+        Assert.assertNull(XPathToCss.compile("//ul/li[2]"));
+        Assert.assertNull(XPathToCss.compile("/html/body"));
+        Assert.assertNull(XPathToCss.compile("//li/.."));
+    }
+}
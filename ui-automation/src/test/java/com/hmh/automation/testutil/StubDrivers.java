@@ -0,0 +1,60 @@
+package com.hmh.automation.testutil;
+
+import java.lang.reflect.Proxy;
+
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Stub WebDriver sessions for tests that run without a browser. A stub is a
+ * proxy that answers hashCode, equals and toString itself and hands every
+ * other call to a {@link Handler}.
+ */
+public final class StubDrivers {
+
+    private StubDrivers() {
+    }
+
+    /**
+     * Answers the calls made on a stub driver.
+     */
+    public interface Handler {
+        /**
+         * @param method name of the called method
+         * @param args   the call's arguments, empty for none
+         * @return the call's result, null for void methods
+         */
+        Object handle(String method, Object[] args);
+    }
+
+    /**
+     * @param handler    answers every call other than hashCode, equals and toString
+     * @param interfaces interfaces the stub implements besides WebDriver, such as
+     *                   JavascriptExecutor or TakesScreenshot
+     * @return a stub driver
+     */
+    public static WebDriver stub(Handler handler, Class<?>... interfaces) {
+        Class<?>[] types = new Class<?>[interfaces.length + 1];
+        types[0] = WebDriver.class;
+        System.arraycopy(interfaces, 0, types, 1, interfaces.length);
+        return (WebDriver) Proxy.newProxyInstance(StubDrivers.class.getClassLoader(), types,
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    case "toString":
+                        return "stub driver";
+                    default:
+                        return handler.handle(method.getName(), args == null ? new Object[0] : args);
+                    }
+                });
+    }
+
+    /**
+     * @return the exception a handler throws for a call its test does not expect
+     */
+    public static UnsupportedOperationException unsupported(String method) {
+        return new UnsupportedOperationException(method);
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * TodoMVC in plain JavaScript, rendering the same markup as the React
+ * example on todomvc.com so the page objects work against both. Todos live
+ * in page memory only and are gone after a reload.
+ */
+(function () {
+	'use strict';
+
+	var todos = [];
+	var nextId = 1;
+	var editingId = null;
+
+	var input = document.getElementById('todo-input');
+	var list = document.querySelector('.todo-list');
+	var main = document.querySelector('.main');
+	var footer = document.querySelector('.footer');
+	var toggleAll = document.getElementById('toggle-all');
+	var count = document.querySelector('.todo-count');
+	var clearCompleted = document.querySelector('.clear-completed');
+
+	function route() {
+		var hash = window.location.hash;
+		return hash === '#/active' ? 'active' : hash === '#/completed' ? 'completed' : 'all';
+	}
+
+	function visible(todo) {
+		var filter = route();
+		return filter === 'all' || (filter === 'active') !== todo.completed;
+	}
+
+	function find(id) {
+		for (var i = 0; i < todos.length; i++) {
+			if (todos[i].id === id) {
+				return todos[i];
+			}
+		}
+		return null;
+	}
+
+	function add(title) {
+		title = title.trim();
+		// like the React app, ignore titles shorter than two characters
+		if (title.length > 1) {
+			todos.push({ id: nextId++, title: title, completed: false });
+		}
+	}
+
+	function remove(id) {
+		todos = todos.filter(function (todo) {
+			return todo.id !== id;
+		});
+	}
+
+	function renderItem(todo) {
+		var li = document.createElement('li');
+		li.setAttribute('data-testid', 'todo-item');
+		li.className = todo.completed ? 'completed' : '';
+		li.dataset.id = todo.id;
+
+		var view = document.createElement('div');
+		view.className = 'view';
+		var toggle = document.createElement('input');
+		toggle.className = 'toggle';
+		toggle.type = 'checkbox';
+		toggle.checked = todo.completed;
+		toggle.setAttribute('data-testid', 'todo-item-toggle');
+		var label = document.createElement('label');
+		label.setAttribute('data-testid', 'todo-item-label');
+		label.textContent = todo.title;
+		var destroy = document.createElement('button');
+		destroy.className = 'destroy';
+		destroy.setAttribute('data-testid', 'todo-item-button');
+		view.appendChild(toggle);
+		view.appendChild(label);
+		view.appendChild(destroy);
+		li.appendChild(view);
+
+		if (todo.id === editingId) {
+			li.className += ' editing';
+			var container = document.createElement('div');
+			container.className = 'input-container';
+			var edit = document.createElement('input');
+			edit.className = 'edit new-todo';
+			edit.type = 'text';
+			edit.value = todo.title;
+			edit.setAttribute('data-testid', 'text-input');
+			container.appendChild(edit);
+			li.appendChild(container);
+		}
+		return li;
+	}
+
+	function render() {
+		var fragment = document.createDocumentFragment();
+		var active = 0;
+		todos.forEach(function (todo) {
+			if (!todo.completed) {
+				active++;
+			}
+			if (visible(todo)) {
+				fragment.appendChild(renderItem(todo));
+			}
+		});
+		list.textContent = '';
+		list.appendChild(fragment);
+
+		var empty = todos.length === 0;
+		main.classList.toggle('hidden', empty);
+		footer.classList.toggle('hidden', empty);
+		toggleAll.checked = !empty && active === 0;
+		count.textContent = active + (active === 1 ? ' item' : ' items') + ' left!';
+		clearCompleted.disabled = active === todos.length;
+		document.querySelectorAll('.filters a').forEach(function (link) {
+			link.className = link.getAttribute('href') === (window.location.hash || '#/') ? 'selected' : '';
+		});
+
+		var edit = list.querySelector('li.editing .edit');
+		if (edit) {
+			edit.focus();
+			edit.setSelectionRange(edit.value.length, edit.value.length);
+		}
+	}
+
+	function finishEdit(save) {
+		var edit = list.querySelector('li.editing .edit');
+		var todo = find(editingId);
+		editingId = null;
+		if (save && edit && todo) {
+			var title = edit.value.trim();
+			if (title) {
+				todo.title = title;
+			} else {
+				remove(todo.id);
+			}
+		}
+		render();
+	}
+
+	function idOf(element) {
+		var li = element.closest('li[data-id]');
+		return li ? Number(li.dataset.id) : null;
+	}
+
+	input.addEventListener('keydown', function (event) {
+		if (event.key === 'Enter') {
+			add(input.value);
+			input.value = '';
+			render();
+		}
+	});
+
+	toggleAll.addEventListener('change', function () {
+		var completed = toggleAll.checked;
+		todos.forEach(function (todo) {
+			todo.completed = completed;
+		});
+		render();
+	});
+
+	clearCompleted.addEventListener('click', function () {
+		todos = todos.filter(function (todo) {
+			return !todo.completed;
+		});
+		render();
+	});
+
+	list.addEventListener('change', function (event) {
+		if (event.target.classList.contains('toggle')) {
+			var todo = find(idOf(event.target));
+			todo.completed = event.target.checked;
+			render();
+		}
+	});
+
+	list.addEventListener('click', function (event) {
+		if (event.target.classList.contains('destroy')) {
+			remove(idOf(event.target));
+			render();
+		}
+	});
+
+	list.addEventListener('dblclick', function (event) {
+		if (event.target.tagName === 'LABEL') {
+			editingId = idOf(event.target);
+			render();
+		}
+	});
+
+	list.addEventListener('keydown', function (event) {
+		if (event.target.classList.contains('edit')) {
+			if (event.key === 'Enter') {
+				finishEdit(true);
+			} else if (event.key === 'Escape') {
+				finishEdit(false);
+			}
+		}
+	});
+
+	list.addEventListener('focusout', function (event) {
+		if (event.target.classList.contains('edit') && editingId !== null) {
+			finishEdit(true);
+		}
+	});
+
+	window.addEventListener('hashchange', render);
+	render();
+})();